@@ -196,4 +196,6 @@ public class SpecialKeywords {
     
     
     public final static String DEFAULT_VIDEO_FILENAME = "%s.mp4";
+    // suffix of the artifact which is still being written
+    public final static String PARTIAL_ARTIFACT_SUFFIX = ".part";
 }
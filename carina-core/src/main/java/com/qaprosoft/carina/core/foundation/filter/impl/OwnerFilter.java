@@ -1,7 +1,6 @@
 package com.qaprosoft.carina.core.foundation.filter.impl;
 
 import java.lang.invoke.MethodHandles;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -9,7 +8,8 @@ import org.slf4j.LoggerFactory;
 import org.testng.ITestNGMethod;
 
 import com.qaprosoft.carina.core.foundation.filter.IFilter;
-import com.qaprosoft.carina.core.foundation.utils.ownership.MethodOwner;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadata;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadataRegistry;
 
 public class OwnerFilter implements IFilter {
 
@@ -17,13 +17,9 @@ public class OwnerFilter implements IFilter {
 
     @Override
     public boolean isPerform(ITestNGMethod testMethod, List<String> expectedData) {
-
-        MethodOwner.List ownerAnnotation = testMethod.getConstructorOrMethod().getMethod().getAnnotation(MethodOwner.List.class);
-        if (ownerAnnotation != null) {
-        	List<String> owners = new ArrayList<String>();
-        	for (MethodOwner methodOwner : ownerAnnotation.value()) {
-        		owners.add(methodOwner.owner().toLowerCase());
-            }
+        TestMetadata metadata = TestMetadataRegistry.getOrCollect(testMethod);
+        if (metadata != null && !metadata.getOwners().isEmpty()) {
+            List<String> owners = metadata.getOwners();
             LOGGER.info(String.format("Test: [%s]. Owners: %s. Expected owner: [%s]", testMethod.getMethodName(), owners.toString(),
                     expectedData.toString()));
             return expectedData.parallelStream().anyMatch(d -> owners.contains(d.toLowerCase()));
@@ -8,8 +8,8 @@ import org.slf4j.LoggerFactory;
 import org.testng.ITestNGMethod;
 
 import com.qaprosoft.carina.core.foundation.filter.IFilter;
-import com.qaprosoft.carina.core.foundation.utils.tag.Priority;
-import com.qaprosoft.carina.core.foundation.utils.tag.TestPriority;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadata;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadataRegistry;
 
 public class PriorityFilter implements IFilter {
 
@@ -17,10 +17,9 @@ public class PriorityFilter implements IFilter {
 
     @Override
     public boolean isPerform(ITestNGMethod testMethod, List<String> expectedData) {
-        TestPriority priority = testMethod.getConstructorOrMethod().getMethod().getAnnotation(TestPriority.class);
-        if (priority != null) {
-            Priority testPriority = priority.value();
-            String actualTestPriority = testPriority.toString();
+        TestMetadata metadata = TestMetadataRegistry.getOrCollect(testMethod);
+        if (metadata != null && metadata.getTestPriority() != null) {
+            String actualTestPriority = metadata.getTestPriority();
             LOGGER.info(String.format("Test: [%s]. Priority: [%s]. Expected priority: [%s]", testMethod.getMethodName(), actualTestPriority,
                     expectedData.toString()));
             return expectedData.parallelStream().anyMatch(d -> d.equals(actualTestPriority));
@@ -8,7 +8,8 @@ import org.slf4j.LoggerFactory;
 import org.testng.ITestNGMethod;
 
 import com.qaprosoft.carina.core.foundation.filter.IFilter;
-import com.qaprosoft.carina.core.foundation.utils.tag.TestTag;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadata;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadataRegistry;
 
 public class TagFilter implements IFilter {
 
@@ -16,35 +17,12 @@ public class TagFilter implements IFilter {
 
     @Override
     public boolean isPerform(ITestNGMethod testMethod, List<String> expectedData) {
-        String tagName;
-        String tagValue;
-
-        if (testMethod != null) {
-            if (testMethod.getConstructorOrMethod().getMethod().isAnnotationPresent(TestTag.class)) {
-                TestTag methodAnnotation = testMethod.getConstructorOrMethod().getMethod().getAnnotation(TestTag.class);
-
-                if (methodAnnotation != null) {
-                    tagName = methodAnnotation.name();
-                    tagValue = methodAnnotation.value();
-                    String tag = tagName + "=" + tagValue;
-                    LOGGER.info(String.format("Test: [%s]. Tag: [%s]. Expected tag: [%s]", testMethod.getMethodName(), tag, expectedData.toString()));
-                    return expectedData.parallelStream().anyMatch(d -> d.equalsIgnoreCase(tag));
-                }
-            }
-
-            if (testMethod.getConstructorOrMethod().getMethod().isAnnotationPresent(TestTag.List.class)) {
-                TestTag.List methodAnnotation = testMethod.getConstructorOrMethod().getMethod().getAnnotation(TestTag.List.class);
-                for (TestTag tagLocal : methodAnnotation.value()) {
-                    if (tagLocal != null) {
-                        tagName = tagLocal.name();
-                        tagValue = tagLocal.value();
-                        String tag = tagName + "=" + tagValue;
-                        LOGGER.info(
-                                String.format("Test: [%s]. Tag: [%s]. Expected tag: [%s]", testMethod.getMethodName(), tag, expectedData.toString()));
-                        return expectedData.parallelStream().anyMatch(d -> d.equalsIgnoreCase(tag));
-                    }
-                }
-            }
+        TestMetadata metadata = TestMetadataRegistry.getOrCollect(testMethod);
+        if (metadata != null && !metadata.getTestTags().isEmpty()) {
+            // the first declared tag is evaluated
+            String tag = metadata.getTestTags().get(0);
+            LOGGER.info(String.format("Test: [%s]. Tag: [%s]. Expected tag: [%s]", testMethod.getMethodName(), tag, expectedData.toString()));
+            return expectedData.parallelStream().anyMatch(d -> d.equalsIgnoreCase(tag));
         }
         return false;
     }
@@ -16,12 +16,14 @@
 package com.qaprosoft.carina.core.foundation.listeners;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
 import java.lang.invoke.MethodHandles;
-import java.lang.reflect.Method;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -40,6 +42,8 @@ import org.apache.log4j.PropertyConfigurator;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.support.events.EventFiringWebDriver;
 import org.testng.Assert;
+import org.testng.IDataProviderInterceptor;
+import org.testng.IDataProviderMethod;
 import org.testng.ISuite;
 import org.testng.ISuiteListener;
 import org.testng.ITestContext;
@@ -62,7 +66,10 @@ import com.qaprosoft.amazon.AmazonS3Manager;
 import com.qaprosoft.appcenter.AppCenterManager;
 import com.qaprosoft.carina.browsermobproxy.ProxyPool;
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.db.mongo.MongoConnector;
 import com.qaprosoft.carina.core.foundation.jira.Jira;
+import com.qaprosoft.carina.core.foundation.performance.RunStatistics;
+import com.qaprosoft.carina.core.foundation.report.ArtifactPipeline;
 import com.qaprosoft.carina.core.foundation.report.ReportContext;
 import com.qaprosoft.carina.core.foundation.report.TestResultItem;
 import com.qaprosoft.carina.core.foundation.report.TestResultType;
@@ -79,6 +86,7 @@ import com.qaprosoft.carina.core.foundation.utils.R;
 import com.qaprosoft.carina.core.foundation.utils.ZebrunnerNameResolver;
 import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
 import com.qaprosoft.carina.core.foundation.utils.ftp.FtpUtils;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadataRegistry;
 import com.qaprosoft.carina.core.foundation.utils.ownership.Ownership;
 import com.qaprosoft.carina.core.foundation.utils.resources.L10N;
 import com.qaprosoft.carina.core.foundation.utils.resources.L10Nparser;
@@ -91,6 +99,7 @@ import com.qaprosoft.carina.core.foundation.webdriver.TestPhase;
 import com.qaprosoft.carina.core.foundation.webdriver.TestPhase.Phase;
 import com.qaprosoft.carina.core.foundation.webdriver.core.capability.CapabilitiesLoader;
 import com.qaprosoft.carina.core.foundation.webdriver.device.Device;
+import com.qaprosoft.carina.core.foundation.webdriver.listener.MobileRecordingListener;
 import com.qaprosoft.carina.core.foundation.webdriver.screenshot.AutoScreenshotRule;
 import com.qaprosoft.carina.core.foundation.webdriver.screenshot.IScreenshotRule;
 import com.zebrunner.agent.core.registrar.Artifact;
@@ -106,7 +115,7 @@ import com.zebrunner.agent.testng.core.testname.TestNameResolverRegistry;
  * 
  * @author Vadim Delendik
  */
-public class CarinaListener extends AbstractTestListener implements ISuiteListener, IQTestManager, ITestRailManager {
+public class CarinaListener extends AbstractTestListener implements ISuiteListener, IDataProviderInterceptor, IQTestManager, ITestRailManager {
     private static final Logger LOGGER = Logger.getLogger(MethodHandles.lookup().lookupClass());
 
     protected static final long EXPLICIT_TIMEOUT = Configuration.getLong(Parameter.EXPLICIT_TIMEOUT);
@@ -177,6 +186,13 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
         // first means that ownership/maintainer resolver from carina has higher priority
         ChainedMaintainerResolver.addFirst(new Ownership(suite.getParameter("suiteOwner")));
 
+        // statistics of caches, counters and retries are collected per suite
+        RunStatistics.reset();
+
+        // collect tags, priorities, tickets and expected skip rules of all suite methods once
+        TestMetadataRegistry.init(suite.getAllMethods());
+        ExpectedSkipManager.getInstance().init(suite.getAllMethods());
+
         List<String> coreLogPackages = new ArrayList<String>(
                 Arrays.asList(Configuration.get(Parameter.CORE_LOG_PACKAGES).split(",")));
         if (coreLogPackages.size() > 0 && !"INFO".equalsIgnoreCase(Configuration.get(Parameter.CORE_LOG_LEVEL))) {
@@ -258,11 +274,28 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
         }
     }
     
+    @Override
+    public Iterator<Object[]> intercept(Iterator<Object[]> parameters, IDataProviderMethod dataProviderMethod, ITestNGMethod method,
+            ITestContext context) {
+        // build naming plan of the method once instead of resolving data provider line on each test start
+        return TestNamingService.registerDataProvider(parameters, method, context);
+    }
+
+    @Override
+    public void onConfigurationSuccess(ITestResult result) {
+        LOGGER.debug("CarinaListener->onConfigurationSuccess");
+        // attach artifacts produced by configuration method, e.g. UI dumps of @After* methods
+        ArtifactPipeline.await();
+
+        super.onConfigurationSuccess(result);
+    }
+
     @Override
     public void onConfigurationFailure(ITestResult result) {
         LOGGER.debug("CarinaListener->onConfigurationFailure");
         String errorMessage = getFailureReason(result);
         takeScreenshot(result, "CONFIGURATION FAILED - " + errorMessage);
+        ArtifactPipeline.await();
 
         super.onConfigurationFailure(result);
     }
@@ -273,8 +306,7 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
         TestPhase.setActivePhase(Phase.METHOD);
 
         // handle expected skip
-        Method testMethod = result.getMethod().getConstructorOrMethod().getMethod();
-        if (ExpectedSkipManager.getInstance().isSkip(testMethod, result.getTestContext())) {
+        if (ExpectedSkipManager.getInstance().isSkip(result.getMethod(), result.getTestContext())) {
             skipExecution("Based on rule listed above");
         }
 
@@ -343,6 +375,9 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
                 }
             }
 
+            // attach UI dumps and other artifacts of the current test produced in background
+            ArtifactPipeline.await();
+
             List<String> tickets = Jira.getTickets(result);
             result.setAttribute(SpecialKeywords.JIRA_TICKET, tickets);
             
@@ -381,7 +416,7 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
             // String suiteName = getSuiteName(context);
             String title = getTitle(suite.getXmlSuite());
 
-            TestResultType testResult = EmailReportGenerator.getSuiteResult(EmailReportItemCollector.getTestResults());
+            TestResultType testResult = EmailReportGenerator.getSuiteResult();
             String status = testResult.getName();
 
             title = status + ": " + title;
@@ -409,14 +444,20 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
                     deviceName, browser, DateUtils.now(), EmailReportItemCollector.getTestResults(),
                     EmailReportItemCollector.getCreatedItems());
 
-            String emailContent = report.getEmailBody();
-            // Store emailable report under emailable-report.html
-            ReportContext.generateHtmlReport(emailContent);
+            // Stream emailable report to emailable-report.html
+            try (Writer writer = ReportContext.getHtmlReportWriter()) {
+                report.writeEmailBody(writer);
+            } catch (IOException e) {
+                LOGGER.error("Unable to generate emailable report", e);
+            }
 
             printExecutionSummary(EmailReportItemCollector.getTestResults());
+            for (String statistics : RunStatistics.getStatistics()) {
+                LOGGER.info(statistics);
+            }
             ReportContext.setCustomTestDirName("run_summary");
 
-            TestResultType suiteResult = EmailReportGenerator.getSuiteResult(EmailReportItemCollector.getTestResults());
+            TestResultType suiteResult = EmailReportGenerator.getSuiteResult();
             switch (suiteResult) {
             case SKIP_ALL:
                 Assert.fail("All tests were skipped! Analyze logs to determine possible configuration issues.");
@@ -438,6 +479,21 @@ public class CarinaListener extends AbstractTestListener implements ISuiteListen
                 LOGGER.info("waiting to finish FTP uploading... " + counter + " sec.");
                 CommonUtils.pause(1);
             }
+
+            counter = 0;
+            while (ArtifactPipeline.isProcessing() && ++counter < 30) {
+                LOGGER.info("waiting to finish test artifacts generation... " + counter + " sec.");
+                CommonUtils.pause(1);
+            }
+
+            counter = 0;
+            while (MobileRecordingListener.isSaving() && ++counter < 30) {
+                LOGGER.info("waiting to finish video artifacts saving... " + counter + " sec.");
+                CommonUtils.pause(1);
+            }
+
+            // release pooled MongoDB connections shared by the suite tests
+            MongoConnector.closeClients();
         }
     }
     
@@ -4,6 +4,7 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +17,7 @@ import com.qaprosoft.carina.core.foundation.filter.Filter;
 import com.qaprosoft.carina.core.foundation.filter.IFilter;
 import com.qaprosoft.carina.core.foundation.filter.rule.Rule;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadataRegistry;
 
 public class FilterTestsListener implements ISuiteListener {
 
@@ -33,23 +35,30 @@ public class FilterTestsListener implements ISuiteListener {
             return;
         }
 
-        boolean isPerform;
         LOGGER.info("Extracted rules: ".concat(rules.toString()));
-        for (ITestNGMethod testMethod : suite.getAllMethods()) {
-            isPerform = true;
-            // multiple conditions
-            for (Rule rule : rules) {
-                // condition when test doesn't satisfy at least one filter
-                if (!isPerform) {
-                    break;
-                }
-                isPerform = rule.getTestFilter().isPerform(testMethod, rule.getRuleValues());
-            }
-            // condition when test should be disabled
-            if (!isPerform) {
-                disableTest(testMethod);
+        // filters read annotations from the registry, listener may be started before CarinaListener
+        TestMetadataRegistry.init(suite.getAllMethods());
+        // filters are stateless so rules are evaluated for all methods in parallel, tests are disabled afterwards
+        List<ITestNGMethod> disabledMethods = suite.getAllMethods().parallelStream()
+                .filter(testMethod -> !isPerform(testMethod))
+                .collect(Collectors.toList());
+        disabledMethods.forEach(this::disableTest);
+    }
+
+    /**
+     * Verify if test satisfies all rules
+     * 
+     * @param testMethod ITestNGMethod
+     * @return boolean
+     */
+    private boolean isPerform(ITestNGMethod testMethod) {
+        for (Rule rule : rules) {
+            // condition when test doesn't satisfy at least one filter
+            if (!rule.getTestFilter().isPerform(testMethod, rule.getRuleValues())) {
+                return false;
             }
         }
+        return true;
     }
 
     @Override
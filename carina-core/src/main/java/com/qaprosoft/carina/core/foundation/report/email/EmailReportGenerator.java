@@ -16,9 +16,15 @@
 package com.qaprosoft.carina.core.foundation.report.email;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.invoke.MethodHandles;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringEscapeUtils;
@@ -27,6 +33,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.report.CompiledTemplate;
 import com.qaprosoft.carina.core.foundation.report.ReportContext;
 import com.qaprosoft.carina.core.foundation.report.TestResultItem;
 import com.qaprosoft.carina.core.foundation.report.TestResultType;
@@ -42,20 +49,20 @@ import com.qaprosoft.carina.core.foundation.utils.R;
 public class EmailReportGenerator {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-    private static String CONTAINER = R.EMAIL.get("container");
-    private static String PACKAGE_TR = R.EMAIL.get("package_tr");
-    private static String PASS_TEST_LOG_DEMO_TR = R.EMAIL.get("pass_test_log_demo_tr");
-    private static String FAIL_TEST_LOG_DEMO_TR = R.EMAIL.get("fail_test_log_demo_tr");
-    private static String BUG_TEST_LOG_DEMO_TR = R.EMAIL.get("bug_test_log_demo_tr");
-    private static String SKIP_TEST_LOG_DEMO_TR = R.EMAIL.get("skip_test_log_demo_tr");
-    private static String FAIL_CONFIG_LOG_DEMO_TR = R.EMAIL.get("fail_config_log_demo_tr");
-    private static String PASS_TEST_LOG_TR = R.EMAIL.get("pass_test_log_tr");
-    private static String FAIL_TEST_LOG_TR = R.EMAIL.get("fail_test_log_tr");
-    private static String BUG_TEST_LOG_TR = R.EMAIL.get("bug_test_log_tr");
-    private static String SKIP_TEST_LOG_TR = R.EMAIL.get("skip_test_log_tr");
-    private static String FAIL_CONFIG_LOG_TR = R.EMAIL.get("fail_config_log_tr");
-    private static String CREATED_ITEMS_LIST = R.EMAIL.get("created_items_list");
-    private static String CREATED_ITEM = R.EMAIL.get("created_item");
+    private static final CompiledTemplate CONTAINER = new CompiledTemplate(R.EMAIL.get("container"));
+    private static final CompiledTemplate PACKAGE_TR = new CompiledTemplate(R.EMAIL.get("package_tr"));
+    private static final CompiledTemplate PASS_TEST_LOG_DEMO_TR = new CompiledTemplate(R.EMAIL.get("pass_test_log_demo_tr"));
+    private static final CompiledTemplate FAIL_TEST_LOG_DEMO_TR = new CompiledTemplate(R.EMAIL.get("fail_test_log_demo_tr"));
+    private static final CompiledTemplate BUG_TEST_LOG_DEMO_TR = new CompiledTemplate(R.EMAIL.get("bug_test_log_demo_tr"));
+    private static final CompiledTemplate SKIP_TEST_LOG_DEMO_TR = new CompiledTemplate(R.EMAIL.get("skip_test_log_demo_tr"));
+    private static final CompiledTemplate FAIL_CONFIG_LOG_DEMO_TR = new CompiledTemplate(R.EMAIL.get("fail_config_log_demo_tr"));
+    private static final CompiledTemplate PASS_TEST_LOG_TR = new CompiledTemplate(R.EMAIL.get("pass_test_log_tr"));
+    private static final CompiledTemplate FAIL_TEST_LOG_TR = new CompiledTemplate(R.EMAIL.get("fail_test_log_tr"));
+    private static final CompiledTemplate BUG_TEST_LOG_TR = new CompiledTemplate(R.EMAIL.get("bug_test_log_tr"));
+    private static final CompiledTemplate SKIP_TEST_LOG_TR = new CompiledTemplate(R.EMAIL.get("skip_test_log_tr"));
+    private static final CompiledTemplate FAIL_CONFIG_LOG_TR = new CompiledTemplate(R.EMAIL.get("fail_config_log_tr"));
+    private static final CompiledTemplate CREATED_ITEMS_LIST = new CompiledTemplate(R.EMAIL.get("created_items_list"));
+    private static final CompiledTemplate CREATED_ITEM = new CompiledTemplate(R.EMAIL.get("created_item"));
     private static final String TITLE_PLACEHOLDER = "${title}";
     private static final String ENV_PLACEHOLDER = "${env}";
     private static final String DEVICE_PLACEHOLDER = "${device}";
@@ -90,8 +97,9 @@ public class EmailReportGenerator {
     private static boolean INCLUDE_FAIL = R.EMAIL.getBoolean("include_fail");
     private static boolean INCLUDE_SKIP = R.EMAIL.getBoolean("include_skip");
 
-    private String emailBody = CONTAINER;
-    private StringBuilder testResults = null;
+    private final Map<String, String> summary = new HashMap<String, String>();
+    private final List<TestResultItem> testResultItems;
+    private final boolean trackKnownIssues = Configuration.getBoolean(Parameter.TRACK_KNOWN_ISSUES);
 
     private int passCount = 0;
     private int failCount = 0;
@@ -99,171 +107,210 @@ public class EmailReportGenerator {
 
     public EmailReportGenerator(String title, String url, String version, String device, String browser, String finishDate,
             List<TestResultItem> testResultItems, List<String> createdItems) {
-        emailBody = emailBody.replace(TITLE_PLACEHOLDER, title);
-        emailBody = emailBody.replace(ENV_PLACEHOLDER, url);
-        emailBody = emailBody.replace(DEVICE_PLACEHOLDER, device);
-        emailBody = emailBody.replace(VERSION_PLACEHOLDER, version);
-        emailBody = emailBody.replace(BROWSER_PLACEHOLDER, browser);
-        emailBody = emailBody.replace(FINISH_DATE_PLACEHOLDER, finishDate);
-        emailBody = emailBody.replace(RESULTS_PLACEHOLDER, getTestResultsList(testResultItems));
-        emailBody = emailBody.replace(PASS_COUNT_PLACEHOLDER, String.valueOf(passCount));
-        emailBody = emailBody.replace(FAIL_COUNT_PLACEHOLDER, String.valueOf(failCount));
-        emailBody = emailBody.replace(SKIP_COUNT_PLACEHOLDER, String.valueOf(skipCount));
-        emailBody = emailBody.replace(PASS_RATE_PLACEHOLDER, String.valueOf(getSuccessRate()));
-        emailBody = emailBody.replace(CREATED_ITEMS_LIST_PLACEHOLDER, getCreatedItemsList(createdItems));
-        
+        this.testResultItems = testResultItems;
+
+        if (Configuration.getBoolean(Parameter.RESULT_SORTING)) {
+            // TODO: identify way to synch config failure with testNG method
+            Collections.sort(testResultItems, new EmailReportItemComparator());
+        }
+        // counters are rendered before result rows so they are calculated in advance
+        for (TestResultItem testResultItem : testResultItems) {
+            countTestResult(testResultItem);
+        }
+
+        summary.put(TITLE_PLACEHOLDER, title);
+        summary.put(ENV_PLACEHOLDER, url);
+        summary.put(DEVICE_PLACEHOLDER, device);
+        summary.put(VERSION_PLACEHOLDER, version);
+        summary.put(BROWSER_PLACEHOLDER, browser);
+        summary.put(FINISH_DATE_PLACEHOLDER, finishDate);
+        summary.put(PASS_COUNT_PLACEHOLDER, String.valueOf(passCount));
+        summary.put(FAIL_COUNT_PLACEHOLDER, String.valueOf(failCount));
+        summary.put(SKIP_COUNT_PLACEHOLDER, String.valueOf(skipCount));
+        summary.put(PASS_RATE_PLACEHOLDER, String.valueOf(getSuccessRate()));
+        summary.put(CREATED_ITEMS_LIST_PLACEHOLDER, getCreatedItemsList(createdItems));
+
         // Cucumber section
-        emailBody = emailBody.replace(CUCUMBER_RESULTS_PLACEHOLDER, getCucumberResultsHTML());
+        summary.put(CUCUMBER_RESULTS_PLACEHOLDER, getCucumberResultsHTML());
 
         // Artifacts section
-        emailBody = emailBody.replace(ARTIFACTS_RESULTS_PLACEHOLDER, getArtifactsLinkHTML());
+        summary.put(ARTIFACTS_RESULTS_PLACEHOLDER, getArtifactsLinkHTML());
     }
 
+    /**
+     * Generates the whole emailable report in memory. Use {@link #writeEmailBody(Writer)} for big suites.
+     *
+     * @return String
+     */
     public String getEmailBody() {
-        return emailBody;
+        StringWriter writer = new StringWriter();
+        try {
+            writeEmailBody(writer);
+        } catch (IOException e) {
+            // StringWriter doesn't throw IOException
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
     }
 
-    private String getTestResultsList(List<TestResultItem> testResultItems) {
-        if (testResultItems.size() > 0) {
-            if (Configuration.getBoolean(Parameter.RESULT_SORTING)) {
+    /**
+     * Streams emailable report to the writer row by row.
+     *
+     * @param writer Writer
+     * @throws IOException on write failure
+     */
+    public void writeEmailBody(Writer writer) throws IOException {
+        CONTAINER.write(writer, (placeholder, out) -> {
+            if (RESULTS_PLACEHOLDER.equals(placeholder)) {
+                writeTestResultsList(out);
+                return true;
+            }
+            if (!summary.containsKey(placeholder)) {
+                return false;
+            }
+            out.write(StringUtils.defaultString(summary.get(placeholder)));
+            return true;
+        });
+    }
 
-                // TODO: identify way to synch config failure with testNG method
-                Collections.sort(testResultItems, new EmailReportItemComparator());
+    private void writeTestResultsList(Writer writer) throws IOException {
+        String packageName = "";
+        Map<String, String> values = new HashMap<String, String>();
+        for (TestResultItem testResultItem : testResultItems) {
+            if (!testResultItem.isConfig() && !packageName.equals(testResultItem.getPack())) {
+                packageName = testResultItem.getPack();
+                values.put(PACKAGE_NAME_PLACEHOLDER, packageName);
+                PACKAGE_TR.write(writer, values);
+                values.clear();
             }
+            writeTestRow(writer, testResultItem, values);
+            values.clear();
+        }
+    }
 
-            String packageName = "";
-            testResults = new StringBuilder();
-            for (TestResultItem testResultItem : testResultItems) {
-                if (!testResultItem.isConfig() && !packageName.equals(testResultItem.getPack())) {
-                    packageName = testResultItem.getPack();
-                    testResults.append(PACKAGE_TR.replace(PACKAGE_NAME_PLACEHOLDER, packageName));
-                }
-                testResults.append(getTestRow(testResultItem));
+    private void countTestResult(TestResultItem testResultItem) {
+        switch (testResultItem.getResult()) {
+        case FAIL:
+            if (!trackKnownIssues || testResultItem.getJiraTickets().isEmpty()) {
+                failCount++;
+            }
+            break;
+        case SKIP:
+            if (!testResultItem.isConfig()) {
+                skipCount++;
+            }
+            break;
+        case PASS:
+            if (!testResultItem.isConfig()) {
+                passCount++;
             }
+            break;
+        default:
+            // do nothing
+            break;
         }
-        return testResults != null ? testResults.toString() : "";
     }
 
-    private String getTestRow(TestResultItem testResultItem) {
-        String result = "";
-        String failReason = "";
-        if (testResultItem.getResult().name().equalsIgnoreCase("FAIL")) {
+    private void writeTestRow(Writer writer, TestResultItem testResultItem, Map<String, String> values) throws IOException {
+        CompiledTemplate row = null;
+        boolean demo = testResultItem.getLinkToScreenshots() != null;
+        switch (testResultItem.getResult()) {
+        case FAIL:
             if (INCLUDE_FAIL) {
                 if (testResultItem.isConfig()) {
-                    result = testResultItem.getLinkToScreenshots() != null ? FAIL_CONFIG_LOG_DEMO_TR : FAIL_CONFIG_LOG_TR;
-                    result = result.replace(TEST_NAME_PLACEHOLDER, testResultItem.getTest());
-
-                    failReason = testResultItem.getFailReason();
-                    if (!StringUtils.isEmpty(failReason)) {
-                        // Make description more compact for email report
-                        failReason = failReason.length() > MESSAGE_LIMIT ? (failReason.substring(0, MESSAGE_LIMIT) + "...") : failReason;
-                        result = result.replace(FAIL_CONFIG_REASON_PLACEHOLDER, formatFailReasonAsHtml(failReason));
-                    } else {
-                        result = result.replace(FAIL_CONFIG_REASON_PLACEHOLDER, "Undefined failure: contact qa engineer!");
-                    }
+                    row = demo ? FAIL_CONFIG_LOG_DEMO_TR : FAIL_CONFIG_LOG_TR;
+                    values.put(FAIL_CONFIG_REASON_PLACEHOLDER, getReason(testResultItem, "Undefined failure: contact qa engineer!"));
                 } else {
-                    if (Configuration.getBoolean(Parameter.TRACK_KNOWN_ISSUES) && !testResultItem.getJiraTickets().isEmpty()) {
-                        result = testResultItem.getLinkToScreenshots() != null ? BUG_TEST_LOG_DEMO_TR : BUG_TEST_LOG_TR;
-                    } else {
-                        result = testResultItem.getLinkToScreenshots() != null ? FAIL_TEST_LOG_DEMO_TR : FAIL_TEST_LOG_TR;
-                    }
-
-                    result = result.replace(TEST_NAME_PLACEHOLDER, testResultItem.getTest());
-
-                    failReason = testResultItem.getFailReason();
-                    if (!StringUtils.isEmpty(failReason)) {
-                        // Make description more compact for email report
-                        failReason = failReason.length() > MESSAGE_LIMIT ? (failReason.substring(0, MESSAGE_LIMIT) + "...") : failReason;
-                        result = result.replace(FAIL_REASON_PLACEHOLDER, formatFailReasonAsHtml(failReason));
+                    if (trackKnownIssues && !testResultItem.getJiraTickets().isEmpty()) {
+                        row = demo ? BUG_TEST_LOG_DEMO_TR : BUG_TEST_LOG_TR;
                     } else {
-                        result = result.replace(FAIL_REASON_PLACEHOLDER, "Undefined failure: contact qa engineer!");
+                        row = demo ? FAIL_TEST_LOG_DEMO_TR : FAIL_TEST_LOG_TR;
                     }
-                }
-
-                result = result.replace(LOG_URL_PLACEHOLDER, testResultItem.getLinkToLog());
-
-                if (testResultItem.getLinkToScreenshots() != null) {
-                    result = result.replace(SCREENSHOTS_URL_PLACEHOLDER, testResultItem.getLinkToScreenshots());
+                    values.put(FAIL_REASON_PLACEHOLDER, getReason(testResultItem, "Undefined failure: contact qa engineer!"));
                 }
             }
-
-            if (Configuration.getBoolean(Parameter.TRACK_KNOWN_ISSUES) && !testResultItem.getJiraTickets().isEmpty()) {
-                // do nothing
-            } else
-                failCount++;
+            break;
+        case SKIP:
+            if (!testResultItem.isConfig() && INCLUDE_SKIP) {
+                row = demo ? SKIP_TEST_LOG_DEMO_TR : SKIP_TEST_LOG_TR;
+                values.put(SKIP_REASON_PLACEHOLDER,
+                        getReason(testResultItem, "Analyze SYSTEM ISSUE log for details or check dependency settings for the test."));
+            }
+            break;
+        case PASS:
+            if (!testResultItem.isConfig() && INCLUDE_PASS) {
+                row = demo ? PASS_TEST_LOG_DEMO_TR : PASS_TEST_LOG_TR;
+            }
+            break;
+        default:
+            // do nothing
+            break;
         }
-        if (testResultItem.getResult().name().equalsIgnoreCase("SKIP")) {
-            failReason = testResultItem.getFailReason();
-            if (!testResultItem.isConfig()) {
-                if (INCLUDE_SKIP) {
-                    result = testResultItem.getLinkToScreenshots() != null ? SKIP_TEST_LOG_DEMO_TR : SKIP_TEST_LOG_TR;
-                    result = result.replace(TEST_NAME_PLACEHOLDER, testResultItem.getTest());
-
-                    if (!StringUtils.isEmpty(failReason)) {
-                        // Make description more compact for email report
-                        failReason = failReason.length() > MESSAGE_LIMIT
-                                ? (failReason.substring(0, MESSAGE_LIMIT) + "...")
-                                : failReason;
-                        result = result.replace(SKIP_REASON_PLACEHOLDER, formatFailReasonAsHtml(failReason));
-                    } else {
-                        result = result.replace(SKIP_REASON_PLACEHOLDER,
-                                "Analyze SYSTEM ISSUE log for details or check dependency settings for the test.");
-                    }
 
-                    result = result.replace(LOG_URL_PLACEHOLDER, testResultItem.getLinkToLog());
-
-                    if (testResultItem.getLinkToScreenshots() != null) {
-                        result = result.replace(SCREENSHOTS_URL_PLACEHOLDER, testResultItem.getLinkToScreenshots());
-                    }
-                }
-                skipCount++;
-            }
+        if (row == null) {
+            return;
         }
-        if (testResultItem.getResult().name().equalsIgnoreCase("PASS")) {
-            if (!testResultItem.isConfig()) {
-                passCount++;
-                if (INCLUDE_PASS) {
-                    result = testResultItem.getLinkToScreenshots() != null ? PASS_TEST_LOG_DEMO_TR : PASS_TEST_LOG_TR;
-                    result = result.replace(TEST_NAME_PLACEHOLDER, testResultItem.getTest());
-                    result = result.replace(LOG_URL_PLACEHOLDER, testResultItem.getLinkToLog());
 
-                    if (testResultItem.getLinkToScreenshots() != null) {
-                        result = result.replace(SCREENSHOTS_URL_PLACEHOLDER, testResultItem.getLinkToScreenshots());
-                    }
-                }
-            }
+        values.put(TEST_NAME_PLACEHOLDER, testResultItem.getTest());
+        values.put(LOG_URL_PLACEHOLDER, testResultItem.getLinkToLog());
+        if (demo) {
+            values.put(SCREENSHOTS_URL_PLACEHOLDER, testResultItem.getLinkToScreenshots());
         }
 
         // putting of video URLs
-        String videoHTML = "";
+        StringBuilder videoHTML = new StringBuilder();
         List<String> videoLinks = testResultItem.getLinksToVideo();
         for (int i = 0; i < videoLinks.size(); i++) {
-            videoHTML = videoHTML.concat(String.format("<span> | </span><a target='_blank' href='%s' style='color: white'>%s</a>", videoLinks.get(i),
+            videoHTML.append(String.format("<span> | </span><a target='_blank' href='%s' style='color: white'>%s</a>", videoLinks.get(i),
                     (videoLinks.size() > 1) ? "Video_" + (i + 1) : "Video"));
         }
-        result = result.replace(VIDEO_URL_PLACEHOLDER, videoHTML);
+        values.put(VIDEO_URL_PLACEHOLDER, videoHTML.toString());
 
         // generate valid url or just a number
-        List<String> jiraTickets = testResultItem.getJiraTickets();
-        String bugUrl = "";
-        for (String bugId : jiraTickets) {
-            if (!Configuration.get(Parameter.JIRA_URL).isEmpty()) {
-                bugUrl += "<a target='_blank' href='" + Configuration.get(Parameter.JIRA_URL) + "/browse/" + bugId + "' style='color: white;'>"
-                        + bugId + "</a>";
+        StringBuilder bugUrl = new StringBuilder();
+        String jiraUrl = Configuration.get(Parameter.JIRA_URL);
+        for (String bugId : testResultItem.getJiraTickets()) {
+            if (!jiraUrl.isEmpty()) {
+                bugUrl.append("<a target='_blank' href='" + jiraUrl + "/browse/" + bugId + "' style='color: white;'>" + bugId + "</a>");
             } else {
-                bugUrl += bugId;
+                bugUrl.append(bugId);
             }
-            bugUrl += "<br>";
+            bugUrl.append("<br>");
         }
-        result = result.replace(BUG_URL_PLACEHOLDER, bugUrl);
-        
-        return result;
+        values.put(BUG_URL_PLACEHOLDER, bugUrl.toString());
+
+        row.write(writer, values);
+    }
+
+    private String getReason(TestResultItem testResultItem, String defaultReason) {
+        String failReason = testResultItem.getFailReason();
+        if (StringUtils.isEmpty(failReason)) {
+            return defaultReason;
+        }
+        // Make description more compact for email report
+        failReason = failReason.length() > MESSAGE_LIMIT ? (failReason.substring(0, MESSAGE_LIMIT) + "...") : failReason;
+        return formatFailReasonAsHtml(failReason);
     }
 
     private int getSuccessRate() {
         return passCount > 0 ? (int) (((double) passCount) / ((double) passCount + (double) failCount + (double) skipCount) * 100) : 0;
     }
 
+    /**
+     * Returns suite result using counters incrementally aggregated by {@link EmailReportItemCollector}.
+     *
+     * @return TestResultType
+     */
+    public static TestResultType getSuiteResult() {
+        int failed = EmailReportItemCollector.getFailed();
+        int failedKnownIssue = EmailReportItemCollector.getFailedKnownIssue();
+        if (!Configuration.getBoolean(Parameter.TRACK_KNOWN_ISSUES)) {
+            failed += failedKnownIssue;
+            failedKnownIssue = 0;
+        }
+        return getSuiteResult(EmailReportItemCollector.getPassed(), failed, failedKnownIssue, EmailReportItemCollector.getSkipped(), 0);
+    }
+
     public static TestResultType getSuiteResult(List<TestResultItem> ris) {
         int passed = 0;
         int failed = 0;
@@ -303,6 +350,10 @@ public class EmailReportGenerator {
                 break;
             }
         }
+        return getSuiteResult(passed, failed, failedKnownIssue, skipped, skipped_already_passed);
+    }
+
+    private static TestResultType getSuiteResult(int passed, int failed, int failedKnownIssue, int skipped, int skipped_already_passed) {
         TestResultType result;
         if (passed == 0 && failed == 0 && skipped == 0 && skipped_already_passed > 0) {
             result = TestResultType.SKIP_ALL_ALREADY_PASSED; // it was re-run of the suite where all tests passed during previous run
@@ -327,10 +378,14 @@ public class EmailReportGenerator {
     public String getCreatedItemsList(List<String> createdItems) {
         if (!CollectionUtils.isEmpty(createdItems)) {
             StringBuilder result = new StringBuilder();
+            Map<String, String> values = new HashMap<String, String>();
             for (String createdItem : createdItems) {
-                result.append(CREATED_ITEM.replace(CREATED_ITEM_PLACEHOLDER, createdItem));
+                values.put(CREATED_ITEM_PLACEHOLDER, createdItem);
+                result.append(CREATED_ITEM.render(values));
             }
-            return CREATED_ITEMS_LIST.replace(CREATED_ITEMS_LIST_PLACEHOLDER, result.toString());
+            values.clear();
+            values.put(CREATED_ITEMS_LIST_PLACEHOLDER, result.toString());
+            return CREATED_ITEMS_LIST.render(values);
         } else {
             return "";
         }
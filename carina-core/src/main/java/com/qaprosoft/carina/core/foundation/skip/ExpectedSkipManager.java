@@ -19,7 +19,15 @@ import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +42,12 @@ public class ExpectedSkipManager {
 
     private static ExpectedSkipManager instance = null;
 
+    // immutable rules of the suite methods (including transitive dependencies) keyed by lower case qualified method name
+    private volatile Map<String, List<Class<? extends IRule>>> rulesIndex = Collections.emptyMap();
+
+    // rule instances shared during the run
+    private final Map<Class<? extends IRule>, IRule> ruleInstances = new ConcurrentHashMap<>();
+
     private ExpectedSkipManager() {
     };
 
@@ -44,6 +58,46 @@ public class ExpectedSkipManager {
         return instance;
     }
 
+    /**
+     * Builds rules index for all suite methods once, so the skip decision doesn't require reflection per test.
+     * Rules of dependent methods are resolved transitively.
+     * 
+     * @param methods all suite methods
+     */
+    public void init(Collection<ITestNGMethod> methods) {
+        Map<String, ITestNGMethod> suiteMethods = new HashMap<>();
+        for (ITestNGMethod method : methods) {
+            suiteMethods.put(getKey(method.getQualifiedName()), method);
+        }
+
+        Map<String, Set<Class<? extends IRule>>> resolved = new HashMap<>();
+        Map<String, List<Class<? extends IRule>>> externalRules = new HashMap<>();
+        for (String key : suiteMethods.keySet()) {
+            resolveRules(key, suiteMethods, resolved, externalRules, new HashSet<>());
+        }
+
+        Map<String, List<Class<? extends IRule>>> index = new HashMap<>();
+        resolved.forEach((key, rules) -> index.put(key, Collections.unmodifiableList(new ArrayList<>(rules))));
+        rulesIndex = Collections.unmodifiableMap(index);
+        LOGGER.debug("Expected skip rules index is built for " + index.size() + " methods.");
+    }
+
+    /**
+     * Return decision whether this tests should be skipped or not - based on
+     * rules indexed by {@link #init(Collection)}
+     * 
+     * @param testMethod test method
+     * @param context tests context which is used for rules collection if method is not indexed
+     * @return isSkip decision whether test should be skipped
+     */
+    public boolean isSkip(ITestNGMethod testMethod, ITestContext context) {
+        List<Class<? extends IRule>> rules = rulesIndex.get(getKey(testMethod.getQualifiedName()));
+        if (rules == null) {
+            return isSkip(testMethod.getConstructorOrMethod().getMethod(), context);
+        }
+        return isSkip(rules);
+    }
+
     /**
      * Return decision whether this tests should be skipped or not - based on
      * rules
@@ -54,18 +108,82 @@ public class ExpectedSkipManager {
      * @return isSkip decision whether test should be skipped
      */
     public boolean isSkip(Method testMethod, ITestContext context) {
-        for (Class<? extends IRule> rule : collectRules(testMethod, context)) {
+        return isSkip(collectRules(testMethod, context));
+    }
+
+    private boolean isSkip(List<Class<? extends IRule>> rules) {
+        for (Class<? extends IRule> rule : rules) {
+            IRule instance = getRuleInstance(rule);
+            if (instance != null && instance.isPerform()) {
+                LOGGER.info("Test execution will be skipped due to following rule: ".concat(rule.getName()));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private IRule getRuleInstance(Class<? extends IRule> rule) {
+        IRule instance = ruleInstances.get(rule);
+        if (instance == null) {
             try {
-                if (rule.newInstance().isPerform()) {
-                    LOGGER.info("Test execution will be skipped due to following rule: ".concat(rule.getName()));
-                    return true;
-                }
+                instance = rule.newInstance();
+                IRule existing = ruleInstances.putIfAbsent(rule, instance);
+                instance = existing != null ? existing : instance;
             } catch (InstantiationException | IllegalAccessException e) {
                 LOGGER.error("Error during skip rules initialization: ".concat(rule.getName()));
                 LOGGER.error("Error msg: ".concat(e.getMessage()), e);
             }
         }
-        return false;
+        return instance;
+    }
+
+    /**
+     * Resolve rules of the method and all methods it depends on
+     * 
+     * @param key lower case qualified method name
+     * @param suiteMethods suite methods by key
+     * @param resolved already resolved rules by key
+     * @param externalRules rules of dependent methods which are not a part of the suite
+     * @param path methods being resolved to break dependency cycles
+     * @return rules set
+     */
+    private Set<Class<? extends IRule>> resolveRules(String key, Map<String, ITestNGMethod> suiteMethods,
+            Map<String, Set<Class<? extends IRule>>> resolved, Map<String, List<Class<? extends IRule>>> externalRules,
+            Set<String> path) {
+        Set<Class<? extends IRule>> rules = resolved.get(key);
+        if (rules != null) {
+            return rules;
+        }
+
+        rules = new LinkedHashSet<>();
+        if (!path.add(key)) {
+            // dependency cycle, rules are collected by the first method of the cycle
+            return rules;
+        }
+
+        ITestNGMethod method = suiteMethods.get(key);
+        Method testMethod = method.getConstructorOrMethod().getMethod();
+        if (testMethod != null) {
+            rules.addAll(getRulesFromAnnotation(testMethod.getDeclaringClass().getAnnotation(ExpectedSkip.class)));
+            rules.addAll(getRulesFromAnnotation(testMethod.getAnnotation(ExpectedSkip.class)));
+        }
+
+        for (String dependency : method.getMethodsDependedUpon()) {
+            String dependencyKey = getKey(dependency);
+            if (suiteMethods.containsKey(dependencyKey)) {
+                rules.addAll(resolveRules(dependencyKey, suiteMethods, resolved, externalRules, path));
+            } else {
+                rules.addAll(externalRules.computeIfAbsent(dependencyKey, k -> getDependentMethodsRules(dependency)));
+            }
+        }
+
+        path.remove(key);
+        resolved.put(key, rules);
+        return rules;
+    }
+
+    private static String getKey(String qualifiedName) {
+        return qualifiedName.toLowerCase();
     }
 
     /**
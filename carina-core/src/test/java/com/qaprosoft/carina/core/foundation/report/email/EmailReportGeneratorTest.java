@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.report.email;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.report.ReportContext;
+import com.qaprosoft.carina.core.foundation.report.TestResultItem;
+import com.qaprosoft.carina.core.foundation.report.TestResultType;
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+/**
+ * Verifies that streamed emailable report is identical to the report rendered by the previous String.replace chains.
+ */
+public class EmailReportGeneratorTest {
+
+    @BeforeClass
+    public void init() {
+        R.CONFIG.put("result_sorting", "false", true);
+        R.CONFIG.put("track_known_issues", "true", true);
+        R.CONFIG.put("jira_url", "https://jira.example.com", true);
+        // artifacts gallery link is rendered only for non empty artifacts folder
+        ReportContext.deleteAllArtifacts();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void clear() {
+        R.CONFIG.clearTestProperties();
+    }
+
+    @Test
+    public void testStreamedReportMatchesPreviousRendering() throws IOException {
+        List<TestResultItem> items = new ArrayList<>();
+        items.add(new TestResultItem("com.example.login", "testLogin", TestResultType.PASS, null, "login.log",
+                Collections.emptyList(), null));
+        items.add(new TestResultItem("com.example.login", "testLogout", TestResultType.PASS, "screenshots/logout", "logout.log",
+                Arrays.asList("video1.mp4", "video2.mp4"), null));
+        items.add(new TestResultItem("com.example.cart", "testCheckout", TestResultType.FAIL, "screenshots/checkout", "checkout.log",
+                Arrays.asList("checkout.mp4"), "expected [<b>1</b>] but found [2]\nat line 1"));
+        TestResultItem knownIssue = new TestResultItem("com.example.cart", "testDiscount", TestResultType.FAIL, null, "discount.log",
+                Collections.emptyList(), null);
+        knownIssue.setJiraTickets(Arrays.asList("CART-1", "CART-2"));
+        items.add(knownIssue);
+        items.add(new TestResultItem("com.example.search", "testSearch", TestResultType.SKIP, null, "search.log",
+                Collections.emptyList(), "depends on testLogin"));
+        items.add(new TestResultItem("com.example.search", "testFilter", TestResultType.SKIP, "screenshots/filter", "filter.log",
+                Collections.emptyList(), null));
+        List<String> createdItems = Arrays.asList("order #1", "order #2");
+
+        EmailReportGenerator generator = new EmailReportGenerator("FAIL: Suite", "QA", "1.0", "Desktop", "chrome", "2020-01-01",
+                new ArrayList<>(items), createdItems);
+        StringWriter writer = new StringWriter();
+        generator.writeEmailBody(writer);
+
+        String expected = new LegacyEmailReport().render("FAIL: Suite", "QA", "1.0", "Desktop", "chrome", "2020-01-01", items, createdItems);
+        Assert.assertEquals(writer.toString(), expected);
+        Assert.assertEquals(generator.getEmailBody(), expected);
+    }
+
+    /**
+     * Copy of the report rendering by String.replace chains used before templates compilation.
+     */
+    private static class LegacyEmailReport {
+        private final int messageLimit = R.EMAIL.getInt("fail_description_limit");
+        private int passCount = 0;
+        private int failCount = 0;
+        private int skipCount = 0;
+
+        String render(String title, String url, String version, String device, String browser, String finishDate,
+                List<TestResultItem> items, List<String> createdItems) {
+            String emailBody = R.EMAIL.get("container");
+            emailBody = emailBody.replace("${title}", title);
+            emailBody = emailBody.replace("${env}", url);
+            emailBody = emailBody.replace("${device}", device);
+            emailBody = emailBody.replace("${version}", version);
+            emailBody = emailBody.replace("${browser}", browser);
+            emailBody = emailBody.replace("${finish_date}", finishDate);
+            emailBody = emailBody.replace("${result_rows}", getTestResultsList(items));
+            emailBody = emailBody.replace("${pass_count}", String.valueOf(passCount));
+            emailBody = emailBody.replace("${fail_count}", String.valueOf(failCount));
+            emailBody = emailBody.replace("${skip_count}", String.valueOf(skipCount));
+            int passRate = passCount > 0 ? (int) (((double) passCount) / ((double) passCount + (double) failCount + (double) skipCount) * 100)
+                    : 0;
+            emailBody = emailBody.replace("${pass_rate}", String.valueOf(passRate));
+            emailBody = emailBody.replace("${created_items_list}", getCreatedItemsList(createdItems));
+            emailBody = emailBody.replace("${cucumber_results}", "");
+            emailBody = emailBody.replace("${artifacts}", "");
+            return emailBody;
+        }
+
+        private String getTestResultsList(List<TestResultItem> items) {
+            StringBuilder testResults = new StringBuilder();
+            String packageName = "";
+            for (TestResultItem item : items) {
+                if (!item.isConfig() && !packageName.equals(item.getPack())) {
+                    packageName = item.getPack();
+                    testResults.append(R.EMAIL.get("package_tr").replace("${package_name}", packageName));
+                }
+                testResults.append(getTestRow(item));
+            }
+            return testResults.toString();
+        }
+
+        private String getTestRow(TestResultItem item) {
+            String result = "";
+            boolean demo = item.getLinkToScreenshots() != null;
+            switch (item.getResult()) {
+            case FAIL:
+                if (!item.getJiraTickets().isEmpty()) {
+                    result = R.EMAIL.get(demo ? "bug_test_log_demo_tr" : "bug_test_log_tr");
+                } else {
+                    result = R.EMAIL.get(demo ? "fail_test_log_demo_tr" : "fail_test_log_tr");
+                    failCount++;
+                }
+                result = result.replace("${test_name}", item.getTest());
+                result = result.replace("${fail_reason}", getReason(item, "Undefined failure: contact qa engineer!"));
+                break;
+            case SKIP:
+                result = R.EMAIL.get(demo ? "skip_test_log_demo_tr" : "skip_test_log_tr");
+                result = result.replace("${test_name}", item.getTest());
+                result = result.replace("${skip_reason}",
+                        getReason(item, "Analyze SYSTEM ISSUE log for details or check dependency settings for the test."));
+                skipCount++;
+                break;
+            case PASS:
+                result = R.EMAIL.get(demo ? "pass_test_log_demo_tr" : "pass_test_log_tr");
+                result = result.replace("${test_name}", item.getTest());
+                passCount++;
+                break;
+            default:
+                break;
+            }
+            result = result.replace("${log_url}", item.getLinkToLog());
+            if (demo) {
+                result = result.replace("${screenshots_url}", item.getLinkToScreenshots());
+            }
+
+            String videoHTML = "";
+            List<String> videoLinks = item.getLinksToVideo();
+            for (int i = 0; i < videoLinks.size(); i++) {
+                videoHTML = videoHTML.concat(String.format("<span> | </span><a target='_blank' href='%s' style='color: white'>%s</a>",
+                        videoLinks.get(i), (videoLinks.size() > 1) ? "Video_" + (i + 1) : "Video"));
+            }
+            result = result.replace("${video_url_html}", videoHTML);
+
+            String bugUrl = "";
+            for (String bugId : item.getJiraTickets()) {
+                bugUrl += "<a target='_blank' href='https://jira.example.com/browse/" + bugId + "' style='color: white;'>" + bugId + "</a>";
+                bugUrl += "<br>";
+            }
+            return result.replace("${bug_url}", bugUrl);
+        }
+
+        private String getReason(TestResultItem item, String defaultReason) {
+            String failReason = item.getFailReason();
+            if (StringUtils.isEmpty(failReason)) {
+                return defaultReason;
+            }
+            failReason = failReason.length() > messageLimit ? (failReason.substring(0, messageLimit) + "...") : failReason;
+            return StringEscapeUtils.escapeHtml4(failReason).replace("\n", "<br/>");
+        }
+
+        private String getCreatedItemsList(List<String> createdItems) {
+            StringBuilder result = new StringBuilder();
+            for (String createdItem : createdItems) {
+                result.append(R.EMAIL.get("created_item").replace("${created_item}", createdItem));
+            }
+            return R.EMAIL.get("created_items_list").replace("${created_items_list}", result.toString());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.skip;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.ITestNGMethod;
+import org.testng.annotations.Test;
+import org.testng.internal.ConstructorOrMethod;
+
+import com.qaprosoft.carina.core.foundation.rule.IRule;
+
+/**
+ * Verifies rules index on synthetic 5k methods suite: 50 dependency chains of 100 methods each,
+ * first method of every even chain is annotated with skip rule.
+ */
+public class ExpectedSkipManagerTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final int CHAINS = 50;
+    private static final int CHAIN_LENGTH = 100;
+
+    private static final AtomicInteger skipRuleInstances = new AtomicInteger();
+
+    public static class SkipRule implements IRule {
+        public SkipRule() {
+            skipRuleInstances.incrementAndGet();
+        }
+
+        @Override
+        public boolean isPerform() {
+            return true;
+        }
+    }
+
+    @ExpectedSkip(rules = SkipRule.class)
+    public void skippedRoot() {
+        // synthetic test method
+    }
+
+    public void regularMethod() {
+        // synthetic test method
+    }
+
+    @Test
+    public void testSyntheticSuite() throws NoSuchMethodException {
+        Method skippedRoot = getClass().getMethod("skippedRoot");
+        Method regularMethod = getClass().getMethod("regularMethod");
+
+        List<ITestNGMethod> methods = new ArrayList<>();
+        for (int chain = 0; chain < CHAINS; chain++) {
+            for (int i = 0; i < CHAIN_LENGTH; i++) {
+                String name = String.format("synthetic.Chain%d.test%d", chain, i);
+                String[] dependencies = i == 0 ? new String[0] : new String[] { String.format("synthetic.Chain%d.test%d", chain, i - 1) };
+                Method method = i == 0 && chain % 2 == 0 ? skippedRoot : regularMethod;
+                methods.add(createMethod(name, dependencies, method));
+            }
+        }
+
+        ExpectedSkipManager manager = ExpectedSkipManager.getInstance();
+        long start = System.nanoTime();
+        manager.init(methods);
+        long initTime = System.nanoTime() - start;
+
+        int skipped = 0;
+        start = System.nanoTime();
+        for (ITestNGMethod method : methods) {
+            if (manager.isSkip(method, null)) {
+                skipped++;
+            }
+        }
+        long lookupTime = System.nanoTime() - start;
+
+        LOGGER.info(String.format("Expected skip rules for %d methods: index built in %d ms, all decisions made in %d ms.",
+                methods.size(), initTime / 1_000_000, lookupTime / 1_000_000));
+
+        // all methods of even chains depend transitively on the skipped root
+        Assert.assertEquals(skipped, CHAINS / 2 * CHAIN_LENGTH);
+        Assert.assertEquals(skipRuleInstances.get(), 1, "Rule instance should be shared");
+    }
+
+    private static ITestNGMethod createMethod(String qualifiedName, String[] dependencies, Method method) {
+        ConstructorOrMethod constructorOrMethod = new ConstructorOrMethod(method);
+        return (ITestNGMethod) Proxy.newProxyInstance(ITestNGMethod.class.getClassLoader(), new Class<?>[] { ITestNGMethod.class },
+                (proxy, invoked, args) -> {
+                    switch (invoked.getName()) {
+                    case "getQualifiedName":
+                        return qualifiedName;
+                    case "getMethodName":
+                        return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+                    case "getMethodsDependedUpon":
+                        return dependencies;
+                    case "getConstructorOrMethod":
+                        return constructorOrMethod;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return qualifiedName;
+                    default:
+                        throw new UnsupportedOperationException(invoked.getName());
+                    }
+                });
+    }
+}
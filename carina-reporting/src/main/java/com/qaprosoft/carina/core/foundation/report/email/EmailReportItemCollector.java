@@ -16,11 +16,12 @@
 package com.qaprosoft.carina.core.foundation.report.email;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.testng.ITestResult;
 
@@ -28,33 +29,106 @@ import com.qaprosoft.carina.core.foundation.report.TestResultItem;
 import com.zebrunner.agent.testng.core.testname.TestNameResolverRegistry;
 
 /**
- * EmailReportGenerator generates emailable report using data from test suite log.
+ * EmailReportItemCollector collects test results for emailable report.
+ * Collector is lock-free: results are kept in concurrent map with separate queue of keys to preserve registration order,
+ * and pass/fail/skip counters are updated incrementally on each push, so suite result doesn't require full scan of results.
  * 
  * @author Alex Khursevich
  */
 public class EmailReportItemCollector {
-    private static LinkedHashMap<String, TestResultItem> emailResultsMap = new LinkedHashMap<String, TestResultItem>();
-    private static Map<String, TestResultItem> testResultsMap = Collections.synchronizedMap(new HashMap<String, TestResultItem>());
-    private static List<String> createdItems = new ArrayList<String>();
+    private static Map<String, TestResultItem> emailResultsMap = new ConcurrentHashMap<String, TestResultItem>();
+    private static Queue<String> emailResultsOrder = new ConcurrentLinkedQueue<String>();
+    private static Map<String, TestResultItem> testResultsMap = new ConcurrentHashMap<String, TestResultItem>();
+    private static Queue<String> createdItems = new ConcurrentLinkedQueue<String>();
 
-    public static synchronized void push(TestResultItem emailItem) {
-        emailResultsMap.put(emailItem.hash(), emailItem);
+    private static final AtomicInteger passed = new AtomicInteger();
+    private static final AtomicInteger failed = new AtomicInteger();
+    private static final AtomicInteger failedKnownIssue = new AtomicInteger();
+    private static final AtomicInteger skipped = new AtomicInteger();
+
+    public static void push(TestResultItem emailItem) {
+        TestResultItem previous = emailResultsMap.put(emailItem.hash(), emailItem);
+        if (previous == null) {
+            emailResultsOrder.add(emailItem.hash());
+        } else {
+            // result of the retried test is overridden
+            count(previous, -1);
+        }
+        count(emailItem, 1);
         testResultsMap.put(emailItem.getTest(), emailItem);
     }
 
-    public static synchronized void push(String itemToDelete) {
+    public static void push(String itemToDelete) {
         createdItems.add(itemToDelete);
     }
 
-    public static synchronized TestResultItem pull(ITestResult result) {
+    public static TestResultItem pull(ITestResult result) {
         return testResultsMap.get(TestNameResolverRegistry.get().resolve(result));
     }
 
     public static List<TestResultItem> getTestResults() {
-        return new ArrayList<TestResultItem>(emailResultsMap.values());
+        List<TestResultItem> results = new ArrayList<TestResultItem>(emailResultsOrder.size());
+        for (String hash : emailResultsOrder) {
+            TestResultItem item = emailResultsMap.get(hash);
+            if (item != null) {
+                results.add(item);
+            }
+        }
+        return results;
     }
 
     public static List<String> getCreatedItems() {
-        return createdItems;
+        return new ArrayList<String>(createdItems);
+    }
+
+    public static int getPassed() {
+        return passed.get();
+    }
+
+    /**
+     * Returns number of failed tests without known issues
+     *
+     * @return int
+     */
+    public static int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Returns number of failed tests with assigned known issues (jira tickets)
+     *
+     * @return int
+     */
+    public static int getFailedKnownIssue() {
+        return failedKnownIssue.get();
+    }
+
+    public static int getSkipped() {
+        return skipped.get();
+    }
+
+    private static void count(TestResultItem item, int delta) {
+        if (item.isConfig() || item.getResult() == null) {
+            return;
+        }
+
+        switch (item.getResult()) {
+        case PASS:
+            passed.addAndGet(delta);
+            break;
+        case FAIL:
+            if (item.getJiraTickets() != null && !item.getJiraTickets().isEmpty()) {
+                failedKnownIssue.addAndGet(delta);
+            } else {
+                failed.addAndGet(delta);
+            }
+            break;
+        case SKIP:
+            skipped.addAndGet(delta);
+            break;
+        default:
+            // do nothing
+            break;
+        }
     }
 }
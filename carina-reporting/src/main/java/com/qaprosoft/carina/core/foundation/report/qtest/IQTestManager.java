@@ -27,6 +27,8 @@ import org.testng.ITestResult;
 
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
 import com.qaprosoft.carina.core.foundation.report.testrail.ITestCases;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadata;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadataRegistry;
 
 public interface IQTestManager extends ITestCases {
     static final Logger QTEST_LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
@@ -41,20 +43,14 @@ public interface IQTestManager extends ITestCases {
         }
 
         // Get a handle to the class and method
-        Class<?> testClass;
+        TestMetadata metadata = TestMetadataRegistry.get(result.getMethod());
         try {
-            testClass = Class.forName(result.getMethod().getTestClass().getName());
-
-            // We can't use getMethod() because we may have parameterized tests
-            // for which we won't know the matching signature
-            String methodName = result.getMethod().getMethodName();
-            Method testMethod = null;
-            Method[] possibleMethods = testClass.getMethods();
-            for (Method possibleMethod : possibleMethods) {
-                if (possibleMethod.getName().equals(methodName)) {
-                    testMethod = possibleMethod;
-                    break;
-                }
+            Method testMethod;
+            if (metadata != null) {
+                testMethod = metadata.getTestMethod();
+            } else {
+                Class<?> testClass = Class.forName(result.getMethod().getTestClass().getName());
+                testMethod = TestMetadataRegistry.findTestMethod(testClass, result.getMethod().getMethodName());
             }
 
             if (testMethod != null) {
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.report.email;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.report.TestResultItem;
+import com.qaprosoft.carina.core.foundation.report.TestResultType;
+
+/**
+ * Tests for {@link EmailReportItemCollector}. Collector is static so counters are verified by deltas.
+ */
+public class EmailReportItemCollectorTest {
+
+    @Test
+    public void testCountersAreUpdatedOnPush() {
+        int passed = EmailReportItemCollector.getPassed();
+        int failed = EmailReportItemCollector.getFailed();
+        int failedKnownIssue = EmailReportItemCollector.getFailedKnownIssue();
+        int skipped = EmailReportItemCollector.getSkipped();
+
+        EmailReportItemCollector.push(item("counters", "pass", TestResultType.PASS));
+        EmailReportItemCollector.push(item("counters", "fail", TestResultType.FAIL));
+        TestResultItem knownIssue = item("counters", "knownIssue", TestResultType.FAIL);
+        knownIssue.setJiraTickets(Arrays.asList("JIRA-1"));
+        EmailReportItemCollector.push(knownIssue);
+        EmailReportItemCollector.push(item("counters", "skip", TestResultType.SKIP));
+
+        Assert.assertEquals(EmailReportItemCollector.getPassed() - passed, 1);
+        Assert.assertEquals(EmailReportItemCollector.getFailed() - failed, 1);
+        Assert.assertEquals(EmailReportItemCollector.getFailedKnownIssue() - failedKnownIssue, 1);
+        Assert.assertEquals(EmailReportItemCollector.getSkipped() - skipped, 1);
+    }
+
+    @Test
+    public void testRetriedResultIsOverridden() {
+        int passed = EmailReportItemCollector.getPassed();
+        int failed = EmailReportItemCollector.getFailed();
+        int size = EmailReportItemCollector.getTestResults().size();
+
+        EmailReportItemCollector.push(item("retry", "retried", TestResultType.FAIL));
+        EmailReportItemCollector.push(item("retry", "retried", TestResultType.PASS));
+
+        Assert.assertEquals(EmailReportItemCollector.getPassed() - passed, 1);
+        Assert.assertEquals(EmailReportItemCollector.getFailed() - failed, 0, "Failure of the retried test is still counted!");
+        Assert.assertEquals(EmailReportItemCollector.getTestResults().size() - size, 1);
+    }
+
+    @Test
+    public void testResultsKeepRegistrationOrder() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            TestResultItem item = item("order", "test" + i, TestResultType.PASS);
+            EmailReportItemCollector.push(item);
+            expected.add(item.getTest());
+        }
+
+        List<String> actual = new ArrayList<>();
+        for (TestResultItem item : EmailReportItemCollector.getTestResults()) {
+            if ("order".equals(item.getPack())) {
+                actual.add(item.getTest());
+            }
+        }
+        Assert.assertEquals(actual, expected);
+    }
+
+    private static TestResultItem item(String pack, String test, TestResultType result) {
+        return new TestResultItem(pack, test, result, null, "log", new ArrayList<>(), null);
+    }
+}
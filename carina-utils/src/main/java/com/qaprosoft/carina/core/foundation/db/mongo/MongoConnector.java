@@ -15,14 +15,18 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.db.mongo;
 
+import java.lang.invoke.MethodHandles;
 import java.net.UnknownHostException;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
 import com.mongodb.MongoCredential;
 import com.mongodb.ServerAddress;
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
@@ -36,7 +40,10 @@ import com.qaprosoft.carina.core.foundation.utils.R;
  *
  */
 public class MongoConnector {
-    private static Map<String, MongoClient> clients = new HashMap<String, MongoClient>();
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    // one pooled client per database, MongoClient is thread safe and shared by all tests
+    private static final Map<String, MongoClient> clients = new ConcurrentHashMap<String, MongoClient>();
 
     private static String host = R.DATABASE.get("mongo.host");
     private static String port = R.DATABASE.get("mongo.port");
@@ -52,12 +59,7 @@ public class MongoConnector {
      * @throws UnknownHostException java.net.UnknownHostException
      */
     public static MongoClient createClient() throws NumberFormatException, UnknownHostException {
-        if (!clients.containsKey(database)) {
-            validateConfig(database);
-            MongoCredential credential = MongoCredential.createMongoCRCredential(user, database, password.toCharArray());
-            clients.put(database, new MongoClient(new ServerAddress(host, Integer.valueOf(port)), Arrays.asList(credential)));
-        }
-        return clients.get(database);
+        return createClient(database);
     }
 
     /**
@@ -69,12 +71,65 @@ public class MongoConnector {
      * @throws UnknownHostException java.net.UnknownHostException
      */
     public static MongoClient createClient(String database) throws NumberFormatException, UnknownHostException {
-        if (!clients.containsKey(database)) {
-            validateConfig(database);
-            MongoCredential credential = MongoCredential.createMongoCRCredential(user, database, password.toCharArray());
-            clients.put(database, new MongoClient(new ServerAddress(host, Integer.valueOf(port)), Arrays.asList(credential)));
+        MongoClient client = clients.get(database);
+        if (client == null) {
+            synchronized (clients) {
+                client = clients.get(database);
+                if (client == null) {
+                    validateConfig(database);
+                    MongoCredential credential = MongoCredential.createMongoCRCredential(user, database, password.toCharArray());
+                    client = new MongoClient(new ServerAddress(host, Integer.valueOf(port)), Arrays.asList(credential), getClientOptions());
+                    clients.put(database, client);
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Closes all created clients and their connection pools.
+     */
+    public static void closeClients() {
+        synchronized (clients) {
+            for (MongoClient client : clients.values()) {
+                try {
+                    client.close();
+                } catch (Exception e) {
+                    LOGGER.debug("Unable to close MongoDB client: " + e.getMessage(), e);
+                }
+            }
+            clients.clear();
+        }
+    }
+
+    /**
+     * Generates connection pool settings declared in database.properties. Driver defaults are used for absent values.
+     * 
+     * @return MongoClientOptions
+     */
+    private static MongoClientOptions getClientOptions() {
+        MongoClientOptions defaults = MongoClientOptions.builder().build();
+        return MongoClientOptions.builder()
+                .connectionsPerHost(getOption("mongo.connections_per_host", defaults.getConnectionsPerHost()))
+                .threadsAllowedToBlockForConnectionMultiplier(
+                        getOption("mongo.threads_allowed_to_block_multiplier", defaults.getThreadsAllowedToBlockForConnectionMultiplier()))
+                .maxWaitTime(getOption("mongo.max_wait_time", defaults.getMaxWaitTime()))
+                .connectTimeout(getOption("mongo.connect_timeout", defaults.getConnectTimeout()))
+                .socketTimeout(getOption("mongo.socket_timeout", defaults.getSocketTimeout()))
+                .build();
+    }
+
+    private static int getOption(String key, int defaultValue) {
+        String value = R.DATABASE.get(key);
+        if (StringUtils.isEmpty(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid '" + key + "' value: " + value + ", default " + defaultValue + " is used.");
+            return defaultValue;
         }
-        return clients.get(database);
     }
 
     private static void validateConfig(String database) {
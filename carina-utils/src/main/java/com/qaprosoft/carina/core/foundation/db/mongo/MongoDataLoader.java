@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.db.mongo;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.commons.io.IOUtils;
+
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+
+import com.qaprosoft.carina.core.foundation.utils.common.DaemonThreadFactory;
+
+/**
+ * MongoDataLoader - streams test data from MongoDB collections into TestNG data providers and loads fixtures in bulk.
+ * 
+ * Data provider usage:
+ * 
+ * <pre>
+ * &#64;DataProvider(name = "users")
+ * public Iterator&lt;Object[]&gt; users() throws UnknownHostException {
+ *     DBCollection collection = MongoConnector.createClient().getDB("fixtures").getCollection("users");
+ *     return MongoDataLoader.stream(collection, new BasicDBObject("active", true));
+ * }
+ * </pre>
+ */
+public class MongoDataLoader {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(new DaemonThreadFactory("mongo-data-loader"));
+
+    private MongoDataLoader() {
+        // hide default constructor
+    }
+
+    /**
+     * Lazily iterates documents of the collection matching the query, each document is a single data provider argument.
+     * 
+     * @param collection DBCollection
+     * @param query DBObject, null to iterate all documents
+     * @return data provider rows
+     */
+    public static Iterator<Object[]> stream(DBCollection collection, DBObject query) {
+        return stream(collection, query, DEFAULT_BATCH_SIZE, document -> new Object[] { document });
+    }
+
+    /**
+     * Lazily iterates documents of the collection matching the query. Only one cursor batch is kept in memory,
+     * cursor is closed as soon as all documents are consumed.
+     * 
+     * @param collection DBCollection
+     * @param query DBObject, null to iterate all documents
+     * @param batchSize number of documents fetched from server per round trip
+     * @param mapper converts document into data provider arguments
+     * @return data provider rows
+     */
+    public static Iterator<Object[]> stream(DBCollection collection, DBObject query, int batchSize, Function<DBObject, Object[]> mapper) {
+        DBCursor cursor = (query == null ? collection.find() : collection.find(query)).batchSize(batchSize);
+        return new CursorIterator(cursor, cursor, mapper);
+    }
+
+    /**
+     * Inserts documents into collection by batches.
+     * 
+     * @param collection DBCollection
+     * @param documents documents to insert, consumed lazily
+     * @param batchSize number of documents per insert request
+     * @return number of inserted documents
+     */
+    public static long load(DBCollection collection, Iterator<? extends DBObject> documents, int batchSize) {
+        return load(documents, batchSize, collection::insert);
+    }
+
+    static long load(Iterator<? extends DBObject> documents, int batchSize, Consumer<List<DBObject>> inserter) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size should be positive: " + batchSize);
+        }
+
+        long count = 0;
+        List<DBObject> batch = new ArrayList<DBObject>(batchSize);
+        while (documents.hasNext()) {
+            batch.add(documents.next());
+            if (batch.size() == batchSize) {
+                inserter.accept(batch);
+                count += batch.size();
+                batch = new ArrayList<DBObject>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            inserter.accept(batch);
+            count += batch.size();
+        }
+        return count;
+    }
+
+    /**
+     * Inserts documents into collection by batches in background, for example to prepare fixtures while suite is starting.
+     * 
+     * @param collection DBCollection
+     * @param documents documents to insert, consumed by background thread
+     * @param batchSize number of documents per insert request
+     * @return future with number of inserted documents
+     */
+    public static CompletableFuture<Long> loadAsync(DBCollection collection, Iterator<? extends DBObject> documents, int batchSize) {
+        return CompletableFuture.supplyAsync(() -> load(collection, documents, batchSize), executor);
+    }
+
+    static class CursorIterator implements Iterator<Object[]> {
+        private final Iterator<DBObject> cursor;
+        private final Closeable closeable;
+        private final Function<DBObject, Object[]> mapper;
+        private boolean closed = false;
+
+        CursorIterator(Iterator<DBObject> cursor, Closeable closeable, Function<DBObject, Object[]> mapper) {
+            this.cursor = cursor;
+            this.closeable = closeable;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            if (!cursor.hasNext()) {
+                IOUtils.closeQuietly(closeable);
+                closed = true;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return mapper.apply(cursor.next());
+        }
+    }
+}
@@ -28,6 +28,8 @@ import org.testng.ITestResult;
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadata;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadataRegistry;
 
 /*
  * Jira
@@ -75,17 +77,12 @@ public class Jira {
                     parseTicket(
                             result.getTestContext().getCurrentXmlTest().getParameter(SpecialKeywords.JIRA_TICKET)));
         }
-        if (result.getMethod().getDescription() != null && result.getMethod().getDescription().contains(SpecialKeywords.JIRA_TICKET)) {
+        TestMetadata metadata = TestMetadataRegistry.get(result.getMethod());
+        List<String> descriptionTickets = metadata != null ? metadata.getDescriptionTickets()
+                : getDescriptionTickets(result.getMethod().getDescription());
+        if (descriptionTickets != null) {
             tickets.clear();
-            String description = result.getMethod().getDescription();
-            
-            if (description.split("#").length > 1) {
-	            try {
-	                tickets.add(parseTicket(description.split("#")[1].trim()));
-	            } catch (Exception e) {
-	                LOG.error("Incorrect Jira-ticket format: " + description, e);
-	            }
-            }
+            tickets.addAll(descriptionTickets);
         }
 
         @SuppressWarnings("unchecked")
@@ -100,14 +97,33 @@ public class Jira {
         return tickets;
     }
 
-    public static boolean isRetryDisabled(ITestResult result) {
-        boolean ignoreKnownIssue = Configuration.getBoolean(Parameter.TRACK_KNOWN_ISSUES);
-        int knownIssuesCount = getTickets(result).size();
+    /**
+     * Parses Jira tickets declared in test description, i.e. "JIRA#TICKET-111"
+     * 
+     * @param description test description
+     * @return tickets or null if description doesn't declare tickets
+     */
+    public static List<String> getDescriptionTickets(String description) {
+        if (description == null || !description.contains(SpecialKeywords.JIRA_TICKET)) {
+            return null;
+        }
 
-        // [VD] QUALITY-1408 disable retry test execution if ignore_known_issues is enabled and jira ticket(s) provided
-        boolean disableRetryForKnownIssues = ignoreKnownIssue && (knownIssuesCount > 0);
+        List<String> tickets = new ArrayList<String>();
+        String[] parts = description.split("#");
+        if (parts.length > 1) {
+            try {
+                tickets.add(parseTicket(parts[1].trim()));
+            } catch (Exception e) {
+                LOG.error("Incorrect Jira-ticket format: " + description, e);
+            }
+        }
+        return tickets;
+    }
 
-        return disableRetryForKnownIssues;
+    public static boolean isRetryDisabled(ITestResult result) {
+        // [VD] QUALITY-1408 disable retry test execution if ignore_known_issues is enabled and jira ticket(s) provided
+        // tickets are resolved only when known issues are tracked
+        return Configuration.getBoolean(Parameter.TRACK_KNOWN_ISSUES) && !getTickets(result).isEmpty();
     }
 
     public static void clearJiraArtifacts() {
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.listeners;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Naming plan of a single test method inside test context.
+ * Data provider rows are registered when TestNG pulls them, so the row index and custom test name of invocation are
+ * resolved by parameters lookup instead of scanning data provider on every test start. Lazy data providers stay lazy.
+ * Invocation counters are kept by the plan, so they are released together with test context.
+ */
+class TestNamingPlan {
+    private final Map<RowKey, Integer> rowIndexes = new ConcurrentHashMap<>();
+    private final Map<Integer, String> rowNames = new ConcurrentHashMap<>();
+    private final AtomicInteger rows = new AtomicInteger();
+    private volatile boolean complete = false;
+    private volatile int size = -1;
+
+    private final Map<String, AtomicInteger> invocationCounters = new ConcurrentHashMap<>();
+    private volatile int invocationCount = -1;
+
+    /**
+     * Wraps data provider rows registering each row when TestNG pulls it.
+     *
+     * @param parameters data provider rows
+     * @param testNameArgsMap custom test names by hash of row arguments, may be null
+     * @return Iterator over the same rows
+     */
+    Iterator<Object[]> register(Iterator<Object[]> parameters, Map<String, String> testNameArgsMap) {
+        return new Iterator<Object[]>() {
+            @Override
+            public boolean hasNext() {
+                boolean hasNext = parameters.hasNext();
+                if (!hasNext) {
+                    complete = true;
+                }
+                return hasNext;
+            }
+
+            @Override
+            public Object[] next() {
+                Object[] row = parameters.next();
+                int index = rows.getAndIncrement();
+                // the first row wins for duplicated arguments
+                rowIndexes.putIfAbsent(new RowKey(row), index);
+                if (testNameArgsMap != null) {
+                    String name = testNameArgsMap.get(String.valueOf(Arrays.hashCode(row)));
+                    if (name != null) {
+                        rowNames.put(index, name);
+                    }
+                }
+                return row;
+            }
+        };
+    }
+
+    /**
+     * @param parameters invocation parameters
+     * @return zero based data provider row index or -1 if row wasn't registered
+     */
+    int getRowIndex(Object[] parameters) {
+        Integer index = rowIndexes.get(new RowKey(parameters));
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @param index data provider row index
+     * @return custom test name of the row or null
+     */
+    String getRowName(int index) {
+        return rowNames.get(index);
+    }
+
+    /**
+     * Returns number of data provider rows. Size is known without the fallback only when all rows were pulled,
+     * otherwise it is resolved by the fallback once per plan.
+     *
+     * @param fallback resolves number of rows when provider wasn't pulled completely
+     * @return number of data provider rows
+     */
+    int getSize(IntSupplier fallback) {
+        if (complete) {
+            return rows.get();
+        }
+        if (size < 0) {
+            size = fallback.getAsInt();
+        }
+        return size;
+    }
+
+    int getInvocationCount() {
+        return invocationCount;
+    }
+
+    void setInvocationCount(int invocationCount) {
+        this.invocationCount = invocationCount;
+    }
+
+    int nextInvocation(String testName) {
+        return invocationCounters.computeIfAbsent(testName, $ -> new AtomicInteger(0)).incrementAndGet();
+    }
+
+    private static class RowKey {
+        private final Object[] row;
+        private final int hash;
+
+        RowKey(Object[] row) {
+            this.row = row;
+            this.hash = Arrays.hashCode(row);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof RowKey && Arrays.equals(row, ((RowKey) obj).row);
+        }
+    }
+}
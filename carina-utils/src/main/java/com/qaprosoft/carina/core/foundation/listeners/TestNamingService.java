@@ -17,10 +17,11 @@ package com.qaprosoft.carina.core.foundation.listeners;
 
 import java.lang.invoke.MethodHandles;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.ITestContext;
@@ -35,7 +36,10 @@ public class TestNamingService {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass()); 
     
     static final ThreadLocal<String> testName = new ThreadLocal<String>();
-    private static final ConcurrentHashMap<String, AtomicInteger> testNameInvCounter = new ConcurrentHashMap<>();
+
+    // naming plans are stored in test context so they are released together with it
+    private static final String NAMING_PLANS = "testNamingPlans";
+    private static final String TEST_NAME_ATTRIBUTE = "generatedTestName";
 
     /**
      * Get full test name based on test class, method and other generic information. It is generated by TestNameListener automatically.
@@ -76,26 +80,52 @@ public class TestNamingService {
     }
 
     
+    /**
+     * Registers data provider rows of the test method to build its naming plan. Rows are registered lazily while TestNG
+     * iterates them, so data provider line and custom test name are resolved later by lookup.
+     * 
+     * @param parameters Iterator data provider rows
+     * @param method ITestNGMethod
+     * @param context ITestContext
+     * @return Iterator over the same rows
+     */
+    public static Iterator<Object[]> registerDataProvider(Iterator<Object[]> parameters, ITestNGMethod method, ITestContext context) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> testNameArgsMap = (Map<String, String>) context.getAttribute(SpecialKeywords.TEST_NAME_ARGS_MAP);
+        TestNamingPlan plan = new TestNamingPlan();
+        getNamingPlans(context).put(method, plan);
+        return plan.register(parameters, testNameArgsMap);
+    }
+
     /**
      * Set full test name based on test class, method and other generic information. It is generated based by ITestResult object.
+     * Name is generated once per test invocation, so invocation counter is not incremented by repeated calls.
      * 
      * @param ITestResult result
      * @return String test name
      */     
-    @SuppressWarnings("unlikely-arg-type")
     private static String setTestName(ITestResult result) {
-        String name = "";
-
         if (result.getTestContext() == null) {
             throw new RuntimeException("Unable to set Test name without testContext!");
         }
-        @SuppressWarnings("unchecked")
-        Map<Object[], String> testnameMap = (Map<Object[], String>) result.getTestContext().getAttribute(SpecialKeywords.TEST_NAME_ARGS_MAP);
 
-        if (testnameMap != null) {
-            String testHash = String.valueOf(Arrays.hashCode(result.getParameters()));
-            if (testnameMap.containsKey(testHash)) {
-                name = testnameMap.get(testHash);
+        Object generatedName = result.getAttribute(TEST_NAME_ATTRIBUTE);
+        if (generatedName != null) {
+            testName.set(generatedName.toString());
+            return testName.get();
+        }
+
+        TestNamingPlan plan = getNamingPlan(result);
+        int rowIndex = plan.getRowIndex(result.getParameters());
+
+        String name = "";
+        if (rowIndex >= 0) {
+            name = StringUtils.defaultString(plan.getRowName(rowIndex));
+        } else {
+            @SuppressWarnings("unchecked")
+            Map<String, String> testnameMap = (Map<String, String>) result.getTestContext().getAttribute(SpecialKeywords.TEST_NAME_ARGS_MAP);
+            if (testnameMap != null) {
+                name = StringUtils.defaultString(testnameMap.get(String.valueOf(Arrays.hashCode(result.getParameters()))));
             }
         }
 
@@ -126,9 +156,10 @@ public class TestNamingService {
 
         // introduce invocation count calculation here as in multi threading mode TestNG doesn't provide valid
         // getInvocationCount() value
-        name = appendDataProviderLine(result, name);
-        name = appendInvocationCount(result, name);
-        
+        name = appendDataProviderLine(result, plan, rowIndex, name);
+        name = appendInvocationCount(result, plan, name);
+
+        result.setAttribute(TEST_NAME_ATTRIBUTE, name);
         testName.set(name);
         return testName.get();
     }
@@ -174,18 +205,21 @@ public class TestNamingService {
      * @param String test
      * @return int invCount
      */
-    private static String appendInvocationCount(ITestResult testResult, String testName) {
-        int expectedInvocationCount = getInvocationCount(testResult);
+    private static String appendInvocationCount(ITestResult testResult, TestNamingPlan plan, String testName) {
+        int expectedInvocationCount = plan.getInvocationCount();
+        if (expectedInvocationCount < 0) {
+            expectedInvocationCount = getInvocationCount(testResult);
+            plan.setInvocationCount(expectedInvocationCount);
+        }
         if (expectedInvocationCount > 1) {
             // adding extra zero at the beginning of the invocation count
             int indexMaxLength = Integer.toString(expectedInvocationCount).length() + 1;
             String lineFormat = " [InvCount=%0" + indexMaxLength + "d]";
-            int currentInvocationCount = testNameInvCounter.computeIfAbsent(testName, $ -> new AtomicInteger(0))
-                                                             .incrementAndGet();
-            testName += String.format(lineFormat, currentInvocationCount);
+            testName += String.format(lineFormat, plan.nextInvocation(testName));
         }
         return testName;
     }
+
     private static int getInvocationCount(ITestResult testResult) {
         ITestNGMethod[] methods = testResult.getTestContext().getAllTestMethods();
         return Arrays.stream(methods)
@@ -195,20 +229,40 @@ public class TestNamingService {
                      .orElse(0);
     }
     
-    private static String appendDataProviderLine(ITestResult testResult, String testName) {
+    private static String appendDataProviderLine(ITestResult testResult, TestNamingPlan plan, int rowIndex, String testName) {
         ITestNGMethod testMethod = testResult.getMethod();
         ITestContext testContext = testResult.getTestContext();
-        Object[] parameters = testResult.getParameters();
 
-        int dataProviderSize = RunContextService.getDataProviderSize(testMethod, testContext);
+        // data provider is invoked again only when its rows weren't pulled completely yet
+        int dataProviderSize = plan.getSize(() -> RunContextService.getDataProviderSize(testMethod, testContext));
         if (dataProviderSize > 0) {
             // adding extra zero at the beginning of the data provider line number
             int indexMaxLength = Integer.toString(dataProviderSize).length() + 1;
             String lineFormat = " [L%0" + indexMaxLength + "d]";
-            int index = RunContextService.getCurrentDataProviderIndex(testMethod, testContext, parameters) + 1;
+            int index = rowIndex >= 0 ? rowIndex + 1
+                    : RunContextService.getCurrentDataProviderIndex(testMethod, testContext, testResult.getParameters()) + 1;
             testName += String.format(lineFormat, index);
         }
         return testName;
     }
-    
+
+    private static TestNamingPlan getNamingPlan(ITestResult result) {
+        return getNamingPlans(result.getTestContext()).computeIfAbsent(result.getMethod(), $ -> new TestNamingPlan());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<ITestNGMethod, TestNamingPlan> getNamingPlans(ITestContext context) {
+        Map<ITestNGMethod, TestNamingPlan> plans = (Map<ITestNGMethod, TestNamingPlan>) context.getAttribute(NAMING_PLANS);
+        if (plans == null) {
+            synchronized (context) {
+                plans = (Map<ITestNGMethod, TestNamingPlan>) context.getAttribute(NAMING_PLANS);
+                if (plans == null) {
+                    plans = new ConcurrentHashMap<>();
+                    context.setAttribute(NAMING_PLANS, plans);
+                }
+            }
+        }
+        return plans;
+    }
+
 }
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.performance;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Registry of run statistics collected by carina components (caches, command counters, retries etc.).
+ * Every component registers itself once when it is loaded, statistics of all registered components are reset
+ * at the suite start and reported at the suite finish.
+ */
+public final class RunStatistics {
+    // registration order is kept to report statistics in a stable order
+    private static final Map<String, Source> sources = new LinkedHashMap<>();
+
+    private RunStatistics() {
+        // hide default constructor
+    }
+
+    /**
+     * Registers statistics of the component. Registration with the same name replaces the previous one.
+     *
+     * @param name unique component name
+     * @param isEmpty verifies if component has nothing to report
+     * @param statistics renders statistics message
+     * @param reset resets collected statistics
+     */
+    public static synchronized void register(String name, BooleanSupplier isEmpty, Supplier<String> statistics, Runnable reset) {
+        sources.put(name, new Source(isEmpty, statistics, reset));
+    }
+
+    /**
+     * Returns statistics messages of the components which have collected anything.
+     *
+     * @return list of messages in registration order
+     */
+    public static synchronized List<String> getStatistics() {
+        List<String> statistics = new ArrayList<>();
+        for (Source source : sources.values()) {
+            if (!source.isEmpty.getAsBoolean()) {
+                statistics.add(source.statistics.get());
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Resets statistics of all registered components.
+     */
+    public static synchronized void reset() {
+        for (Source source : sources.values()) {
+            source.reset.run();
+        }
+    }
+
+    private static class Source {
+        private final BooleanSupplier isEmpty;
+        private final Supplier<String> statistics;
+        private final Runnable reset;
+
+        Source(BooleanSupplier isEmpty, Supplier<String> statistics, Runnable reset) {
+            this.isEmpty = isEmpty;
+            this.statistics = statistics;
+            this.reset = reset;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.report;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import com.qaprosoft.carina.core.foundation.utils.common.DaemonThreadFactory;
+import com.zebrunner.agent.core.registrar.Artifact;
+
+/**
+ * Produces test artifacts (UI dumps, archives etc.) in background so test thread is not blocked by I/O.
+ * Artifacts of a test thread are produced in submission order, number of pending artifacts is limited
+ * and producer is blocked when the limit is reached.
+ * Produced artifacts are attached on the test thread itself by {@link #await()} which is called when test or configuration
+ * method is finished, so artifacts of configuration methods are attached as well.
+ */
+public class ArtifactPipeline {
+    private static final Logger LOGGER = Logger.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final int MAX_PENDING_ARTIFACTS = 16;
+    private static final long AWAIT_TIMEOUT = 60;
+
+    private static final ExecutorService executor = createExecutor();
+    private static final Semaphore pendingLimit = new Semaphore(MAX_PENDING_ARTIFACTS);
+    private static final AtomicInteger pending = new AtomicInteger();
+
+    // last artifact task of the test thread
+    private static final ThreadLocal<CompletableFuture<Void>> lastTask = new ThreadLocal<CompletableFuture<Void>>();
+    private static final ThreadLocal<Queue<ProducedArtifact>> producedArtifacts = ThreadLocal
+            .withInitial(() -> new ConcurrentLinkedQueue<ProducedArtifact>());
+
+    private ArtifactPipeline() {
+        // hide default constructor
+    }
+
+    /**
+     * Schedules artifact production for the current test.
+     * Producer must not use thread specific context (test directory etc.), resolve it before submission.
+     *
+     * @param name artifact name
+     * @param producer generates artifact file, returns null if artifact can't be produced
+     */
+    public static void submit(String name, Callable<File> producer) {
+        try {
+            pendingLimit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while waiting to submit artifact: " + name);
+            return;
+        }
+        pending.incrementAndGet();
+
+        Queue<ProducedArtifact> artifacts = producedArtifacts.get();
+        Runnable task = () -> {
+            try {
+                File file = producer.call();
+                if (file != null) {
+                    artifacts.add(new ProducedArtifact(name, file));
+                }
+            } catch (Exception e) {
+                LOGGER.error("Unable to produce artifact: " + name, e);
+            } finally {
+                pending.decrementAndGet();
+                pendingLimit.release();
+            }
+        };
+
+        CompletableFuture<Void> previous = lastTask.get();
+        lastTask.set(previous == null ? CompletableFuture.runAsync(task, executor) : previous.thenRunAsync(task, executor));
+    }
+
+    /**
+     * Waits for artifacts submitted by the current thread and attaches all of them to the current test or configuration
+     * method.
+     */
+    public static void await() {
+        CompletableFuture<Void> last = lastTask.get();
+        if (last == null) {
+            return;
+        }
+
+        try {
+            last.get(AWAIT_TIMEOUT, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warn("Artifacts were not produced in " + AWAIT_TIMEOUT + " sec and won't be attached to the test.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOGGER.debug("Artifacts production failed: " + e.getMessage(), e);
+        } finally {
+            lastTask.remove();
+        }
+
+        Queue<ProducedArtifact> artifacts = producedArtifacts.get();
+        ProducedArtifact artifact;
+        while ((artifact = artifacts.poll()) != null) {
+            Artifact.attachToTest(artifact.name, artifact.file);
+        }
+    }
+
+    /**
+     * Verify if any artifact is still being produced
+     *
+     * @return boolean
+     */
+    public static boolean isProcessing() {
+        return pending.get() > 0;
+    }
+
+    private static ExecutorService createExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new DaemonThreadFactory("artifact-pipeline"));
+        // idle threads are released between tests
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static class ProducedArtifact {
+        private final String name;
+        private final File file;
+
+        public ProducedArtifact(String name, File file) {
+            this.name = name;
+            this.file = file;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.report;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template with ${name} placeholders which is parsed only once and then rendered directly into a {@link Writer},
+ * so big documents (e.g. emailable report) are not assembled in memory by chains of String.replace.
+ * Placeholders which are not resolved during rendering are written as is.
+ */
+public class CompiledTemplate {
+    private static final String PLACEHOLDER_START = "${";
+    private static final String PLACEHOLDER_END = "}";
+
+    // literals.length == placeholders.length + 1
+    private final String[] literals;
+    private final String[] placeholders;
+
+    public CompiledTemplate(String template) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+
+        String text = template == null ? "" : template;
+        int position = 0;
+        int start;
+        while ((start = text.indexOf(PLACEHOLDER_START, position)) >= 0) {
+            int end = text.indexOf(PLACEHOLDER_END, start + PLACEHOLDER_START.length());
+            if (end < 0) {
+                break;
+            }
+            literals.add(text.substring(position, start));
+            placeholders.add(text.substring(start, end + PLACEHOLDER_END.length()));
+            position = end + PLACEHOLDER_END.length();
+        }
+        literals.add(text.substring(position));
+
+        this.literals = literals.toArray(new String[0]);
+        this.placeholders = placeholders.toArray(new String[0]);
+    }
+
+    /**
+     * Writes template resolving placeholders by the callback.
+     *
+     * @param writer Writer
+     * @param values resolves placeholder in ${name} form
+     * @throws IOException on write failure
+     */
+    public void write(Writer writer, PlaceholderWriter values) throws IOException {
+        for (int i = 0; i < placeholders.length; i++) {
+            writer.write(literals[i]);
+            if (!values.write(placeholders[i], writer)) {
+                writer.write(placeholders[i]);
+            }
+        }
+        writer.write(literals[placeholders.length]);
+    }
+
+    /**
+     * Writes template resolving placeholders by the map. Keys are placeholders in ${name} form, null values are written as empty string.
+     *
+     * @param writer Writer
+     * @param values Map
+     * @throws IOException on write failure
+     */
+    public void write(Writer writer, Map<String, String> values) throws IOException {
+        write(writer, (placeholder, out) -> {
+            if (!values.containsKey(placeholder)) {
+                return false;
+            }
+            String value = values.get(placeholder);
+            if (value != null) {
+                out.write(value);
+            }
+            return true;
+        });
+    }
+
+    public String render(Map<String, String> values) {
+        StringWriter writer = new StringWriter();
+        try {
+            write(writer, values);
+        } catch (IOException e) {
+            // StringWriter doesn't throw IOException
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    public boolean isEmpty() {
+        return placeholders.length == 0 && literals[0].isEmpty();
+    }
+
+    /**
+     * Writes value of the placeholder.
+     */
+    @FunctionalInterface
+    public interface PlaceholderWriter {
+        /**
+         * @param placeholder placeholder in ${name} form
+         * @param writer Writer
+         * @return false if placeholder is unknown and should be kept as is
+         * @throws IOException on write failure
+         */
+        boolean write(String placeholder, Writer writer) throws IOException;
+    }
+}
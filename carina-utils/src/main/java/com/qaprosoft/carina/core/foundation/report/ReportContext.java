@@ -24,23 +24,31 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.lang.invoke.MethodHandles;
 import java.net.Authenticator;
 import java.net.HttpURLConnection;
 import java.net.PasswordAuthentication;
 import java.net.URL;
 import java.net.URLDecoder;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -61,7 +69,6 @@ import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
 import com.qaprosoft.carina.core.foundation.log.ThreadLogAppender;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
-import com.qaprosoft.carina.core.foundation.utils.FileManager;
 import com.qaprosoft.carina.core.foundation.utils.R;
 import com.qaprosoft.carina.core.foundation.utils.ZipManager;
 import com.zebrunner.agent.core.registrar.Artifact;
@@ -97,8 +104,16 @@ public class ReportContext {
 
     private static final ExecutorService executor = Executors.newCachedThreadPool();
 
-    // Collects screenshot comments. Screenshot comments are associated using screenshot file name.
-    private static Map<String, String> screenSteps = Collections.synchronizedMap(new HashMap<String, String>());
+    private static volatile ReportTemplate reportTemplate;
+
+    // artifacts of the launch by name
+    private static final Map<String, File> artifacts = new ConcurrentHashMap<String, File>();
+
+    // links to add to test results by path of video which is still being saved
+    private static final Map<String, List<Runnable>> pendingVideoLinks = new HashMap<String, List<Runnable>>();
+
+    // Collects screenshots and their comments of the current test. Screenshot comments are associated using screenshot file name.
+    private static final ThreadLocal<ScreenStepJournal> screenSteps = ThreadLocal.withInitial(() -> new ScreenStepJournal());
 
     public static long getRootID() {
         return rootID;
@@ -134,6 +149,7 @@ public class ReportContext {
                 baseDirectory = baseDirectoryTmp;
 
                 copyGalleryLib();
+                pruneReportHistory(projectRoot, baseDirectory.getName());
             }
         } catch (UnsupportedEncodingException e) {
             throw new RuntimeException("Folder not created: " + baseDirectory.getAbsolutePath());
@@ -264,6 +280,7 @@ public class ReportContext {
 
             try {
                 FileUtils.copyURLToFile(new URL(url), file);
+                artifacts.put(name, file);
                 LOGGER.debug("Successfully downloaded artifact: " + name);
                 Artifact.attachToTest(name, file); // publish as test artifact to Zebrunner Reporting
             } catch (IOException e) {
@@ -369,12 +386,80 @@ public class ReportContext {
     }
 
     public static File getArtifact(String name) {
-        File artifact = null;
-        for (File file : getAllArtifacts()) {
-            if (file.getName().equals(name)) {
-                artifact = file;
-                break;
+        File artifact = artifacts.get(name);
+        if (artifact != null && artifact.exists()) {
+            return artifact;
+        }
+
+        // artifact could be created outside of carina, for example downloaded by browser into the artifacts folder
+        artifact = resolveArtifact(name);
+        if (artifact != null && artifact.exists()) {
+            artifacts.put(name, artifact);
+            return artifact;
+        }
+
+        artifacts.remove(name);
+        return null;
+    }
+
+    /**
+     * Resolves artifact by name inside the artifacts folder
+     * 
+     * @param name String
+     * @return artifact File or null if name points outside of the artifacts folder
+     */
+    private static File resolveArtifact(String name) {
+        File folder = getArtifactsFolder();
+        try {
+            Path folderPath = folder.toPath().toAbsolutePath().normalize();
+            Path artifactPath = folderPath.resolve(name).normalize();
+            if (artifactPath.startsWith(folderPath) && !artifactPath.equals(folderPath)) {
+                return new File(folder, name);
+            }
+        } catch (InvalidPathException e) {
+            LOGGER.debug("Invalid artifact name: " + name, e);
+            return null;
+        }
+        LOGGER.warn("Artifact name points outside of the artifacts folder: " + name);
+        return null;
+    }
+
+    /**
+     * Waits until artifact appears in the local artifacts folder, for example when file is downloaded by browser.
+     * 
+     * @param name String
+     * @param timeout long in seconds
+     * @return artifact File or null if it doesn't appear during timeout
+     */
+    public static File waitForArtifact(String name, long timeout) {
+        File artifact = getArtifact(name);
+        if (artifact != null) {
+            return artifact;
+        }
+
+        Path folder = getArtifactsFolder().toPath();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeout);
+        try (WatchService watcher = folder.getFileSystem().newWatchService()) {
+            folder.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            // verify once again to not miss artifact created before registration
+            artifact = getArtifact(name);
+            while (artifact == null) {
+                long left = deadline - System.currentTimeMillis();
+                WatchKey key = left > 0 ? watcher.poll(left, TimeUnit.MILLISECONDS) : null;
+                if (key == null) {
+                    break;
+                }
+                key.pollEvents();
+                artifact = getArtifact(name);
+                if (!key.reset()) {
+                    break;
+                }
             }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to watch artifacts folder: " + folder, e);
+            artifact = getArtifact(name);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
         return artifact;
     }
@@ -383,29 +468,32 @@ public class ReportContext {
         for (File file : getAllArtifacts()) {
             file.delete();
         }
+        artifacts.clear();
     }
 
     public static void deleteArtifact(String name) {
-        for (File file : getAllArtifacts()) {
-            if (file.getName().equals(name)) {
-                file.delete();
-                break;
-            }
+        File artifact = getArtifact(name);
+        if (artifact != null) {
+            artifact.delete();
         }
+        artifacts.remove(name);
     }
 
     public static void saveArtifact(String name, InputStream source) throws IOException {
         File artifact = new File(String.format("%s/%s", getArtifactsFolder(), name));
         artifact.createNewFile();
-        FileUtils.writeByteArrayToFile(artifact, IOUtils.toByteArray(source));
+        byte[] content = IOUtils.toByteArray(source);
+        FileUtils.writeByteArrayToFile(artifact, content);
+        artifacts.put(name, artifact);
         
-        Artifact.attachToTest(name, IOUtils.toByteArray(source));
+        Artifact.attachToTest(name, content);
     }
 
     public static void saveArtifact(File source) throws IOException {
         File artifact = new File(String.format("%s/%s", getArtifactsFolder(), source.getName()));
         artifact.createNewFile();
         FileUtils.copyFile(source, artifact);
+        artifacts.put(source.getName(), artifact);
         
         Artifact.attachToTest(source.getName(), artifact);
     }
@@ -463,6 +551,7 @@ public class ReportContext {
 
     public static void emptyTestDirData() {
         testDirectory.remove();
+        screenSteps.remove();
         isCustomTestDirName.set(Boolean.FALSE);
         closeThreadLogAppender();
     }
@@ -507,7 +596,7 @@ public class ReportContext {
     }
 
     /**
-     * Removes emailable html report and oldest screenshots directories according to history size defined in config.
+     * Removes emailable html report of the previous launch.
      */
     private static void removeOldReports() {
         File baseDir = new File(String.format("%s/%s", System.getProperty("user.dir"),
@@ -520,29 +609,40 @@ public class ReportContext {
             if (reportFile.exists()) {
                 reportFile.delete();
             }
+        }
+    }
+
+    /**
+     * Removes oldest screenshots directories according to history size defined in config.
+     * Directories are removed by low priority daemon thread so suite start is not delayed on big history.
+     * 
+     * @param projectRoot reports root folder
+     * @param currentDir name of the current launch directory which is always kept
+     */
+    private static void pruneReportHistory(File projectRoot, String currentDir) {
+        int maxHistory = Configuration.getInt(Parameter.MAX_SCREENSHOOT_HISTORY);
+        if (maxHistory <= 0) {
+            return;
+        }
+
+        Thread pruner = new Thread(() -> {
+            File[] files = projectRoot.listFiles();
+            if (files == null) {
+                return;
+            }
 
-            List<File> files = FileManager.getFilesInDir(baseDir);
             List<File> screenshotFolders = new ArrayList<File>();
             for (File file : files) {
-                if (file.isDirectory() && !file.getName().startsWith(".")) {
+                if (file.isDirectory() && !file.getName().startsWith(".") && !file.getName().equals("gallery-lib")
+                        && !file.getName().equals(currentDir)) {
                     screenshotFolders.add(file);
                 }
             }
 
-            int maxHistory = Configuration.getInt(Parameter.MAX_SCREENSHOOT_HISTORY);
-
-            if (maxHistory > 0 && screenshotFolders.size() + 1 > maxHistory && maxHistory != 0) {
-                Comparator<File> comp = new Comparator<File>() {
-                    @Override
-                    public int compare(File file1, File file2) {
-                        return file2.getName().compareTo(file1.getName());
-                    }
-                };
-                Collections.sort(screenshotFolders, comp);
+            // current launch directory is a part of the history
+            if (screenshotFolders.size() + 1 > maxHistory) {
+                screenshotFolders.sort(Comparator.comparing(File::getName).reversed());
                 for (int i = maxHistory - 1; i < screenshotFolders.size(); i++) {
-                    if (screenshotFolders.get(i).getName().equals("gallery-lib")) {
-                        continue;
-                    }
                     try {
                         FileUtils.deleteDirectory(screenshotFolders.get(i));
                     } catch (IOException e) {
@@ -550,38 +650,32 @@ public class ReportContext {
                     }
                 }
             }
-        }
+        }, "report-history-pruner");
+        pruner.setDaemon(true);
+        pruner.setPriority(Thread.MIN_PRIORITY);
+        pruner.start();
     }
 
     public static void generateHtmlReport(String content) {
-        String emailableReport = SpecialKeywords.HTML_REPORT;
-
-        try {
-            File reportFile = new File(String.format("%s/%s/%s", System.getProperty("user.dir"),
-                    Configuration.get(Parameter.PROJECT_REPORT_DIRECTORY), emailableReport));
-
-            // if file doesn't exists, then create it
-            if (!reportFile.exists()) {
-                reportFile.createNewFile();
-            }
-
-            FileWriter fw = new FileWriter(reportFile.getAbsoluteFile());
-            try {
-                BufferedWriter bw = new BufferedWriter(fw);
-                try {
-                    bw.write(content);
-                } finally {
-                    bw.close();
-                }
-            } finally {
-                fw.close();
-            }
-
+        try (Writer writer = getHtmlReportWriter()) {
+            writer.write(content);
         } catch (IOException e) {
             LOGGER.error("generateHtmlReport failure", e);
         }
     }
 
+    /**
+     * Opens buffered writer of emailable report, so big report can be streamed to the file instead of being built in memory.
+     *
+     * @return Writer which should be closed by the caller
+     * @throws IOException if report file can't be opened
+     */
+    public static Writer getHtmlReportWriter() throws IOException {
+        File reportFile = new File(String.format("%s/%s/%s", System.getProperty("user.dir"),
+                Configuration.get(Parameter.PROJECT_REPORT_DIRECTORY), SpecialKeywords.HTML_REPORT));
+        return new BufferedWriter(new FileWriter(reportFile.getAbsoluteFile()));
+    }
+
     /**
      * Returns URL for test artifacts folder.
      * 
@@ -636,20 +730,50 @@ public class ReportContext {
      *         String list of generated links
      */
     public static List<String> getTestVideoLinks(List<String> sessionIds) {
-        List<String> links = new ArrayList<>();
-        for (String sessionId : sessionIds) {
-            String videoFileName = String.format(SpecialKeywords.DEFAULT_VIDEO_FILENAME, sessionId);
-            File videoFile = new File(ReportContext.getArtifactsFolder() + File.separator + videoFileName);
-            if (!videoFile.exists()) {
-                // no video file at all
-                continue;
+        List<String> links = new CopyOnWriteArrayList<>();
+        synchronized (pendingVideoLinks) {
+            for (String sessionId : sessionIds) {
+                String videoFileName = String.format(SpecialKeywords.DEFAULT_VIDEO_FILENAME, sessionId);
+                File videoFile = new File(ReportContext.getArtifactsFolder() + File.separator + videoFileName);
+                String link = getTestArtifactsLink() + File.separator + videoFileName;
+                if (videoFile.exists()) {
+                    links.add(link);
+                } else if (pendingVideoLinks.containsKey(videoFile.getAbsolutePath())) {
+                    // video is still being saved and will be linked once it is complete
+                    pendingVideoLinks.get(videoFile.getAbsolutePath()).add(() -> links.add(link));
+                }
             }
-
-            links.add(getTestArtifactsLink() + File.separator + videoFileName);
         }
         return links;
     }
 
+    /**
+     * Declares video which is being saved in background so test video links are added only after it is complete.
+     * 
+     * @param videoFile final video file
+     */
+    public static void startVideoSaving(File videoFile) {
+        synchronized (pendingVideoLinks) {
+            pendingVideoLinks.put(videoFile.getAbsolutePath(), new ArrayList<>());
+        }
+    }
+
+    /**
+     * Completes video saving started by {@link #startVideoSaving(File)}.
+     * 
+     * @param videoFile final video file
+     * @param saved true if video was saved under its final name, otherwise pending links are discarded
+     */
+    public static void finishVideoSaving(File videoFile, boolean saved) {
+        List<Runnable> links;
+        synchronized (pendingVideoLinks) {
+            links = pendingVideoLinks.remove(videoFile.getAbsolutePath());
+        }
+        if (saved && links != null) {
+            links.forEach(Runnable::run);
+        }
+    }
+
     /**
      * Returns URL for test log.
      * @return - URL to test log folder.
@@ -713,7 +837,9 @@ public class ReportContext {
         executor.execute(new ImageSaverTask(screenshot, String.format("%s/%d.png", getTestDir().getAbsolutePath(), now),
                 Configuration.getInt(Parameter.BIG_SCREEN_WIDTH), Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT)));
 
-        return String.format("%d.png", now);
+        String screenName = String.format("%d.png", now);
+        screenSteps.get().add(screenName, "");
+        return screenName;
     }
 
     /**
@@ -774,40 +900,55 @@ public class ReportContext {
 
     public static void generateTestReport() {
         File testDir = testDirectory.get();
-        try {
-            List<File> images = FileManager.getFilesInDir(testDir);
-            List<String> imgNames = new ArrayList<String>();
-            for (File image : images) {
-                imgNames.add(image.getName());
-            }
-            imgNames.remove("test.log");
-            imgNames.remove("sql.log");
-            if (imgNames.size() == 0)
-                return;
-
-            Collections.sort(imgNames);
+        ScreenStepJournal journal = screenSteps.get();
+        if (testDir == null || journal.isEmpty()) {
+            return;
+        }
 
-            StringBuilder report = new StringBuilder();
-            for (int i = 0; i < imgNames.size(); i++) {
-                // convert toString
-                String image = R.REPORT.get("image");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(testDir.getAbsolutePath() + REPORT_NAME))) {
+            ReportTemplate template = getReportTemplate();
+            writer.write(template.header);
+            journal.write(writer, template.image, MAX_IMAGE_TITLE);
+            writer.write(template.footer);
+        } catch (Exception e) {
+            LOGGER.error("generateTestReport failure", e);
+        }
+    }
 
-                image = image.replace("${image}", imgNames.get(i));
+    private static ReportTemplate getReportTemplate() {
+        String container = R.REPORT.get("container");
+        String image = R.REPORT.get("image");
+        ReportTemplate template = reportTemplate;
+        if (template == null || !template.container.equals(container) || !template.imageSource.equals(image)) {
+            template = new ReportTemplate(container, image);
+            reportTemplate = template;
+        }
+        return template;
+    }
 
-                String title = getScreenshotComment(imgNames.get(i));
-                if (title == null) {
-                    title = "";
-                }
-                image = image.replace("${title}", StringUtils.substring(title, 0, MAX_IMAGE_TITLE));
-                report.append(image);
+    /**
+     * Gallery report template split around ${images} placeholder.
+     */
+    private static class ReportTemplate {
+        private final String container;
+        private final String imageSource;
+        private final String header;
+        private final String footer;
+        private final ScreenStepJournal.ImageTemplate image;
+
+        ReportTemplate(String container, String imageSource) {
+            this.container = container;
+            this.imageSource = imageSource;
+            String wholeReport = container.replace("${title}", TITLE);
+            int images = wholeReport.indexOf("${images}");
+            if (images < 0) {
+                this.header = wholeReport;
+                this.footer = "";
+            } else {
+                this.header = wholeReport.substring(0, images);
+                this.footer = wholeReport.substring(images + "${images}".length());
             }
-            // String wholeReport = R.REPORT.get("container").replace("${images}", report.toString());
-            String wholeReport = R.REPORT.get("container").replace("${images}", report.toString());
-            wholeReport = wholeReport.replace("${title}", TITLE);
-            String folder = testDir.getAbsolutePath();
-            FileManager.createFileWithContent(folder + REPORT_NAME, wholeReport);
-        } catch (Exception e) {
-            LOGGER.error("generateTestReport failure", e);
+            this.image = new ScreenStepJournal.ImageTemplate(imageSource);
         }
     }
 
@@ -820,7 +961,7 @@ public class ReportContext {
      */
     public static void addScreenshotComment(String screenId, String msg) {
         if (!StringUtils.isEmpty(screenId)) {
-            screenSteps.put(screenId, msg);
+            screenSteps.get().add(screenId, msg);
         }
     }
 
@@ -832,10 +973,7 @@ public class ReportContext {
      * @return screenshot comment
      */
     public static String getScreenshotComment(String screenId) {
-        String comment = "";
-        if (screenSteps.containsKey(screenId))
-            comment = screenSteps.get(screenId);
-        return comment;
+        return screenSteps.get().getComment(screenId);
     }
 
     private static String getBaseDirAbsolutePath() {
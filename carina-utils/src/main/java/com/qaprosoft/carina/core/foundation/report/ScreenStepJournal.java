@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Append-only journal of the screenshots captured by a single test in capturing order.
+ * Screenshot comment is replaced when the same screenshot is registered again.
+ * Journal is owned by the test thread and released together with the test directory.
+ */
+class ScreenStepJournal {
+    private final List<String> screens = new ArrayList<String>();
+    private final Map<String, String> comments = new HashMap<String, String>();
+
+    void add(String screenId, String comment) {
+        if (comments.put(screenId, StringUtils.defaultString(comment)) == null) {
+            screens.add(screenId);
+        }
+    }
+
+    String getComment(String screenId) {
+        return comments.getOrDefault(screenId, "");
+    }
+
+    boolean isEmpty() {
+        return screens.isEmpty();
+    }
+
+    /**
+     * Writes gallery items of all journaled screenshots using image template split around the placeholders.
+     * 
+     * @param writer Writer
+     * @param template image template parts
+     * @param maxTitle max length of the screenshot title
+     * @throws IOException on write failure
+     */
+    void write(Writer writer, ImageTemplate template, int maxTitle) throws IOException {
+        for (String screen : screens) {
+            template.write(writer, screen, StringUtils.substring(comments.get(screen), 0, maxTitle));
+        }
+    }
+
+    /**
+     * Gallery item template parsed once: static text interleaved with ${image} and ${title} placeholders.
+     */
+    static class ImageTemplate {
+        private static final String IMAGE = "${image}";
+        private static final String TITLE = "${title}";
+
+        private final List<String> parts = new ArrayList<String>();
+
+        ImageTemplate(String template) {
+            int from = 0;
+            while (true) {
+                int image = template.indexOf(IMAGE, from);
+                int title = template.indexOf(TITLE, from);
+                int next = image < 0 ? title : (title < 0 ? image : Math.min(image, title));
+                if (next < 0) {
+                    break;
+                }
+                parts.add(template.substring(from, next));
+                parts.add(next == image ? IMAGE : TITLE);
+                from = next + (next == image ? IMAGE.length() : TITLE.length());
+            }
+            parts.add(template.substring(from));
+        }
+
+        void write(Writer writer, String image, String title) throws IOException {
+            for (String part : parts) {
+                if (IMAGE.equals(part)) {
+                    writer.write(image);
+                } else if (TITLE.equals(part)) {
+                    writer.write(title);
+                } else {
+                    writer.write(part);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.retry;
+
+/**
+ * Failure classes detected by {@link FailureClassifier}. Only transient failures are worth retrying.
+ */
+public enum FailureClass {
+    SESSION_LOST(true, true),
+    GRID_CONNECTIVITY(true, true),
+    STALE_ELEMENT(true, false),
+    DRIVER_ERROR(true, true),
+    ELEMENT_NOT_FOUND(false, false),
+    PAGE_STATE(false, false),
+    ASSERTION(false, false),
+    UNKNOWN(true, false);
+
+    private final boolean transientFailure;
+    private final boolean driverUnavailable;
+
+    private FailureClass(boolean transientFailure, boolean driverUnavailable) {
+        this.transientFailure = transientFailure;
+        this.driverUnavailable = driverUnavailable;
+    }
+
+    public boolean isTransient() {
+        return transientFailure;
+    }
+
+    /**
+     * Verify if failure means that driver or grid can't serve commands, i.e. screenshot can't be captured.
+     * 
+     * @return boolean
+     */
+    public boolean isDriverUnavailable() {
+        return driverUnavailable;
+    }
+}
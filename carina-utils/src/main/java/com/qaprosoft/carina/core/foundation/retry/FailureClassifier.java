@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.retry;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.utils.common.MultiPatternMatcher;
+
+/**
+ * Classifies test failures by known signatures of driver and grid error messages.
+ * All signatures are searched in a single pass over the message, if several of them occur the first declared one defines
+ * the failure class. Custom signatures declared in failure_signatures property have priority over built-in ones:
+ * failure_signatures=SESSION_LOST=session deleted because of page crash;GRID_CONNECTIVITY=Connection reset
+ */
+public class FailureClassifier {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final String SIGNATURES_DELIMITER = ";";
+
+    private static final List<Signature> SIGNATURES = new ArrayList<Signature>();
+
+    // matcher of built-in signatures only, all of them mean that driver can't serve screenshot
+    private static final MultiPatternMatcher BUILT_IN_MATCHER;
+
+    // matcher of custom and built-in signatures, rebuilt when failure_signatures is changed
+    private static volatile SignaturesMatcher matcher;
+
+    static {
+        // [VD] do not register "timeout" as it is too common!
+        register("StaleObjectException", FailureClass.STALE_ELEMENT);
+        register("StaleElementReferenceException", FailureClass.STALE_ELEMENT);
+        register("stale_element_reference.html", FailureClass.STALE_ELEMENT);
+        register("Error executing JavaScript", FailureClass.DRIVER_ERROR);
+        register("Session ID is null. Using WebDriver after calling quit", FailureClass.SESSION_LOST);
+        register("A session is either terminated or not started", FailureClass.SESSION_LOST);
+        register("invalid session id", FailureClass.SESSION_LOST);
+        register("Session does not exist", FailureClass.SESSION_LOST);
+        register("Session timed out or not found", FailureClass.SESSION_LOST);
+        register("Unable to determine type from: <. Last 1 characters read", FailureClass.GRID_CONNECTIVITY);
+        register("not available and is not among the last 1000 terminated sessions", FailureClass.SESSION_LOST);
+        register("cannot forward the request", FailureClass.GRID_CONNECTIVITY);
+        register("connect ECONNREFUSED", FailureClass.GRID_CONNECTIVITY);
+        // FORWARDING_TO_NODE_FAILED, CLIENT_STOPPED_SESSION, PROXY_REREGISTRATION, TIMEOUT, BROWSER_TIMEOUT etc
+        register("was terminated due to", FailureClass.SESSION_LOST);
+        register("InvalidElementStateException", FailureClass.STALE_ELEMENT);
+        register("stale element reference", FailureClass.STALE_ELEMENT);
+        register("no such element: Unable to locate element", FailureClass.ELEMENT_NOT_FOUND);
+        // use-case for Safari driver
+        register("https://www.seleniumhq.org/exceptions/no_such_element.html", FailureClass.ELEMENT_NOT_FOUND);
+        register("no such window: window was already closed", FailureClass.PAGE_STATE);
+        // to often exception for mobile native app testing
+        register("Method is not implemented", FailureClass.PAGE_STATE);
+        register("An element could not be located on the page using the given search parameters", FailureClass.ELEMENT_NOT_FOUND);
+        register("current view have 'secure' flag set", FailureClass.PAGE_STATE);
+        register("Error communicating with the remote browser. It may have died", FailureClass.GRID_CONNECTIVITY);
+        register("unexpected alert open", FailureClass.PAGE_STATE);
+        register("chrome not reachable", FailureClass.GRID_CONNECTIVITY);
+        register("cannot forward the request Connect to", FailureClass.GRID_CONNECTIVITY);
+        // Error: socket hang up, Error: read ECONNRESET etc
+        register("Could not proxy command to remote server. Original error:", FailureClass.GRID_CONNECTIVITY);
+        // Different messages on some Appium versions
+        register("Could not proxy command to the remote server. Original error:", FailureClass.GRID_CONNECTIVITY);
+        register("Unable to find elements by Selenium", FailureClass.ELEMENT_NOT_FOUND);
+        // getPageSource is invalid
+        register("generateUiDump", FailureClass.DRIVER_ERROR);
+        // potential drivers issues fix for moon
+        register("Expected to read a START_MAP but instead have: END", FailureClass.GRID_CONNECTIVITY);
+        register("An unknown error has occurred", FailureClass.DRIVER_ERROR);
+        register("Unable to find element with", FailureClass.ELEMENT_NOT_FOUND);
+        register("Unable to locate element", FailureClass.ELEMENT_NOT_FOUND);
+        register("Illegal base64 character 2e", FailureClass.DRIVER_ERROR);
+
+        List<String> patterns = new ArrayList<String>(SIGNATURES.size());
+        for (Signature signature : SIGNATURES) {
+            patterns.add(signature.pattern);
+        }
+        BUILT_IN_MATCHER = new MultiPatternMatcher(patterns);
+    }
+
+    private FailureClassifier() {
+        // hide default constructor
+    }
+
+    private static void register(String pattern, FailureClass failureClass) {
+        SIGNATURES.add(new Signature(pattern, failureClass));
+    }
+
+    /**
+     * Returns patterns of all custom and built-in driver and grid errors.
+     * 
+     * @return list of patterns in priority order
+     */
+    public static List<String> getPatterns() {
+        List<Signature> signatures = getMatcher().signatures;
+        List<String> patterns = new ArrayList<String>(signatures.size());
+        for (Signature signature : signatures) {
+            patterns.add(signature.pattern);
+        }
+        return patterns;
+    }
+
+    /**
+     * Detects failure class of the message.
+     * 
+     * @param message String
+     * @return failure class or null if message doesn't contain any known signature
+     */
+    public static FailureClass classify(String message) {
+        if (message == null) {
+            return null;
+        }
+        SignaturesMatcher current = getMatcher();
+        int index = current.matcher.findFirst(message);
+        return index == MultiPatternMatcher.NOT_FOUND ? null : current.signatures.get(index).failureClass;
+    }
+
+    /**
+     * Verify if the message is a known driver failure, i.e. driver is not able to serve other commands like screenshot.
+     * Any built-in signature means driver failure, custom signatures only of the classes marked by
+     * {@link FailureClass#isDriverUnavailable()}.
+     * 
+     * @param message String
+     * @return boolean
+     */
+    public static boolean isDriverFailure(String message) {
+        if (message == null) {
+            return false;
+        }
+        if (BUILT_IN_MATCHER.findFirst(message) != MultiPatternMatcher.NOT_FOUND) {
+            return true;
+        }
+        FailureClass failureClass = classify(message);
+        return failureClass != null && failureClass.isDriverUnavailable();
+    }
+
+    /**
+     * Detects failure class of the throwable verifying messages of the whole causes chain.
+     * Failures without known signature are classified as {@link FailureClass#ASSERTION} if any of them is an assertion error.
+     * 
+     * @param throwable Throwable
+     * @return failure class, {@link FailureClass#UNKNOWN} for null or not recognized failure
+     */
+    public static FailureClass classify(Throwable throwable) {
+        boolean assertion = false;
+        // causes are tracked by identity to stop on cyclic chains
+        Map<Throwable, Boolean> visited = new IdentityHashMap<Throwable, Boolean>();
+        for (Throwable cause = throwable; cause != null && visited.put(cause, Boolean.TRUE) == null; cause = cause.getCause()) {
+            FailureClass failureClass = classify(cause.getClass().getName() + ": " + cause.getMessage());
+            if (failureClass != null) {
+                return failureClass;
+            }
+            assertion |= cause instanceof AssertionError;
+        }
+        return assertion ? FailureClass.ASSERTION : FailureClass.UNKNOWN;
+    }
+
+    private static SignaturesMatcher getMatcher() {
+        String customSignatures = Configuration.get(Parameter.FAILURE_SIGNATURES);
+        SignaturesMatcher current = matcher;
+        if (current == null || !current.customSignatures.equals(customSignatures)) {
+            current = new SignaturesMatcher(customSignatures);
+            matcher = current;
+        }
+        return current;
+    }
+
+    private static List<Signature> parseSignatures(String customSignatures) {
+        List<Signature> signatures = new ArrayList<Signature>();
+        for (String signature : customSignatures.split(SIGNATURES_DELIMITER)) {
+            if (signature.trim().isEmpty()) {
+                continue;
+            }
+            int delimiter = signature.indexOf('=');
+            try {
+                if (delimiter <= 0 || delimiter == signature.length() - 1) {
+                    throw new IllegalArgumentException("CLASS=pattern format is expected");
+                }
+                FailureClass failureClass = FailureClass.valueOf(signature.substring(0, delimiter).trim());
+                signatures.add(new Signature(signature.substring(delimiter + 1), failureClass));
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Invalid failure signature '" + signature + "' is ignored: " + e.getMessage());
+            }
+        }
+        return signatures;
+    }
+
+    private static class SignaturesMatcher {
+        private final String customSignatures;
+        private final List<Signature> signatures;
+        private final MultiPatternMatcher matcher;
+
+        SignaturesMatcher(String customSignatures) {
+            this.customSignatures = customSignatures;
+            this.signatures = parseSignatures(customSignatures);
+            this.signatures.addAll(SIGNATURES);
+
+            List<String> patterns = new ArrayList<String>(signatures.size());
+            for (Signature signature : signatures) {
+                patterns.add(signature.pattern);
+            }
+            this.matcher = new MultiPatternMatcher(patterns);
+        }
+    }
+
+    private static class Signature {
+        private final String pattern;
+        private final FailureClass failureClass;
+
+        Signature(String pattern, FailureClass failureClass) {
+            this.pattern = pattern;
+            this.failureClass = failureClass;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.retry;
+
+import java.lang.invoke.MethodHandles;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.ITestResult;
+
+import com.qaprosoft.carina.core.foundation.jira.Jira;
+import com.qaprosoft.carina.core.foundation.performance.RunStatistics;
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * Decides if failed test should be retried according to its failure class and suite-wide retry time budget.
+ * Budget is consumed by duration of failed attempts which are retried as the retry is expected to take the same time.
+ */
+public class RetryPolicy {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final AtomicLong consumedBudget = new AtomicLong();
+    private static final Map<FailureClass, RetryMetrics> metrics = new EnumMap<FailureClass, RetryMetrics>(FailureClass.class);
+
+    static {
+        for (FailureClass failureClass : FailureClass.values()) {
+            metrics.put(failureClass, new RetryMetrics());
+        }
+        RunStatistics.register(RetryPolicy.class.getName(), RetryPolicy::isEmpty, RetryPolicy::getStatistics, RetryPolicy::reset);
+    }
+
+    private RetryPolicy() {
+        // hide default constructor
+    }
+
+    /**
+     * Verify if failed test should be retried. Max retry count is verified by {@link RetryAnalyzer}.
+     * 
+     * @param result ITestResult
+     * @return boolean
+     */
+    public static boolean isRetryAllowed(ITestResult result) {
+        FailureClass failureClass = FailureClassifier.classify(result.getThrowable());
+        RetryMetrics failureMetrics = metrics.get(failureClass);
+        failureMetrics.failures.incrementAndGet();
+
+        if (Configuration.getBoolean(Parameter.RETRY_TRANSIENT_ONLY) && !failureClass.isTransient()) {
+            LOGGER.debug("Retry is disabled for " + failureClass + " failure of " + result.getMethod().getMethodName());
+            failureMetrics.rejected.incrementAndGet();
+            return false;
+        }
+
+        if (Jira.isRetryDisabled(result)) {
+            failureMetrics.rejected.incrementAndGet();
+            return false;
+        }
+
+        long duration = Math.max(0, result.getEndMillis() - result.getStartMillis());
+        if (!acquireBudget(duration)) {
+            LOGGER.warn("Retry time budget is exhausted, " + result.getMethod().getMethodName() + " won't be retried.");
+            failureMetrics.rejected.incrementAndGet();
+            return false;
+        }
+
+        failureMetrics.retries.incrementAndGet();
+        failureMetrics.retryTime.addAndGet(duration);
+        return true;
+    }
+
+    private static boolean acquireBudget(long duration) {
+        long budget = TimeUnit.SECONDS.toMillis(Configuration.getLong(Parameter.RETRY_TIME_BUDGET));
+        if (budget <= 0) {
+            consumedBudget.addAndGet(duration);
+            return true;
+        }
+
+        long consumed;
+        do {
+            consumed = consumedBudget.get();
+            if (consumed >= budget) {
+                return false;
+            }
+        } while (!consumedBudget.compareAndSet(consumed, consumed + duration));
+        return true;
+    }
+
+    public static long getFailures(FailureClass failureClass) {
+        return metrics.get(failureClass).failures.get();
+    }
+
+    public static long getRetries(FailureClass failureClass) {
+        return metrics.get(failureClass).retries.get();
+    }
+
+    public static long getRejected(FailureClass failureClass) {
+        return metrics.get(failureClass).rejected.get();
+    }
+
+    /**
+     * Returns estimated time in ms spent on retries of the failure class.
+     * 
+     * @param failureClass FailureClass
+     * @return long
+     */
+    public static long getRetryTime(FailureClass failureClass) {
+        return metrics.get(failureClass).retryTime.get();
+    }
+
+    public static boolean isEmpty() {
+        for (RetryMetrics failureMetrics : metrics.values()) {
+            if (failureMetrics.failures.get() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String getStatistics() {
+        StringBuilder statistics = new StringBuilder("Retry statistics (failures/retries/rejected/retry time ms):");
+        for (Map.Entry<FailureClass, RetryMetrics> entry : metrics.entrySet()) {
+            RetryMetrics failureMetrics = entry.getValue();
+            if (failureMetrics.failures.get() == 0) {
+                continue;
+            }
+            statistics.append(String.format("%n%s: %d/%d/%d/%d", entry.getKey(), failureMetrics.failures.get(), failureMetrics.retries.get(),
+                    failureMetrics.rejected.get(), failureMetrics.retryTime.get()));
+        }
+        return statistics.toString();
+    }
+
+    /**
+     * Resets retry budget and metrics, called at suite start via {@link RunStatistics#reset()}.
+     */
+    public static void reset() {
+        consumedBudget.set(0);
+        for (RetryMetrics failureMetrics : metrics.values()) {
+            failureMetrics.failures.set(0);
+            failureMetrics.retries.set(0);
+            failureMetrics.rejected.set(0);
+            failureMetrics.retryTime.set(0);
+        }
+    }
+
+    private static class RetryMetrics {
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong retryTime = new AtomicLong();
+    }
+}
@@ -73,6 +73,8 @@ public class Configuration {
 
         SELENIUM_HOST("selenium_host"),
 
+        GRID_NODE_RESOLUTION("grid_node_resolution"),
+
         DRIVER_RECORDER("driver_recorder"),
         
         DRIVER_EVENT_LISTENERS("driver_event_listeners"),
@@ -121,6 +123,8 @@ public class Configuration {
 
         AUTO_SCREENSHOT("auto_screenshot"),
 
+        SCREENSHOT_DEDUP_DISTANCE("screenshot_dedup_distance"),
+
         EXPLICIT_TIMEOUT("explicit_timeout"),
 
         AUTO_DOWNLOAD("auto_download"),
@@ -133,6 +137,8 @@ public class Configuration {
 
         RETRY_INTERVAL("retry_interval"),
 
+        NATIVE_PAGE_SOURCE_TTL("native_page_source_ttl"),
+
         PROJECT_REPORT_DIRECTORY("project_report_directory"),
 
         MAX_SCREENSHOOT_HISTORY("max_screen_history"),
@@ -151,6 +157,12 @@ public class Configuration {
 
         RETRY_COUNT("retry_count"),
 
+        RETRY_TRANSIENT_ONLY("retry_transient_only"),
+
+        RETRY_TIME_BUDGET("retry_time_budget"),
+
+        FAILURE_SIGNATURES("failure_signatures"),
+
         ENABLE_L10N("enable_l10n"),
 
         L10N_ENCODING("l10n_encoding"),
@@ -180,6 +192,8 @@ public class Configuration {
         TEST_NAMING_PATTERN("test_naming_pattern"),
         
         ELEMENT_LOADING_STRATEGY("element_loading_strategy"),
+
+        OPTIMISTIC_ACTIONS("optimistic_actions"),
         
         PAGE_OPENING_STRATEGY("page_opening_strategy"),
 
@@ -244,6 +258,8 @@ public class Configuration {
 
         VIDEO_SCALE("video_scale"),
 
+        SCREEN_RECORD_UPLOAD_URL("screen_record_upload_url"),
+
         // Ignore SSL
         IGNORE_SSL("ignore_ssl"),
 
@@ -17,9 +17,14 @@ package com.qaprosoft.carina.core.foundation.utils;
 
 import java.lang.invoke.MethodHandles;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
@@ -61,6 +66,12 @@ public enum R {
 
     private String resourceFile;
 
+    // cached global keys by prefix, it is invalidated on every modification of global properties through R
+    private volatile PrefixKeys prefixKeys = new PrefixKeys(-1);
+
+    // counter of global properties modifications
+    private final AtomicInteger modifications = new AtomicInteger();
+
     // temporary thread/test properties which is cleaned on afterTest phase for current thread. It can override any value from below R enum maps
     private static ThreadLocal<Properties> testProperties = new ThreadLocal<>();
 
@@ -124,6 +135,7 @@ public enum R {
                     }
                 }
                 propertiesHolder.put(resource.resourceFile, properties);
+                resource.modifications.incrementAndGet();
             } catch (Exception e) {
                 throw new InvalidConfigurationException("Invalid config in '" + resource + "': " + e.getMessage());
             }
@@ -159,6 +171,7 @@ public enum R {
         } else {
             // override globally configuration map property 
             propertiesHolder.get(resourceFile).put(key, value);
+            modifications.incrementAndGet();
         }
     }
     
@@ -257,6 +270,8 @@ public enum R {
 
 	public Properties getProperties() {
 		Properties globalProp = propertiesHolder.get(resourceFile);
+		// global properties are merged with test ones below and could be modified by caller
+		modifications.incrementAndGet();
 		// Glodal properties will be updated with test specific properties
 		if (!getTestProperties().isEmpty()) {
 			Properties testProp = testProperties.get();
@@ -280,6 +295,41 @@ public enum R {
 		return globalProp;
 	}
     
+    /**
+     * Return keys of global and current test properties which start with prefix (case insensitive).
+     * Global keys are collected once and reused until global properties are modified through R.
+     * 
+     * @param prefix String
+     * @return keys list
+     */
+    public List<String> getKeys(String prefix) {
+        Properties globalProp = propertiesHolder.get(resourceFile);
+        int modification = modifications.get();
+        PrefixKeys cache = prefixKeys;
+        if (cache.modification != modification) {
+            cache = new PrefixKeys(modification);
+            prefixKeys = cache;
+        }
+
+        List<String> keys = new ArrayList<>(cache.keys.computeIfAbsent(prefix.toLowerCase(), p -> collectKeys(globalProp, p)));
+        for (String key : collectKeys(getTestProperties(), prefix.toLowerCase())) {
+            if (!keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static List<String> collectKeys(Properties properties, String prefix) {
+        List<String> keys = new ArrayList<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.toLowerCase().startsWith(prefix)) {
+                keys.add(key);
+            }
+        }
+        return Collections.unmodifiableList(keys);
+    }
+
     public void clearTestProperties() {
         testProperties.remove();
     }
@@ -305,4 +355,12 @@ public enum R {
         }
     }
 
+    private static class PrefixKeys {
+        private final int modification;
+        private final Map<String, List<String>> keys = new ConcurrentHashMap<>();
+
+        PrefixKeys(int modification) {
+            this.modification = modification;
+        }
+    }
 }
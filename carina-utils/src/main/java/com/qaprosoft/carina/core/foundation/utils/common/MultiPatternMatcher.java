@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.common;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable Aho-Corasick automaton which finds occurrences of many substrings in a text using a single pass.
+ * Patterns are identified by their index in the list passed to the constructor. Matching is case sensitive.
+ */
+public class MultiPatternMatcher {
+    public static final int NOT_FOUND = -1;
+
+    // sorted transition chars and target states per state
+    private final char[][] chars;
+    private final int[][] targets;
+    private final int[] failure;
+    // min index of the pattern which ends in the state or in any of its suffix states
+    private final int[] output;
+    private final int patternsCount;
+
+    public MultiPatternMatcher(List<String> patterns) {
+        this.patternsCount = patterns.size();
+
+        // build trie
+        List<TreeMap<Character, Integer>> trie = new ArrayList<TreeMap<Character, Integer>>();
+        List<Integer> ends = new ArrayList<Integer>();
+        trie.add(new TreeMap<Character, Integer>());
+        ends.add(Integer.MAX_VALUE);
+        for (int index = 0; index < patterns.size(); index++) {
+            String pattern = patterns.get(index);
+            if (pattern == null || pattern.isEmpty()) {
+                throw new IllegalArgumentException("Pattern #" + index + " is empty!");
+            }
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                Integer next = trie.get(state).get(pattern.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<Character, Integer>());
+                    ends.add(Integer.MAX_VALUE);
+                    trie.get(state).put(pattern.charAt(i), next);
+                }
+                state = next;
+            }
+            ends.set(state, Math.min(ends.get(state), index));
+        }
+
+        int size = trie.size();
+        chars = new char[size][];
+        targets = new int[size][];
+        failure = new int[size];
+        output = new int[size];
+        for (int state = 0; state < size; state++) {
+            Map<Character, Integer> transitions = trie.get(state);
+            chars[state] = new char[transitions.size()];
+            targets[state] = new int[transitions.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                chars[state][i] = transition.getKey();
+                targets[state][i] = transition.getValue();
+                i++;
+            }
+            output[state] = ends.get(state);
+        }
+
+        // link failure states in BFS order so suffix states are always processed first
+        Deque<Integer> queue = new ArrayDeque<Integer>();
+        for (int target : targets[0]) {
+            failure[target] = 0;
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < chars[state].length; i++) {
+                char c = chars[state][i];
+                int target = targets[state][i];
+                int fallback = failure[state];
+                while (fallback != 0 && next(fallback, c) < 0) {
+                    fallback = failure[fallback];
+                }
+                int suffix = next(fallback, c);
+                failure[target] = suffix < 0 ? 0 : suffix;
+                output[target] = Math.min(output[target], output[failure[target]]);
+                queue.add(target);
+            }
+        }
+    }
+
+    /**
+     * Finds pattern with the lowest index which occurs in the text.
+     * 
+     * @param text String
+     * @return pattern index or {@link #NOT_FOUND}
+     */
+    public int findFirst(CharSequence text) {
+        if (text == null) {
+            return NOT_FOUND;
+        }
+
+        int best = Integer.MAX_VALUE;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int target = next(state, c);
+            while (target < 0 && state != 0) {
+                state = failure[state];
+                target = next(state, c);
+            }
+            state = target < 0 ? 0 : target;
+            if (output[state] < best) {
+                best = output[state];
+                if (best == 0) {
+                    // the highest priority pattern is found
+                    break;
+                }
+            }
+        }
+        return best == Integer.MAX_VALUE ? NOT_FOUND : best;
+    }
+
+    /**
+     * Verify if text contains any of the patterns.
+     * 
+     * @param text String
+     * @return boolean
+     */
+    public boolean containsAny(CharSequence text) {
+        return findFirst(text) != NOT_FOUND;
+    }
+
+    public int getPatternsCount() {
+        return patternsCount;
+    }
+
+    private int next(int state, char c) {
+        int i = Arrays.binarySearch(chars[state], c);
+        return i < 0 ? -1 : targets[state][i];
+    }
+}
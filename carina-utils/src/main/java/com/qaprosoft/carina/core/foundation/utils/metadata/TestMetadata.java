@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.metadata;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+
+import com.zebrunner.agent.core.registrar.domain.LabelDTO;
+
+/**
+ * Immutable metadata of the test method collected once at suite start by {@link TestMetadataRegistry}.
+ */
+public class TestMetadata {
+    private final Class<?> testClass;
+    private final Method testMethod;
+    private final List<LabelDTO> tags;
+    private final List<LabelDTO> priority;
+    private final List<String> descriptionTickets;
+    private final List<String> owners;
+    private final String testPriority;
+    private final List<String> testTags;
+
+    TestMetadata(Class<?> testClass, Method testMethod, List<LabelDTO> tags, List<LabelDTO> priority, List<String> descriptionTickets,
+            List<String> owners, String testPriority, List<String> testTags) {
+        this.testClass = testClass;
+        this.testMethod = testMethod;
+        this.tags = Collections.unmodifiableList(tags);
+        this.priority = Collections.unmodifiableList(priority);
+        this.descriptionTickets = descriptionTickets == null ? null : Collections.unmodifiableList(descriptionTickets);
+        this.owners = Collections.unmodifiableList(owners);
+        this.testPriority = testPriority;
+        this.testTags = Collections.unmodifiableList(testTags);
+    }
+
+    public Class<?> getTestClass() {
+        return testClass;
+    }
+
+    /**
+     * Returns public method of the test class found by name, i.e. the method used for annotations lookup
+     * (there is no way to match signature of parameterized test).
+     * 
+     * @return Method or null if not found
+     */
+    public Method getTestMethod() {
+        return testMethod;
+    }
+
+    public List<LabelDTO> getTags() {
+        return tags;
+    }
+
+    public List<LabelDTO> getPriority() {
+        return priority;
+    }
+
+    /**
+     * Returns Jira tickets declared in test description using JIRA# keyword
+     * 
+     * @return tickets or null if description doesn't declare tickets
+     */
+    public List<String> getDescriptionTickets() {
+        return descriptionTickets;
+    }
+
+    /**
+     * Returns owners declared by MethodOwner.List annotation of the test method in lower case
+     * 
+     * @return owners or empty list
+     */
+    public List<String> getOwners() {
+        return owners;
+    }
+
+    /**
+     * Returns priority declared by TestPriority annotation of the test method
+     * 
+     * @return priority or null if annotation is absent
+     */
+    public String getTestPriority() {
+        return testPriority;
+    }
+
+    /**
+     * Returns tags declared by TestTag and TestTag.List annotations of the test method in name=value format
+     * 
+     * @return tags in declaration order or empty list
+     */
+    public List<String> getTestTags() {
+        return testTags;
+    }
+}
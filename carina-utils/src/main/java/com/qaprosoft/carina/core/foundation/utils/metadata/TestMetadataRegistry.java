@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.metadata;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.ITestNGMethod;
+
+import com.qaprosoft.carina.core.foundation.jira.Jira;
+import com.qaprosoft.carina.core.foundation.utils.ownership.MethodOwner;
+import com.qaprosoft.carina.core.foundation.utils.tag.PriorityManager;
+import com.qaprosoft.carina.core.foundation.utils.tag.TagManager;
+import com.qaprosoft.carina.core.foundation.utils.tag.TestPriority;
+import com.qaprosoft.carina.core.foundation.utils.tag.TestTag;
+
+/**
+ * Registry of tags, priorities, Jira tickets and annotated methods of all suite methods.
+ * It is built once at suite start so listeners and resolvers don't scan annotations reflectively for every test.
+ */
+public class TestMetadataRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    // key is [test class, test method]
+    private static volatile Map<List<Object>, TestMetadata> registry = Collections.emptyMap();
+
+    private TestMetadataRegistry() {
+        // hide default constructor
+    }
+
+    /**
+     * Collects metadata of all suite methods
+     * 
+     * @param methods suite methods
+     */
+    public static void init(Collection<ITestNGMethod> methods) {
+        // metadata depends on annotations and description only so entries of the previous collection are reused
+        Map<List<Object>, TestMetadata> previous = registry;
+        Map<List<Object>, TestMetadata> metadata = new ConcurrentHashMap<>();
+        methods.parallelStream().forEach(method -> {
+            Class<?> testClass = method.getRealClass();
+            Method testMethod = method.getConstructorOrMethod().getMethod();
+            if (testClass == null || testMethod == null) {
+                return;
+            }
+            List<Object> key = getKey(testClass, testMethod);
+            TestMetadata existing = previous.get(key);
+            metadata.computeIfAbsent(key, k -> existing != null ? existing : collect(method, testClass, testMethod));
+        });
+        registry = metadata;
+        LOGGER.debug("Test metadata is collected for " + metadata.size() + " methods.");
+    }
+
+    /**
+     * Returns metadata of the test method
+     * 
+     * @param testClass Class
+     * @param testMethod Method
+     * @return TestMetadata or null if method is not registered
+     */
+    public static TestMetadata get(Class<?> testClass, Method testMethod) {
+        if (testClass == null || testMethod == null) {
+            return null;
+        }
+        return registry.get(getKey(testClass, testMethod));
+    }
+
+    /**
+     * Returns metadata of the test method
+     * 
+     * @param method ITestNGMethod
+     * @return TestMetadata or null if method is not registered
+     */
+    public static TestMetadata get(ITestNGMethod method) {
+        if (method == null || method.getConstructorOrMethod() == null) {
+            return null;
+        }
+        return get(method.getRealClass(), method.getConstructorOrMethod().getMethod());
+    }
+
+    /**
+     * Returns registered metadata of the test method or collects it for unregistered one without registration
+     * 
+     * @param method ITestNGMethod
+     * @return TestMetadata or null if method can't be resolved
+     */
+    public static TestMetadata getOrCollect(ITestNGMethod method) {
+        TestMetadata metadata = get(method);
+        if (metadata != null || method == null || method.getConstructorOrMethod() == null) {
+            return metadata;
+        }
+        Class<?> testClass = method.getRealClass();
+        Method testMethod = method.getConstructorOrMethod().getMethod();
+        if (testClass == null || testMethod == null) {
+            return null;
+        }
+        return collect(method, testClass, testMethod);
+    }
+
+    private static TestMetadata collect(ITestNGMethod method, Class<?> testClass, Method testMethod) {
+        return new TestMetadata(testClass,
+                findTestMethod(testClass, testMethod.getName()),
+                TagManager.getTags(testClass, testMethod),
+                PriorityManager.getPriority(testClass, testMethod),
+                Jira.getDescriptionTickets(method.getDescription()),
+                getOwners(testMethod),
+                getTestPriority(testMethod),
+                getTestTags(testMethod));
+    }
+
+    private static List<String> getOwners(Method testMethod) {
+        List<String> owners = new ArrayList<>();
+        MethodOwner.List ownerAnnotation = testMethod.getAnnotation(MethodOwner.List.class);
+        if (ownerAnnotation != null) {
+            for (MethodOwner methodOwner : ownerAnnotation.value()) {
+                owners.add(methodOwner.owner().toLowerCase());
+            }
+        }
+        return owners;
+    }
+
+    private static String getTestPriority(Method testMethod) {
+        TestPriority priority = testMethod.getAnnotation(TestPriority.class);
+        return priority != null ? priority.value().toString() : null;
+    }
+
+    private static List<String> getTestTags(Method testMethod) {
+        List<String> tags = new ArrayList<>();
+        TestTag tag = testMethod.getAnnotation(TestTag.class);
+        if (tag != null) {
+            tags.add(tag.name() + "=" + tag.value());
+        }
+        TestTag.List tagList = testMethod.getAnnotation(TestTag.List.class);
+        if (tagList != null) {
+            for (TestTag tagItem : tagList.value()) {
+                tags.add(tagItem.name() + "=" + tagItem.value());
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Finds public method of the class by name. We can't use getMethod() because we may have parameterized tests
+     * for which we don't know the matching signature.
+     * 
+     * @param testClass Class
+     * @param methodName String
+     * @return Method or null if not found
+     */
+    public static Method findTestMethod(Class<?> testClass, String methodName) {
+        for (Method possibleMethod : testClass.getMethods()) {
+            if (possibleMethod.getName().equals(methodName)) {
+                return possibleMethod;
+            }
+        }
+        return null;
+    }
+
+    private static List<Object> getKey(Class<?> testClass, Method testMethod) {
+        return Arrays.asList(testClass, testMethod);
+    }
+}
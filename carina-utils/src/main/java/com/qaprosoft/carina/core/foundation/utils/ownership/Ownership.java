@@ -18,6 +18,8 @@ package com.qaprosoft.carina.core.foundation.utils.ownership;
 import java.lang.reflect.Method;
 
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadata;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadataRegistry;
 import com.zebrunner.agent.core.registrar.maintainer.MaintainerResolver;
 
 public class Ownership implements MaintainerResolver {
@@ -36,17 +38,8 @@ public class Ownership implements MaintainerResolver {
     @Override
     public String resolve(Class<?> clazz, Method method) {
         // Get a handle to the class and method
-        // We can't use getMethod() because we may have parameterized tests
-        // for which we don't know the matching signature
-        String methodName = method.getName();
-        Method testMethod = null;
-        Method[] possibleMethods = clazz.getMethods();
-        for (Method possibleMethod : possibleMethods) {
-            if (possibleMethod.getName().equals(methodName)) {
-                testMethod = possibleMethod;
-                break;
-            }
-        }
+        TestMetadata metadata = TestMetadataRegistry.get(clazz, method);
+        Method testMethod = metadata != null ? metadata.getTestMethod() : TestMetadataRegistry.findTestMethod(clazz, method.getName());
         
         // do a scan for single Methodowner annotation as well)
         if (testMethod != null && testMethod.isAnnotationPresent(MethodOwner.class)) {
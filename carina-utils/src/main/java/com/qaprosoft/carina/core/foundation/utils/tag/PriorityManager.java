@@ -20,6 +20,8 @@ import java.util.Collections;
 import java.util.List;
 
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadata;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadataRegistry;
 import com.zebrunner.agent.core.registrar.domain.LabelDTO;
 import com.zebrunner.agent.core.registrar.label.LabelResolver;
 
@@ -27,6 +29,18 @@ public class PriorityManager implements LabelResolver {
 
     @Override
     public List<LabelDTO> resolve(Class<?> clazz, Method method) {
+        TestMetadata metadata = TestMetadataRegistry.get(clazz, method);
+        return metadata != null ? metadata.getPriority() : getPriority(clazz, method);
+    }
+
+    /**
+     * Returns priority declared for the test method or class
+     * 
+     * @param clazz test class
+     * @param method test method
+     * @return priority label or empty list
+     */
+    public static List<LabelDTO> getPriority(Class<?> clazz, Method method) {
         TestPriority priority = method.getAnnotation(TestPriority.class);
         if (priority == null) {
             priority = clazz.getAnnotation(TestPriority.class);
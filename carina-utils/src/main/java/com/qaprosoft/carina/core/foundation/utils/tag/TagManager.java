@@ -15,6 +15,8 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.utils.tag;
 
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadata;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadataRegistry;
 import com.zebrunner.agent.core.registrar.domain.LabelDTO;
 import com.zebrunner.agent.core.registrar.label.LabelResolver;
 
@@ -34,6 +36,18 @@ public class TagManager implements LabelResolver {
 
     @Override
     public List<LabelDTO> resolve(Class<?> clazz, Method method) {
+        TestMetadata metadata = TestMetadataRegistry.get(clazz, method);
+        return metadata != null ? metadata.getTags() : getTags(clazz, method);
+    }
+
+    /**
+     * Collects tags declared for the test class and method
+     * 
+     * @param clazz test class
+     * @param method test method
+     * @return tag labels
+     */
+    public static List<LabelDTO> getTags(Class<?> clazz, Method method) {
         Map<String, List<String>> labels = getAnnotations(clazz);
         labels.putAll(getAnnotations(method));
 
@@ -44,7 +58,7 @@ public class TagManager implements LabelResolver {
                      .collect(Collectors.toList());
     }
 
-    private Map<String, List<String>> getAnnotations(AnnotatedElement annotatedElement) {
+    private static Map<String, List<String>> getAnnotations(AnnotatedElement annotatedElement) {
         return Optional.ofNullable(annotatedElement.getAnnotation(TestTag.List.class))
                        .map(TestTag.List::value)
                        .map(Arrays::stream)
@@ -53,11 +67,11 @@ public class TagManager implements LabelResolver {
                        .collect(Collectors.toMap(
                                TestTag::name,
                                tagLabel -> new ArrayList<>(Collections.singletonList(tagLabel.value())),
-                               this::union
+                               TagManager::union
                        ));
     }
 
-    private List<String> union(List<String> values1, List<String> values2) {
+    private static List<String> union(List<String> values1, List<String> values2) {
         ArrayList<String> values = new ArrayList<>(values1);
         values.addAll(values2);
         return values;
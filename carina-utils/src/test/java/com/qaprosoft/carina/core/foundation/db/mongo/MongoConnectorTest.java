@@ -18,9 +18,11 @@ package com.qaprosoft.carina.core.foundation.db.mongo;
 import java.net.UnknownHostException;
 import java.util.regex.Pattern;
 
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.mongodb.*;
+import com.qaprosoft.carina.core.foundation.utils.R;
 
 /**
  * Tests for {@link MongoConnector}
@@ -31,6 +33,37 @@ public class MongoConnectorTest {
         MongoConnector.createClient();
     }
 
+    @Test
+    public void testClientIsSharedUntilClosed() throws NumberFormatException, UnknownHostException {
+        String host = MongoConnector.getHost();
+        String port = MongoConnector.getPort();
+        String user = MongoConnector.getUser();
+        String password = MongoConnector.getPassword();
+        try {
+            MongoConnector.setHost("localhost");
+            MongoConnector.setPort("27017");
+            MongoConnector.setUser("user");
+            MongoConnector.setPassword("password");
+            R.DATABASE.put("mongo.connections_per_host", "7", true);
+
+            // client creation doesn't connect to server
+            MongoClient client = MongoConnector.createClient("shared");
+            Assert.assertSame(MongoConnector.createClient("shared"), client, "Client is not shared!");
+            Assert.assertNotSame(MongoConnector.createClient("another"), client, "Client is shared between databases!");
+            Assert.assertEquals(client.getMongoClientOptions().getConnectionsPerHost(), 7);
+
+            MongoConnector.closeClients();
+            Assert.assertNotSame(MongoConnector.createClient("shared"), client, "Closed client is reused!");
+        } finally {
+            MongoConnector.closeClients();
+            R.DATABASE.clearTestProperties();
+            MongoConnector.setHost(host);
+            MongoConnector.setPort(port);
+            MongoConnector.setUser(user);
+            MongoConnector.setPassword(password);
+        }
+    }
+
     @Test(enabled = false)
     public void testConnect() throws NumberFormatException, UnknownHostException {
         MongoClient mc = MongoConnector.createClient();
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.db.mongo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * Tests for {@link MongoDataLoader}
+ */
+public class MongoDataLoaderTest {
+
+    @Test
+    public void testLoadByBatches() {
+        List<Integer> batches = new ArrayList<>();
+        long count = MongoDataLoader.load(documents(5).iterator(), 2, batch -> batches.add(batch.size()));
+        Assert.assertEquals(count, 5);
+        Assert.assertEquals(batches, Arrays.asList(2, 2, 1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testLoadWithInvalidBatchSize() {
+        MongoDataLoader.load(documents(1).iterator(), 0, batch -> Assert.fail("Nothing should be inserted!"));
+    }
+
+    @Test
+    public void testCursorIsClosedWhenConsumed() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Iterator<Object[]> rows = new MongoDataLoader.CursorIterator(documents(2).iterator(), () -> closed.set(true),
+                document -> new Object[] { document.get("id") });
+
+        Assert.assertEquals(rows.next(), new Object[] { 0 });
+        Assert.assertTrue(rows.hasNext());
+        Assert.assertFalse(closed.get(), "Cursor is closed before all documents are consumed!");
+        Assert.assertEquals(rows.next(), new Object[] { 1 });
+        Assert.assertFalse(rows.hasNext());
+        Assert.assertTrue(closed.get(), "Cursor is not closed after all documents are consumed!");
+    }
+
+    private static List<DBObject> documents(int count) {
+        List<DBObject> documents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            documents.add(new BasicDBObject("id", i));
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.listeners;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import org.testng.Assert;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+public class TestNamingServiceTest {
+
+    @BeforeMethod
+    public void init() {
+        R.CONFIG.put("test_naming_pattern", SpecialKeywords.METHOD_NAME, true);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void clear() {
+        R.CONFIG.clearTestProperties();
+    }
+
+    @Test
+    public void testNamesAreResolvedByDataProviderPlan() {
+        ITestNGMethod method = mockMethod("login", 1);
+        ITestContext context = mockContext("Suite test", method);
+
+        Map<String, String> testNameArgsMap = new HashMap<String, String>();
+        testNameArgsMap.put(String.valueOf(Arrays.hashCode(new Object[] { "admin", "2" })), "Admin login");
+        context.setAttribute(SpecialKeywords.TEST_NAME_ARGS_MAP, testNameArgsMap);
+
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 1; i <= 10; i++) {
+            rows.add(new Object[] { i == 2 ? "admin" : "user", String.valueOf(i) });
+        }
+        Iterator<Object[]> registered = TestNamingService.registerDataProvider(rows.iterator(), method, context);
+        while (registered.hasNext()) {
+            registered.next();
+        }
+
+        // TestNG passes copy of the row to the test
+        Assert.assertEquals(TestNamingService.getTestName(mockResult(context, method, new Object[] { "user", "1" })),
+                "Suite test - login [L001]");
+        Assert.assertEquals(TestNamingService.getTestName(mockResult(context, method, new Object[] { "admin", "2" })),
+                "Admin login - login [L002]");
+        Assert.assertEquals(TestNamingService.getTestName(mockResult(context, method, new Object[] { "user", "10" })),
+                "Suite test - login [L010]");
+    }
+
+    @Test
+    public void testRowsAreRegisteredLazily() {
+        AtomicInteger pulled = new AtomicInteger();
+        Iterator<Object[]> provider = new Iterator<Object[]>() {
+            @Override
+            public boolean hasNext() {
+                return pulled.get() < 100;
+            }
+
+            @Override
+            public Object[] next() {
+                return new Object[] { pulled.getAndIncrement() };
+            }
+        };
+
+        TestNamingPlan plan = new TestNamingPlan();
+        Iterator<Object[]> registered = plan.register(provider, null);
+        Assert.assertEquals(pulled.get(), 0, "Data provider should not be read by registration!");
+
+        registered.next();
+        Assert.assertEquals(pulled.get(), 1);
+        Assert.assertEquals(plan.getRowIndex(new Object[] { 0 }), 0);
+        Assert.assertEquals(plan.getRowIndex(new Object[] { 1 }), -1, "Not pulled row should not be registered!");
+
+        // size of not completed provider is resolved by the fallback once
+        AtomicInteger fallbacks = new AtomicInteger();
+        IntSupplier fallback = () -> {
+            fallbacks.incrementAndGet();
+            return 100;
+        };
+        Assert.assertEquals(plan.getSize(fallback), 100);
+        Assert.assertEquals(plan.getSize(fallback), 100);
+        Assert.assertEquals(fallbacks.get(), 1);
+
+        registered.forEachRemaining(row -> {
+        });
+        Assert.assertEquals(plan.getRowIndex(new Object[] { 99 }), 99);
+        Assert.assertEquals(plan.getSize(() -> {
+            throw new AssertionError("Size of completed provider should be known!");
+        }), 100);
+    }
+
+    @Test
+    public void testInvocationCountIsIncrementedOncePerResult() {
+        ITestNGMethod method = mockMethod("check", 3);
+        ITestContext context = mockContext("Invocations", method);
+
+        ITestResult first = mockResult(context, method, new Object[0]);
+        Assert.assertEquals(TestNamingService.getTestName(first), "Invocations - check [InvCount=01]");
+        Assert.assertEquals(TestNamingService.getTestName(first), "Invocations - check [InvCount=01]");
+        Assert.assertEquals(TestNamingService.getTestName(mockResult(context, method, new Object[0])), "Invocations - check [InvCount=02]");
+
+        // counters are scoped by test context
+        ITestContext another = mockContext("Invocations", method);
+        Assert.assertEquals(TestNamingService.getTestName(mockResult(another, method, new Object[0])), "Invocations - check [InvCount=01]");
+    }
+
+    private static ITestNGMethod mockMethod(String name, int invocationCount) {
+        return (ITestNGMethod) Proxy.newProxyInstance(ITestNGMethod.class.getClassLoader(), new Class<?>[] { ITestNGMethod.class },
+                (proxy, invoked, args) -> {
+                    switch (invoked.getName()) {
+                    case "getMethodName":
+                        return name;
+                    case "getInvocationCount":
+                        return invocationCount;
+                    case "getPriority":
+                    case "getThreadPoolSize":
+                        return 0;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return null;
+                    }
+                });
+    }
+
+    private static ITestContext mockContext(String name, ITestNGMethod method) {
+        XmlTest xmlTest = new XmlTest(new XmlSuite());
+        xmlTest.setName(name);
+        Map<String, Object> attributes = new HashMap<String, Object>();
+        return (ITestContext) Proxy.newProxyInstance(ITestContext.class.getClassLoader(), new Class<?>[] { ITestContext.class },
+                (proxy, invoked, args) -> {
+                    switch (invoked.getName()) {
+                    case "getCurrentXmlTest":
+                        return xmlTest;
+                    case "getAllTestMethods":
+                        return new ITestNGMethod[] { method };
+                    case "getAttribute":
+                        return attributes.get(args[0]);
+                    case "setAttribute":
+                        attributes.put((String) args[0], args[1]);
+                        return null;
+                    default:
+                        return null;
+                    }
+                });
+    }
+
+    private static ITestResult mockResult(ITestContext context, ITestNGMethod method, Object[] parameters) {
+        Map<String, Object> attributes = new HashMap<String, Object>();
+        return (ITestResult) Proxy.newProxyInstance(ITestResult.class.getClassLoader(), new Class<?>[] { ITestResult.class },
+                (proxy, invoked, args) -> {
+                    switch (invoked.getName()) {
+                    case "getTestContext":
+                        return context;
+                    case "getMethod":
+                        return method;
+                    case "getParameters":
+                        return parameters;
+                    case "getAttribute":
+                        return attributes.get(args[0]);
+                    case "setAttribute":
+                        attributes.put((String) args[0], args[1]);
+                        return null;
+                    default:
+                        return null;
+                    }
+                });
+    }
+}
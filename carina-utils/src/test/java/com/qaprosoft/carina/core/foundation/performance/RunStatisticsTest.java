@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.performance;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RunStatisticsTest {
+
+    @Test
+    public void testStatisticsAreReportedAndReset() {
+        AtomicLong first = new AtomicLong();
+        AtomicLong second = new AtomicLong();
+        RunStatistics.register("test-first", () -> first.get() == 0, () -> "first: " + first.get(), () -> first.set(0));
+        RunStatistics.register("test-second", () -> second.get() == 0, () -> "second: " + second.get(), () -> second.set(0));
+
+        first.set(3);
+        Assert.assertTrue(RunStatistics.getStatistics().contains("first: 3"));
+        Assert.assertFalse(RunStatistics.getStatistics().contains("second: 0"), "Empty statistics should not be reported!");
+
+        second.set(5);
+        int firstIndex = RunStatistics.getStatistics().indexOf("first: 3");
+        Assert.assertTrue(firstIndex < RunStatistics.getStatistics().indexOf("second: 5"), "Registration order should be kept!");
+
+        RunStatistics.reset();
+        Assert.assertEquals(first.get(), 0);
+        Assert.assertEquals(second.get(), 0);
+        Assert.assertFalse(RunStatistics.getStatistics().contains("first: 0"));
+    }
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.report;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
+
+public class ArtifactPipelineTest {
+
+    @Test
+    public void testArtifactsAreProducedInOrder() {
+        List<Integer> produced = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int index = i;
+            ArtifactPipeline.submit("artifact " + i, () -> {
+                // earlier artifacts are slower
+                CommonUtils.pause(0.05 * (5 - index));
+                produced.add(index);
+                return null;
+            });
+        }
+
+        ArtifactPipeline.await();
+        Assert.assertEquals(produced, List.of(0, 1, 2, 3, 4));
+        Assert.assertFalse(ArtifactPipeline.isProcessing());
+    }
+
+    @Test
+    public void testFailedArtifactDoesNotBreakPipeline() {
+        List<File> produced = new CopyOnWriteArrayList<>();
+        ArtifactPipeline.submit("broken", () -> {
+            throw new IllegalStateException("broken artifact");
+        });
+        ArtifactPipeline.submit("valid", () -> {
+            File file = new File("valid.zip");
+            produced.add(file);
+            return file;
+        });
+
+        ArtifactPipeline.await();
+        Assert.assertEquals(produced.size(), 1);
+    }
+
+    @Test
+    public void testPipelineThreadsAreDaemons() {
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        ArtifactPipeline.submit("thread", () -> {
+            threads.add(Thread.currentThread());
+            return null;
+        });
+
+        ArtifactPipeline.await();
+        Assert.assertTrue(threads.get(0).isDaemon(), "Pipeline thread should not prevent JVM exit!");
+        Assert.assertTrue(threads.get(0).getName().startsWith("artifact-pipeline-"));
+    }
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.report;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CompiledTemplateTest {
+
+    @Test
+    public void testPlaceholdersAreRendered() {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("${title}", "Suite");
+        values.put("${count}", "5");
+        values.put("${empty}", null);
+
+        CompiledTemplate template = new CompiledTemplate("<h1>${title}</h1>${count}/${count}${empty}${unknown} ${broken");
+        Assert.assertEquals(template.render(values), "<h1>Suite</h1>5/5${unknown} ${broken");
+    }
+
+    @Test
+    public void testPlaceholderIsStreamed() throws IOException {
+        CompiledTemplate template = new CompiledTemplate("<table>${rows}</table>");
+        StringWriter writer = new StringWriter();
+        template.write(writer, (placeholder, out) -> {
+            for (int i = 0; i < 3; i++) {
+                out.write("<tr>" + i + "</tr>");
+            }
+            return true;
+        });
+        Assert.assertEquals(writer.toString(), "<table><tr>0</tr><tr>1</tr><tr>2</tr></table>");
+    }
+
+    @Test
+    public void testEmptyTemplate() {
+        Assert.assertTrue(new CompiledTemplate(null).isEmpty());
+        Assert.assertEquals(new CompiledTemplate("").render(new HashMap<String, String>()), "");
+    }
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.report;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
+
+public class ReportContextTest {
+
+    @Test
+    public void testSavedArtifactIsIndexed() throws IOException {
+        ReportContext.saveArtifact("indexed.txt", new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8)));
+
+        File artifact = ReportContext.getArtifact("indexed.txt");
+        Assert.assertNotNull(artifact, "Saved artifact is not found!");
+        Assert.assertEquals(FileUtils.readFileToString(artifact, StandardCharsets.UTF_8), "content");
+
+        ReportContext.deleteArtifact("indexed.txt");
+        Assert.assertNull(ReportContext.getArtifact("indexed.txt"), "Deleted artifact is still found!");
+    }
+
+    @Test
+    public void testArtifactOutsideOfArtifactsFolderIsRejected() throws IOException {
+        File outside = new File(ReportContext.getArtifactsFolder().getParentFile(), "outside.txt");
+        FileUtils.writeStringToFile(outside, "outside", StandardCharsets.UTF_8);
+        try {
+            String name = ".." + File.separator + outside.getName();
+            Assert.assertNull(ReportContext.getArtifact(name), "Artifact outside of the artifacts folder is found!");
+            Assert.assertNull(ReportContext.getArtifact(outside.getAbsolutePath()), "Artifact by absolute path is found!");
+
+            ReportContext.deleteArtifact(name);
+            Assert.assertTrue(outside.exists(), "File outside of the artifacts folder is deleted!");
+        } finally {
+            FileUtils.deleteQuietly(outside);
+        }
+    }
+
+    @Test
+    public void testWaitForExternallyCreatedArtifact() {
+        File expected = new File(ReportContext.getArtifactsFolder(), "downloaded.txt");
+        CompletableFuture.runAsync(() -> {
+            CommonUtils.pause(0.5);
+            try {
+                FileUtils.writeStringToFile(expected, "downloaded", StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        File artifact = ReportContext.waitForArtifact("downloaded.txt", 10);
+        Assert.assertEquals(artifact, expected);
+    }
+
+    @Test
+    public void testWaitForMissingArtifact() {
+        long start = System.currentTimeMillis();
+        Assert.assertNull(ReportContext.waitForArtifact("missing.txt", 1));
+        Assert.assertTrue(System.currentTimeMillis() - start >= 1000, "Artifact wait was finished before timeout!");
+    }
+
+    @Test
+    public void testVideoIsLinkedWhenSaved() throws IOException {
+        File saved = new File(ReportContext.getArtifactsFolder(), "saved-session.mp4");
+        File failed = new File(ReportContext.getArtifactsFolder(), "failed-session.mp4");
+        ReportContext.startVideoSaving(saved);
+        ReportContext.startVideoSaving(failed);
+
+        List<String> links = ReportContext.getTestVideoLinks(Arrays.asList("saved-session", "failed-session", "absent-session"));
+        Assert.assertTrue(links.isEmpty(), "Video is linked before it is saved!");
+
+        FileUtils.writeStringToFile(saved, "video", StandardCharsets.UTF_8);
+        try {
+            ReportContext.finishVideoSaving(saved, true);
+            ReportContext.finishVideoSaving(failed, false);
+            Assert.assertEquals(links.size(), 1, "Only saved video should be linked!");
+            Assert.assertTrue(links.get(0).endsWith("saved-session.mp4"), "Unexpected video link: " + links.get(0));
+
+            Assert.assertEquals(ReportContext.getTestVideoLinks(Arrays.asList("saved-session", "failed-session")), links);
+        } finally {
+            FileUtils.deleteQuietly(saved);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+public class ScreenStepJournalTest {
+
+    @Test
+    public void testStepsAreWrittenInCapturingOrder() throws IOException {
+        ScreenStepJournal journal = new ScreenStepJournal();
+        journal.add("2.png", "second");
+        journal.add("1.png", "first");
+        journal.add("2.png", "second updated");
+
+        StringWriter writer = new StringWriter();
+        journal.write(writer, new ScreenStepJournal.ImageTemplate("<a href=\"${image}\" title=\"${title}\">${image}</a>"), 5);
+        Assert.assertEquals(writer.toString(),
+                "<a href=\"2.png\" title=\"secon\">2.png</a><a href=\"1.png\" title=\"first\">1.png</a>");
+        Assert.assertEquals(journal.getComment("2.png"), "second updated");
+        Assert.assertEquals(journal.getComment("3.png"), "");
+    }
+
+    @Test
+    public void testReportIsGeneratedFromJournal() throws IOException {
+        R.REPORT.put("container", "<html><title>${title}</title><ul>${images}</ul></html>", true);
+        R.REPORT.put("image", "<li><img src=\"${image}\" title=\"${title}\"></li>", true);
+
+        File testDir = ReportContext.getTestDir();
+        ReportContext.addScreenshotComment("1.png", "Open home page");
+        ReportContext.addScreenshotComment("2.png", "Click login");
+        Assert.assertEquals(ReportContext.getScreenshotComment("2.png"), "Click login");
+
+        ReportContext.generateTestReport();
+        String report = FileUtils.readFileToString(new File(testDir, "report.html"), Charset.defaultCharset());
+        Assert.assertTrue(report.indexOf("Open home page") < report.indexOf("Click login"), "Steps are not ordered: " + report);
+        Assert.assertFalse(report.contains("${"), "Placeholders are not replaced: " + report);
+
+        ReportContext.emptyTestDirData();
+        R.REPORT.clearTestProperties();
+        Assert.assertEquals(ReportContext.getScreenshotComment("2.png"), "", "Journal is not released with test dir data!");
+    }
+}
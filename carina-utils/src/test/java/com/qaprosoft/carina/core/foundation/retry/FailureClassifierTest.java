@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.retry;
+
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+public class FailureClassifierTest {
+
+    @AfterMethod(alwaysRun = true)
+    public void clear() {
+        // restore failure_signatures from config
+        R.CONFIG.clearTestProperties();
+    }
+
+    @Test
+    public void testFailureClassification() {
+        Assert.assertEquals(FailureClassifier.classify(new StaleElementReferenceException("element is not attached")),
+                FailureClass.STALE_ELEMENT);
+        Assert.assertEquals(FailureClassifier.classify(new NoSuchSessionException("invalid session id")), FailureClass.SESSION_LOST);
+        Assert.assertEquals(FailureClassifier.classify(new RuntimeException("wrapper",
+                new RuntimeException("Could not proxy command to remote server. Original error: socket hang up"))),
+                FailureClass.GRID_CONNECTIVITY);
+        Assert.assertEquals(FailureClassifier.classify(new AssertionError("expected [1] but found [2]")), FailureClass.ASSERTION);
+        Assert.assertEquals(FailureClassifier.classify(new IllegalStateException("unexpected")), FailureClass.UNKNOWN);
+        Assert.assertEquals(FailureClassifier.classify((Throwable) null), FailureClass.UNKNOWN);
+        Assert.assertNull(FailureClassifier.classify("all good"));
+    }
+
+    @Test
+    public void testCustomFailureSignatures() {
+        R.CONFIG.put("failure_signatures", "SESSION_LOST=page crash;INVALID=ignored;ASSERTION=chrome not reachable", true);
+        Assert.assertEquals(FailureClassifier.classify("session deleted because of page crash"), FailureClass.SESSION_LOST);
+        // custom signatures have priority over built-in ones
+        Assert.assertEquals(FailureClassifier.classify("chrome not reachable"), FailureClass.ASSERTION);
+        Assert.assertEquals(FailureClassifier.getPatterns().get(0), "page crash");
+
+        R.CONFIG.put("failure_signatures", "", true);
+        Assert.assertEquals(FailureClassifier.classify("chrome not reachable"), FailureClass.GRID_CONNECTIVITY);
+        Assert.assertNull(FailureClassifier.classify("session deleted because of page crash"));
+    }
+
+    @Test
+    public void testDriverUnavailableClasses() {
+        Assert.assertTrue(FailureClassifier.classify("invalid session id").isDriverUnavailable());
+        Assert.assertTrue(FailureClassifier.classify("chrome not reachable").isDriverUnavailable());
+        Assert.assertFalse(FailureClassifier.classify("no such element: Unable to locate element").isDriverUnavailable());
+
+        R.CONFIG.put("failure_signatures", "ASSERTION=expected login page", true);
+        Assert.assertFalse(FailureClassifier.classify("expected login page but found home").isDriverUnavailable());
+    }
+
+    @Test
+    public void testDriverFailures() {
+        // all built-in signatures are driver failures
+        Assert.assertTrue(FailureClassifier.isDriverFailure("no such element: Unable to locate element"));
+        Assert.assertTrue(FailureClassifier.isDriverFailure("unexpected alert open"));
+        Assert.assertFalse(FailureClassifier.isDriverFailure("expected [1] but found [2]"));
+        Assert.assertFalse(FailureClassifier.isDriverFailure(null));
+
+        R.CONFIG.put("failure_signatures", "ASSERTION=expected login page;DRIVER_ERROR=renderer crashed;PAGE_STATE=stale element", true);
+        Assert.assertFalse(FailureClassifier.isDriverFailure("expected login page but found home"));
+        Assert.assertTrue(FailureClassifier.isDriverFailure("renderer crashed"));
+        Assert.assertTrue(FailureClassifier.isDriverFailure("stale element reference"));
+    }
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.retry;
+
+import java.lang.reflect.Proxy;
+
+import org.testng.Assert;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.performance.RunStatistics;
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+public class RetryPolicyTest {
+
+    @BeforeMethod
+    public void init() {
+        RetryPolicy.reset();
+        R.CONFIG.put("retry_transient_only", "true", true);
+        R.CONFIG.put("retry_time_budget", "0", true);
+        R.CONFIG.put("track_known_issues", "false", true);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void clear() {
+        R.CONFIG.clearTestProperties();
+        RetryPolicy.reset();
+    }
+
+    @Test
+    public void testOnlyTransientFailuresAreRetried() {
+        Assert.assertTrue(RetryPolicy.isRetryAllowed(mockResult(new RuntimeException("chrome not reachable"), 100)));
+        Assert.assertFalse(RetryPolicy.isRetryAllowed(mockResult(new AssertionError("expected [1] but found [2]"), 100)));
+
+        Assert.assertEquals(RetryPolicy.getRetries(FailureClass.GRID_CONNECTIVITY), 1);
+        Assert.assertEquals(RetryPolicy.getRetryTime(FailureClass.GRID_CONNECTIVITY), 100);
+        Assert.assertEquals(RetryPolicy.getRejected(FailureClass.ASSERTION), 1);
+        Assert.assertTrue(RetryPolicy.getStatistics().contains("ASSERTION: 1/0/1/0"), RetryPolicy.getStatistics());
+    }
+
+    @Test
+    public void testAllFailuresAreRetriedWhenTransientOnlyIsDisabled() {
+        R.CONFIG.put("retry_transient_only", "false", true);
+        Assert.assertTrue(RetryPolicy.isRetryAllowed(mockResult(new AssertionError("expected [1] but found [2]"), 100)));
+    }
+
+    @Test
+    public void testRetryTimeBudget() {
+        R.CONFIG.put("retry_time_budget", "1", true);
+        Assert.assertTrue(RetryPolicy.isRetryAllowed(mockResult(new RuntimeException("invalid session id"), 700)));
+        Assert.assertTrue(RetryPolicy.isRetryAllowed(mockResult(new RuntimeException("invalid session id"), 700)));
+        Assert.assertFalse(RetryPolicy.isRetryAllowed(mockResult(new RuntimeException("invalid session id"), 700)),
+                "Retry is allowed when budget is exhausted!");
+        Assert.assertEquals(RetryPolicy.getRejected(FailureClass.SESSION_LOST), 1);
+    }
+
+    @Test
+    public void testBudgetIsResetWithRunStatistics() {
+        R.CONFIG.put("retry_time_budget", "1", true);
+        Assert.assertTrue(RetryPolicy.isRetryAllowed(mockResult(new RuntimeException("invalid session id"), 1000)));
+        Assert.assertFalse(RetryPolicy.isRetryAllowed(mockResult(new RuntimeException("invalid session id"), 1000)));
+        Assert.assertTrue(RunStatistics.getStatistics().contains(RetryPolicy.getStatistics()));
+
+        // statistics are reset at suite start
+        RunStatistics.reset();
+        Assert.assertTrue(RetryPolicy.isEmpty());
+        Assert.assertTrue(RetryPolicy.isRetryAllowed(mockResult(new RuntimeException("invalid session id"), 1000)),
+                "Retry budget is not reset!");
+    }
+
+    private static ITestResult mockResult(Throwable throwable, long duration) {
+        ITestNGMethod method = (ITestNGMethod) Proxy.newProxyInstance(ITestNGMethod.class.getClassLoader(),
+                new Class<?>[] { ITestNGMethod.class }, (proxy, invoked, args) -> "getMethodName".equals(invoked.getName()) ? "test" : null);
+        return (ITestResult) Proxy.newProxyInstance(ITestResult.class.getClassLoader(), new Class<?>[] { ITestResult.class },
+                (proxy, invoked, args) -> {
+                    switch (invoked.getName()) {
+                    case "getThrowable":
+                        return throwable;
+                    case "getMethod":
+                        return method;
+                    case "getStartMillis":
+                        return 0L;
+                    case "getEndMillis":
+                        return duration;
+                    default:
+                        return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.common.MultiPatternMatcher;
+
+/**
+ * Tests for {@link MultiPatternMatcher}
+ */
+public class MultiPatternMatcherTest {
+
+    @Test
+    public void testFirstDeclaredPatternWins() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher(Arrays.asList("she", "he", "hers", "his"));
+        Assert.assertEquals(matcher.findFirst("ushers"), 0);
+        Assert.assertEquals(matcher.findFirst("this"), 3);
+        Assert.assertEquals(matcher.findFirst("ahem"), 1);
+        Assert.assertEquals(matcher.findFirst("nothing"), MultiPatternMatcher.NOT_FOUND);
+        Assert.assertEquals(matcher.findFirst(null), MultiPatternMatcher.NOT_FOUND);
+    }
+
+    @Test
+    public void testPatternFoundThroughFailureLinks() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher(Arrays.asList("abcd", "bce", "c"));
+        Assert.assertEquals(matcher.findFirst("xxabcexx"), 1);
+        Assert.assertEquals(matcher.findFirst("xxabcdxx"), 0);
+        Assert.assertEquals(matcher.findFirst("xxabxx"), MultiPatternMatcher.NOT_FOUND);
+        Assert.assertTrue(matcher.containsAny("abc"));
+    }
+
+    @Test
+    public void testMatchesNaiveSearch() {
+        List<String> patterns = Arrays.asList("aba", "bab", "abba", "baab", "aaa", "bbbb", "abab");
+        MultiPatternMatcher matcher = new MultiPatternMatcher(patterns);
+        Random random = new Random(42);
+        for (int n = 0; n < 1000; n++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(12); i > 0; i--) {
+                text.append(random.nextBoolean() ? 'a' : 'b');
+            }
+
+            int expected = MultiPatternMatcher.NOT_FOUND;
+            for (int i = 0; i < patterns.size(); i++) {
+                if (text.indexOf(patterns.get(i)) >= 0) {
+                    expected = i;
+                    break;
+                }
+            }
+            Assert.assertEquals(matcher.findFirst(text), expected, "Invalid match for '" + text + "'");
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEmptyPattern() {
+        new MultiPatternMatcher(Arrays.asList("a", ""));
+    }
+}
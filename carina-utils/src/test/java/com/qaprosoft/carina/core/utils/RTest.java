@@ -15,6 +15,9 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.utils;
 
+import java.util.Arrays;
+import java.util.HashSet;
+
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -130,4 +133,27 @@ public class RTest {
         Assert.assertEquals(R.TESTDATA.get("key4"), "3");
         Assert.assertEquals(R.TESTDATA.get("key5"), "2");
     }
+
+    @Test
+    public void testGetKeysByPrefix() {
+        R.CONFIG.clearTestProperties();
+        R.CONFIG.put("prefix_test.key1", "value1");
+        Assert.assertEquals(R.CONFIG.getKeys("PREFIX_TEST."), Arrays.asList("prefix_test.key1"));
+
+        // cached keys are refreshed when new global property is declared
+        R.CONFIG.put("prefix_test.key2", "value2");
+        Assert.assertEquals(new HashSet<>(R.CONFIG.getKeys("prefix_test.")),
+                new HashSet<>(Arrays.asList("prefix_test.key1", "prefix_test.key2")));
+
+        // removed key is not returned even if number of properties is the same
+        R.CONFIG.getProperties().remove("prefix_test.key1");
+        R.CONFIG.put("prefix_test.key4", "value4");
+        Assert.assertEquals(new HashSet<>(R.CONFIG.getKeys("prefix_test.")),
+                new HashSet<>(Arrays.asList("prefix_test.key2", "prefix_test.key4")));
+
+        R.CONFIG.put("prefix_test.key3", "value3", true);
+        Assert.assertTrue(R.CONFIG.getKeys("prefix_test.").contains("prefix_test.key3"), "Test property key is not returned!");
+        R.CONFIG.clearTestProperties();
+        Assert.assertFalse(R.CONFIG.getKeys("prefix_test.").contains("prefix_test.key3"), "Cleared test property key is returned!");
+    }
 }
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.utils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import org.testng.Assert;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadata;
+import com.qaprosoft.carina.core.foundation.utils.metadata.TestMetadataRegistry;
+import com.qaprosoft.carina.core.foundation.utils.ownership.MethodOwner;
+import com.qaprosoft.carina.core.foundation.utils.tag.Priority;
+import com.qaprosoft.carina.core.foundation.utils.tag.TestPriority;
+import com.qaprosoft.carina.core.foundation.utils.tag.TestTag;
+
+/**
+ * Tests for {@link TestMetadataRegistry}
+ */
+public class TestMetadataRegistryTest {
+
+    @BeforeClass
+    public void initRegistry() {
+        TestMetadataRegistry.init(Reporter.getCurrentTestResult().getTestContext().getSuite().getAllMethods());
+    }
+
+    @Test(description = "JIRA#AUTO-123, registry test")
+    @TestPriority(Priority.P3)
+    @TestTag(name = "feature", value = "registry")
+    @MethodOwner(owner = "Owner")
+    @MethodOwner(owner = "android_owner", platform = "android")
+    public void testMetadata() {
+        ITestResult result = Reporter.getCurrentTestResult();
+        TestMetadata metadata = TestMetadataRegistry.get(result.getMethod());
+        Assert.assertNotNull(metadata);
+        Assert.assertEquals(metadata.getTestClass(), getClass());
+        Assert.assertEquals(metadata.getTestMethod(), result.getMethod().getConstructorOrMethod().getMethod());
+        Assert.assertEquals(metadata.getPriority().get(0).getValue(), "P3");
+        Assert.assertEquals(metadata.getTags().get(0).getKey(), "feature");
+        Assert.assertEquals(metadata.getTags().get(0).getValue(), "registry");
+        Assert.assertEquals(metadata.getDescriptionTickets().get(0), "AUTO-123");
+        Assert.assertEquals(metadata.getOwners(), Arrays.asList("owner", "android_owner"));
+        Assert.assertEquals(metadata.getTestPriority(), "P3");
+        Assert.assertEquals(metadata.getTestTags(), Arrays.asList("feature=registry"));
+    }
+
+    @Test
+    public void testMetadataWithoutAnnotations() throws NoSuchMethodException {
+        Method method = getClass().getMethod("testMetadataWithoutAnnotations");
+        TestMetadata metadata = TestMetadataRegistry.get(getClass(), method);
+        Assert.assertNotNull(metadata);
+        Assert.assertTrue(metadata.getPriority().isEmpty());
+        Assert.assertTrue(metadata.getTags().isEmpty());
+        Assert.assertNull(metadata.getDescriptionTickets());
+        Assert.assertTrue(metadata.getOwners().isEmpty());
+        Assert.assertNull(metadata.getTestPriority());
+        Assert.assertTrue(metadata.getTestTags().isEmpty());
+    }
+
+    @Test
+    public void testRegisteredMetadataIsReused() {
+        ITestResult result = Reporter.getCurrentTestResult();
+        TestMetadata metadata = TestMetadataRegistry.get(result.getMethod());
+        TestMetadataRegistry.init(result.getTestContext().getSuite().getAllMethods());
+        Assert.assertSame(TestMetadataRegistry.get(result.getMethod()), metadata);
+        Assert.assertSame(TestMetadataRegistry.getOrCollect(result.getMethod()), metadata);
+    }
+}
@@ -365,23 +365,11 @@ public interface IMobileUtils extends IDriverPool {
             throw new RuntimeException("Unsupported direction for swipeInContainerTillElement: " + direction);
         }
 
-        int currentCount = count;
-
-        while (!isVisible && currentCount-- > 0) {
-            UTILS_LOGGER.debug("Element not present! Swipe " + direction + " will be executed to element: " + element.getNameWithLocator().toString());
-            swipeInContainer(container, direction, duration);
-
-            UTILS_LOGGER.info("Swipe was executed. Attempts remain: " + currentCount);
-            isVisible = element.isVisible(1);
-        }
-
-        currentCount = count;
-        while (bothDirections && !isVisible && currentCount-- > 0) {
-            UTILS_LOGGER.debug(
-                    "Element not present! Swipe " + oppositeDirection + " will be executed to element: " + element.getNameWithLocator().toString());
-            swipeInContainer(container, oppositeDirection, duration);
-            UTILS_LOGGER.info("Swipe was executed. Attempts remain: " + currentCount);
-            isVisible = element.isVisible(1);
+        // geometry is resolved once and search in a direction is finished as soon as the end of the list is reached
+        SwipeEngine engine = new SwipeEngine(castDriver(), container, duration);
+        isVisible = engine.swipeTo(element, direction, count);
+        if (bothDirections && !isVisible) {
+            isVisible = engine.swipeTo(element, oppositeDirection, count);
         }
 
         UTILS_LOGGER.info("Result: " + isVisible);
@@ -408,17 +396,13 @@ public interface IMobileUtils extends IDriverPool {
         // explicitly limit range of coordinates
         if (endx >= scrSize.width) {
             UTILS_LOGGER.warn("endx coordinate is bigger then device width! It will be limited!");
-            endx = scrSize.width - 1;
-        } else {
-            endx = Math.max(1, endx);
         }
+        endx = SwipeEngine.limit(endx, scrSize.width);
 
         if (endy >= scrSize.height) {
             UTILS_LOGGER.warn("endy coordinate is bigger then device height! It will be limited!");
-            endy = scrSize.height - 1;
-        } else {
-            endy = Math.max(1, endy);
         }
+        endy = SwipeEngine.limit(endy, scrSize.height);
 
         UTILS_LOGGER.debug("startx: " + startx + "; starty: " + starty + "; endx: " + endx + "; endy: " + endy
                 + "; duration: " + duration);
@@ -456,11 +440,6 @@ public interface IMobileUtils extends IDriverPool {
      */
     default public boolean swipeInContainer(ExtendedWebElement container, Direction direction, int count, int duration) {
 
-        int startx = 0;
-        int starty = 0;
-        int endx = 0;
-        int endy = 0;
-
         Point elementLocation = null;
         Dimension elementDimensions = null;
 
@@ -478,47 +457,11 @@ public interface IMobileUtils extends IDriverPool {
             elementDimensions = container.getSize();
         }
 
-        double minCoefficient = 0.3;
-        double maxCoefficient = 0.6;
-
-        // calculate default coefficient based on OS type
-        String os = IDriverPool.getDefaultDevice().getOs();
-        if (os.equalsIgnoreCase(SpecialKeywords.ANDROID)) {
-            minCoefficient = 0.25;
-            maxCoefficient = 0.5;
-        } else if (os.equalsIgnoreCase(SpecialKeywords.IOS) || os.equalsIgnoreCase(SpecialKeywords.MAC) || os.equalsIgnoreCase(SpecialKeywords.TVOS)) {
-            minCoefficient = 0.25;
-            maxCoefficient = 0.8;
-        }
-
-        switch (direction) {
-        case LEFT:
-            starty = endy = elementLocation.getY() + Math.round(elementDimensions.getHeight() / 2f);
-
-            startx = (int) (elementLocation.getX() + Math.round(maxCoefficient * elementDimensions.getWidth()));
-            endx = (int) (elementLocation.getX() + Math.round(minCoefficient * elementDimensions.getWidth()));
-            break;
-        case RIGHT:
-            starty = endy = elementLocation.getY() + Math.round(elementDimensions.getHeight() / 2f);
-
-            startx = (int) (elementLocation.getX() + Math.round(minCoefficient * elementDimensions.getWidth()));
-            endx = (int) (elementLocation.getX() + Math.round(maxCoefficient * elementDimensions.getWidth()));
-            break;
-        case UP:
-            startx = endx = elementLocation.getX() + Math.round(elementDimensions.getWidth() / 2f);
-
-            starty = (int) (elementLocation.getY() + Math.round(maxCoefficient * elementDimensions.getHeight()));
-            endy = (int) (elementLocation.getY() + Math.round(minCoefficient * elementDimensions.getHeight()));
-            break;
-        case DOWN:
-            startx = endx = elementLocation.getX() + Math.round(elementDimensions.getWidth() / 2f);
-
-            starty = (int) (elementLocation.getY() + Math.round(minCoefficient * elementDimensions.getHeight()));
-            endy = (int) (elementLocation.getY() + Math.round(maxCoefficient * elementDimensions.getHeight()));
-            break;
-        default:
-            throw new RuntimeException("Unsupported direction: " + direction);
-        }
+        int[] points = SwipeEngine.getSwipeCoordinates(elementLocation, elementDimensions, direction, IDriverPool.getDefaultDevice().getOs());
+        int startx = points[0];
+        int starty = points[1];
+        int endx = points[2];
+        int endy = points[3];
 
         UTILS_LOGGER.debug(String.format("Swipe from (X = %d; Y = %d) to (X = %d; Y = %d)", startx, starty, endx, endy));
 
@@ -0,0 +1,331 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.mobile;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+
+import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.utils.mobile.IMobileUtils.Direction;
+import com.qaprosoft.carina.core.foundation.webdriver.IDriverPool;
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.ExtendedWebElement;
+
+import io.appium.java_client.MobileBy;
+import io.appium.java_client.MobileDriver;
+import io.appium.java_client.TouchAction;
+import io.appium.java_client.touch.WaitOptions;
+import io.appium.java_client.touch.offset.PointOption;
+
+/**
+ * Swipes inside container (or whole screen) till element becomes visible.
+ * Viewport and container geometry and swipe coordinates are resolved once per search.
+ * After each swipe element is probed without waiting, and location and text of the first item of the swiped list
+ * are compared with the previous ones: unchanged content means the end of the list is reached, so search in this direction is finished
+ * after a single confirmation with regular 1 second visibility wait instead of swiping till the count is exhausted.
+ * The swiped list is the container, or the only scrollable area of the screen when container is not declared. End of the list
+ * is not detected when the screen has several scrollable areas as the swiped one is unknown.
+ */
+class SwipeEngine {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    // timeout of the visibility probe when end of the list is suspected, sec
+    static final long SETTLE_TIMEOUT = 1;
+    static final int CONTAINER_TIMEOUT = 5;
+
+    // number of the first items of the scrollable area compared after swipe
+    static final int FINGERPRINT_SIZE = 1;
+    static final By FINGERPRINT_ITEMS = By.xpath("./*");
+    private static final By ANDROID_SCROLLABLE = MobileBy.AndroidUIAutomator("new UiSelector().scrollable(true)");
+    private static final By IOS_SCROLLABLE = MobileBy
+            .iOSNsPredicateString("type IN {'XCUIElementTypeTable', 'XCUIElementTypeCollectionView', 'XCUIElementTypeScrollView'}");
+
+    private final WebDriver driver;
+    private final ExtendedWebElement container;
+    private final int duration;
+
+    private Rectangle area;
+    private Dimension viewport;
+    private final Map<Direction, int[]> coordinates = new EnumMap<>(Direction.class);
+
+    private WebElement scrollable;
+    // false when swiped list is ambiguous, then swipes are executed till the count is exhausted
+    private boolean endDetection = true;
+    private Integer fingerprint;
+    private int swipes = 0;
+
+    SwipeEngine(WebDriver driver, ExtendedWebElement container, int duration) {
+        this.driver = driver;
+        this.container = container;
+        this.duration = duration;
+    }
+
+    /**
+     * Swipes in direction till element is visible, count of swipes is exhausted or end of the list is reached.
+     *
+     * @param element ExtendedWebElement
+     * @param direction LEFT, RIGHT, UP or DOWN
+     * @param count max number of swipes
+     * @return true if element is visible
+     */
+    boolean swipeTo(ExtendedWebElement element, Direction direction, int count) {
+        // content before the first swipe in this direction
+        fingerprint = getFingerprint();
+        int currentCount = count;
+        while (currentCount-- > 0) {
+            LOGGER.debug("Element not present! Swipe " + direction + " will be executed to element: " + element.getNameWithLocator());
+            swipe(direction);
+            LOGGER.info("Swipe was executed. Attempts remain: " + currentCount);
+
+            // reading of the scrollable area also lets scrolling animation finish before the probe
+            Integer previous = fingerprint;
+            fingerprint = getFingerprint();
+            if (isVisible(element, 0)) {
+                return true;
+            }
+
+            if (previous != null && previous.equals(fingerprint)) {
+                // content could be updated with a delay, so confirm the end of the list once
+                if (isVisible(element, SETTLE_TIMEOUT)) {
+                    return true;
+                }
+                fingerprint = getFingerprint();
+                if (previous.equals(fingerprint)) {
+                    LOGGER.info("End of the list is reached after swipe " + direction + ", " + currentCount + " attempt(s) skipped.");
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    int getSwipes() {
+        return swipes;
+    }
+
+    /**
+     * Returns swipe coordinates as {startx, starty, endx, endy}
+     *
+     * @param direction Direction
+     * @return int[]
+     */
+    int[] getCoordinates(Direction direction) {
+        return coordinates.computeIfAbsent(direction, this::calculateCoordinates);
+    }
+
+    private void swipe(Direction direction) {
+        int[] points = getCoordinates(direction);
+        LOGGER.debug(String.format("Swipe from (X = %d; Y = %d) to (X = %d; Y = %d)", points[0], points[1], points[2], points[3]));
+        swipes++;
+        try {
+            performSwipe(points[0], points[1], points[2], points[3], duration);
+        } catch (Exception e) {
+            LOGGER.error(String.format("Error during Swipe from (X = %d; Y = %d) to (X = %d; Y = %d): %s", points[0], points[1], points[2],
+                    points[3], e));
+        }
+    }
+
+    private int[] calculateCoordinates(Direction direction) {
+        Rectangle area = getArea();
+        Dimension viewport = getViewport();
+
+        int[] points = getSwipeCoordinates(area.getPoint(), area.getDimension(), direction, getOs());
+        // explicitly limit range of end coordinates
+        points[2] = limit(points[2], viewport.getWidth());
+        points[3] = limit(points[3], viewport.getHeight());
+        return points;
+    }
+
+    /**
+     * Calculates swipe coordinates inside of the area using default coefficients of the OS.
+     *
+     * @param location left top corner of the area
+     * @param size size of the area
+     * @param direction LEFT, RIGHT, UP or DOWN
+     * @param os OS name
+     * @return {startx, starty, endx, endy}
+     */
+    static int[] getSwipeCoordinates(Point location, Dimension size, Direction direction, String os) {
+        double minCoefficient = 0.3;
+        double maxCoefficient = 0.6;
+
+        // calculate default coefficient based on OS type
+        if (os.equalsIgnoreCase(SpecialKeywords.ANDROID)) {
+            minCoefficient = 0.25;
+            maxCoefficient = 0.5;
+        } else if (os.equalsIgnoreCase(SpecialKeywords.IOS) || os.equalsIgnoreCase(SpecialKeywords.MAC) || os.equalsIgnoreCase(SpecialKeywords.TVOS)) {
+            minCoefficient = 0.25;
+            maxCoefficient = 0.8;
+        }
+
+        int startx, starty, endx, endy;
+        switch (direction) {
+        case LEFT:
+            starty = endy = location.getY() + Math.round(size.getHeight() / 2f);
+
+            startx = (int) (location.getX() + Math.round(maxCoefficient * size.getWidth()));
+            endx = (int) (location.getX() + Math.round(minCoefficient * size.getWidth()));
+            break;
+        case RIGHT:
+            starty = endy = location.getY() + Math.round(size.getHeight() / 2f);
+
+            startx = (int) (location.getX() + Math.round(minCoefficient * size.getWidth()));
+            endx = (int) (location.getX() + Math.round(maxCoefficient * size.getWidth()));
+            break;
+        case UP:
+            startx = endx = location.getX() + Math.round(size.getWidth() / 2f);
+
+            starty = (int) (location.getY() + Math.round(maxCoefficient * size.getHeight()));
+            endy = (int) (location.getY() + Math.round(minCoefficient * size.getHeight()));
+            break;
+        case DOWN:
+            startx = endx = location.getX() + Math.round(size.getWidth() / 2f);
+
+            starty = (int) (location.getY() + Math.round(minCoefficient * size.getHeight()));
+            endy = (int) (location.getY() + Math.round(maxCoefficient * size.getHeight()));
+            break;
+        default:
+            throw new RuntimeException("Unsupported direction: " + direction);
+        }
+        return new int[] { startx, starty, endx, endy };
+    }
+
+    /**
+     * Limits swipe coordinate by the screen size.
+     *
+     * @param coordinate x or y
+     * @param size screen width or height
+     * @return coordinate in range [1; size - 1]
+     */
+    static int limit(int coordinate, int size) {
+        return coordinate >= size ? size - 1 : Math.max(1, coordinate);
+    }
+
+    private Rectangle getArea() {
+        if (area == null) {
+            if (container == null) {
+                // whole screen/driver is a container!
+                area = new Rectangle(new Point(0, 0), getViewport());
+            } else {
+                area = getContainerArea();
+            }
+        }
+        return area;
+    }
+
+    private Dimension getViewport() {
+        if (viewport == null) {
+            viewport = getViewportSize();
+        }
+        return viewport;
+    }
+
+    Dimension getViewportSize() {
+        return driver.manage().window().getSize();
+    }
+
+    Rectangle getContainerArea() {
+        if (container.isElementNotPresent(CONTAINER_TIMEOUT)) {
+            Assert.fail("Cannot swipe! Impossible to find element " + container.getName());
+        }
+        return new Rectangle(container.getLocation(), container.getSize());
+    }
+
+    String getOs() {
+        return IDriverPool.getDefaultDevice().getOs();
+    }
+
+    /**
+     * Returns hash of location and text of the first items of the scrollable area.
+     * It is a bounded query instead of the whole page source which is expensive for long native lists.
+     *
+     * @return Integer or null if content is unknown
+     */
+    Integer getFingerprint() {
+        if (!endDetection) {
+            return null;
+        }
+        try {
+            if (scrollable == null) {
+                scrollable = findScrollable();
+                if (scrollable == null) {
+                    LOGGER.debug("Unable to find the only scrollable area for swipe, end of the list is not detected.");
+                    endDetection = false;
+                    return null;
+                }
+            }
+            List<WebElement> items = scrollable.findElements(FINGERPRINT_ITEMS);
+            List<Object> state = new ArrayList<>();
+            for (WebElement item : items.subList(0, Math.min(FINGERPRINT_SIZE, items.size()))) {
+                // Point.hashCode() ignores y coordinate for x = 0
+                Point location = item.getLocation();
+                state.add(location.getX());
+                state.add(location.getY());
+                state.add(item.getText());
+            }
+            return state.hashCode();
+        } catch (Exception e) {
+            LOGGER.debug("Unable to read content of the scrollable area for swipe: " + e.getMessage());
+            // area is found again next time, unknown content is never treated as the end of the list
+            scrollable = null;
+            return null;
+        }
+    }
+
+    WebElement findScrollable() {
+        if (container != null) {
+            return container.getElement();
+        }
+        String os = getOs();
+        By scrollableBy = null;
+        if (os.equalsIgnoreCase(SpecialKeywords.ANDROID)) {
+            scrollableBy = ANDROID_SCROLLABLE;
+        } else if (os.equalsIgnoreCase(SpecialKeywords.IOS) || os.equalsIgnoreCase(SpecialKeywords.TVOS)) {
+            scrollableBy = IOS_SCROLLABLE;
+        }
+        if (scrollableBy == null) {
+            return null;
+        }
+        // swiped list is known only if there is a single scrollable area on the screen
+        List<WebElement> elements = driver.findElements(scrollableBy);
+        return elements.size() == 1 ? elements.get(0) : null;
+    }
+
+    boolean isVisible(ExtendedWebElement element, long timeout) {
+        return element.isVisible(timeout);
+    }
+
+    void performSwipe(int startx, int starty, int endx, int endy, int duration) {
+        PointOption<?> startPoint = PointOption.point(startx, starty);
+        PointOption<?> endPoint = PointOption.point(endx, endy);
+        WaitOptions waitOptions = WaitOptions.waitOptions(Duration.ofMillis(duration));
+
+        new TouchAction<>((MobileDriver<?>) driver).press(startPoint).waitAction(waitOptions).moveTo(endPoint).release().perform();
+    }
+}
@@ -19,7 +19,6 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -54,8 +53,11 @@ import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.utils.LogicUtils;
 import com.qaprosoft.carina.core.foundation.utils.Messager;
 import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.ElementLoadingStrategy;
 import com.qaprosoft.carina.core.foundation.webdriver.decorator.ExtendedWebElement;
 import com.qaprosoft.carina.core.foundation.webdriver.listener.DriverListener;
+import com.qaprosoft.carina.core.foundation.webdriver.snapshot.ElementSnapshot;
+import com.qaprosoft.carina.core.foundation.webdriver.snapshot.ElementState;
 import com.qaprosoft.carina.core.gui.AbstractPage;
 
 /**
@@ -121,20 +123,12 @@ public class DriverHelper {
      * @return boolean return true only if all elements present.
      */
     public boolean allElementsPresent(long timeout, ExtendedWebElement... elements) {
-        int index = 0;
-        boolean present = true;
+        boolean[] present = waitForElements(timeout, false, elements);
         boolean ret = true;
-        int counts = 1;
-        timeout = timeout / counts;
-        if (timeout < 1)
-            timeout = 1;
-        while (present && index++ < counts) {
-            for (int i = 0; i < elements.length; i++) {
-                present = elements[i].isElementPresent(timeout);
-                if (!present) {
-                    LOGGER.error(elements[i].getNameWithLocator() + " is not present.");
-                    ret = false;
-                }
+        for (int i = 0; i < elements.length; i++) {
+            if (!present[i]) {
+                LOGGER.error(elements[i].getNameWithLocator() + " is not present.");
+                ret = false;
             }
         }
         return ret;
@@ -209,20 +203,10 @@ public class DriverHelper {
      * @return true if any of elements was found.
      */
     public boolean isAnyElementPresent(long timeout, ExtendedWebElement... elements) {
-        int index = 0;
-        int counts = 10;
-        timeout = timeout / counts;
-        if (timeout < 1)
-            timeout = 1;
-        while (index++ < counts) {
-            for (int i = 0; i < elements.length; i++) {
-                if (elements[i].isElementPresent(timeout)) {
-                    LOGGER.debug(elements[i].getNameWithLocator() + " is present");
-                    return true;
-                }
-            }
+        if (findAnyPresentElement(timeout, elements) != null) {
+            return true;
         }
-        
+
         LOGGER.error("Unable to find any element from array: " + Arrays.toString(elements));
         return false;
     }
@@ -247,20 +231,11 @@ public class DriverHelper {
      * @return ExtendedWebElement
      */
     public ExtendedWebElement returnAnyPresentElement(long timeout, ExtendedWebElement... elements) {
-        int index = 0;
-        int counts = 10;
-        timeout = timeout / counts;
-        if (timeout < 1)
-            timeout = 1;
-        while (index++ < counts) {
-            for (int i = 0; i < elements.length; i++) {
-                if (elements[i].isElementPresent(timeout)) {
-                    LOGGER.debug(elements[i].getNameWithLocator() + " is present");
-                    return elements[i];
-                }
-            }
+        ExtendedWebElement element = findAnyPresentElement(timeout, elements);
+        if (element != null) {
+            return element;
         }
-        //throw exception anyway if nothing was returned inside for cycle
+        //throw exception anyway if nothing was found during timeout
         LOGGER.error("All elements are not present");
         throw new RuntimeException("Unable to find any element from array: " + Arrays.toString(elements));
     }
@@ -349,20 +324,89 @@ public class DriverHelper {
     public void clickAny(long timeout, ExtendedWebElement... elements) {
         // Method which quickly looks for any element and click during timeout
         // sec
-        int index = 0;
-        boolean clicked = false;
-        int counts = 10;
-        while (!clicked && index++ < counts) {
-            for (int i = 0; i < elements.length; i++) {
-                clicked = elements[i].clickIfPresent(timeout / counts);
-                if (clicked) {
-                    break;
-                }
+        ExtendedWebElement element = findAnyPresentElement(timeout, elements);
+        // element is clicked only if it is still present, without waiting for it again
+        if (element == null || !element.clickIfPresent(0)) {
+            throw new RuntimeException("Unable to click onto any elements from array: " + Arrays.toString(elements));
+        }
+    }
+
+    /**
+     * Returns the first element from the list which is present during timeout sec.
+     *
+     * @param timeout long
+     * @param elements ExtendedWebElement...
+     * @return ExtendedWebElement or null if nothing is present
+     */
+    private ExtendedWebElement findAnyPresentElement(long timeout, ExtendedWebElement... elements) {
+        boolean[] present = waitForElements(timeout, true, elements);
+        for (int i = 0; i < elements.length; i++) {
+            if (present[i]) {
+                LOGGER.debug(elements[i].getNameWithLocator() + " is present");
+                return elements[i];
             }
         }
-        if (!clicked) {
-            throw new RuntimeException("Unable to click onto any elements from array: " + Arrays.toString(elements));
+        return null;
+    }
+
+    /**
+     * Polls the elements by a single snapshot per poll until any or all of them are loaded according to their
+     * element_loading_strategy. Elements which can't be captured by snapshot are verified one by one, elements missing
+     * in the last snapshot are confirmed by regular calls too.
+     *
+     * @param timeout long, at least 1 sec is used
+     * @param any boolean stop as soon as any element is present
+     * @param elements ExtendedWebElement...
+     * @return presence flags in the order of elements, element found once stays present
+     */
+    private boolean[] waitForElements(long timeout, boolean any, ExtendedWebElement... elements) {
+        boolean[] present = new boolean[elements.length];
+        if (elements.length == 0) {
+            return present;
+        }
+
+        ElementSnapshot snapshot = new ElementSnapshot(getDriver());
+        long deadline = System.currentTimeMillis() + Math.max(timeout, 1) * 1000;
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < elements.length; i++) {
+            pending.add(i);
         }
+
+        while (true) {
+            boolean last = System.currentTimeMillis() >= deadline;
+            ExtendedWebElement[] pendingElements = new ExtendedWebElement[pending.size()];
+            for (int i = 0; i < pendingElements.length; i++) {
+                pendingElements[i] = elements[pending.get(i)];
+            }
+
+            List<ElementState> states = snapshot.take(pendingElements);
+            boolean found = false;
+            for (int i = pending.size() - 1; i >= 0; i--) {
+                int index = pending.get(i);
+                ElementState state = states.get(i);
+                boolean loaded = state.isResolved() && isLoaded(state, elements[index].getLoadingStrategy());
+                if (!loaded && (!state.isResolved() || last)) {
+                    // snapshot doesn't see everything (frames, shadow DOM etc.) so missing element is confirmed by driver
+                    ElementSnapshot.recordFallback();
+                    loaded = elements[index].isPresent(0);
+                }
+                if (loaded) {
+                    present[index] = true;
+                    pending.remove(i);
+                    found = true;
+                }
+            }
+
+            if (pending.isEmpty() || (any && found) || last) {
+                return present;
+            }
+            CommonUtils.pause((double) RETRY_TIME / 1000);
+        }
+    }
+
+    private static boolean isLoaded(ElementState state, ElementLoadingStrategy loadingStrategy) {
+        // visible element is always present so presence covers BY_PRESENCE_OR_VISIBILITY as well
+        return loadingStrategy == ElementLoadingStrategy.BY_VISIBILITY ? state.isVisible() : state.isPresent();
     }
 
     /**
@@ -380,7 +424,7 @@ public class DriverHelper {
 
 		Messager.OPENING_URL.info(url);
 
-		DriverListener.setMessages(Messager.OPEN_URL.getMessage(url), Messager.NOT_OPEN_URL.getMessage(url));
+		DriverListener.setMessages(() -> Messager.OPEN_URL.getMessage(url), () -> Messager.NOT_OPEN_URL.getMessage(url));
         
         try {
             drv.get(decryptedURL);
@@ -758,14 +802,7 @@ public class DriverHelper {
     }
 
     public void switchWindow() throws NoSuchWindowException {
-        WebDriver drv = getDriver();
-        Set<String> handles = drv.getWindowHandles();
-        String current = drv.getWindowHandle();
-        if (handles.size() > 1) {
-            handles.remove(current);
-        }
-        String newTab = handles.iterator().next();
-        drv.switchTo().window(newTab);
+        WindowHandleCache.switchToAnotherWindow(getDriver());
     }
 
     // --------------------------------------------------------------------------
@@ -839,8 +876,8 @@ public class DriverHelper {
      * @return ExtendedWebElement if exists otherwise null.
      */
     public ExtendedWebElement findExtendedWebElement(final By by, String name, long timeout) {
-		DriverListener.setMessages(Messager.ELEMENT_FOUND.getMessage(name),
-				Messager.ELEMENT_NOT_FOUND.getMessage(name));
+		DriverListener.setMessages(() -> Messager.ELEMENT_FOUND.getMessage(name),
+				() -> Messager.ELEMENT_NOT_FOUND.getMessage(name));
     	
     	if (!waitUntil(ExpectedConditions.presenceOfElementLocated(by), timeout)) {
     		Messager.ELEMENT_NOT_FOUND.error(name);
@@ -334,6 +334,7 @@ public interface IDriverPool {
             }
             
             WebDriver driver = carinaDriver.getDriver();
+            WindowHandleCache.remove(driver);
             POOL_LOGGER.debug("start driver quit: " + carinaDriver.getName());
             
             Future<?> future = Executors.newSingleThreadExecutor().submit(new Callable<Void>() {
@@ -16,6 +16,7 @@
 package com.qaprosoft.carina.core.foundation.webdriver;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
@@ -31,6 +32,7 @@ import java.util.List;
 import javax.imageio.ImageIO;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.imgscalr.Scalr;
 import org.openqa.selenium.NoSuchWindowException;
 import org.openqa.selenium.OutputType;
@@ -44,16 +46,18 @@ import org.slf4j.LoggerFactory;
 
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
 import com.qaprosoft.carina.core.foundation.report.ReportContext;
+import com.qaprosoft.carina.core.foundation.retry.FailureClassifier;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.webdriver.augmenter.DriverAugmenter;
 import com.qaprosoft.carina.core.foundation.webdriver.screenshot.IScreenshotRule;
+import com.qaprosoft.carina.core.foundation.webdriver.screenshot.ImageDiffResult;
+import com.qaprosoft.carina.core.foundation.webdriver.screenshot.ScreenshotDeduplicator;
+import com.qaprosoft.carina.core.foundation.webdriver.screenshot.TiledImageDiffer;
 
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.windows.WindowsDriver;
 import ru.yandex.qatools.ashot.AShot;
-import ru.yandex.qatools.ashot.comparison.ImageDiff;
-import ru.yandex.qatools.ashot.comparison.ImageDiffer;
 import ru.yandex.qatools.ashot.shooting.ShootingStrategies;
 import ru.yandex.qatools.ashot.shooting.ShootingStrategy;
 
@@ -140,7 +144,7 @@ public class Screenshot {
                 break;
             }
         }
-        return capture(driver, isTakeScreenshotRules, comment, false);
+        return capture(driver, isTakeScreenshotRules, comment, false, ScreenshotDeduplicator.isEnabled());
     }
 
     /**
@@ -167,7 +171,7 @@ public class Screenshot {
      * @return screenshot name.
      */
     public static String capture(WebDriver driver, String comment, boolean isFullSize) {
-        return capture(driver, true, comment, isFullSize);
+        return capture(driver, true, comment, isFullSize, false);
     }
     
     /**
@@ -323,10 +327,12 @@ public class Screenshot {
      *            String
      * @param fullSize
      *            Boolean
+     * @param deduplicate
+     *            skip screenshot if it is similar to the previous one of the current test
      * @return screenshot name.
      */
 
-    private static String capture(WebDriver driver, boolean isTakeScreenshot, String comment, boolean fullSize) {
+    private static String capture(WebDriver driver, boolean isTakeScreenshot, String comment, boolean fullSize, boolean deduplicate) {
         String screenName = "";
         
         // TODO: AUTO-2883 make full size screenshot generation only when fullSize == true
@@ -386,6 +392,20 @@ public class Screenshot {
                 	return "";
                 }
 
+                long hash = 0;
+                if (deduplicate) {
+                    hash = ScreenshotDeduplicator.hash(screen);
+                    String duplicate = ScreenshotDeduplicator.getDuplicate(hash);
+                    if (duplicate != null) {
+                        // reference previous similar screenshot instead of storing and uploading the new one, keep the step comment on it
+                        String previousComment = ReportContext.getScreenshotComment(duplicate);
+                        ReportContext.addScreenshotComment(duplicate,
+                                StringUtils.isEmpty(previousComment) ? comment : previousComment + "; " + comment);
+                        return duplicate;
+                    }
+                }
+
+                long encodeStart = System.currentTimeMillis();
                 if (Configuration.getInt(Parameter.BIG_SCREEN_WIDTH) != -1
                         && Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT) != -1) {
                     resizeImg(screen, Configuration.getInt(Parameter.BIG_SCREEN_WIDTH),
@@ -396,6 +416,10 @@ public class Screenshot {
 
                 ImageIO.write(screen, "PNG", screenshot);
 
+                if (deduplicate) {
+                    ScreenshotDeduplicator.register(screenName, hash, screenshot, System.currentTimeMillis() - encodeStart);
+                }
+
                 com.zebrunner.agent.core.registrar.Screenshot.upload(Files.readAllBytes(screenshot.toPath()), Instant.now().toEpochMilli());
 
                 // add screenshot comment to collector
@@ -537,42 +561,8 @@ public class Screenshot {
 			// unable to detect driver invalid status so return true
 			return true;
 		}
-		// disable screenshot if error message contains any of this info
-		boolean isContains = message.contains("StaleObjectException")
-				|| message.contains("StaleElementReferenceException")
-				|| message.contains("stale_element_reference.html")
-				|| message.contains("Error executing JavaScript")
-				|| message.contains("Session ID is null. Using WebDriver after calling quit")
-				|| message.contains("A session is either terminated or not started")
-                || message.contains("invalid session id")
-                || message.contains("Session does not exist")
-				|| message.contains("Session timed out or not found")
-				|| message.contains("Unable to determine type from: <. Last 1 characters read")
-				|| message.contains("not available and is not among the last 1000 terminated sessions")				
-				|| message.contains("cannot forward the request")
-                || message.contains("connect ECONNREFUSED")
-				|| message.contains("was terminated due to") // FORWARDING_TO_NODE_FAILED, CLIENT_STOPPED_SESSION, PROXY_REREGISTRATION, TIMEOUT, BROWSER_TIMEOUT etc
-				|| message.contains("InvalidElementStateException") || message.contains("stale element reference")
-				|| message.contains("no such element: Unable to locate element")
-				|| message.contains("https://www.seleniumhq.org/exceptions/no_such_element.html") // use-case for Safari driver
-				|| message.contains("no such window: window was already closed")
-				|| message.contains("Method is not implemented") //to often exception for mobile native app testing
-				// [VD] exclude below condition otherwise we overload appium when fluent wait looking for device and doing screenshot in a loop 
-				|| message.contains("An element could not be located on the page using the given search parameters")
-				|| message.contains("current view have 'secure' flag set")
-				|| message.contains("Error communicating with the remote browser. It may have died")
-				|| message.contains("unexpected alert open") 
-				|| message.contains("chrome not reachable")
-				|| message.contains("cannot forward the request Connect to")
-				|| message.contains("Could not proxy command to remote server. Original error:") // Error: socket hang up, Error: read ECONNRESET etc				
-				|| message.contains("Could not proxy command to the remote server. Original error:") // Different messages on some Appium versions
-				|| message.contains("Unable to find elements by Selenium")
-				|| message.contains("generateUiDump") //do not generate screenshot if getPageSource is invalid
-				|| message.contains("Expected to read a START_MAP but instead have: END") // potential drivers issues fix for moon
-				|| message.contains("An unknown error has occurred") //
-				|| message.contains("Unable to find element with")
-				|| message.contains("Unable to locate element")
-				|| message.contains("Illegal base64 character 2e");
+		// disable screenshot if error message contains any built-in driver failure signature or custom one of unavailable driver
+		boolean isContains = FailureClassifier.isDriverFailure(message);
 		
 		if (!isContains) {
 		    // for released builds put below message to debug  
@@ -593,13 +583,32 @@ public class Screenshot {
      * @return boolean
      */
     public static boolean isScreenshotDiff(BufferedImage bufferedImageExpected, BufferedImage bufferedImageActual, String comment, boolean artifact) {
+        return isScreenshotDiff(bufferedImageExpected, bufferedImageActual, comment, artifact, new TiledImageDiffer());
+    }
+
+    /**
+     * Compares two different screenshots using custom differ (color tolerance, ignored regions, threshold etc)
+     *
+     * @param bufferedImageExpected - old image
+     * @param bufferedImageActual   - new image
+     * @param comment  - String
+     * @param artifact  - boolean
+     * @param differ  - TiledImageDiffer
+     * @return boolean
+     */
+    public static boolean isScreenshotDiff(BufferedImage bufferedImageExpected, BufferedImage bufferedImageActual, String comment, boolean artifact,
+            TiledImageDiffer differ) {
         String screenName;
         BufferedImage screen;
         try {
-            ImageDiffer imageDiff = new ImageDiffer();
-            ImageDiff diff = imageDiff.makeDiff(bufferedImageExpected, bufferedImageActual);
+            ImageDiffResult diff = differ.makeDiff(bufferedImageExpected, bufferedImageActual);
+            LOGGER.debug("Screenshots comparison result: " + diff);
             if (diff.hasDiff()) {
                 screen = diff.getMarkedImage();
+                if (screen == null) {
+                    // marked image is not available in early exit mode
+                    return true;
+                }
                 // Define test screenshot root
                 File testScreenRootDir = ReportContext.getTestDir();
 
@@ -612,12 +621,17 @@ public class Screenshot {
                             Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT), screenPath);
                 }
 
+                // encode image once and reuse the same bytes for the file and the upload
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                ImageIO.write(screen, "PNG", bytes);
                 File screenshot = new File(screenPath);
-                FileUtils.touch(screenshot);
-                ImageIO.write(screen, "PNG", screenshot);
+                FileUtils.writeByteArrayToFile(screenshot, bytes.toByteArray());
 
                 // Uploading comparative screenshot to Amazon S3
-                com.zebrunner.agent.core.registrar.Screenshot.upload(Files.readAllBytes(screenshot.toPath()), Instant.now().toEpochMilli());
+                com.zebrunner.agent.core.registrar.Screenshot.upload(bytes.toByteArray(), Instant.now().toEpochMilli());
+
+                // add comparative screenshot to the test steps report
+                ReportContext.addScreenshotComment(screenName, comment);
             }
             else {
                 LOGGER.info("Unable to create comparative screenshot, there is no difference between images!");
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.performance.RunStatistics;
+import com.qaprosoft.carina.core.foundation.webdriver.listener.DriverListener;
+
+/**
+ * Keeps window handles and the current window of every driver session so window switches are direct handle jumps
+ * instead of getWindowHandles/getWindowHandle round trips before every switch.
+ * Cache is maintained by {@link DriverListener} events: window switches update the current window, clicks, typing,
+ * scripts, navigation and alerts invalidate known handles as they may open or close windows.
+ * Cached handles are not verified before a switch, failed switch invalidates them and is retried on actual handles.
+ * Single cached window is always verified by actual handles as windows can be opened without tracked events.
+ * Closing of a window (e.g. {@link WebDriver#close()}) is not tracked either, so current window is dropped when it is
+ * missing in actual handles.
+ */
+public class WindowHandleCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    private static final LongAdder queries = new LongAdder();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder switches = new LongAdder();
+    private static final LongAdder staleSwitches = new LongAdder();
+
+    static {
+        RunStatistics.register(WindowHandleCache.class.getName(), WindowHandleCache::isEmpty, WindowHandleCache::getStatistics,
+                WindowHandleCache::reset);
+    }
+
+    private WindowHandleCache() {
+        // hide default constructor
+    }
+
+    /**
+     * Returns handles of all windows of the driver session in the order they were opened.
+     *
+     * @param driver WebDriver
+     * @return modifiable copy of window handles
+     */
+    public static Set<String> getWindowHandles(WebDriver driver) {
+        Entry entry = getEntry(driver);
+        Set<String> handles = entry.handles;
+        if (handles == null) {
+            queries.increment();
+            handles = Collections.unmodifiableSet(new LinkedHashSet<>(driver.getWindowHandles()));
+            entry.handles = handles;
+            if (entry.current != null && !handles.contains(entry.current)) {
+                // current window was closed without tracked event
+                entry.current = null;
+            }
+        } else {
+            hits.increment();
+        }
+        return new LinkedHashSet<>(handles);
+    }
+
+    /**
+     * Returns handle of the current window of the driver session.
+     *
+     * @param driver WebDriver
+     * @return window handle
+     */
+    public static String getWindowHandle(WebDriver driver) {
+        Entry entry = getEntry(driver);
+        String current = entry.current;
+        if (current == null) {
+            queries.increment();
+            current = driver.getWindowHandle();
+            entry.current = current;
+        } else {
+            hits.increment();
+        }
+        return current;
+    }
+
+    /**
+     * Switches to the window. Known handles are invalidated when the window doesn't exist anymore.
+     *
+     * @param driver WebDriver
+     * @param handle window handle
+     * @throws NoSuchWindowException if window is closed
+     */
+    public static void switchTo(WebDriver driver, String handle) {
+        Entry entry = getEntry(driver);
+        switches.increment();
+        try {
+            driver.switchTo().window(handle);
+        } catch (NoSuchWindowException e) {
+            // current window is not changed by failed switch
+            staleSwitches.increment();
+            entry.handles = null;
+            throw e;
+        }
+        // driver may be not wrapped by event firing one
+        entry.current = handle;
+    }
+
+    /**
+     * Switches to the first opened window except the current one. Stays in the current window when it is the only one.
+     *
+     * @param driver WebDriver
+     * @throws NoSuchWindowException if there is no window to switch to
+     */
+    public static void switchToAnotherWindow(WebDriver driver) {
+        try {
+            switchTo(driver, getAnotherWindow(driver));
+        } catch (NoSuchWindowException e) {
+            // cached window was closed, retry on actual handles
+            LOGGER.debug("Cached window is not available, retrying on actual window handles: " + e.getMessage());
+            switchTo(driver, getAnotherWindow(driver));
+        }
+    }
+
+    private static String getAnotherWindow(WebDriver driver) {
+        Entry entry = getEntry(driver);
+        boolean cached = entry.handles != null;
+        Set<String> handles = getWindowHandles(driver);
+        if (cached && handles.size() < 2) {
+            // new window could be opened without tracked event, verify actual handles before staying in the current one
+            entry.handles = null;
+            handles = getWindowHandles(driver);
+        }
+        if (handles.isEmpty()) {
+            throw new NoSuchWindowException("There is no window to switch to");
+        }
+        if (handles.size() > 1) {
+            try {
+                handles.remove(getWindowHandle(driver));
+            } catch (NoSuchWindowException e) {
+                // current window is closed, any opened window is another one
+                LOGGER.debug("Current window is not available: " + e.getMessage());
+            }
+        }
+        return handles.iterator().next();
+    }
+
+    /**
+     * Registers window switch performed by the driver.
+     *
+     * @param driver WebDriver
+     * @param windowName window handle or name
+     */
+    public static void onSwitch(WebDriver driver, String windowName) {
+        Entry entry = getEntry(driver);
+        Set<String> handles = entry.handles;
+        // window can be switched by name, such switch makes current window unknown
+        entry.current = handles != null && handles.contains(windowName) ? windowName : null;
+    }
+
+    /**
+     * Invalidates known window handles of the driver session after action which may open or close windows.
+     *
+     * @param driver WebDriver
+     */
+    public static void invalidate(WebDriver driver) {
+        Entry entry = entries.get(getKey(driver));
+        if (entry != null) {
+            entry.handles = null;
+        }
+    }
+
+    /**
+     * Removes all cached data of the driver session.
+     *
+     * @param driver WebDriver
+     */
+    public static void remove(WebDriver driver) {
+        entries.remove(getKey(driver));
+    }
+
+    public static long getQueries() {
+        return queries.sum();
+    }
+
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    public static long getSwitches() {
+        return switches.sum();
+    }
+
+    public static long getStaleSwitches() {
+        return staleSwitches.sum();
+    }
+
+    public static boolean isEmpty() {
+        return switches.sum() == 0 && queries.sum() == 0 && hits.sum() == 0;
+    }
+
+    public static void reset() {
+        entries.clear();
+        queries.reset();
+        hits.reset();
+        switches.reset();
+        staleSwitches.reset();
+    }
+
+    public static String getStatistics() {
+        return String.format("Window handle cache: %d switch(es), %d handle query(ies), %d reused, %d stale switch(es).",
+                getSwitches(), getQueries(), getHits(), getStaleSwitches());
+    }
+
+    private static Entry getEntry(WebDriver driver) {
+        return entries.computeIfAbsent(getKey(driver), k -> new Entry());
+    }
+
+    private static Integer getKey(WebDriver driver) {
+        // listeners receive internal proxy of the event firing driver which delegates hashCode to the wrapped driver
+        if (driver instanceof EventFiringWebDriver) {
+            driver = ((EventFiringWebDriver) driver).getWrappedDriver();
+        }
+        return driver.hashCode();
+    }
+
+    private static class Entry {
+        private volatile Set<String> handles;
+        private volatile String current;
+    }
+}
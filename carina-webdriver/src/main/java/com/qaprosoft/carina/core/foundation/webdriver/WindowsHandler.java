@@ -30,14 +30,14 @@ public class WindowsHandler {
     private static Map<Integer, Set<String>> windows = new HashMap<Integer, Set<String>>();
 
     public static synchronized void saveBeforePopup(WebDriver driver) {
-        windows.put(driver.hashCode(), driver.getWindowHandles());
+        windows.put(driver.hashCode(), WindowHandleCache.getWindowHandles(driver));
     }
 
     public static void switchBackAfterPopup(WebDriver driver) {
         try {
             Set<String> beforeHandles = windows.get((driver).hashCode());
             String newWindowHandle = beforeHandles.iterator().next();
-            driver.switchTo().window(newWindowHandle);
+            WindowHandleCache.switchTo(driver, newWindowHandle);
         } catch (Exception e) {
             LOGGER.warn("Switching to bottom window was not performed!");
         }
@@ -46,10 +46,16 @@ public class WindowsHandler {
     public static boolean switchToPopup(WebDriver driver) {
         try {
             Set<String> beforeHandles = windows.get((driver).hashCode());
-            Set<String> afterHandles = driver.getWindowHandles();
+            Set<String> afterHandles = WindowHandleCache.getWindowHandles(driver);
             afterHandles.removeAll(beforeHandles);
+            if (afterHandles.isEmpty()) {
+                // popup could be opened by action which doesn't invalidate cached handles
+                WindowHandleCache.invalidate(driver);
+                afterHandles = WindowHandleCache.getWindowHandles(driver);
+                afterHandles.removeAll(beforeHandles);
+            }
             String newWindowHandle = afterHandles.iterator().next();
-            driver.switchTo().window(newWindowHandle);
+            WindowHandleCache.switchTo(driver, newWindowHandle);
             return true;
         } catch (Exception e) {
             LOGGER.warn("Switching to top window was not performed!");
@@ -17,11 +17,16 @@ package com.qaprosoft.carina.core.foundation.webdriver.core.capability;
 
 import java.io.File;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openqa.selenium.Platform;
 import org.openqa.selenium.Proxy;
@@ -45,7 +50,15 @@ import com.qaprosoft.carina.proxy.SystemProxy;
 
 public abstract class AbstractCapabilities {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-    private static ArrayList<Integer> firefoxPorts = new ArrayList<Integer>();
+    private static final int DEFAULT_FIREFOX_PORT = 7055;
+    private static final int FIREFOX_PORTS_HISTORY = 20;
+
+    // recently allocated firefox ports, guarded by itself
+    private static final Deque<Integer> firefoxPorts = new ArrayDeque<Integer>();
+
+    // immutable browser options parsed from configuration, keyed by values of the related properties
+    private static final Map<String, ChromeOptionsTemplate> chromeTemplates = new ConcurrentHashMap<>();
+    private static final Map<String, FirefoxOptionsTemplate> firefoxTemplates = new ConcurrentHashMap<>();
 
     public abstract DesiredCapabilities getCapability(String testName);
 
@@ -81,20 +94,16 @@ public abstract class AbstractCapabilities {
     protected DesiredCapabilities initCapabilities(DesiredCapabilities capabilities) {
         // read all properties which starts from "capabilities.*" prefix and add them into desired capabilities.
         final String prefix = SpecialKeywords.CAPABILITIES + ".";
-        @SuppressWarnings({ "unchecked", "rawtypes" })
-        Map<String, String> capabilitiesMap = new HashMap(R.CONFIG.getProperties());
-        for (Map.Entry<String, String> entry : capabilitiesMap.entrySet()) {
-            if (entry.getKey().toLowerCase().startsWith(prefix)) {
-                String value = R.CONFIG.get(entry.getKey());
-                if (!value.isEmpty()) {
-                    String cap = entry.getKey().replaceAll(prefix, "");
-                    if ("false".equalsIgnoreCase(value)) {
-                        capabilities.setCapability(cap, false);
-                    } else if ("true".equalsIgnoreCase(value)) {
-                        capabilities.setCapability(cap, true);
-                    } else {
-                        capabilities.setCapability(cap, value);
-                    }
+        for (String key : R.CONFIG.getKeys(prefix)) {
+            String value = R.CONFIG.get(key);
+            if (!value.isEmpty()) {
+                String cap = key.replaceAll(prefix, "");
+                if ("false".equalsIgnoreCase(value)) {
+                    capabilities.setCapability(cap, false);
+                } else if ("true".equalsIgnoreCase(value)) {
+                    capabilities.setCapability(cap, true);
+                } else {
+                    capabilities.setCapability(cap, value);
                 }
             }
         }
@@ -177,132 +186,22 @@ public abstract class AbstractCapabilities {
     
 
     private DesiredCapabilities addChromeOptions(DesiredCapabilities caps) {
-        // add default carina options and arguments
-        ChromeOptions options = new ChromeOptions();
-        options.addArguments("test-type");
-        
-        //prefs 
-        HashMap<String, Object> chromePrefs = new HashMap<String, Object>();
-        boolean needsPrefs = false;
-        
-        //update browser language
-        String browserLang = Configuration.get(Parameter.BROWSER_LANGUAGE); 
-        if (!browserLang.isEmpty()) {
-            LOGGER.info("Set Chrome language to: " + browserLang);
-            options.addArguments("--lang=" + browserLang);
-            chromePrefs.put("intl.accept_languages", browserLang);
-            needsPrefs = true;
-        }
-
-        if (Configuration.getBoolean(Configuration.Parameter.AUTO_DOWNLOAD)) {
-            chromePrefs.put("download.prompt_for_download", false);
-            chromePrefs.put("download.default_directory", getAutoDownloadFolderPath());
-            chromePrefs.put("plugins.always_open_pdf_externally", true);
-            needsPrefs = true;
-        }
-
-        if (needsPrefs) {
-        	options.setExperimentalOption("prefs", chromePrefs);
-        }
-        
-        // [VD] no need to set proxy via options anymore!
-        // moreover if below code is uncommented then we have double proxy start and mess in host:port values
-        
-        // setup default mobile chrome args and preferences
         String driverType = Configuration.getDriverType();
-        if (SpecialKeywords.MOBILE.equals(driverType)) {
-            options.addArguments("--no-first-run");
-            options.addArguments("--disable-notifications");
-            options.setExperimentalOption("w3c", false);
-        }
-        
-        // add all custom chrome args
-        for (String arg: Configuration.get(Parameter.CHROME_ARGS).split(",")) {
-            if (arg.isEmpty()) {
-                continue;
-            }
-            options.addArguments(arg.trim());
-        }
-    
-        // add all custom chrome experimental options, w3c=false
-        for (String option: Configuration.get(Parameter.CHROME_EXPERIMENTAL_OPTS).split(",")) {
-            if (option.isEmpty()) {
-                continue;
-            }
-
-            //TODO: think about equal sign inside name or value later
-            option = option.trim();
-            String name = option.split("=")[0].trim();
-            String value = option.split("=")[1].trim();
-            if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
-                options.setExperimentalOption(name, Boolean.valueOf(value));
-            } else {
-                options.setExperimentalOption(name, value);
-            }
-        }
-        
-        // add all custom chrome mobileEmulation options, deviceName=Nexus 5
-        Map<String, String> mobileEmulation = new HashMap<>();
-        for (String option: Configuration.get(Parameter.CHROME_MOBILE_EMULATION_OPTS).split(",")) {
-            if (option.isEmpty()) {
-                continue;
-            }
+        String key = String.join("|", Configuration.get(Parameter.BROWSER_LANGUAGE), Configuration.get(Parameter.AUTO_DOWNLOAD),
+                Configuration.get(Parameter.AUTO_DOWNLOAD_FOLDER), driverType, Configuration.get(Parameter.CHROME_ARGS),
+                Configuration.get(Parameter.CHROME_EXPERIMENTAL_OPTS), Configuration.get(Parameter.CHROME_MOBILE_EMULATION_OPTS),
+                Configuration.get(Parameter.HEADLESS));
+        ChromeOptionsTemplate template = chromeTemplates.computeIfAbsent(key, k -> new ChromeOptionsTemplate(driverType));
 
-            option = option.trim();
-            String name = option.split("=")[0].trim();
-            String value = option.split("=")[1].trim();
-            mobileEmulation.put(name, value);
-        }
-        
-        if (!mobileEmulation.isEmpty()) {
-            options.setExperimentalOption("mobileEmulation", mobileEmulation);
-        }
-
-        if (Configuration.getBoolean(Parameter.HEADLESS)
-                && driverType.equals(SpecialKeywords.DESKTOP)) {
-            options.setHeadless(Configuration.getBoolean(Parameter.HEADLESS));
-        }
-
-        caps.setCapability(ChromeOptions.CAPABILITY, options);
+        caps.setCapability(ChromeOptions.CAPABILITY, template.newOptions());
         return caps;
     }
 
 
     private DesiredCapabilities addFirefoxOptions(DesiredCapabilities caps) {
         FirefoxProfile profile = getDefaultFirefoxProfile();
-        FirefoxOptions options = new FirefoxOptions().setProfile(profile);
+        FirefoxOptions options = getFirefoxTemplate().newOptions(profile);
         caps.setCapability(FirefoxOptions.FIREFOX_OPTIONS, options);
-
-        // add all custom firefox args
-        for (String arg : Configuration.get(Parameter.FIREFOX_ARGS).split(",")) {
-            if (arg.isEmpty()) {
-                continue;
-            }
-            options.addArguments(arg.trim());
-        }
-        // add all custom firefox preferences
-        for (String preference : Configuration.get(Parameter.FIREFOX_PREFERENCES).split(",")) {
-            if (preference.isEmpty()) {
-                continue;
-            }
-            // TODO: think about equal sign inside name or value later
-            preference = preference.trim();
-            String name = preference.split("=")[0].trim();
-            String value = preference.split("=")[1].trim();
-            // TODO: test approach with numbers
-            if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
-                options.addPreference(name, Boolean.valueOf(value));
-            } else {
-                options.addPreference(name, value);
-            }
-        }
-
-        String driverType = Configuration.getDriverType();
-        if (Configuration.getBoolean(Parameter.HEADLESS)
-                && driverType.equals(SpecialKeywords.DESKTOP)) {
-            options.setHeadless(Configuration.getBoolean(Parameter.HEADLESS));
-        }
-
         return caps;
     }
 
@@ -314,59 +213,51 @@ public abstract class AbstractCapabilities {
     // keep it public to be bale to get default and override on client layerI
     public FirefoxProfile getDefaultFirefoxProfile() {
         FirefoxProfile profile = new FirefoxProfile();
+        getFirefoxTemplate().applyProfilePreferences(profile);
 
-        // update browser language
-        String browserLang = Configuration.get(Parameter.BROWSER_LANGUAGE);
-        if (!browserLang.isEmpty()) {
-            LOGGER.info("Set Firefox lanaguage to: " + browserLang);
-            profile.setPreference("intl.accept_languages", browserLang);
-        }
-
-        boolean generated = false;
-        int newPort = 7055;
-        int i = 100;
-        while (!generated && (--i > 0)) {
-            newPort = PortProber.findFreePort();
-            generated = firefoxPorts.add(newPort);
-        }
-        if (!generated) {
-            newPort = 7055;
-        }
-        if (firefoxPorts.size() > 20) {
-            firefoxPorts.remove(0);
-        }
-
+        int newPort = allocateFirefoxPort();
         profile.setPreference(FirefoxProfile.PORT_PREFERENCE, newPort);
         LOGGER.debug("FireFox profile will use '" + newPort + "' port number.");
 
-        profile.setPreference("dom.max_chrome_script_run_time", 0);
-        profile.setPreference("dom.max_script_run_time", 0);
-
-        if (Configuration.getBoolean(Configuration.Parameter.AUTO_DOWNLOAD) && !(Configuration.isNull(Configuration.Parameter.AUTO_DOWNLOAD_APPS)
-                || "".equals(Configuration.get(Configuration.Parameter.AUTO_DOWNLOAD_APPS)))) {
-            profile.setPreference("browser.download.folderList", 2);
-            profile.setPreference("browser.download.dir", getAutoDownloadFolderPath());
-            profile.setPreference("browser.helperApps.neverAsk.saveToDisk", Configuration.get(Configuration.Parameter.AUTO_DOWNLOAD_APPS));
-            profile.setPreference("browser.download.manager.showWhenStarting", false);
-            profile.setPreference("browser.download.saveLinkAsFilenameTimeout", 1);
-            profile.setPreference("pdfjs.disabled", true);
-            profile.setPreference("plugin.scan.plid.all", false);
-            profile.setPreference("plugin.scan.Acrobat", "99.0");
-        } else if (Configuration.getBoolean(Configuration.Parameter.AUTO_DOWNLOAD) && Configuration.isNull(Configuration.Parameter.AUTO_DOWNLOAD_APPS)
-                || "".equals(Configuration.get(Configuration.Parameter.AUTO_DOWNLOAD_APPS))) {
-            LOGGER.warn(
-                    "If you want to enable auto-download for FF please specify '" + Configuration.Parameter.AUTO_DOWNLOAD_APPS.getKey() + "' param");
-        }
-
         profile.setAcceptUntrustedCertificates(true);
         profile.setAssumeUntrustedCertificateIssuer(true);
 
         // TODO: implement support of custom args if any
         return profile;
     }
+
+    private FirefoxOptionsTemplate getFirefoxTemplate() {
+        String driverType = Configuration.getDriverType();
+        String key = String.join("|", Configuration.get(Parameter.BROWSER_LANGUAGE), Configuration.get(Parameter.AUTO_DOWNLOAD),
+                Configuration.get(Parameter.AUTO_DOWNLOAD_APPS), Configuration.get(Parameter.AUTO_DOWNLOAD_FOLDER), driverType,
+                Configuration.get(Parameter.FIREFOX_ARGS), Configuration.get(Parameter.FIREFOX_PREFERENCES),
+                Configuration.get(Parameter.HEADLESS));
+        return firefoxTemplates.computeIfAbsent(key, k -> new FirefoxOptionsTemplate(driverType));
+    }
+
+    /**
+     * Finds free port for Firefox profile which wasn't allocated recently
+     * 
+     * @return port number
+     */
+    private static int allocateFirefoxPort() {
+        synchronized (firefoxPorts) {
+            for (int i = 0; i < 100; i++) {
+                int port = PortProber.findFreePort();
+                if (!firefoxPorts.contains(port)) {
+                    firefoxPorts.addLast(port);
+                    if (firefoxPorts.size() > FIREFOX_PORTS_HISTORY) {
+                        firefoxPorts.removeFirst();
+                    }
+                    return port;
+                }
+            }
+        }
+        return DEFAULT_FIREFOX_PORT;
+    }
     
     
-    private String getAutoDownloadFolderPath() {
+    private static String getAutoDownloadFolderPath() {
         // use custom folder for auto download
         String autoDownloadFolder = Configuration.get(Parameter.AUTO_DOWNLOAD_FOLDER);
         File autoDownloadPath;
@@ -386,4 +277,201 @@ public abstract class AbstractCapabilities {
 
         return autoDownloadPath.getAbsolutePath();
     }
+
+    /**
+     * Chrome arguments and experimental options parsed from configuration once. Every session gets its own ChromeOptions.
+     */
+    private static class ChromeOptionsTemplate {
+        private final List<String> arguments = new ArrayList<>();
+        private final Map<String, Object> experimentalOptions = new LinkedHashMap<>();
+        private final boolean headless;
+
+        ChromeOptionsTemplate(String driverType) {
+            // add default carina options and arguments
+            arguments.add("test-type");
+
+            //prefs 
+            HashMap<String, Object> chromePrefs = new HashMap<String, Object>();
+            boolean needsPrefs = false;
+
+            //update browser language
+            String browserLang = Configuration.get(Parameter.BROWSER_LANGUAGE); 
+            if (!browserLang.isEmpty()) {
+                LOGGER.info("Set Chrome language to: " + browserLang);
+                arguments.add("--lang=" + browserLang);
+                chromePrefs.put("intl.accept_languages", browserLang);
+                needsPrefs = true;
+            }
+
+            if (Configuration.getBoolean(Configuration.Parameter.AUTO_DOWNLOAD)) {
+                chromePrefs.put("download.prompt_for_download", false);
+                chromePrefs.put("download.default_directory", getAutoDownloadFolderPath());
+                chromePrefs.put("plugins.always_open_pdf_externally", true);
+                needsPrefs = true;
+            }
+
+            if (needsPrefs) {
+                experimentalOptions.put("prefs", Collections.unmodifiableMap(chromePrefs));
+            }
+
+            // [VD] no need to set proxy via options anymore!
+            // moreover if below code is uncommented then we have double proxy start and mess in host:port values
+
+            // setup default mobile chrome args and preferences
+            if (SpecialKeywords.MOBILE.equals(driverType)) {
+                arguments.add("--no-first-run");
+                arguments.add("--disable-notifications");
+                experimentalOptions.put("w3c", false);
+            }
+
+            // add all custom chrome args
+            for (String arg: Configuration.get(Parameter.CHROME_ARGS).split(",")) {
+                if (arg.isEmpty()) {
+                    continue;
+                }
+                arguments.add(arg.trim());
+            }
+
+            // add all custom chrome experimental options, w3c=false
+            for (String option: Configuration.get(Parameter.CHROME_EXPERIMENTAL_OPTS).split(",")) {
+                if (option.isEmpty()) {
+                    continue;
+                }
+
+                //TODO: think about equal sign inside name or value later
+                option = option.trim();
+                String name = option.split("=")[0].trim();
+                String value = option.split("=")[1].trim();
+                if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+                    experimentalOptions.put(name, Boolean.valueOf(value));
+                } else {
+                    experimentalOptions.put(name, value);
+                }
+            }
+
+            // add all custom chrome mobileEmulation options, deviceName=Nexus 5
+            Map<String, String> mobileEmulation = new HashMap<>();
+            for (String option: Configuration.get(Parameter.CHROME_MOBILE_EMULATION_OPTS).split(",")) {
+                if (option.isEmpty()) {
+                    continue;
+                }
+
+                option = option.trim();
+                String name = option.split("=")[0].trim();
+                String value = option.split("=")[1].trim();
+                mobileEmulation.put(name, value);
+            }
+
+            if (!mobileEmulation.isEmpty()) {
+                experimentalOptions.put("mobileEmulation", Collections.unmodifiableMap(mobileEmulation));
+            }
+
+            headless = Configuration.getBoolean(Parameter.HEADLESS) && driverType.equals(SpecialKeywords.DESKTOP);
+        }
+
+        ChromeOptions newOptions() {
+            ChromeOptions options = new ChromeOptions();
+            options.addArguments(arguments);
+            // nested maps are copied so session options never share mutable state
+            experimentalOptions.forEach((name, value) -> options.setExperimentalOption(name,
+                    value instanceof Map ? new HashMap<Object, Object>((Map<?, ?>) value) : value));
+            if (headless) {
+                options.setHeadless(true);
+            }
+            return options;
+        }
+    }
+
+    /**
+     * Firefox profile preferences, arguments and options preferences parsed from configuration once.
+     * Every session gets its own profile (with unique port) and FirefoxOptions.
+     */
+    private static class FirefoxOptionsTemplate {
+        private final Map<String, Object> profilePreferences = new LinkedHashMap<>();
+        private final List<String> arguments = new ArrayList<>();
+        private final Map<String, Object> preferences = new LinkedHashMap<>();
+        private final boolean headless;
+
+        FirefoxOptionsTemplate(String driverType) {
+            // update browser language
+            String browserLang = Configuration.get(Parameter.BROWSER_LANGUAGE);
+            if (!browserLang.isEmpty()) {
+                LOGGER.info("Set Firefox lanaguage to: " + browserLang);
+                profilePreferences.put("intl.accept_languages", browserLang);
+            }
+
+            profilePreferences.put("dom.max_chrome_script_run_time", 0);
+            profilePreferences.put("dom.max_script_run_time", 0);
+
+            if (Configuration.getBoolean(Configuration.Parameter.AUTO_DOWNLOAD) && !(Configuration.isNull(Configuration.Parameter.AUTO_DOWNLOAD_APPS)
+                    || "".equals(Configuration.get(Configuration.Parameter.AUTO_DOWNLOAD_APPS)))) {
+                profilePreferences.put("browser.download.folderList", 2);
+                profilePreferences.put("browser.download.dir", getAutoDownloadFolderPath());
+                profilePreferences.put("browser.helperApps.neverAsk.saveToDisk", Configuration.get(Configuration.Parameter.AUTO_DOWNLOAD_APPS));
+                profilePreferences.put("browser.download.manager.showWhenStarting", false);
+                profilePreferences.put("browser.download.saveLinkAsFilenameTimeout", 1);
+                profilePreferences.put("pdfjs.disabled", true);
+                profilePreferences.put("plugin.scan.plid.all", false);
+                profilePreferences.put("plugin.scan.Acrobat", "99.0");
+            } else if (Configuration.getBoolean(Configuration.Parameter.AUTO_DOWNLOAD) && Configuration.isNull(Configuration.Parameter.AUTO_DOWNLOAD_APPS)
+                    || "".equals(Configuration.get(Configuration.Parameter.AUTO_DOWNLOAD_APPS))) {
+                LOGGER.warn(
+                        "If you want to enable auto-download for FF please specify '" + Configuration.Parameter.AUTO_DOWNLOAD_APPS.getKey() + "' param");
+            }
+
+            // add all custom firefox args
+            for (String arg : Configuration.get(Parameter.FIREFOX_ARGS).split(",")) {
+                if (arg.isEmpty()) {
+                    continue;
+                }
+                arguments.add(arg.trim());
+            }
+            // add all custom firefox preferences
+            for (String preference : Configuration.get(Parameter.FIREFOX_PREFERENCES).split(",")) {
+                if (preference.isEmpty()) {
+                    continue;
+                }
+                // TODO: think about equal sign inside name or value later
+                preference = preference.trim();
+                String name = preference.split("=")[0].trim();
+                String value = preference.split("=")[1].trim();
+                // TODO: test approach with numbers
+                if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+                    preferences.put(name, Boolean.valueOf(value));
+                } else {
+                    preferences.put(name, value);
+                }
+            }
+
+            headless = Configuration.getBoolean(Parameter.HEADLESS) && driverType.equals(SpecialKeywords.DESKTOP);
+        }
+
+        void applyProfilePreferences(FirefoxProfile profile) {
+            profilePreferences.forEach((name, value) -> {
+                if (value instanceof Boolean) {
+                    profile.setPreference(name, (Boolean) value);
+                } else if (value instanceof Integer) {
+                    profile.setPreference(name, (Integer) value);
+                } else {
+                    profile.setPreference(name, String.valueOf(value));
+                }
+            });
+        }
+
+        FirefoxOptions newOptions(FirefoxProfile profile) {
+            FirefoxOptions options = new FirefoxOptions().setProfile(profile);
+            options.addArguments(arguments);
+            preferences.forEach((name, value) -> {
+                if (value instanceof Boolean) {
+                    options.addPreference(name, (Boolean) value);
+                } else {
+                    options.addPreference(name, String.valueOf(value));
+                }
+            });
+            if (headless) {
+                options.setHeadless(true);
+            }
+            return options;
+        }
+    }
 }
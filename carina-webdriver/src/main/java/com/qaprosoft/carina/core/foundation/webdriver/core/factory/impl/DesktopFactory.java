@@ -44,6 +44,7 @@ import com.qaprosoft.carina.core.foundation.webdriver.core.capability.impl.deskt
 import com.qaprosoft.carina.core.foundation.webdriver.core.capability.impl.desktop.OperaCapabilities;
 import com.qaprosoft.carina.core.foundation.webdriver.core.capability.impl.desktop.SafariCapabilities;
 import com.qaprosoft.carina.core.foundation.webdriver.core.factory.AbstractFactory;
+import com.qaprosoft.carina.core.foundation.webdriver.httpclient.MeteredCommandExecutor;
 
 public class DesktopFactory extends AbstractFactory {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
@@ -67,7 +68,7 @@ public class DesktopFactory extends AbstractFactory {
         }
 
         try {
-            driver = new RemoteWebDriver(new URL(seleniumHost), capabilities);
+            driver = new RemoteWebDriver(new MeteredCommandExecutor(new URL(seleniumHost)), capabilities);
         } catch (MalformedURLException e) {
             throw new RuntimeException("Malformed selenium URL!", e);
         }
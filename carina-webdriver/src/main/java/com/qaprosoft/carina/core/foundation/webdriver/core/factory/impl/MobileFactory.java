@@ -35,8 +35,11 @@ import com.qaprosoft.carina.core.foundation.webdriver.IDriverPool;
 import com.qaprosoft.carina.core.foundation.webdriver.core.capability.impl.mobile.MobileCapabilies;
 import com.qaprosoft.carina.core.foundation.webdriver.core.factory.AbstractFactory;
 import com.qaprosoft.carina.core.foundation.webdriver.device.Device;
+import com.qaprosoft.carina.core.foundation.webdriver.httpclient.MeteredCommandExecutor;
 import com.qaprosoft.carina.core.foundation.webdriver.listener.EventFiringAppiumCommandExecutor;
 import com.qaprosoft.carina.core.foundation.webdriver.listener.MobileRecordingListener;
+import com.qaprosoft.carina.core.foundation.webdriver.listener.PageSourceCacheListener;
+import com.qaprosoft.carina.core.foundation.webdriver.snapshot.PageSourceCache;
 
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.AndroidElement;
@@ -91,6 +94,9 @@ public class MobileFactory extends AbstractFactory {
             // TODO: investigate possibility to move this custom listeners logic onto the selenium hub layer
             // So mcloud can support video recording for any framework 
             EventFiringAppiumCommandExecutor ce = new EventFiringAppiumCommandExecutor(new URL(seleniumHost));
+            if (PageSourceCache.isEnabled()) {
+                ce.getListeners().add(new PageSourceCacheListener());
+            }
             
             if (mobilePlatformName.equalsIgnoreCase(SpecialKeywords.ANDROID)) {
                 if (isEnabled(SpecialKeywords.ENABLE_VIDEO) && Configuration.getBoolean(Parameter.DRIVER_RECORDER)) {
@@ -166,7 +172,7 @@ public class MobileFactory extends AbstractFactory {
 
             } else if (mobilePlatformName.equalsIgnoreCase(SpecialKeywords.CUSTOM)) {
                 // that's a case for custom mobile capabilities like browserstack or saucelabs
-                driver = new RemoteWebDriver(new URL(seleniumHost), capabilities);
+                driver = new RemoteWebDriver(new MeteredCommandExecutor(new URL(seleniumHost)), capabilities);
             } else {
                 throw new RuntimeException("Unsupported mobile platform: " + mobilePlatformName);
             }
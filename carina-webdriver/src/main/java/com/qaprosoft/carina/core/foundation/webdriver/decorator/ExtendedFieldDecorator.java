@@ -16,6 +16,7 @@
 package com.qaprosoft.carina.core.foundation.webdriver.decorator;
 
 import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.ParameterizedType;
@@ -30,6 +31,7 @@ import org.openqa.selenium.WebElement;
 import org.openqa.selenium.interactions.internal.Locatable;
 import org.openqa.selenium.internal.WrapsElement;
 import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.PageFactory;
 import org.openqa.selenium.support.pagefactory.ElementLocator;
 import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
 import org.openqa.selenium.support.pagefactory.FieldDecorator;
@@ -57,6 +59,54 @@ public class ExtendedFieldDecorator implements FieldDecorator {
         this.webDriver = webDriver;
     }
 
+    /**
+     * Initializes decoratable fields of the page object replaying precompiled {@link FieldPlan} of its class,
+     * so fields reflection and localized locators building happen once per class and locale.
+     * 
+     * @param page page object to initialize
+     */
+    public void initElements(Object page) {
+        if (!(factory instanceof ExtendedElementLocatorFactory)) {
+            PageFactory.initElements(this, page);
+            return;
+        }
+
+        ClassLoader loader = page.getClass().getClassLoader();
+        for (FieldPlan.FieldEntry entry : FieldPlan.get(page.getClass()).getEntries()) {
+            Object value = decorate(loader, entry);
+            if (value != null) {
+                try {
+                    entry.getField().set(page, value);
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
+    private Object decorate(ClassLoader loader, FieldPlan.FieldEntry entry) {
+        ExtendedElementLocatorFactory locatorFactory = (ExtendedElementLocatorFactory) factory;
+        ExtendedElementLocator locator = locatorFactory.createLocator(entry.getBy(), entry.isShouldCache(), entry.isCaseInsensitive());
+        if (locatorFactory.isRootElementUsed()) {
+            locator.setShouldCache(false);
+        }
+
+        switch (entry.getKind()) {
+        case ELEMENT:
+            return createElement(loader, entry.getName(), locator, entry.getBy());
+        case UI_OBJECT:
+            locator.setShouldCache(false);
+            return createUIObject(loader, entry.getName(), entry.getUiObjectClass(), entry.getUiObjectConstructor(), locator, entry.getBy());
+        case ELEMENT_LIST:
+            return createElementList(loader, entry.getName(), locator, entry.getBy());
+        case UI_OBJECT_LIST:
+            locator.setShouldCache(false);
+            return createUIObjectList(loader, entry.getName(), entry.getUiObjectClass(), locator);
+        default:
+            return null;
+        }
+    }
+
     public Object decorate(ClassLoader loader, Field field) {
         if ((!field.isAnnotationPresent(FindBy.class) && !field.isAnnotationPresent(ExtendedFindBy.class))
                 /*
@@ -127,58 +177,76 @@ public class ExtendedFieldDecorator implements FieldDecorator {
     }
 
     protected ExtendedWebElement proxyForLocator(ClassLoader loader, Field field, ElementLocator locator) {
-        InvocationHandler handler = new LocatingElementHandler(locator);
-        WebElement proxy = (WebElement) Proxy.newProxyInstance(loader, new Class[] { WebElement.class, WrapsElement.class, Locatable.class },
-                handler);
-        return new ExtendedWebElement(proxy, field.getName(),
+        return createElement(loader, field.getName(), locator,
                 field.isAnnotationPresent(FindBy.class) || field.isAnnotationPresent(ExtendedFindBy.class)? new LocalizedAnnotations(field).buildBy() : null);
     }
 
-    @SuppressWarnings("unchecked")
     protected <T extends AbstractUIObject> T proxyForAbstractUIObject(ClassLoader loader, Field field,
             ElementLocator locator) {
     	((ExtendedElementLocator) locator).setShouldCache(false);
-        InvocationHandler handler = new LocatingElementHandler(locator);
-        WebElement proxy = (WebElement) Proxy.newProxyInstance(loader, new Class[] { WebElement.class, WrapsElement.class, Locatable.class },
-                handler);
-        Class<? extends AbstractUIObject> clazz = (Class<? extends AbstractUIObject>) field.getType();
-        T uiObject;
+        Constructor<?> constructor;
         try {
-            uiObject = (T) clazz.getConstructor(WebDriver.class, SearchContext.class).newInstance(
-                    webDriver, proxy);
+            constructor = field.getType().getConstructor(WebDriver.class, SearchContext.class);
         } catch (NoSuchMethodException e) {
-            LOGGER.error("Implement appropriate AbstractUIObject constructor for auto-initialization: "
-                    + e.getMessage());
-            throw new RuntimeException(
-                    "Implement appropriate AbstractUIObject constructor for auto-initialization: "
-                            + e.getMessage(),
-                    e);
+            constructor = null;
+        }
+        return createUIObject(loader, field.getName(), field.getType(), constructor, locator, getLocatorBy(locator));
+    }
+
+    protected List<ExtendedWebElement> proxyForListLocator(ClassLoader loader, Field field, ElementLocator locator) {
+        return createElementList(loader, field.getName(), locator, new LocalizedAnnotations(field).buildBy());
+    }
+
+    protected <T extends AbstractUIObject> List<T> proxyForListUIObjects(ClassLoader loader, Field field,
+            ElementLocator locator) {
+    	((ExtendedElementLocator) locator).setShouldCache(false);
+        return createUIObjectList(loader, field.getName(), (Class<?>) getListType(field), locator);
+    }
+
+    private ExtendedWebElement createElement(ClassLoader loader, String name, ElementLocator locator, By by) {
+        return new ExtendedWebElement(proxyForElement(loader, locator), name, by);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends AbstractUIObject> T createUIObject(ClassLoader loader, String name, Class<?> clazz, Constructor<?> constructor,
+            ElementLocator locator, By rootBy) {
+        if (constructor == null) {
+            String message = "Implement appropriate AbstractUIObject constructor for auto-initialization: " + clazz.getName()
+                    + ".<init>(" + WebDriver.class.getName() + ", " + SearchContext.class.getName() + ")";
+            LOGGER.error(message);
+            throw new RuntimeException(message);
+        }
+
+        WebElement proxy = proxyForElement(loader, locator);
+        T uiObject;
+        try {
+            uiObject = (T) constructor.newInstance(webDriver, proxy);
         } catch (Exception e) {
             LOGGER.error("Error creating UIObject: " + e.getMessage());
             throw new RuntimeException("Error creating UIObject: " + e.getMessage(), e);
         }
-        uiObject.setName(field.getName());
+        uiObject.setName(name);
         uiObject.setRootElement(proxy);
-        uiObject.setRootBy(getLocatorBy(locator));
+        uiObject.setRootBy(rootBy);
         return uiObject;
     }
 
     @SuppressWarnings("unchecked")
-    protected List<ExtendedWebElement> proxyForListLocator(ClassLoader loader, Field field, ElementLocator locator) {
-        InvocationHandler handler = new LocatingElementListHandler(webDriver, locator, field.getName(), new LocalizedAnnotations(field).buildBy());
-        List<ExtendedWebElement> proxies = (List<ExtendedWebElement>) Proxy.newProxyInstance(loader, new Class[] { List.class }, handler);
-
-        return proxies;
+    private List<ExtendedWebElement> createElementList(ClassLoader loader, String name, ElementLocator locator, By by) {
+        InvocationHandler handler = new LocatingElementListHandler(webDriver, locator, name, by);
+        return (List<ExtendedWebElement>) Proxy.newProxyInstance(loader, new Class[] { List.class }, handler);
     }
 
     @SuppressWarnings("unchecked")
-    protected <T extends AbstractUIObject> List<T> proxyForListUIObjects(ClassLoader loader, Field field,
-            ElementLocator locator) {
-    	((ExtendedElementLocator) locator).setShouldCache(false);
-        InvocationHandler handler = new AbstractUIObjectListHandler<T>((Class<?>) getListType(field), webDriver,
-                locator, field.getName());
-        List<T> proxies = (List<T>) Proxy.newProxyInstance(loader, new Class[] { List.class }, handler);
-        return proxies;
+    private <T extends AbstractUIObject> List<T> createUIObjectList(ClassLoader loader, String name, Class<?> clazz, ElementLocator locator) {
+        InvocationHandler handler = new AbstractUIObjectListHandler<T>(clazz, webDriver, locator, name);
+        return (List<T>) Proxy.newProxyInstance(loader, new Class[] { List.class }, handler);
+    }
+
+    private WebElement proxyForElement(ClassLoader loader, ElementLocator locator) {
+        InvocationHandler handler = new LocatingElementHandler(locator);
+        return (WebElement) Proxy.newProxyInstance(loader, new Class[] { WebElement.class, WrapsElement.class, Locatable.class },
+                handler);
     }
 
     private Type getListType(Field field) {
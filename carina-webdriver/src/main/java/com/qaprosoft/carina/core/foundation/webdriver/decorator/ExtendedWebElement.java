@@ -15,19 +15,14 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.webdriver.decorator;
 
-import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 
-import org.apache.commons.lang3.StringUtils;
 import org.hamcrest.BaseMatcher;
 import org.openqa.selenium.By;
 import org.openqa.selenium.Dimension;
@@ -53,7 +48,6 @@ import org.openqa.selenium.remote.SessionId;
 import org.openqa.selenium.support.events.EventFiringWebDriver;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.Select;
 import org.openqa.selenium.support.ui.Wait;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.slf4j.Logger;
@@ -63,17 +57,21 @@ import org.testng.Assert;
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
 import com.qaprosoft.carina.core.foundation.crypto.CryptoTool;
 import com.qaprosoft.carina.core.foundation.performance.ACTION_NAME;
+import com.qaprosoft.carina.core.foundation.retry.FailureClass;
+import com.qaprosoft.carina.core.foundation.retry.FailureClassifier;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.utils.Messager;
 import com.qaprosoft.carina.core.foundation.utils.R;
 import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
 import com.qaprosoft.carina.core.foundation.webdriver.IDriverPool;
+import com.qaprosoft.carina.core.foundation.webdriver.httpclient.ActionCommandRegistry;
 import com.qaprosoft.carina.core.foundation.webdriver.listener.DriverListener;
 import com.qaprosoft.carina.core.foundation.webdriver.locator.ExtendedElementLocator;
-import com.sun.jersey.core.util.Base64;
+import com.qaprosoft.carina.core.foundation.webdriver.locator.LocatorTemplate;
+import com.qaprosoft.carina.core.foundation.webdriver.snapshot.ElementState;
+import com.qaprosoft.carina.core.foundation.webdriver.snapshot.PageSourceCache;
 
-import io.appium.java_client.MobileBy;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.ios.IOSDriver;
 
@@ -92,7 +90,8 @@ public class ExtendedWebElement {
     private WebDriver driver;
     private SearchContext searchContext;
     
-    private CryptoTool cryptoTool = new CryptoTool(Configuration.get(Parameter.CRYPTO_KEY_PATH));
+    // created on first decryption as elements are instantiated per page object field
+    private CryptoTool cryptoTool;
 
     private static Pattern CRYPTO_PATTERN = Pattern.compile(SpecialKeywords.CRYPT);
 
@@ -100,8 +99,17 @@ public class ExtendedWebElement {
     private Throwable originalException;
     private String name;
     private By by;
+
+    // parsed template of the current locator for format() calls
+    private LocatorTemplate locatorTemplate;
+    private By locatorTemplateBy;
+
+    private SelectEngine selectEngine;
     
     private boolean caseInsensitive;
+
+    // action is performed on the cached element without verification of its state
+    private boolean optimisticAttempt = false;
     
     private ElementLoadingStrategy loadingStrategy = ElementLoadingStrategy.valueOf(Configuration.get(Parameter.ELEMENT_LOADING_STRATEGY));
 
@@ -295,6 +303,14 @@ public class ExtendedWebElement {
 	 * @return element existence status.
 	 */
 	public boolean isPresent(By by, long timeout) {
+		if (isSearchedByDriver() && PageSourceCache.isEnabled()) {
+			// verify element on cached page source of native context without server round trips
+			Boolean present = PageSourceCache.waitUntil(getDriver(), by, timeout,
+					loadingStrategy == ElementLoadingStrategy.BY_VISIBILITY ? ElementState::isVisible : ElementState::isPresent);
+			if (present != null) {
+				return present;
+			}
+		}
 		return waitUntil(getDefaultCondition(by), timeout);
 	}
 	
@@ -392,6 +408,30 @@ public class ExtendedWebElement {
         this.element = element;
     }
 
+    private LocatorTemplate getLocatorTemplate() {
+        if (locatorTemplate == null || locatorTemplateBy != by) {
+            locatorTemplate = LocatorTemplate.of(by);
+            locatorTemplateBy = by;
+        }
+        return locatorTemplate;
+    }
+
+    private SelectEngine getSelectEngine() {
+        WebElement select = getCachedElement();
+        // options are cached for the lifetime of the element
+        if (selectEngine == null || !selectEngine.isFor(select)) {
+            selectEngine = new SelectEngine((JavascriptExecutor) getDriver(), select);
+        }
+        return selectEngine;
+    }
+
+    private CryptoTool getCryptoTool() {
+        if (cryptoTool == null) {
+            cryptoTool = new CryptoTool(Configuration.get(Parameter.CRYPTO_KEY_PATH));
+        }
+        return cryptoTool;
+    }
+
     public String getName() {
         return name != null ? name : String.format(" (%s)", by);
     }
@@ -425,6 +465,28 @@ public class ExtendedWebElement {
 		this.searchContext = searchContext;
 	}
 
+	public SearchContext getSearchContext() {
+		return searchContext;
+	}
+
+	public boolean isCaseInsensitive() {
+		return caseInsensitive;
+	}
+
+	public ElementLoadingStrategy getLoadingStrategy() {
+		return loadingStrategy;
+	}
+
+	/**
+	 * Verify if element is searched on the whole page by driver, i.e. it is not a child of another element and its locator
+	 * is not case insensitive. Only such elements can be verified on page snapshots.
+	 *
+	 * @return boolean
+	 */
+	public boolean isSearchedByDriver() {
+		return !caseInsensitive && !(searchContext instanceof WebElement);
+	}
+
 	@Override
     public String toString() {
         return name;
@@ -728,6 +790,7 @@ public class ExtendedWebElement {
 
     /**
      * Get selected elements from one-value select.
+     * Option text is returned with whitespace collapsed and without CSS text transformation applied.
      *
      * @return selected value
      */
@@ -737,6 +800,7 @@ public class ExtendedWebElement {
 
     /**
      * Get selected elements from multi-value select.
+     * Option texts are returned with whitespace collapsed and without CSS text transformation applied.
      *
      * @return selected values
      */
@@ -747,6 +811,7 @@ public class ExtendedWebElement {
 
     /**
      * Selects text in specified select element.
+     * Option text is compared with whitespace collapsed and without CSS text transformation applied.
      *
      * @param selectText select text
      * @return true if item selected, otherwise false.
@@ -757,9 +822,11 @@ public class ExtendedWebElement {
 
     /**
      * Select multiple text values in specified select element.
+     * All found values are selected even if some of them are missing in the select.
+     * Option text is compared with whitespace collapsed and without CSS text transformation applied.
      *
      * @param values final String[]
-     * @return boolean.
+     * @return true if all values are selected, false if any value is not found.
      */
     public boolean select(final String[] values) {
     	return (boolean) doAction(ACTION_NAME.SELECT_VALUES, EXPLICIT_TIMEOUT, getDefaultCondition(getBy()), values);
@@ -767,6 +834,7 @@ public class ExtendedWebElement {
 
     /**
      * Selects value according to text value matcher.
+     * Option text is matched with whitespace collapsed and without CSS text transformation applied.
      *
      * @param matcher {@link} BaseMatcher
      * @return true if item selected, otherwise false.
@@ -783,6 +851,7 @@ public class ExtendedWebElement {
 
     /**
      * Selects first value according to partial text value.
+     * Option text is compared with whitespace collapsed and without CSS text transformation applied.
      *
      * @param partialSelectText select by partial text
      * @return true if item selected, otherwise false.
@@ -831,6 +900,14 @@ public class ExtendedWebElement {
 			}
 		}
 
+		if (isSearchedByDriver() && PageSourceCache.isEnabled()) {
+			// verify element on cached page source of native context without server round trips
+			Boolean visible = PageSourceCache.waitUntil(getDriver(), getBy(), timeout, ElementState::isVisible);
+			if (visible != null) {
+				return visible;
+			}
+		}
+
     	ExpectedCondition<?> waitCondition;
     	
         // [VD] replace presenceOfElementLocated and visibilityOf conditions by single "visibilityOfElementLocated"
@@ -943,7 +1020,7 @@ public class ExtendedWebElement {
      * @return element with text existence status.
      */
     public boolean isElementWithTextPresent(final String text, long timeout) {
-    	final String decryptedText = cryptoTool.decryptByPattern(text, CRYPTO_PATTERN);
+    	final String decryptedText = getCryptoTool().decryptByPattern(text, CRYPTO_PATTERN);
 		ExpectedCondition<Boolean> textCondition;
 		if (element != null) {
 			ExpectedCondition<Boolean>  tmpCondition = ExpectedConditions.and(ExpectedConditions.visibilityOf(element));
@@ -1067,6 +1144,7 @@ public class ExtendedWebElement {
         	throw new NoSuchElementException("Unable to find dynamic elements using By: " + by.toString());
         }
 
+        LocatorTemplate template = LocatorTemplate.of(by);
         int i = 1;
         for (WebElement element : webElements) {
             String name = "undefined";
@@ -1078,7 +1156,7 @@ public class ExtendedWebElement {
             }
 
             // we can't initiate ExtendedWebElement using by as it belongs to the list of elements
-            extendedWebElements.add(new ExtendedWebElement(element, name, generateByForList(by, i)));
+            extendedWebElements.add(new ExtendedWebElement(element, name, template.formatForListItem(i)));
             i++;
         }
         return extendedWebElements;
@@ -1110,78 +1188,7 @@ public class ExtendedWebElement {
     }
 
     public ExtendedWebElement format(Object... objects) {
-        String locator = by.toString();
-        By by = null;
-
-        if (locator.startsWith("By.id: ")) {
-            by = By.id(String.format(StringUtils.remove(locator, "By.id: "), objects));
-        }
-
-        if (locator.startsWith("By.name: ")) {
-            by = By.name(String.format(StringUtils.remove(locator, "By.name: "), objects));
-        }
-
-        if (locator.startsWith("By.xpath: ")) {
-            locator = String.format(StringUtils.remove(locator, "By.xpath: "), objects);
-            if (!caseInsensitive) {
-                // generate xpath from locator string
-                by = By.xpath(locator);
-            } else {
-                // return by using toCaseInsensitive(locator) method. To avoid double By.xpath during formatting
-                by = ExtendedElementLocator.toCaseInsensitive(locator);
-            }
-        }
-        
-        if (locator.startsWith("linkText: ")) {
-            by = By.linkText(String.format(StringUtils.remove(locator, "linkText: "), objects));
-        }
-
-        if (locator.startsWith("partialLinkText: ")) {
-            by = By.partialLinkText(String.format(StringUtils.remove(locator, "partialLinkText: "), objects));
-        }
-
-        if (locator.startsWith("css: ")) {
-            by = By.cssSelector(String.format(StringUtils.remove(locator, "css: "), objects));
-        }
-
-        if (locator.startsWith("tagName: ")) {
-            by = By.tagName(String.format(StringUtils.remove(locator, "tagName: "), objects));
-        }
-
-        /*
-         * All ClassChain locators start from **. e.g FindBy(xpath = "**'/XCUIElementTypeStaticText[`name CONTAINS[cd] '%s'`]")
-         */
-        if (locator.startsWith("By.IosClassChain: **")) {
-            by = MobileBy.iOSClassChain(String.format(StringUtils.remove(locator, "By.IosClassChain: "), objects));
-        }
-        
-        if (locator.startsWith("By.IosNsPredicate: **")) {
-            by = MobileBy.iOSNsPredicateString(String.format(StringUtils.remove(locator, "By.IosNsPredicate: "), objects));
-        }
-
-        if (locator.startsWith("By.AccessibilityId: ")) {
-            by = MobileBy.AccessibilityId(String.format(StringUtils.remove(locator, "By.AccessibilityId: "), objects));
-        }
-        
-        if (locator.startsWith("By.Image: ")) {
-            String formattedLocator = String.format(StringUtils.remove(locator, "By.Image: "), objects);
-            Path path = Paths.get(formattedLocator);
-            LOGGER.debug("Formatted locator is : " + formattedLocator);
-            String base64image;
-            try {
-                base64image = new String(Base64.encode(Files.readAllBytes(path)));
-            } catch (IOException e) {
-                throw new RuntimeException(
-                        "Error while reading image file after formatting. Formatted locator : " + formattedLocator, e);
-            }
-            LOGGER.debug("Base64 image representation has benn successfully obtained after formatting.");
-            by = MobileBy.image(base64image);
-        }
-
-        if (locator.startsWith("By.AndroidUIAutomator: ")) {
-            by = MobileBy.AndroidUIAutomator(String.format(StringUtils.remove(locator, "By.AndroidUIAutomator: "), objects));
-            LOGGER.debug("Formatted locator is : " + by.toString());
-        }
+        By by = getLocatorTemplate().format(caseInsensitive, objects);
         return new ExtendedWebElement(by, name, getDriver());
     }
 
@@ -1337,6 +1344,45 @@ public class ExtendedWebElement {
 
 	private Object doAction(ACTION_NAME actionName, long timeout, ExpectedCondition<?> waitCondition,
 			Object...inputArgs) {
+		String previousAction = ActionCommandRegistry.start(actionName.getKey());
+		try {
+			if (element != null && Configuration.getBoolean(Parameter.OPTIMISTIC_ACTIONS)) {
+				try {
+					return doOptimisticAction(actionName, inputArgs);
+				} catch (WebDriverException | ClassCastException e) {
+					FailureClass failure = FailureClassifier.classify(e);
+					if (failure == FailureClass.SESSION_LOST || failure == FailureClass.GRID_CONNECTIVITY) {
+						// no sense to wait for element if driver is lost
+						throw e;
+					}
+					LOGGER.debug("Optimistic '" + actionName.getKey() + "' failed (" + failure + "), element state will be verified: "
+							+ getNameWithLocator(), e);
+					ActionCommandRegistry.recordFallback(actionName.getKey());
+				}
+			}
+			return doVerifiedAction(actionName, timeout, waitCondition, inputArgs);
+		} finally {
+			ActionCommandRegistry.finish(previousAction);
+		}
+	}
+
+	/**
+	 * Performs action on the cached element without any verification of its state.
+	 * Failure is handled by verified action so no screenshot is captured for it.
+	 */
+	private Object doOptimisticAction(ACTION_NAME actionName, Object... inputArgs) {
+		optimisticAttempt = true;
+		boolean captureSuppressed = DriverListener.setExceptionCaptureSuppressed(true);
+		try {
+			return overrideAction(actionName, inputArgs);
+		} finally {
+			optimisticAttempt = false;
+			DriverListener.setExceptionCaptureSuppressed(captureSuppressed);
+		}
+	}
+
+	private Object doVerifiedAction(ACTION_NAME actionName, long timeout, ExpectedCondition<?> waitCondition,
+			Object...inputArgs) {
 		
 		// do explicit single call to selenium/appium to detect new element before fluentWaits
 		// it should resolve stale element exceptions much more effective 
@@ -1394,16 +1440,28 @@ public class ExtendedWebElement {
 		return output;
 	}
 
+	private boolean isElementChecked() {
+		if (element.isSelected()) {
+			return true;
+		}
+		// selection state of custom controls is available via attribute only
+		String checked = element.getAttribute("checked");
+		return checked != null && checked.equalsIgnoreCase("true");
+	}
+
 	// single place for all supported UI actions in carina core
 	private Object overrideAction(ACTION_NAME actionName, Object...inputArgs) {
 		Object output = executeAction(actionName, new ActionSteps() {
 			@Override
 			public void doClick() {
 				try {
-					DriverListener.setMessages(Messager.ELEMENT_CLICKED.getMessage(getName()),
-							Messager.ELEMENT_NOT_CLICKED.getMessage(getNameWithLocator()));
+					DriverListener.setMessages(() -> Messager.ELEMENT_CLICKED.getMessage(getName()),
+							() -> Messager.ELEMENT_NOT_CLICKED.getMessage(getNameWithLocator()));
 
-					if (element.isDisplayed()) {
+					if (optimisticAttempt) {
+						// not interactable element is handled by verified action
+						element.click();
+					} else if (element.isDisplayed()) {
 						element.click();
 					} else {
 						// not visible so we can't interact using selenium or
@@ -1427,16 +1485,16 @@ public class ExtendedWebElement {
 			@Override
 			// click for mobile devices
 			public void doTap() {
-				DriverListener.setMessages(Messager.ELEMENT_CLICKED.getMessage(getName()),
-						Messager.ELEMENT_NOT_CLICKED.getMessage(getNameWithLocator()));
+				DriverListener.setMessages(() -> Messager.ELEMENT_CLICKED.getMessage(getName()),
+						() -> Messager.ELEMENT_NOT_CLICKED.getMessage(getNameWithLocator()));
 
 				element.click();
 			}
 
 			@Override
 			public void doDoubleClick() {
-				DriverListener.setMessages(Messager.ELEMENT_DOUBLE_CLICKED.getMessage(getName()),
-						Messager.ELEMENT_NOT_DOUBLE_CLICKED.getMessage(getNameWithLocator()));
+				DriverListener.setMessages(() -> Messager.ELEMENT_DOUBLE_CLICKED.getMessage(getName()),
+						() -> Messager.ELEMENT_NOT_DOUBLE_CLICKED.getMessage(getNameWithLocator()));
 				
 				WebDriver drv = getDriver();
 				Actions action = new Actions(drv);
@@ -1445,8 +1503,8 @@ public class ExtendedWebElement {
 			
 			@Override
 			public void doHover(Integer xOffset, Integer yOffset) {
-				DriverListener.setMessages(Messager.ELEMENT_HOVERED.getMessage(getName()),
-						Messager.ELEMENT_NOT_HOVERED.getMessage(getNameWithLocator()));
+				DriverListener.setMessages(() -> Messager.ELEMENT_HOVERED.getMessage(getName()),
+						() -> Messager.ELEMENT_NOT_HOVERED.getMessage(getNameWithLocator()));
 				
 				WebDriver drv = getDriver();
 				Actions action = new Actions(drv);
@@ -1459,14 +1517,14 @@ public class ExtendedWebElement {
 			
 			@Override
 			public void doSendKeys(Keys keys) {
-				DriverListener.setMessages(Messager.KEYS_SEND_TO_ELEMENT.getMessage(keys.toString(), getName()),
-						Messager.KEYS_NOT_SEND_TO_ELEMENT.getMessage(keys.toString(), getNameWithLocator()));
+				DriverListener.setMessages(() -> Messager.KEYS_SEND_TO_ELEMENT.getMessage(keys.toString(), getName()),
+						() -> Messager.KEYS_NOT_SEND_TO_ELEMENT.getMessage(keys.toString(), getNameWithLocator()));
 				element.sendKeys(keys);
 			}
 
 			@Override
 			public void doType(String text) {
-				final String decryptedText = cryptoTool.decryptByPattern(text, CRYPTO_PATTERN);
+				final String decryptedText = getCryptoTool().decryptByPattern(text, CRYPTO_PATTERN);
 
 /*				if (!element.getText().isEmpty()) {
     				DriverListener.setMessages(Messager.KEYS_CLEARED_IN_ELEMENT.getMessage(getName()),
@@ -1474,14 +1532,14 @@ public class ExtendedWebElement {
     				element.clear();
 				}
 */
-                DriverListener.setMessages(Messager.KEYS_CLEARED_IN_ELEMENT.getMessage(getName()),
-                        Messager.KEYS_NOT_CLEARED_IN_ELEMENT.getMessage(getNameWithLocator()));
+                DriverListener.setMessages(() -> Messager.KEYS_CLEARED_IN_ELEMENT.getMessage(getName()),
+                        () -> Messager.KEYS_NOT_CLEARED_IN_ELEMENT.getMessage(getNameWithLocator()));
                 element.clear();
 
 				String textLog = (!decryptedText.equals(text) ? "********" : text);
 
-				DriverListener.setMessages(Messager.KEYS_SEND_TO_ELEMENT.getMessage(textLog, getName()),
-						Messager.KEYS_NOT_SEND_TO_ELEMENT.getMessage(textLog, getNameWithLocator()));
+				DriverListener.setMessages(() -> Messager.KEYS_SEND_TO_ELEMENT.getMessage(textLog, getName()),
+						() -> Messager.KEYS_NOT_SEND_TO_ELEMENT.getMessage(textLog, getNameWithLocator()));
 
 				element.sendKeys(decryptedText);
 			}
@@ -1489,12 +1547,12 @@ public class ExtendedWebElement {
 
 			@Override
 			public void doAttachFile(String filePath) {
-				final String decryptedText = cryptoTool.decryptByPattern(filePath, CRYPTO_PATTERN);
+				final String decryptedText = getCryptoTool().decryptByPattern(filePath, CRYPTO_PATTERN);
 
 				String textLog = (!decryptedText.equals(filePath) ? "********" : filePath);
 
-				DriverListener.setMessages(Messager.FILE_ATTACHED.getMessage(textLog, getName()),
-						Messager.FILE_NOT_ATTACHED.getMessage(textLog, getNameWithLocator()));
+				DriverListener.setMessages(() -> Messager.FILE_ATTACHED.getMessage(textLog, getName()),
+						() -> Messager.FILE_NOT_ATTACHED.getMessage(textLog, getNameWithLocator()));
 
 				((JavascriptExecutor) getDriver()).executeScript("arguments[0].style.display = 'block';", element);
 				((RemoteWebDriver) castDriver(getDriver())).setFileDetector(new LocalFileDetector());
@@ -1531,8 +1589,8 @@ public class ExtendedWebElement {
 
 			@Override
 			public void doRightClick() {
-				DriverListener.setMessages(Messager.ELEMENT_RIGHT_CLICKED.getMessage(getName()),
-						Messager.ELEMENT_NOT_RIGHT_CLICKED.getMessage(getNameWithLocator()));
+				DriverListener.setMessages(() -> Messager.ELEMENT_RIGHT_CLICKED.getMessage(getName()),
+						() -> Messager.ELEMENT_NOT_RIGHT_CLICKED.getMessage(getNameWithLocator()));
 				
 				WebDriver drv = getDriver();
 				Actions action = new Actions(drv);
@@ -1541,86 +1599,75 @@ public class ExtendedWebElement {
 
 			@Override
 			public void doCheck() {
-				DriverListener.setMessages(Messager.CHECKBOX_CHECKED.getMessage(getName()), null);
+				DriverListener.setMessages(() -> Messager.CHECKBOX_CHECKED.getMessage(getName()), null);
 				
-                boolean isSelected = element.isSelected();
-                if (element.getAttribute("checked") != null) {
-                    isSelected |= element.getAttribute("checked").equalsIgnoreCase("true");
-                }
-                
-				if (!isSelected) {
+				if (!isElementChecked()) {
 					click();
 				}
 			}
 
 			@Override
 			public void doUncheck() {
-				DriverListener.setMessages(Messager.CHECKBOX_UNCHECKED.getMessage(getName()), null);
+				DriverListener.setMessages(() -> Messager.CHECKBOX_UNCHECKED.getMessage(getName()), null);
 				
-                boolean isSelected = element.isSelected();
-                if (element.getAttribute("checked") != null) {
-                    isSelected |= element.getAttribute("checked").equalsIgnoreCase("true");
-                }
-                
-				if (isSelected) {
+				if (isElementChecked()) {
 					click();
 				}
 			}
 			
 			@Override
 			public boolean doIsChecked() {
-				
-		        boolean res = element.isSelected();
-		        if (element.getAttribute("checked") != null) {
-		            res |= element.getAttribute("checked").equalsIgnoreCase("true");
-		        }
-		        
-		        return res;
+				return isElementChecked();
 			}
 			
 			@Override
 			public boolean doSelect(String text) {
-				final String decryptedSelectText = cryptoTool.decryptByPattern(text, CRYPTO_PATTERN);
+				final String decryptedSelectText = getCryptoTool().decryptByPattern(text, CRYPTO_PATTERN);
 				
 				String textLog = (!decryptedSelectText.equals(text) ? "********" : text);
 				
-				DriverListener.setMessages(Messager.SELECT_BY_TEXT_PERFORMED.getMessage(textLog, getName()),
-						Messager.SELECT_BY_TEXT_NOT_PERFORMED.getMessage(textLog, getNameWithLocator()));
+				DriverListener.setMessages(() -> Messager.SELECT_BY_TEXT_PERFORMED.getMessage(textLog, getName()),
+						() -> Messager.SELECT_BY_TEXT_NOT_PERFORMED.getMessage(textLog, getNameWithLocator()));
 
 				
-				final Select s = new Select(getCachedElement());
 				// [VD] do not use selectByValue as modern controls could have only visible value without value
-				s.selectByVisibleText(decryptedSelectText);
+				if (!getSelectEngine().selectByVisibleText(decryptedSelectText).isEmpty()) {
+					throw new NoSuchElementException("Cannot locate option with text: " + textLog);
+				}
 				return true;
 			}
 
 			@Override
 			public boolean doSelectValues(String[] values) {
-				boolean result = true;
-				for (String value : values) {
-					if (!select(value)) {
-						result = false;
-					}
+				String[] decryptedValues = new String[values.length];
+				boolean encrypted = false;
+				for (int i = 0; i < values.length; i++) {
+					decryptedValues[i] = getCryptoTool().decryptByPattern(values[i], CRYPTO_PATTERN);
+					encrypted |= !decryptedValues[i].equals(values[i]);
 				}
-				return result;
+
+				String textLog = encrypted ? "********" : String.join(", ", values);
+
+				DriverListener.setMessages(() -> Messager.SELECT_BY_TEXT_PERFORMED.getMessage(textLog, getName()),
+						() -> Messager.SELECT_BY_TEXT_NOT_PERFORMED.getMessage(textLog, getNameWithLocator()));
+
+				// all found values are selected in one batch, missing ones only fail the result
+				List<String> missing = getSelectEngine().selectByVisibleText(decryptedValues);
+				if (!missing.isEmpty()) {
+					LOGGER.error(Messager.SELECT_BY_TEXT_NOT_PERFORMED.getMessage(encrypted ? "********" : String.join(", ", missing),
+							getNameWithLocator()));
+				}
+				return missing.isEmpty();
 			}
 
 			@Override
 			public boolean doSelectByMatcher(BaseMatcher<String> matcher) {
 				
-				DriverListener.setMessages(Messager.SELECT_BY_MATCHER_TEXT_PERFORMED.getMessage(matcher.toString(), getName()),
-						Messager.SELECT_BY_MATCHER_TEXT_NOT_PERFORMED.getMessage(matcher.toString(), getNameWithLocator()));
+				DriverListener.setMessages(() -> Messager.SELECT_BY_MATCHER_TEXT_PERFORMED.getMessage(matcher.toString(), getName()),
+						() -> Messager.SELECT_BY_MATCHER_TEXT_NOT_PERFORMED.getMessage(matcher.toString(), getNameWithLocator()));
 
 				
-				final Select s = new Select(getCachedElement());
-				String fullTextValue = null;
-				for (WebElement option : s.getOptions()) {
-					if (matcher.matches(option.getText())) {
-						fullTextValue = option.getText();
-						break;
-					}
-				}
-				s.selectByVisibleText(fullTextValue);
+				getSelectEngine().selectFirst(matcher::matches, "matcher " + matcher);
 				return true;
 			}
 
@@ -1628,47 +1675,32 @@ public class ExtendedWebElement {
 			public boolean doSelectByPartialText(String partialSelectText) {
 				
 				DriverListener.setMessages(
-						Messager.SELECT_BY_TEXT_PERFORMED.getMessage(partialSelectText, getName()),
-						Messager.SELECT_BY_TEXT_NOT_PERFORMED.getMessage(partialSelectText, getNameWithLocator()));
+						() -> Messager.SELECT_BY_TEXT_PERFORMED.getMessage(partialSelectText, getName()),
+						() -> Messager.SELECT_BY_TEXT_NOT_PERFORMED.getMessage(partialSelectText, getNameWithLocator()));
 				
-				final Select s = new Select(getCachedElement());
-				String fullTextValue = null;
-				for (WebElement option : s.getOptions()) {
-					if (option.getText().contains(partialSelectText)) {
-						fullTextValue = option.getText();
-						break;
-					}
-				}
-				s.selectByVisibleText(fullTextValue);
+				getSelectEngine().selectFirst(text -> text.contains(partialSelectText), "partial text: " + partialSelectText);
 				return true;
 			}
 
 			@Override
 			public boolean doSelectByIndex(int index) {
 				DriverListener.setMessages(
-						Messager.SELECT_BY_INDEX_PERFORMED.getMessage(String.valueOf(index), getName()),
-						Messager.SELECT_BY_INDEX_NOT_PERFORMED.getMessage(String.valueOf(index), getNameWithLocator()));
+						() -> Messager.SELECT_BY_INDEX_PERFORMED.getMessage(String.valueOf(index), getName()),
+						() -> Messager.SELECT_BY_INDEX_NOT_PERFORMED.getMessage(String.valueOf(index), getNameWithLocator()));
 				
 				
-				final Select s = new Select(getCachedElement());
-				s.selectByIndex(index);
+				getSelectEngine().selectByIndex(index);
 				return true;
 			}
 
 			@Override
 			public String doGetSelectedValue() {
-				final Select s = new Select(getCachedElement());
-				return s.getAllSelectedOptions().get(0).getText();
+				return getSelectEngine().getSelectedTexts().get(0);
 			}
 
 			@Override
 			public List<String> doGetSelectedValues() {
-		        final Select s = new Select(getCachedElement());
-		        List<String> values = new ArrayList<String>();
-		        for (WebElement we : s.getAllSelectedOptions()) {
-		            values.add(we.getText());
-		        }
-		        return values;
+				return getSelectEngine().getSelectedTexts();
 			}
 			
 		}, inputArgs);
@@ -1691,57 +1723,8 @@ public class ExtendedWebElement {
         return drv;
     }
     
-	//TODO: investigate how can we merge the similar functionality in ExtendedWebElement, DriverHelper and LocalizedAnnotations
     public By generateByForList(By by, int index) {
-        String locator = by.toString();
-        By resBy = null;
-
-        if (locator.startsWith("By.id: ")) {
-            resBy = By.id(StringUtils.remove(locator, "By.id: ") + "[" + index + "]");
-        }
-
-        if (locator.startsWith("By.name: ")) {
-        	resBy = By.name(StringUtils.remove(locator, "By.name: ") + "[" + index + "]");
-        }
-
-        if (locator.startsWith("By.xpath: ")) {
-        	resBy = By.xpath(StringUtils.remove(locator, "By.xpath: ") + "[" + index + "]");
-        }
-        if (locator.startsWith("linkText: ")) {
-        	resBy = By.linkText(StringUtils.remove(locator, "linkText: ") + "[" + index + "]");
-        }
-
-        if (locator.startsWith("partialLinkText: ")) {
-        	resBy = By.partialLinkText(StringUtils.remove(locator, "partialLinkText: ") + "[" + index + "]");
-        }
-
-        if (locator.startsWith("css: ")) {
-        	resBy = By.cssSelector(StringUtils.remove(locator, "css: ") + ":nth-child(" + index + ")");
-        }
-        
-        if (locator.startsWith("By.cssSelector: ")) {
-        	resBy = By.cssSelector(StringUtils.remove(locator, "By.cssSelector: ") + ":nth-child(" + index + ")");
-        }
-
-        if (locator.startsWith("tagName: ")) {
-        	resBy = By.tagName(StringUtils.remove(locator, "tagName: ") + "[" + index + "]");
-        }
-
-        /*
-         * All ClassChain locators start from **. e.g FindBy(xpath = "**'/XCUIElementTypeStaticText[`name CONTAINS[cd] '%s'`]")
-         */
-        if (locator.startsWith("By.IosClassChain: **")) {
-        	resBy = MobileBy.iOSClassChain(StringUtils.remove(locator, "By.IosClassChain: ") + "[" + index + "]");
-        }
-        
-        if (locator.startsWith("By.IosNsPredicate: **")) {
-        	resBy = MobileBy.iOSNsPredicateString(StringUtils.remove(locator, "By.IosNsPredicate: ") + "[" + index + "]");
-        }
-
-        if (locator.startsWith("By.AccessibilityId: ")) {
-            resBy = MobileBy.AccessibilityId(StringUtils.remove(locator, "By.AccessibilityId: ") + "[" + index + "]");
-        }
-        return resBy;
+        return LocatorTemplate.of(by).formatForListItem(index);
     }
     
 /*	private ExpectedCondition<?> getDefaultCondition(By myBy) {
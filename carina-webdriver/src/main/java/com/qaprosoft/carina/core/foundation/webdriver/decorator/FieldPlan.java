@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.decorator;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.FindBy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.annotations.CaseInsensitiveXPath;
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.annotations.DisableCacheLookup;
+import com.qaprosoft.carina.core.foundation.webdriver.locator.ExtendedFindBy;
+import com.qaprosoft.carina.core.foundation.webdriver.locator.LocalizedAnnotations;
+import com.qaprosoft.carina.core.gui.AbstractUIObject;
+
+/**
+ * Precompiled decoration plan of a page object class: decoratable fields with resolved localized locators and flags.
+ * Plan is built once per class and locale so UI object construction only replays it via {@link ExtendedFieldDecorator}.
+ */
+final class FieldPlan {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, FieldPlan>> plans = new ConcurrentHashMap<>();
+
+    private final List<FieldEntry> entries;
+
+    private FieldPlan(List<FieldEntry> entries) {
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Returns decoration plan of the class for the current locale.
+     * 
+     * @param clazz page object class
+     * @return FieldPlan
+     */
+    static FieldPlan get(Class<?> clazz) {
+        String locale = Configuration.get(Parameter.LOCALE);
+        return plans.computeIfAbsent(clazz, c -> new ConcurrentHashMap<>()).computeIfAbsent(locale, l -> compile(clazz));
+    }
+
+    static void reset() {
+        plans.clear();
+    }
+
+    List<FieldEntry> getEntries() {
+        return entries;
+    }
+
+    private static FieldPlan compile(Class<?> clazz) {
+        List<FieldEntry> entries = new ArrayList<>();
+        // the same fields order as PageFactory uses: declared fields of the class first, then superclasses
+        for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                FieldEntry entry;
+                try {
+                    entry = FieldEntry.compile(field);
+                } catch (Exception e) {
+                    LOGGER.error(e.getMessage(), e);
+                    continue;
+                }
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return new FieldPlan(entries);
+    }
+
+    enum Kind {
+        ELEMENT,
+        UI_OBJECT,
+        ELEMENT_LIST,
+        UI_OBJECT_LIST
+    }
+
+    /**
+     * Resolved decoration data of a single field.
+     */
+    static final class FieldEntry {
+        private final Field field;
+        private final Kind kind;
+        private final By by;
+        private final boolean shouldCache;
+        private final boolean caseInsensitive;
+        private final Class<?> uiObjectClass;
+        private final Constructor<?> uiObjectConstructor;
+
+        private FieldEntry(Field field, Kind kind, By by, Class<?> uiObjectClass) {
+            this.field = field;
+            this.kind = kind;
+            this.by = by;
+            this.shouldCache = !field.isAnnotationPresent(DisableCacheLookup.class);
+            this.caseInsensitive = field.isAnnotationPresent(CaseInsensitiveXPath.class);
+            this.uiObjectClass = uiObjectClass;
+            this.uiObjectConstructor = kind == Kind.UI_OBJECT ? findConstructor(uiObjectClass) : null;
+            field.setAccessible(true);
+        }
+
+        private static FieldEntry compile(Field field) {
+            if (!field.isAnnotationPresent(FindBy.class) && !field.isAnnotationPresent(ExtendedFindBy.class)) {
+                return null;
+            }
+
+            Class<?> type = field.getType();
+            Kind kind;
+            Class<?> uiObjectClass = null;
+            if (ExtendedWebElement.class.isAssignableFrom(type)) {
+                kind = Kind.ELEMENT;
+            } else if (AbstractUIObject.class.isAssignableFrom(type)) {
+                kind = Kind.UI_OBJECT;
+                uiObjectClass = type;
+            } else if (List.class.isAssignableFrom(type)) {
+                Type listType = getListType(field);
+                if (!(listType instanceof Class)) {
+                    return null;
+                }
+                if (ExtendedWebElement.class.equals(listType)) {
+                    kind = Kind.ELEMENT_LIST;
+                } else if (AbstractUIObject.class.isAssignableFrom((Class<?>) listType)) {
+                    kind = Kind.UI_OBJECT_LIST;
+                    uiObjectClass = (Class<?>) listType;
+                } else {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+
+            return new FieldEntry(field, kind, new LocalizedAnnotations(field).buildBy(), uiObjectClass);
+        }
+
+        private static Type getListType(Field field) {
+            Type genericType = field.getGenericType();
+            if (!(genericType instanceof ParameterizedType)) {
+                return null;
+            }
+            return ((ParameterizedType) genericType).getActualTypeArguments()[0];
+        }
+
+        private static Constructor<?> findConstructor(Class<?> clazz) {
+            try {
+                return clazz.getConstructor(WebDriver.class, SearchContext.class);
+            } catch (NoSuchMethodException e) {
+                // reported on UI object creation the same way as without plan
+                return null;
+            }
+        }
+
+        String getName() {
+            return field.getName();
+        }
+
+        Field getField() {
+            return field;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        By getBy() {
+            return by;
+        }
+
+        boolean isShouldCache() {
+            return shouldCache;
+        }
+
+        boolean isCaseInsensitive() {
+            return caseInsensitive;
+        }
+
+        Class<?> getUiObjectClass() {
+            return uiObjectClass;
+        }
+
+        Constructor<?> getUiObjectConstructor() {
+            return uiObjectConstructor;
+        }
+    }
+}
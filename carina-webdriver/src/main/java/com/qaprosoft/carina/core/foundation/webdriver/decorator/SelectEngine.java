@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.decorator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.UnexpectedTagNameException;
+
+/**
+ * Select operations which read all options of the select element by a single script instead of remote calls per option.
+ * Option texts are cached for the lifetime of the select element, selection state is always read actual.
+ * Options are selected by regular clicks (as {@link org.openqa.selenium.support.ui.Select} does) and only not selected
+ * ones are clicked. Cached options are verified on every selection and are reloaded if the select was changed.
+ * <p>
+ * Option text is the text content of the option with whitespace collapsed, i.e. the same value
+ * {@link org.openqa.selenium.support.ui.Select#selectByVisibleText(String)} compares. Unlike
+ * {@link WebElement#getText()} it is not affected by CSS text transformation or visibility of the option.
+ */
+class SelectEngine {
+    // option text is normalized the same way as Select.selectByVisibleText compares it
+    static final String OPTIONS_SCRIPT = "var s = arguments[0];"
+            + "if (!s.tagName || s.tagName.toLowerCase() != 'select') { return {tag: s.tagName || ''}; }"
+            + "var options = [];"
+            + "for (var i = 0; i < s.options.length; i++) {"
+            + "  var o = s.options[i];"
+            + "  options.push(o.text.replace(/\\s+/g, ' ').trim());"
+            + "}"
+            + "return {tag: 'select', multiple: s.multiple, options: options};";
+
+    static final String SELECTED_SCRIPT = "var s = arguments[0], texts = [];"
+            + "for (var i = 0; i < s.options.length; i++) {"
+            + "  if (s.options[i].selected) { texts.push(s.options[i].text.replace(/\\s+/g, ' ').trim()); }"
+            + "}"
+            + "return texts;";
+
+    // returns [option, selected] pairs or null if any option doesn't match the cached text
+    static final String RESOLVE_SCRIPT = "var s = arguments[0], indexes = arguments[1], texts = arguments[2], result = [];"
+            + "for (var i = 0; i < indexes.length; i++) {"
+            + "  var o = s.options[indexes[i]];"
+            + "  if (!o || (texts[i] !== null && o.text.replace(/\\s+/g, ' ').trim() !== texts[i])) { return null; }"
+            + "  result.push([o, o.selected]);"
+            + "}"
+            + "return result;";
+
+    private final JavascriptExecutor executor;
+    private final WebElement select;
+
+    private boolean multiple;
+    private List<String> texts;
+
+    SelectEngine(JavascriptExecutor executor, WebElement select) {
+        this.executor = executor;
+        this.select = select;
+    }
+
+    boolean isFor(WebElement element) {
+        return select == element;
+    }
+
+    /**
+     * Returns cached normalized texts of all options.
+     *
+     * @return List of texts
+     */
+    List<String> getOptionTexts() {
+        if (texts == null) {
+            load();
+        }
+        return texts;
+    }
+
+    /**
+     * Selects options by visible text. All matching options are selected in multiple select, the first one otherwise.
+     * Found options are selected even if some texts are missing.
+     *
+     * @param optionTexts texts of the options
+     * @return List of texts which were not found, empty if all options are selected
+     */
+    List<String> selectByVisibleText(String... optionTexts) {
+        List<String> missing = new ArrayList<>();
+        selectMatching(() -> {
+            missing.clear();
+            List<Integer> indexes = new ArrayList<>();
+            for (String text : optionTexts) {
+                List<Integer> matching = findIndexes(text::equals);
+                if (matching.isEmpty()) {
+                    missing.add(text);
+                }
+                indexes.addAll(matching);
+            }
+            return indexes;
+        });
+        return missing;
+    }
+
+    /**
+     * Selects option by the text of the first option which satisfies the condition. All options with this text are selected
+     * in multiple select, as {@link #selectByVisibleText(String...)} does.
+     *
+     * @param condition Predicate&lt;String&gt;
+     * @param description of the condition for error message
+     */
+    void selectFirst(Predicate<String> condition, String description) {
+        selectMatching(() -> {
+            List<Integer> matching = findIndexes(condition);
+            if (matching.isEmpty()) {
+                throw new NoSuchElementException("Cannot locate option by " + description);
+            }
+            return findIndexes(texts.get(matching.get(0))::equals);
+        });
+    }
+
+    void selectByIndex(int index) {
+        // option index is verified by the script itself, texts are not required
+        if (!select(Collections.singletonList(index), false)) {
+            throw new NoSuchElementException("Cannot locate option with index: " + index);
+        }
+    }
+
+    /**
+     * Returns texts of the selected options.
+     *
+     * @return List of texts
+     */
+    @SuppressWarnings("unchecked")
+    List<String> getSelectedTexts() {
+        return new ArrayList<>((List<String>) executor.executeScript(SELECTED_SCRIPT, select));
+    }
+
+    private void selectMatching(Supplier<List<Integer>> resolver) {
+        if (texts == null) {
+            load();
+        }
+        if (select(resolver.get(), true)) {
+            return;
+        }
+
+        // options were changed since they were cached
+        load();
+        if (!select(resolver.get(), true)) {
+            throw new NoSuchElementException("Options of the select are changing during selection");
+        }
+    }
+
+    private List<Integer> findIndexes(Predicate<String> condition) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (condition.test(texts.get(i))) {
+                indexes.add(i);
+                if (!multiple) {
+                    break;
+                }
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Clicks not selected options.
+     *
+     * @return false if options don't match cached ones
+     */
+    @SuppressWarnings("unchecked")
+    private boolean select(List<Integer> indexes, boolean verifyTexts) {
+        List<String> expectedTexts = new ArrayList<>();
+        for (Integer index : indexes) {
+            expectedTexts.add(verifyTexts ? texts.get(index) : null);
+        }
+
+        Object result = executor.executeScript(RESOLVE_SCRIPT, select, indexes, expectedTexts);
+        if (result == null) {
+            return false;
+        }
+
+        for (Object item : (List<Object>) result) {
+            List<Object> option = (List<Object>) item;
+            if (!Boolean.TRUE.equals(option.get(1))) {
+                ((WebElement) option.get(0)).click();
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load() {
+        Map<String, Object> result = (Map<String, Object>) executor.executeScript(OPTIONS_SCRIPT, select);
+        if (!"select".equals(result.get("tag"))) {
+            throw new UnexpectedTagNameException("select", String.valueOf(result.get("tag")));
+        }
+
+        List<String> loadedTexts = new ArrayList<>();
+        for (Object text : (List<Object>) result.get("options")) {
+            loadedTexts.add(String.valueOf(text));
+        }
+        this.multiple = Boolean.TRUE.equals(result.get("multiple"));
+        this.texts = Collections.unmodifiableList(loadedTexts);
+    }
+}
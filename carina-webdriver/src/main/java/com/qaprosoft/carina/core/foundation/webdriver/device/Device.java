@@ -655,6 +655,19 @@ public class Device implements IDriverPool {
      * @return saved file
      */
     public File generateUiDump(String screenshotName) {
+        String pageSource = getUiDumpSource();
+        if (pageSource == null) {
+            return null;
+        }
+        return saveUiDump(pageSource, new File(ReportContext.getTestDir() + String.format("/%s.uix", screenshotName.replace(".png", ""))));
+    }
+
+    /**
+     * Reads page source of the device driver for UI dump generation.
+     * 
+     * @return page source or null if UI dump can't be generated for the device
+     */
+    public String getUiDumpSource() {
         if (isNull()) {
             return null;
         }
@@ -676,26 +689,33 @@ public class Device implements IDriverPool {
         try {
             LOGGER.debug("UI dump generation...");
             WebDriver driver = getDriver();
-            String fileName = ReportContext.getTestDir() + String.format("/%s.uix", screenshotName.replace(".png", ""));
-            String pageSource = driver.getPageSource();
-            pageSource = pageSource.replaceAll(SpecialKeywords.ANDROID_START_NODE, SpecialKeywords.ANDROID_START_UIX_NODE).
-                    replaceAll(SpecialKeywords.ANDROID_END_NODE, SpecialKeywords.ANDROID_END_UIX_NODE);
-            
-            File file = null;
-            try {
-                file = new File(fileName);
-                FileUtils.writeStringToFile(file, pageSource, Charset.forName("ASCII"));
-            } catch (IOException e) {
-                LOGGER.warn("Error has been met during attempt to extract xml tree.", e);
-            }
-            LOGGER.debug("XML file path: ".concat(fileName));
-            return file;
+            return driver.getPageSource();
         } catch (Exception e) {
             LOGGER.error("Undefined failure during UiDump generation for Android device!", e);
         }
         
         return null;
     }
+
+    /**
+     * Converts page source into uix format and saves it. Doesn't use driver and test context so can be executed in background.
+     * 
+     * @param pageSource String
+     * @param file uix file
+     * @return File or null in case of failure
+     */
+    public static File saveUiDump(String pageSource, File file) {
+        pageSource = pageSource.replaceAll(SpecialKeywords.ANDROID_START_NODE, SpecialKeywords.ANDROID_START_UIX_NODE).
+                replaceAll(SpecialKeywords.ANDROID_END_NODE, SpecialKeywords.ANDROID_END_UIX_NODE);
+        try {
+            FileUtils.writeStringToFile(file, pageSource, Charset.forName("ASCII"));
+        } catch (IOException e) {
+            LOGGER.warn("Error has been met during attempt to extract xml tree.", e);
+            return null;
+        }
+        LOGGER.debug("XML file path: ".concat(file.getAbsolutePath()));
+        return file;
+    }
     
     private boolean isIOS() {
         return SpecialKeywords.IOS.equalsIgnoreCase(getOs()) || SpecialKeywords.TVOS.equalsIgnoreCase(getOs());
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.httpclient;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.qaprosoft.carina.core.foundation.performance.RunStatistics;
+
+/**
+ * Counts WebDriver commands issued by element actions (click, type etc). Action is bound to the current thread between
+ * {@link #start(String)} and {@link #finish(String)}, all commands executed by the thread meanwhile are attributed to it.
+ */
+public class ActionCommandRegistry {
+    private static final Map<String, ActionCounters> actions = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<String> currentAction = new ThreadLocal<>();
+
+    static {
+        RunStatistics.register(ActionCommandRegistry.class.getName(), ActionCommandRegistry::isEmpty,
+                ActionCommandRegistry::getStatistics, ActionCommandRegistry::reset);
+    }
+
+    private ActionCommandRegistry() {
+        // hide default constructor
+    }
+
+    /**
+     * Binds action to the current thread.
+     *
+     * @param action action name
+     * @return previous action of the thread (nested actions), should be passed to {@link #finish(String)}
+     */
+    public static String start(String action) {
+        String previous = currentAction.get();
+        currentAction.set(action);
+        getCounters(action).actions.increment();
+        return previous;
+    }
+
+    /**
+     * Restores previous action of the current thread.
+     *
+     * @param previous value returned by {@link #start(String)}
+     */
+    public static void finish(String previous) {
+        if (previous == null) {
+            currentAction.remove();
+        } else {
+            currentAction.set(previous);
+        }
+    }
+
+    /**
+     * Registers WebDriver command executed by the current thread.
+     *
+     * @param command WebDriver command name
+     */
+    public static void record(String command) {
+        String action = currentAction.get();
+        if (action != null) {
+            getCounters(action).commands.increment();
+        }
+    }
+
+    /**
+     * Registers failure of optimistic action execution, i.e. action which was repeated using verification of element state.
+     *
+     * @param action action name
+     */
+    public static void recordFallback(String action) {
+        getCounters(action).fallbacks.increment();
+    }
+
+    public static long getActions(String action) {
+        ActionCounters counters = actions.get(action);
+        return counters == null ? 0 : counters.actions.sum();
+    }
+
+    public static long getCommands(String action) {
+        ActionCounters counters = actions.get(action);
+        return counters == null ? 0 : counters.commands.sum();
+    }
+
+    public static long getFallbacks(String action) {
+        ActionCounters counters = actions.get(action);
+        return counters == null ? 0 : counters.fallbacks.sum();
+    }
+
+    public static boolean isEmpty() {
+        return actions.isEmpty();
+    }
+
+    public static void reset() {
+        actions.clear();
+    }
+
+    public static String getStatistics() {
+        StringBuilder sb = new StringBuilder("WebDriver commands per element action:");
+        new TreeMap<>(actions).forEach((action, counters) -> {
+            long count = counters.actions.sum();
+            long commands = counters.commands.sum();
+            sb.append(String.format("%n  %s: %d action(s), %d command(s), %.2f per action, %d fallback(s)", action, count, commands,
+                    count == 0 ? 0.0 : (double) commands / count, counters.fallbacks.sum()));
+        });
+        return sb.toString();
+    }
+
+    private static ActionCounters getCounters(String action) {
+        return actions.computeIfAbsent(action, k -> new ActionCounters());
+    }
+
+    private static class ActionCounters {
+        private final LongAdder actions = new LongAdder();
+        private final LongAdder commands = new LongAdder();
+        private final LongAdder fallbacks = new LongAdder();
+    }
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.httpclient;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.remote.SessionId;
+
+import com.qaprosoft.carina.core.foundation.performance.RunStatistics;
+
+/**
+ * Collects WebDriver command latency histograms per Selenium node (host:port resolved by {@link SessionNodeResolver})
+ * and command name.
+ */
+public class CommandLatencyRegistry {
+    private static final Map<String, Map<String, CommandLatencyHistogram>> nodes = new ConcurrentHashMap<>();
+
+    static {
+        RunStatistics.register(CommandLatencyRegistry.class.getName(), CommandLatencyRegistry::isEmpty,
+                CommandLatencyRegistry::getStatistics, CommandLatencyRegistry::reset);
+    }
+
+    private CommandLatencyRegistry() {
+        // hide default constructor
+    }
+
+    /**
+     * Registers latency of the command executed in the session on the node resolved for it.
+     *
+     * @param server address of the remote server
+     * @param sessionId SessionId or null for commands out of session
+     * @param command WebDriver command name
+     * @param nanos elapsed time measured by System.nanoTime()
+     */
+    public static void record(URL server, SessionId sessionId, String command, long nanos) {
+        record(SessionNodeResolver.getNode(server, sessionId), command, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    public static void record(String node, String command, long millis) {
+        nodes.computeIfAbsent(node, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(command, k -> new CommandLatencyHistogram())
+                .record(millis);
+    }
+
+    /**
+     * Returns histogram of the command executed on the node
+     * 
+     * @param node host:port
+     * @param command WebDriver command name
+     * @return CommandLatencyHistogram or null if command wasn't executed on the node
+     */
+    public static CommandLatencyHistogram getHistogram(String node, String command) {
+        Map<String, CommandLatencyHistogram> commands = nodes.get(node);
+        return commands == null ? null : commands.get(command);
+    }
+
+    public static boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    public static void reset() {
+        nodes.clear();
+    }
+
+    public static String getStatistics() {
+        StringBuilder sb = new StringBuilder("WebDriver command latency per node:");
+        new TreeMap<>(nodes).forEach((node, commands) -> {
+            long count = commands.values().stream().mapToLong(CommandLatencyHistogram::getCount).sum();
+            long total = commands.values().stream().mapToLong(CommandLatencyHistogram::getTotal).sum();
+            sb.append(String.format("%n  %s: %d command(s), %d ms total", node, count, total));
+            new TreeMap<>(commands).forEach((command, histogram) -> sb.append(String.format("%n    %s: %s", command, histogram)));
+        });
+        return sb.toString();
+    }
+}
@@ -16,10 +16,14 @@
 package com.qaprosoft.carina.core.foundation.webdriver.httpclient;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
 
 import java.net.URL;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 
+import org.apache.log4j.Logger;
 import org.openqa.selenium.remote.http.HttpClient;
 import org.openqa.selenium.remote.http.HttpClient.Builder;
 import org.openqa.selenium.remote.internal.OkHttpClient;
@@ -29,23 +33,59 @@ import com.qaprosoft.carina.core.foundation.utils.R;
 
 import okhttp3.ConnectionPool;
 import okhttp3.Credentials;
+import okhttp3.Dispatcher;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
 
+/**
+ * HttpClientFactoryCustom - WebDriver transport based on the single shared OkHttp client.
+ * All created clients reuse the same connection pool, dispatcher and thread pools, only per URL
+ * settings (credentials, timeouts, protocols) are applied on top of it.
+ * 
+ * Tunable by appium_http_client_max_idle_connections, appium_http_client_keep_alive_min
+ * and appium_http_client_http2 properties.
+ */
 public class HttpClientFactoryCustom implements HttpClient.Factory {
+	private static final Logger LOGGER = Logger.getLogger(HttpClientFactoryCustom.class);
 
-	private final ConnectionPool pool = new ConnectionPool();
+	private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+	private static final int DEFAULT_KEEP_ALIVE_MIN = 5;
+
+	private static final ConnectionPool pool = new ConnectionPool(
+			getConfigInt("appium_http_client_max_idle_connections", DEFAULT_MAX_IDLE_CONNECTIONS),
+			getConfigInt("appium_http_client_keep_alive_min", DEFAULT_KEEP_ALIVE_MIN), MINUTES);
+
+	private static final okhttp3.OkHttpClient sharedClient = new okhttp3.OkHttpClient.Builder()
+			.connectionPool(pool)
+			.dispatcher(new Dispatcher())
+			.followRedirects(true)
+			.followSslRedirects(true)
+			.addNetworkInterceptor(chain -> {
+				Request request = chain.request();
+				Response response = chain.proceed(request);
+				return response.code() == 408
+						? response.newBuilder().code(500).message("Server-Side Timeout").build()
+						: response;
+			}).build();
 
 	@Override
 	public Builder builder() {
 		return new Builder() {
 			@Override
 			public HttpClient createClient(URL url) {
-				okhttp3.OkHttpClient.Builder client = new okhttp3.OkHttpClient.Builder().connectionPool(pool)
-						.followRedirects(true).followSslRedirects(true).proxy(proxy)
+				// derived client shares connection pool and dispatcher of the shared one
+				okhttp3.OkHttpClient.Builder client = sharedClient.newBuilder().proxy(proxy)
 						.readTimeout(readTimeout.toMillis(), MILLISECONDS)
 						.connectTimeout(connectionTimeout.toMillis(), MILLISECONDS);
 
+				if (isHttp2Enabled()) {
+					// https grids negotiate HTTP/2 via ALPN, plain http ones should support it with prior knowledge
+					client.protocols("https".equalsIgnoreCase(url.getProtocol())
+							? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+							: Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+				}
+
 				String info = url.getUserInfo();
 				if (!Strings.isNullOrEmpty(info)) {
 					String[] parts = info.split(":", 2);
@@ -63,14 +103,6 @@ public class HttpClientFactoryCustom implements HttpClient.Factory {
 					});
 				}
 
-				client.addNetworkInterceptor(chain -> {
-					Request request = chain.request();
-					Response response = chain.proceed(request);
-					return response.code() == 408
-							? response.newBuilder().code(500).message("Server-Side Timeout").build()
-							: response;
-				});
-				
 				return new OkHttpClient(client.build(), url);
 			}
 		}.readTimeout(Duration.ofMinutes(R.CONFIG.getInt("appium_http_client_read_timeout_min")));
@@ -80,4 +112,39 @@ public class HttpClientFactoryCustom implements HttpClient.Factory {
 	public void cleanupIdleClients() {
 		pool.evictAll();
 	}
+
+	/**
+	 * Returns number of open connections in the shared pool
+	 * 
+	 * @return int
+	 */
+	public static int getConnectionCount() {
+		return pool.connectionCount();
+	}
+
+	/**
+	 * Returns number of idle connections in the shared pool
+	 * 
+	 * @return int
+	 */
+	public static int getIdleConnectionCount() {
+		return pool.idleConnectionCount();
+	}
+
+	private static boolean isHttp2Enabled() {
+		return Boolean.valueOf(R.CONFIG.get("appium_http_client_http2").trim());
+	}
+
+	private static int getConfigInt(String key, int defaultValue) {
+		String value = R.CONFIG.get(key).trim();
+		if (value.isEmpty() || "NULL".equalsIgnoreCase(value)) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			LOGGER.warn(String.format("Invalid '%s' value: %s. Default %d is used.", key, value, defaultValue));
+			return defaultValue;
+		}
+	}
 }
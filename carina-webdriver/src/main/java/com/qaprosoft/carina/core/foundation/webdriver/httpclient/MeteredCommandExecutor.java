@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.httpclient;
+
+import java.io.IOException;
+import java.net.URL;
+
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.Response;
+
+/**
+ * Regular remote command executor which registers latency and element action of each executed command.
+ * Latency is registered per Selenium node of the session, not per hub.
+ */
+public class MeteredCommandExecutor extends HttpCommandExecutor {
+
+    public MeteredCommandExecutor(URL addressOfRemoteServer) {
+        super(addressOfRemoteServer);
+    }
+
+    @Override
+    public Response execute(Command command) throws IOException {
+        ActionCommandRegistry.record(command.getName());
+        try {
+            long start = System.nanoTime();
+            Response response = super.execute(command);
+            CommandLatencyRegistry.record(getAddressOfRemoteServer(), command.getSessionId(), command.getName(), System.nanoTime() - start);
+            return response;
+        } finally {
+            if (DriverCommand.QUIT.equals(command.getName())) {
+                SessionNodeResolver.remove(command.getSessionId());
+            }
+        }
+    }
+}
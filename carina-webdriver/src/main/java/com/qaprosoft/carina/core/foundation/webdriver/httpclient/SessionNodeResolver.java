@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.httpclient;
+
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.openqa.selenium.remote.SessionId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.utils.common.DaemonThreadFactory;
+
+/**
+ * Resolves node (host:port) which executes commands of the driver session. The remote server itself is the node by default.
+ * When grid_node_resolution is enabled sessions created through Selenium 3 Grid are resolved once by the grid session
+ * info (/grid/api/testsession) in background, so test thread is never blocked by the grid call. Servers without grid
+ * session API (Appium, Selenium 4, cloud providers etc.) are not asked again after the first failed attempt.
+ */
+public class SessionNodeResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final String SESSION_INFO_PATH = "/grid/api/testsession?session=";
+    private static final int TIMEOUT = 3000;
+
+    private static final Map<String, String> nodes = new ConcurrentHashMap<>();
+    // servers which don't provide grid session info
+    private static final Set<String> notGridServers = ConcurrentHashMap.newKeySet();
+
+    private static final ExecutorService resolver = Executors.newCachedThreadPool(new DaemonThreadFactory("grid-node-resolver"));
+
+    private SessionNodeResolver() {
+        // hide default constructor
+    }
+
+    /**
+     * Returns node of the session. The server itself is returned until grid node is resolved.
+     *
+     * @param server address of the remote server (hub or node)
+     * @param sessionId SessionId, null for commands out of session
+     * @return host:port of the node
+     */
+    public static String getNode(URL server, SessionId sessionId) {
+        if (server == null) {
+            return "unknown";
+        }
+        String serverNode = toNode(server);
+        if (sessionId == null || notGridServers.contains(serverNode) || !Configuration.getBoolean(Parameter.GRID_NODE_RESOLUTION)) {
+            return serverNode;
+        }
+
+        String session = sessionId.toString();
+        String node = nodes.putIfAbsent(session, serverNode);
+        if (node == null) {
+            // the first command of the session
+            resolver.submit(() -> {
+                String resolved = resolve(server, session);
+                if (resolved != null) {
+                    // session could be already finished
+                    nodes.replace(session, serverNode, resolved);
+                } else {
+                    notGridServers.add(serverNode);
+                }
+            });
+            node = serverNode;
+        }
+        return node;
+    }
+
+    /**
+     * Forgets node of the finished session.
+     *
+     * @param sessionId SessionId
+     */
+    public static void remove(SessionId sessionId) {
+        if (sessionId != null) {
+            nodes.remove(sessionId.toString());
+        }
+    }
+
+    /**
+     * @return host:port of the grid node, null if the server doesn't provide grid session info
+     */
+    private static String resolve(URL server, String sessionId) {
+        try {
+            URL url = new URL(server.getProtocol(), server.getHost(), server.getPort(), SESSION_INFO_PATH + sessionId);
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(TIMEOUT);
+            connection.setReadTimeout(TIMEOUT);
+            if (server.getUserInfo() != null) {
+                connection.setRequestProperty("Authorization",
+                        "Basic " + Base64.getEncoder().encodeToString(server.getUserInfo().getBytes(StandardCharsets.UTF_8)));
+            }
+            try {
+                if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+                    try (InputStream is = connection.getInputStream()) {
+                        JsonNode info = new ObjectMapper().readTree(is);
+                        JsonNode proxyId = info.get("proxyId");
+                        if (proxyId != null && proxyId.isTextual()) {
+                            return toNode(new URL(proxyId.asText()));
+                        }
+                        if (info.has("success")) {
+                            // grid doesn't know the session, e.g. it is already finished
+                            return toNode(server);
+                        }
+                    }
+                }
+            } finally {
+                connection.disconnect();
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Unable to resolve grid node of the session " + sessionId + ": " + e.getMessage());
+        }
+        LOGGER.debug("Grid session info is not available on " + toNode(server) + ", grid nodes won't be resolved for it.");
+        return null;
+    }
+
+    private static String toNode(URL url) {
+        return url.getHost() + ":" + (url.getPort() == -1 ? url.getDefaultPort() : url.getPort());
+    }
+}
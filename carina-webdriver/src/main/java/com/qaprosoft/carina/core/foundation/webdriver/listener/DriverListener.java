@@ -18,6 +18,7 @@ package com.qaprosoft.carina.core.foundation.webdriver.listener;
 import java.io.File;
 import java.lang.invoke.MethodHandles;
 import java.util.Arrays;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang3.StringUtils;
 import org.openqa.selenium.By;
@@ -29,11 +30,13 @@ import org.openqa.selenium.support.events.WebDriverEventListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.qaprosoft.carina.core.foundation.report.ArtifactPipeline;
 import com.qaprosoft.carina.core.foundation.report.ReportContext;
 import com.qaprosoft.carina.core.foundation.utils.FileManager;
 import com.qaprosoft.carina.core.foundation.webdriver.IDriverPool;
 import com.qaprosoft.carina.core.foundation.webdriver.Screenshot;
-import com.zebrunner.agent.core.registrar.Artifact;
+import com.qaprosoft.carina.core.foundation.webdriver.WindowHandleCache;
+import com.qaprosoft.carina.core.foundation.webdriver.device.Device;
 
 /**
  * ScreenshotEventListener - captures screenshot after essential webdriver event.
@@ -44,8 +47,11 @@ import com.zebrunner.agent.core.registrar.Artifact;
 public class DriverListener implements WebDriverEventListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-    private final static ThreadLocal<String> currentPositiveMessage = new ThreadLocal<String>();
-    private final static ThreadLocal<String> currentNegativeMessage = new ThreadLocal<String>();
+    // messages are rendered only when they are logged
+    private final static ThreadLocal<Supplier<String>> currentPositiveMessage = new ThreadLocal<Supplier<String>>();
+    private final static ThreadLocal<Supplier<String>> currentNegativeMessage = new ThreadLocal<Supplier<String>>();
+    // exceptions expected to be handled by the caller, i.e. failed optimistic actions, are not captured
+    private final static ThreadLocal<Boolean> exceptionCaptureSuppressed = new ThreadLocal<Boolean>();
 
     @Override
     public void afterAlertAccept(WebDriver driver) {
@@ -59,12 +65,14 @@ public class DriverListener implements WebDriverEventListener {
 
     @Override
     public void afterChangeValueOf(WebElement element, WebDriver driver, CharSequence[] value) {
+        WindowHandleCache.invalidate(driver);
         String comment = String.format("Text '%s' typed", charArrayToString(value));
         captureScreenshot(comment, driver, element, false);
     }
 
     @Override
     public void afterClickOn(WebElement element, WebDriver driver) {
+        WindowHandleCache.invalidate(driver);
         String comment = "Element clicked";
         captureScreenshot(comment, driver, element, false);
     }
@@ -97,7 +105,8 @@ public class DriverListener implements WebDriverEventListener {
 
     @Override
     public void afterScript(String script, WebDriver driver) {
-        // Do nothing
+        // script may open or close windows
+        WindowHandleCache.invalidate(driver);
     }
 
     @Override
@@ -202,7 +211,9 @@ public class DriverListener implements WebDriverEventListener {
             // 3. 99% those root exception means that we should prohibit screenshot generation for such use-case
             // 4. if 3rd one is true just update Screenshot.isCaptured() adding part of the exception to the list
             // handle cases which should't be captured
-            if (Screenshot.isCaptured(thr.getMessage())) {
+            if (isExceptionCaptureSuppressed()) {
+                LOGGER.debug("Screenshot is not captured for the exception handled by the caller: " + thr.getMessage());
+            } else if (Screenshot.isCaptured(thr.getMessage())) {
                 captureScreenshot(thr.getMessage(), driver, null, true);
             }
         } catch (Exception e) {
@@ -220,6 +231,26 @@ public class DriverListener implements WebDriverEventListener {
         LOGGER.debug("DriverListener->onException finished.");
     }
 
+    /**
+     * Suppresses screenshots on exceptions of the current thread.
+     * 
+     * @param suppressed boolean
+     * @return previous value which should be restored
+     */
+    public static boolean setExceptionCaptureSuppressed(boolean suppressed) {
+        boolean previous = isExceptionCaptureSuppressed();
+        if (suppressed) {
+            exceptionCaptureSuppressed.set(Boolean.TRUE);
+        } else {
+            exceptionCaptureSuppressed.remove();
+        }
+        return previous;
+    }
+
+    public static boolean isExceptionCaptureSuppressed() {
+        return Boolean.TRUE.equals(exceptionCaptureSuppressed.get());
+    }
+
     /**
      * Converts char sequence to string.
      * 
@@ -240,8 +271,7 @@ public class DriverListener implements WebDriverEventListener {
 
     @Override
     public void afterSwitchToWindow(String arg0, WebDriver driver) {
-        // do nothing
-
+        WindowHandleCache.onSwitch(driver, arg0);
     }
 
     @Override
@@ -271,8 +301,9 @@ public class DriverListener implements WebDriverEventListener {
 
     private void captureScreenshot(String comment, WebDriver driver, WebElement element, boolean errorMessage) {
         driver = castDriver(driver);
-        if (getMessage(errorMessage) != null) {
-            comment = getMessage(errorMessage);
+        String message = getMessage(errorMessage);
+        if (message != null) {
+            comment = message;
         }
 
         try {
@@ -297,38 +328,53 @@ public class DriverListener implements WebDriverEventListener {
     }
 
     private void generateDump(String screenName) {
-        // XML layout extraction
-        File uiDumpFile = IDriverPool.getDefaultDevice().generateUiDump(screenName);
-        if (uiDumpFile != null) {
+        // XML layout extraction. Only page source is read on the test thread, file generation and archiving are executed in background
+        String pageSource = IDriverPool.getDefaultDevice().getUiDumpSource();
+        if (pageSource != null) {
+            String testDir = ReportContext.getTestDir().getAbsolutePath();
+            File uiDumpFile = new File(testDir + "/" + screenName.replace(".png", ".uix"));
             // use the same naming but with zip extension. Put into the test artifacts folder
             String dumpArtifact = ReportContext.getArtifactsFolder().getAbsolutePath() + "/" + screenName.replace(".png", ".zip");
             LOGGER.debug("UI Dump artifact: " + dumpArtifact);
 
             // build path to screenshot using name
-            File screenFile = new File(ReportContext.getTestDir().getAbsolutePath() + "/" + screenName);
-
-            // archive page source dump and screenshot both together
-            FileManager.zipFiles(dumpArtifact, uiDumpFile, screenFile);
+            File screenFile = new File(testDir + "/" + screenName);
 
-            Artifact.attachToTest("UI Dump artifact", new File(dumpArtifact));
+            ArtifactPipeline.submit("UI Dump artifact", () -> {
+                if (Device.saveUiDump(pageSource, uiDumpFile) == null) {
+                    return null;
+                }
+                // archive page source dump and screenshot both together
+                FileManager.zipFiles(dumpArtifact, uiDumpFile, screenFile);
+                return new File(dumpArtifact);
+            });
         } else {
             LOGGER.debug("Dump file is empty.");
         }
     }
 
     private void onAfterAction(String comment, WebDriver driver) {
+        WindowHandleCache.invalidate(driver);
         captureScreenshot(comment, driver, null, false);
     }
 
     public static String getMessage(boolean errorMessage) {
-        if (errorMessage) {
-            return currentNegativeMessage.get();
-        } else {
-            return currentPositiveMessage.get();
-        }
+        Supplier<String> message = errorMessage ? currentNegativeMessage.get() : currentPositiveMessage.get();
+        return message == null ? null : message.get();
     }
 
     public static void setMessages(String positiveMessage, String negativeMessage) {
+        setMessages(positiveMessage == null ? null : () -> positiveMessage, negativeMessage == null ? null : () -> negativeMessage);
+    }
+
+    /**
+     * Set messages of the next driver action which are generated only if they are logged,
+     * i.e. Messager.ELEMENT_CLICKED.getMessage(getName()) is not formatted for each click.
+     *
+     * @param positiveMessage Supplier of the message logged after successful action
+     * @param negativeMessage Supplier of the message logged on failure
+     */
+    public static void setMessages(Supplier<String> positiveMessage, Supplier<String> negativeMessage) {
         currentPositiveMessage.set(positiveMessage);
         currentNegativeMessage.set(negativeMessage);
     }
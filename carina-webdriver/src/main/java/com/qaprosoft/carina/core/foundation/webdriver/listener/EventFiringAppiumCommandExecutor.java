@@ -44,7 +44,10 @@ import org.openqa.selenium.remote.service.DriverService;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
 import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
+import com.qaprosoft.carina.core.foundation.webdriver.httpclient.ActionCommandRegistry;
+import com.qaprosoft.carina.core.foundation.webdriver.httpclient.CommandLatencyRegistry;
 import com.qaprosoft.carina.core.foundation.webdriver.httpclient.HttpClientFactoryCustom;
+import com.qaprosoft.carina.core.foundation.webdriver.httpclient.SessionNodeResolver;
 
 import io.appium.java_client.MobileCommand;
 import io.appium.java_client.remote.AppiumCommandExecutor;
@@ -152,6 +155,8 @@ public class EventFiringAppiumCommandExecutor extends HttpCommandExecutor {
                 listener.beforeEvent(command);
             }
 
+            ActionCommandRegistry.record(command.getName());
+            long start = System.nanoTime();
             try {
                 response = super.execute(command);
             } catch (JsonException e) {
@@ -159,8 +164,10 @@ public class EventFiringAppiumCommandExecutor extends HttpCommandExecutor {
                 // Expected to read a START_MAP but instead have: END. Last 0 characters read
                 LOGGER.debug("Repeit the command due to the JsonException: " + command.getName(), e);
                 CommonUtils.pause(0.1);
+                start = System.nanoTime();
                 response = super.execute(command);
             }
+            CommandLatencyRegistry.record(getAddressOfRemoteServer(), command.getSessionId(), command.getName(), System.nanoTime() - start);
 
             for (IDriverCommandListener listener : listeners) {
                 listener.afterEvent(command);
@@ -183,6 +190,7 @@ public class EventFiringAppiumCommandExecutor extends HttpCommandExecutor {
         } finally {
             if (DriverCommand.QUIT.equals(command.getName())) {
                 serviceOptional.ifPresent(DriverService::stop);
+                SessionNodeResolver.remove(command.getSessionId());
             }
         }
 
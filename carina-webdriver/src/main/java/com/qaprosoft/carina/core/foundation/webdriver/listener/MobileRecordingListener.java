@@ -16,25 +16,51 @@
 package com.qaprosoft.carina.core.foundation.webdriver.listener;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CharSequenceInputStream;
 import org.apache.log4j.Logger;
 import org.openqa.selenium.remote.Command;
 import org.openqa.selenium.remote.CommandExecutor;
 import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.SessionId;
 
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
 import com.qaprosoft.carina.core.foundation.report.ReportContext;
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.utils.common.DaemonThreadFactory;
+import com.zebrunner.agent.core.registrar.Artifact;
 
 import io.appium.java_client.MobileCommand;
 import io.appium.java_client.screenrecording.BaseStartScreenRecordingOptions;
 import io.appium.java_client.screenrecording.BaseStopScreenRecordingOptions;
+import io.appium.java_client.screenrecording.ScreenRecordingUploadOptions;
 
 /**
  * ScreenRecordingListener - starts/stops video recording for Android and IOS
  * drivers.
+ * Recording is stopped through the driver command executor in background and decoded into artifacts folder
+ * without decoded byte array, or uploaded by Appium directly to screen_record_upload_url when it is declared.
+ * Session quit waits for the stop command for a limited time only.
+ * Video is decoded into a partial file which is renamed to the artifact name and linked only when it is complete.
  * 
  * @author akhursevich
  */
@@ -44,6 +70,12 @@ public class MobileRecordingListener<O1 extends BaseStartScreenRecordingOptions,
 
     private static final Logger LOGGER = Logger.getLogger(MobileRecordingListener.class);
 
+    // max time in seconds session quit waits for the stop recording command
+    private static final int STOP_TIMEOUT = 10;
+
+    private static final ExecutorService videoSaver = Executors.newCachedThreadPool(new DaemonThreadFactory("video-saver"));
+    private static final AtomicInteger saving = new AtomicInteger();
+
 	private CommandExecutor commandExecutor;
 
 	private O1 startRecordingOpt;
@@ -62,44 +94,145 @@ public class MobileRecordingListener<O1 extends BaseStartScreenRecordingOptions,
 	public void beforeEvent(Command command) {
 		if (recording) {
 			if (DriverCommand.QUIT.equals(command.getName())) {
-			    // stop video recording and publish it to local artifacts
-			    String data = "";
-                try {
-                    LOGGER.debug("Stopping mobile video recording and upload data locally for " + command.getSessionId());
-                    data = commandExecutor
-                            .execute(new Command(command.getSessionId(), MobileCommand.STOP_RECORDING_SCREEN,
-                                    MobileCommand.stopRecordingScreenCommand(
-                                            (BaseStopScreenRecordingOptions) stopRecordingOpt).getValue()))
-                            .getValue().toString();
-                    
-                    LOGGER.debug("Stopped mobile video recording and uploaded data locally for " + command.getSessionId());
-                } catch (Throwable e) {
-                    LOGGER.error("Unable to stop screen recording!", e);
-                }
-                
-                if (data == null || data.isEmpty()) {
-                    // do nothing
-                    return;
-                }
-                
-                // create file in artifacts using driver session id
-                //IMPORTANT! DON'T MODIFY FILENAME WITHOUT UPDATING DRIVER FACTORIES AND LISTENERS!
-                String fileName = String.format(SpecialKeywords.DEFAULT_VIDEO_FILENAME, command.getSessionId());
-                String filePath = ReportContext.getArtifactsFolder().getAbsolutePath() + File.separator + fileName;
-                File file = null;
-                
-                try {
-                    LOGGER.debug("Saving video artifact: " + fileName);
-                    file = new File(filePath);
-                    FileUtils.writeByteArrayToFile(file, Base64.getDecoder().decode(data));
-                    LOGGER.debug("Saved video artifact: " + fileName);
-                } catch (IOException e) {
-                    LOGGER.warn("Error has been occurred during video artifact generation: " + fileName, e);
-                }
+			    //IMPORTANT! DON'T MODIFY FILENAME WITHOUT UPDATING DRIVER FACTORIES AND LISTENERS!
+			    SessionId sessionId = command.getSessionId();
+			    String fileName = String.format(SpecialKeywords.DEFAULT_VIDEO_FILENAME, sessionId);
+			    String uploadUrl = getUploadUrl(fileName);
+			    if (!uploadUrl.isEmpty()) {
+			        stopRecordingOpt.withUploadOptions(ScreenRecordingUploadOptions.uploadOptions().withRemotePath(uploadUrl));
+			    }
+
+			    // stop video recording in background, the session is alive until the command is sent to the server
+			    CompletableFuture<Object> stopped = CompletableFuture.supplyAsync(() -> stopRecording(sessionId), videoSaver);
+
+			    if (uploadUrl.isEmpty()) {
+			        // create file in artifacts using driver session id
+			        File file = new File(ReportContext.getArtifactsFolder().getAbsolutePath() + File.separator + fileName);
+			        ReportContext.startVideoSaving(file);
+			        saving.incrementAndGet();
+			        stopped.thenApply(value -> save(value, file))
+			                .whenComplete((saved, e) -> {
+			                    ReportContext.finishVideoSaving(file, Boolean.TRUE.equals(saved));
+			                    saving.decrementAndGet();
+			                });
+			    }
+
+			    if (awaitStop(stopped, sessionId) && !uploadUrl.isEmpty()) {
+			        // Appium uploads video itself and returns empty data
+			        LOGGER.debug("Video artifact uploaded: " + uploadUrl);
+			        Artifact.attachReferenceToTest("Video " + sessionId, uploadUrl);
+			    }
 			}
 		}
 	}
 
+    /**
+     * Verify if any video artifact is still being saved
+     * 
+     * @return boolean
+     */
+    public static boolean isSaving() {
+        return saving.get() > 0;
+    }
+
+    /**
+     * Decodes base64 video content to the file using a small buffer instead of decoded byte array.
+     * 
+     * @param data base64 content
+     * @param file target file
+     * @throws IOException in case of decoding or writing failure
+     */
+    static void decodeToFile(String data, File file) throws IOException {
+        File part = getPartFile(file);
+        try (InputStream is = Base64.getDecoder().wrap(new CharSequenceInputStream(data, StandardCharsets.US_ASCII));
+                OutputStream os = new FileOutputStream(part)) {
+            IOUtils.copy(is, os);
+        } catch (IOException e) {
+            part.delete();
+            throw e;
+        }
+        publish(part, file);
+    }
+
+    private static File getPartFile(File file) {
+        return new File(file.getParentFile(), file.getName() + SpecialKeywords.PARTIAL_ARTIFACT_SUFFIX);
+    }
+
+    /**
+     * Renames completely written partial file to the artifact name so incomplete video is never linked or uploaded.
+     */
+    private static void publish(File part, File file) throws IOException {
+        try {
+            Files.move(part.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(part.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Object stopRecording(SessionId sessionId) {
+        try {
+            LOGGER.debug("Stopping mobile video recording for " + sessionId);
+            Object value = commandExecutor
+                    .execute(new Command(sessionId, MobileCommand.STOP_RECORDING_SCREEN,
+                            MobileCommand.stopRecordingScreenCommand(
+                                    (BaseStopScreenRecordingOptions) stopRecordingOpt).getValue()))
+                    .getValue();
+            LOGGER.debug("Stopped mobile video recording for " + sessionId);
+            return value;
+        } catch (IOException e) {
+            LOGGER.error("Unable to stop screen recording!", e);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to stop screen recording!", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the stop recording command before session quit.
+     * 
+     * @return true if recording was stopped successfully
+     */
+    private static boolean awaitStop(CompletableFuture<Object> stopped, SessionId sessionId) {
+        try {
+            stopped.get(STOP_TIMEOUT, TimeUnit.SECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            LOGGER.warn("Mobile video recording is still being stopped for " + sessionId + ", continue in background.");
+        } catch (ExecutionException e) {
+            // already logged by stop recording task
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private static boolean save(Object value, File file) {
+        String data = value == null ? "" : value.toString();
+        if (data.isEmpty()) {
+            // do nothing
+            return false;
+        }
+
+        try {
+            LOGGER.debug("Saving video artifact: " + file.getName());
+            decodeToFile(data, file);
+            LOGGER.debug("Saved video artifact: " + file.getName());
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Error has been occurred during video artifact generation: " + file.getName(), e);
+            return false;
+        }
+    }
+
+    private static String getUploadUrl(String fileName) {
+        String url = Configuration.get(Parameter.SCREEN_RECORD_UPLOAD_URL).trim();
+        if (url.isEmpty()) {
+            return "";
+        }
+        return url.endsWith("/") ? url + fileName : url + "/" + fileName;
+    }
+
     @Override
     public void afterEvent(Command command) {
         if (!recording && command.getSessionId() != null) {
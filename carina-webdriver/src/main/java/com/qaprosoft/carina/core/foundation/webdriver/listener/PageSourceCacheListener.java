@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.listener;
+
+import org.openqa.selenium.remote.Command;
+
+import com.qaprosoft.carina.core.foundation.webdriver.snapshot.PageSourceCache;
+
+/**
+ * PageSourceCacheListener - invalidates cached page source of the session before any command which may change the screen.
+ */
+public class PageSourceCacheListener implements IDriverCommandListener {
+
+    @Override
+    public void beforeEvent(Command command) {
+        PageSourceCache.onCommand(command.getSessionId() == null ? null : command.getSessionId().toString(), command.getName());
+    }
+
+    @Override
+    public void afterEvent(Command command) {
+        // do nothing
+    }
+}
@@ -75,6 +75,21 @@ public class ExtendedElementLocator implements ElementLocator {
 
     }
 
+    /**
+     * Creates a new element locator using already resolved locator and flags.
+     * 
+     * @param searchContext The context to use when finding the element
+     * @param by resolved (localized) locator of the field
+     * @param shouldCache cache found element
+     * @param caseInsensitive transform XPath locator to case insensitive on lookup
+     */
+    public ExtendedElementLocator(SearchContext searchContext, By by, boolean shouldCache, boolean caseInsensitive) {
+        this.searchContext = searchContext;
+        this.by = by;
+        this.shouldCache = shouldCache;
+        this.caseInsensitive = caseInsensitive;
+    }
+
     /**
      * Find the element.
      */
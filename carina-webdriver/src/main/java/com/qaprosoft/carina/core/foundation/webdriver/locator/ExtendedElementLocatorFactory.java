@@ -17,6 +17,7 @@ package com.qaprosoft.carina.core.foundation.webdriver.locator;
 
 import java.lang.reflect.Field;
 
+import org.openqa.selenium.By;
 import org.openqa.selenium.SearchContext;
 import org.openqa.selenium.support.pagefactory.ElementLocator;
 import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
@@ -38,4 +39,8 @@ public final class ExtendedElementLocatorFactory implements ElementLocatorFactor
     public ElementLocator createLocator(Field field) {
         return new ExtendedElementLocator(searchContext, field);
     }
+
+    public ExtendedElementLocator createLocator(By by, boolean shouldCache, boolean caseInsensitive) {
+        return new ExtendedElementLocator(searchContext, by, shouldCache, caseInsensitive);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,313 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.locator;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Formattable;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.openqa.selenium.By;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.jersey.core.util.Base64;
+
+import io.appium.java_client.MobileBy;
+
+/**
+ * Locator parsed once into a typed strategy and a format template with %s slots.
+ * Formatting fills the slots without {@link String#format(String, Object...)} and reuses locators generated
+ * for the same immutable arguments, so formatting of the same element in a loop (table rows etc.) is cheap.
+ * Templates with other format specifiers are still formatted by {@link String#format(String, Object...)}.
+ *
+ * Usage: LocatorTemplate.of(by).format(false, "row", 1) or LocatorTemplate.of(by).formatForListItem(2)
+ */
+public final class LocatorTemplate {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final int MAX_TEMPLATES = 10000;
+    private static final int MAX_FORMATTED_LOCATORS = 1000;
+
+    private static final ConcurrentHashMap<String, LocatorTemplate> templates = new ConcurrentHashMap<>();
+
+    private final Strategy strategy;
+    private final String value;
+    // literal parts between %s slots, null if template can't be filled without String.format
+    private final String[] literals;
+    private final ConcurrentHashMap<FormatKey, By> formatted = new ConcurrentHashMap<>();
+
+    private LocatorTemplate(String locator) {
+        this.strategy = Strategy.find(locator);
+        this.value = strategy != null ? locator.substring(strategy.prefix.length()) : null;
+        this.literals = value != null ? parse(value) : null;
+    }
+
+    /**
+     * Returns parsed template of the locator. Templates are shared between elements with the same locator.
+     *
+     * @param by By
+     * @return LocatorTemplate
+     */
+    public static LocatorTemplate of(By by) {
+        String locator = by.toString();
+        LocatorTemplate template = templates.get(locator);
+        if (template == null) {
+            if (templates.size() >= MAX_TEMPLATES) {
+                templates.clear();
+            }
+            template = templates.computeIfAbsent(locator, LocatorTemplate::new);
+        }
+        return template;
+    }
+
+    /**
+     * Generates locator replacing format specifiers by arguments.
+     *
+     * @param caseInsensitive generate case insensitive XPath
+     * @param args format arguments
+     * @return By or null if locator type is not supported
+     */
+    public By format(boolean caseInsensitive, Object... args) {
+        if (strategy == null) {
+            return null;
+        }
+
+        if (strategy == Strategy.IMAGE) {
+            return image(render(args));
+        }
+
+        FormatKey key = FormatKey.of(caseInsensitive, args);
+        if (key != null) {
+            By by = formatted.get(key);
+            if (by != null) {
+                return by;
+            }
+        }
+
+        String locator = render(args);
+        By by;
+        if (strategy == Strategy.XPATH && caseInsensitive) {
+            // return by using toCaseInsensitive(locator) method. To avoid double By.xpath during formatting
+            by = ExtendedElementLocator.toCaseInsensitive(locator);
+        } else {
+            by = strategy.create(locator);
+        }
+
+        if (key != null && formatted.size() < MAX_FORMATTED_LOCATORS) {
+            formatted.put(key.copy(), by);
+        }
+        return by;
+    }
+
+    /**
+     * Generates locator of the list item with specified index.
+     *
+     * @param index 1-based item index
+     * @return By or null if locator type is not supported
+     */
+    public By formatForListItem(int index) {
+        if (strategy == null) {
+            return null;
+        }
+
+        switch (strategy.listIndex) {
+        case BRACKETS:
+            return strategy.create(value + "[" + index + "]");
+        case NTH_CHILD:
+            return strategy.create(value + ":nth-child(" + index + ")");
+        default:
+            return null;
+        }
+    }
+
+    String render(Object... args) {
+        if (literals == null || args == null || args.length < literals.length - 1) {
+            // also reports missing arguments the same way as before
+            return String.format(value, args);
+        }
+
+        if (literals.length == 1) {
+            return literals[0];
+        }
+
+        StringBuilder sb = new StringBuilder(value.length() + 16 * (literals.length - 1));
+        sb.append(literals[0]);
+        for (int i = 1; i < literals.length; i++) {
+            Object arg = args[i - 1];
+            if (arg instanceof Formattable) {
+                return String.format(value, args);
+            }
+            sb.append(arg).append(literals[i]);
+        }
+        return sb.toString();
+    }
+
+    private static String[] parse(String template) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int length = template.length();
+        for (int i = 0; i < length; i++) {
+            char c = template.charAt(i);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            if (i + 1 == length) {
+                return null;
+            }
+            char next = template.charAt(++i);
+            if (next == 's') {
+                parts.add(literal.toString());
+                literal.setLength(0);
+            } else if (next == '%') {
+                literal.append('%');
+            } else if (next == 'n') {
+                literal.append(System.lineSeparator());
+            } else {
+                // flags, width, indexes or other conversions
+                return null;
+            }
+        }
+        parts.add(literal.toString());
+        return parts.toArray(new String[0]);
+    }
+
+    private static By image(String formattedLocator) {
+        Path path = Paths.get(formattedLocator);
+        LOGGER.debug("Formatted locator is : " + formattedLocator);
+        String base64image;
+        try {
+            base64image = new String(Base64.encode(Files.readAllBytes(path)));
+        } catch (IOException e) {
+            throw new RuntimeException(
+                    "Error while reading image file after formatting. Formatted locator : " + formattedLocator, e);
+        }
+        LOGGER.debug("Base64 image representation has benn successfully obtained after formatting.");
+        return MobileBy.image(base64image);
+    }
+
+    private enum ListIndex {
+        BRACKETS,
+        NTH_CHILD,
+        NONE
+    }
+
+    private enum Strategy {
+        ID("By.id: ", By::id, ListIndex.BRACKETS),
+        NAME("By.name: ", By::name, ListIndex.BRACKETS),
+        XPATH("By.xpath: ", By::xpath, ListIndex.BRACKETS),
+        CSS_SELECTOR("By.cssSelector: ", By::cssSelector, ListIndex.NTH_CHILD),
+        LINK_TEXT("By.linkText: ", By::linkText, ListIndex.NONE),
+        PARTIAL_LINK_TEXT("By.partialLinkText: ", By::partialLinkText, ListIndex.NONE),
+        TAG_NAME("By.tagName: ", By::tagName, ListIndex.NONE),
+        CLASS_NAME("By.className: ", By::className, ListIndex.NONE),
+        // short prefixes of custom locators
+        SHORT_LINK_TEXT("linkText: ", By::linkText, ListIndex.BRACKETS),
+        SHORT_PARTIAL_LINK_TEXT("partialLinkText: ", By::partialLinkText, ListIndex.BRACKETS),
+        SHORT_CSS("css: ", By::cssSelector, ListIndex.NTH_CHILD),
+        SHORT_TAG_NAME("tagName: ", By::tagName, ListIndex.BRACKETS),
+        /*
+         * All ClassChain locators start from **. e.g FindBy(xpath = "**'/XCUIElementTypeStaticText[`name CONTAINS[cd] '%s'`]")
+         */
+        IOS_CLASS_CHAIN("By.IosClassChain: **", MobileBy::iOSClassChain, ListIndex.BRACKETS),
+        IOS_NS_PREDICATE("By.IosNsPredicate: **", MobileBy::iOSNsPredicateString, ListIndex.BRACKETS),
+        ACCESSIBILITY_ID("By.AccessibilityId: ", MobileBy::AccessibilityId, ListIndex.BRACKETS),
+        ANDROID_UI_AUTOMATOR("By.AndroidUIAutomator: ", MobileBy::AndroidUIAutomator, ListIndex.NONE),
+        IMAGE("By.Image: ", null, ListIndex.NONE);
+
+        private final String prefix;
+        private final Function<String, By> factory;
+        private final ListIndex listIndex;
+
+        Strategy(String prefix, Function<String, By> factory, ListIndex listIndex) {
+            // ** of ClassChain and NsPredicate locators is a part of the value
+            this.prefix = prefix.endsWith("**") ? prefix.substring(0, prefix.length() - 2) : prefix;
+            this.factory = factory;
+            this.listIndex = listIndex;
+        }
+
+        private By create(String value) {
+            return factory.apply(value);
+        }
+
+        private static Strategy find(String locator) {
+            for (Strategy strategy : values()) {
+                if (locator.startsWith(strategy.prefix)
+                        && (strategy != IOS_CLASS_CHAIN && strategy != IOS_NS_PREDICATE || locator.startsWith("**", strategy.prefix.length()))) {
+                    return strategy;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class FormatKey {
+        private final boolean caseInsensitive;
+        private final Object[] args;
+        private final int hash;
+
+        private FormatKey(boolean caseInsensitive, Object[] args) {
+            this.caseInsensitive = caseInsensitive;
+            this.args = args;
+            this.hash = 31 * Arrays.hashCode(args) + (caseInsensitive ? 1 : 0);
+        }
+
+        /**
+         * Creates key for immutable arguments only as generated locator can't be reused for mutable ones.
+         */
+        private static FormatKey of(boolean caseInsensitive, Object[] args) {
+            if (args == null) {
+                return null;
+            }
+            for (Object arg : args) {
+                if (!(arg instanceof String || arg instanceof Integer || arg instanceof Long || arg instanceof Short
+                        || arg instanceof Byte || arg instanceof Character || arg instanceof Boolean || arg instanceof Enum)) {
+                    return null;
+                }
+            }
+            return new FormatKey(caseInsensitive, args);
+        }
+
+        /**
+         * Returns key which doesn't depend on the caller arguments array
+         */
+        private FormatKey copy() {
+            return new FormatKey(caseInsensitive, args.clone());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof FormatKey)) {
+                return false;
+            }
+            FormatKey other = (FormatKey) obj;
+            return caseInsensitive == other.caseInsensitive && Arrays.equals(args, other.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
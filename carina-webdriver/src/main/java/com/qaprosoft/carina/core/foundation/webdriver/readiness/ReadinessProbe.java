@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.readiness;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.retry.FailureClassifier;
+
+/**
+ * Verifies page readiness evaluating all configured signals by a single script per poll.
+ * Polling interval starts from {@link #MIN_POLLING_INTERVAL} and grows till {@link #MAX_POLLING_INTERVAL} while page is busy.
+ * States observed during the last wait are kept as a timeline for diagnostics.
+ * Failures of the probe which mean unavailable driver (lost session, grid connectivity etc.) are rethrown instead of polling.
+ *
+ * Usage: new ReadinessProbe().withSignal(Signal.FETCH).withHook("app", "window.app.isIdle()").waitUntilReady(executor, 30)
+ */
+public class ReadinessProbe {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final long MIN_POLLING_INTERVAL = 50;
+    public static final long MAX_POLLING_INTERVAL = 500;
+
+    public enum Signal {
+        // document.readyState is 'complete'
+        READY_STATE,
+        // no active jQuery requests, ignored when jQuery is absent
+        JQUERY,
+        // no fetch requests in flight, counted since the first probe on the page
+        FETCH,
+        // no XMLHttpRequest in flight, counted since the first probe on the page
+        XHR,
+        // no finite CSS/Web animations are running, infinite ones (spinners etc.) are ignored
+        ANIMATIONS
+    }
+
+    // counts requests in flight patching fetch and XMLHttpRequest once per document
+    private static final String REQUEST_TRACKER = "var t = window.__carinaReadiness;"
+            + "if (!t) {"
+            + "  t = window.__carinaReadiness = {fetch: 0, xhr: 0};"
+            + "  if (window.fetch) {"
+            + "    var originalFetch = window.fetch;"
+            + "    window.fetch = function() {"
+            + "      t.fetch++;"
+            + "      var p;"
+            + "      try { p = originalFetch.apply(this, arguments); } catch (e) { t.fetch--; throw e; }"
+            + "      return p.then(function(v) { t.fetch--; return v; }, function(e) { t.fetch--; throw e; });"
+            + "    };"
+            + "  }"
+            + "  if (window.XMLHttpRequest) {"
+            + "    var originalSend = XMLHttpRequest.prototype.send;"
+            + "    XMLHttpRequest.prototype.send = function() {"
+            + "      var done = false;"
+            + "      var finish = function() { if (!done) { done = true; t.xhr--; } };"
+            + "      t.xhr++;"
+            + "      this.addEventListener('loadend', finish);"
+            + "      try { return originalSend.apply(this, arguments); } catch (e) { finish(); throw e; }"
+            + "    };"
+            + "  }"
+            + "}";
+
+    private final Set<Signal> signals = EnumSet.noneOf(Signal.class);
+    private final Map<String, String> hooks = new LinkedHashMap<>();
+    private String script;
+
+    private List<ReadinessState> timeline = Collections.emptyList();
+
+    /**
+     * Creates probe of document.readyState and jQuery activity
+     */
+    public ReadinessProbe() {
+        this(Signal.READY_STATE, Signal.JQUERY);
+    }
+
+    public ReadinessProbe(Signal... signals) {
+        for (Signal signal : signals) {
+            withSignal(signal);
+        }
+    }
+
+    public ReadinessProbe withSignal(Signal signal) {
+        signals.add(signal);
+        script = null;
+        return this;
+    }
+
+    /**
+     * Adds custom application readiness check
+     *
+     * @param name hook name for diagnostics
+     * @param expression JavaScript expression which is truthy when application is ready
+     * @return ReadinessProbe
+     */
+    public ReadinessProbe withHook(String name, String expression) {
+        hooks.put(name, expression);
+        script = null;
+        return this;
+    }
+
+    /**
+     * Evaluates all signals by a single script execution
+     *
+     * @param executor JavascriptExecutor
+     * @return ReadinessState
+     */
+    public ReadinessState probe(JavascriptExecutor executor) {
+        return probe(executor, 0);
+    }
+
+    /**
+     * Polls page state till all signals report ready page
+     *
+     * @param executor JavascriptExecutor
+     * @param timeout sec
+     * @return true if page is ready within timeout
+     */
+    public boolean waitUntilReady(JavascriptExecutor executor, long timeout) {
+        List<ReadinessState> states = new ArrayList<>();
+        timeline = Collections.unmodifiableList(states);
+
+        long start = System.currentTimeMillis();
+        long deadline = start + timeout * 1000;
+        long interval = MIN_POLLING_INTERVAL;
+        while (true) {
+            ReadinessState state = probe(executor, System.currentTimeMillis() - start);
+            // keep state changes only
+            if (states.isEmpty() || !state.isSameState(states.get(states.size() - 1))) {
+                states.add(state);
+            }
+            if (state.isReady()) {
+                LOGGER.debug("Page is ready: " + state);
+                return true;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                LOGGER.warn("Page is not ready in " + timeout + " sec. Readiness timeline:\n" + getTimelineAsString());
+                return false;
+            }
+
+            try {
+                Thread.sleep(Math.min(interval, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            interval = Math.min(interval * 2, MAX_POLLING_INTERVAL);
+        }
+    }
+
+    /**
+     * Returns page state changes observed during the last wait
+     *
+     * @return List of ReadinessState
+     */
+    public List<ReadinessState> getTimeline() {
+        return timeline;
+    }
+
+    public String getTimelineAsString() {
+        StringBuilder sb = new StringBuilder();
+        for (ReadinessState state : timeline) {
+            sb.append(state).append('\n');
+        }
+        return sb.toString();
+    }
+
+    String getScript() {
+        if (script == null) {
+            script = buildScript();
+        }
+        return script;
+    }
+
+    private ReadinessState probe(JavascriptExecutor executor, long elapsed) {
+        Object result;
+        try {
+            result = executor.executeScript(getScript());
+        } catch (WebDriverException e) {
+            if (FailureClassifier.classify(e).isDriverUnavailable()) {
+                // lost session or driver never becomes ready
+                throw e;
+            }
+            // page could be reloaded during the probe
+            return ReadinessState.failed(elapsed, e.getClass().getSimpleName());
+        }
+
+        if (!(result instanceof Map)) {
+            return ReadinessState.failed(elapsed, "Unexpected probe result: " + result);
+        }
+
+        Map<?, ?> state = (Map<?, ?>) result;
+        Map<String, Boolean> hookStates = new LinkedHashMap<>();
+        Object hookResults = state.get("hooks");
+        for (String name : hooks.keySet()) {
+            Object value = hookResults instanceof Map ? ((Map<?, ?>) hookResults).get(name) : null;
+            hookStates.put(name, Boolean.TRUE.equals(value));
+        }
+        Object readyState = state.get("readyState");
+        return new ReadinessState(elapsed, readyState != null ? readyState.toString() : "complete", toLong(state.get("jQuery")),
+                toLong(state.get("fetch")), toLong(state.get("xhr")), toLong(state.get("animations")), hookStates, null);
+    }
+
+    private String buildScript() {
+        StringBuilder sb = new StringBuilder("var s = {hooks: {}};");
+        if (signals.contains(Signal.READY_STATE)) {
+            sb.append("s.readyState = document.readyState;");
+        }
+        if (signals.contains(Signal.JQUERY)) {
+            sb.append("try { s.jQuery = window.jQuery ? window.jQuery.active : 0; } catch (e) { s.jQuery = 0; }");
+        }
+        if (signals.contains(Signal.FETCH) || signals.contains(Signal.XHR)) {
+            sb.append(REQUEST_TRACKER);
+            if (signals.contains(Signal.FETCH)) {
+                sb.append("s.fetch = t.fetch;");
+            }
+            if (signals.contains(Signal.XHR)) {
+                sb.append("s.xhr = t.xhr;");
+            }
+        }
+        if (signals.contains(Signal.ANIMATIONS)) {
+            sb.append("s.animations = 0;"
+                    + "if (document.getAnimations) {"
+                    + "  document.getAnimations().forEach(function(a) {"
+                    + "    if (a.playState === 'running' && a.effect && a.effect.getTiming().iterations !== Infinity) { s.animations++; }"
+                    + "  });"
+                    + "}");
+        }
+        for (Map.Entry<String, String> hook : hooks.entrySet()) {
+            sb.append("try { s.hooks[").append(toJsString(hook.getKey())).append("] = !!(").append(hook.getValue())
+                    .append("); } catch (e) { s.hooks[").append(toJsString(hook.getKey())).append("] = false; }");
+        }
+        sb.append("return s;");
+        return sb.toString();
+    }
+
+    private static String toJsString(String value) {
+        return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+}
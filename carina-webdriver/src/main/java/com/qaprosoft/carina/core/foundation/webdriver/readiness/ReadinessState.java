@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.readiness;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Page state returned by a single {@link ReadinessProbe} script evaluation.
+ * Counters of signals which are not probed are 0.
+ */
+public class ReadinessState {
+    private final long elapsed;
+    private final String readyState;
+    private final long jQueryActive;
+    private final long fetchInFlight;
+    private final long xhrInFlight;
+    private final long animations;
+    private final Map<String, Boolean> hooks;
+    private final String error;
+
+    ReadinessState(long elapsed, String readyState, long jQueryActive, long fetchInFlight, long xhrInFlight, long animations,
+            Map<String, Boolean> hooks, String error) {
+        this.elapsed = elapsed;
+        this.readyState = readyState;
+        this.jQueryActive = jQueryActive;
+        this.fetchInFlight = fetchInFlight;
+        this.xhrInFlight = xhrInFlight;
+        this.animations = animations;
+        this.hooks = Collections.unmodifiableMap(new LinkedHashMap<>(hooks));
+        this.error = error;
+    }
+
+    static ReadinessState failed(long elapsed, String error) {
+        return new ReadinessState(elapsed, null, 0, 0, 0, 0, Collections.emptyMap(), error);
+    }
+
+    /**
+     * Verify if all probed signals report ready page
+     *
+     * @return boolean
+     */
+    public boolean isReady() {
+        if (error != null || !"complete".equals(readyState)) {
+            return false;
+        }
+        if (jQueryActive > 0 || fetchInFlight > 0 || xhrInFlight > 0 || animations > 0) {
+            return false;
+        }
+        return !hooks.containsValue(Boolean.FALSE);
+    }
+
+    /**
+     * Returns time since the beginning of the wait
+     *
+     * @return long ms
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    public String getReadyState() {
+        return readyState;
+    }
+
+    public long getJQueryActive() {
+        return jQueryActive;
+    }
+
+    public long getFetchInFlight() {
+        return fetchInFlight;
+    }
+
+    public long getXhrInFlight() {
+        return xhrInFlight;
+    }
+
+    public long getAnimations() {
+        return animations;
+    }
+
+    public Map<String, Boolean> getHooks() {
+        return hooks;
+    }
+
+    /**
+     * Returns error of the probe script execution
+     *
+     * @return String or null if state was probed successfully
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Verify if page state is the same ignoring elapsed time
+     *
+     * @param other ReadinessState
+     * @return boolean
+     */
+    boolean isSameState(ReadinessState other) {
+        return other != null && describe().equals(other.describe());
+    }
+
+    private String describe() {
+        if (error != null) {
+            return "error=" + error;
+        }
+        return String.format("readyState=%s, jQuery=%d, fetch=%d, xhr=%d, animations=%d, hooks=%s", readyState, jQueryActive, fetchInFlight,
+                xhrInFlight, animations, hooks);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("+%d ms: %s", elapsed, describe());
+    }
+}
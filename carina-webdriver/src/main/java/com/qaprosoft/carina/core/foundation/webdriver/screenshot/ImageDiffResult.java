@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.screenshot;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Statistics of two images comparison produced by {@link TiledImageDiffer}.
+ * Marked image is generated only on demand using collected diff masks.
+ */
+public class ImageDiffResult {
+    private static final int MARK_COLOR = Color.RED.getRGB();
+
+    private final BufferedImage actual;
+    private final int width;
+    private final int height;
+    private final long diffPixels;
+    private final long threshold;
+    private final Rectangle diffBounds;
+    private final boolean sizeDifferent;
+    private final boolean complete;
+    private final boolean masked;
+    private final Collection<TileDiff> tileDiffs;
+
+    private BufferedImage markedImage;
+
+    ImageDiffResult(BufferedImage actual, int width, int height, long diffPixels, long threshold, Rectangle diffBounds,
+            boolean sizeDifferent, boolean complete, boolean masked, Collection<TileDiff> tileDiffs) {
+        this.actual = actual;
+        this.width = width;
+        this.height = height;
+        this.diffPixels = diffPixels;
+        this.threshold = threshold;
+        this.diffBounds = diffBounds;
+        this.sizeDifferent = sizeDifferent;
+        this.complete = complete;
+        this.masked = masked;
+        this.tileDiffs = tileDiffs;
+    }
+
+    /**
+     * Verify if number of different pixels exceeds the allowed threshold
+     *
+     * @return boolean
+     */
+    public boolean hasDiff() {
+        return diffPixels > threshold;
+    }
+
+    /**
+     * Returns number of different pixels. If comparison was interrupted by early exit it is a lower bound only.
+     *
+     * @return long
+     */
+    public long getDiffPixels() {
+        return diffPixels;
+    }
+
+    public long getComparedPixels() {
+        return (long) width * height;
+    }
+
+    public double getDiffRatio() {
+        return getComparedPixels() == 0 ? 0 : (double) diffPixels / getComparedPixels();
+    }
+
+    /**
+     * Returns bounding rectangle of all detected differences.
+     *
+     * @return Rectangle or null if there is no difference
+     */
+    public Rectangle getDiffBounds() {
+        return diffBounds;
+    }
+
+    public boolean isSizeDifferent() {
+        return sizeDifferent;
+    }
+
+    /**
+     * Verify if all tiles were compared, i.e. comparison was not interrupted by early exit
+     *
+     * @return boolean
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Generates copy of actual image with all different pixels marked by red color.
+     *
+     * @return marked image or null if comparison was executed in early exit mode
+     */
+    public synchronized BufferedImage getMarkedImage() {
+        if (!masked) {
+            return null;
+        }
+
+        if (markedImage == null) {
+            markedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = markedImage.createGraphics();
+            try {
+                graphics.drawImage(actual, 0, 0, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            for (TileDiff tileDiff : tileDiffs) {
+                BitSet mask = tileDiff.mask;
+                for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+                    markedImage.setRGB(tileDiff.x + i % tileDiff.width, tileDiff.y + i / tileDiff.width, MARK_COLOR);
+                }
+            }
+        }
+        return markedImage;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImageDiffResult [diffPixels=%d, comparedPixels=%d, diffBounds=%s, sizeDifferent=%s, complete=%s]",
+                diffPixels, getComparedPixels(), diffBounds, sizeDifferent, complete);
+    }
+
+    /**
+     * Different pixels of a single tile. Bit index is y * width + x relatively to the tile origin.
+     * Mask is absent when comparison was executed in early exit mode.
+     */
+    static class TileDiff {
+        private final int x;
+        private final int y;
+        private final int width;
+        private final BitSet mask;
+        private final Rectangle bounds;
+
+        TileDiff(int x, int y, int width, BitSet mask, Rectangle bounds) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.mask = mask;
+            this.bounds = bounds;
+        }
+
+        Rectangle getBounds() {
+            return bounds;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.screenshot;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.performance.RunStatistics;
+import com.qaprosoft.carina.core.foundation.report.ReportContext;
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * Skips rule based screenshots which are visually identical to the previous one of the same test.
+ * Similarity is detected using difference hash (dHash) of downscaled grayscale frame and hamming distance between hashes.
+ * Disabled by default, enable it declaring screenshot_dedup_distance=[0..64] in config.properties.
+ */
+public class ScreenshotDeduplicator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final int HASH_WIDTH = 9;
+    private static final int HASH_HEIGHT = 8;
+    private static final int MAX_DISTANCE = 64;
+
+    private static final ThreadLocal<CapturedScreen> lastScreen = new ThreadLocal<CapturedScreen>();
+
+    private static final AtomicLong duplicates = new AtomicLong();
+    private static final AtomicLong savedBytes = new AtomicLong();
+    private static final AtomicLong savedEncodeTime = new AtomicLong();
+    private static final AtomicLong encodeTime = new AtomicLong();
+
+    static {
+        RunStatistics.register(ScreenshotDeduplicator.class.getName(), () -> !isEnabled(), ScreenshotDeduplicator::getStatistics,
+                ScreenshotDeduplicator::reset);
+    }
+
+    private ScreenshotDeduplicator() {
+        // hide default constructor
+    }
+
+    /**
+     * Verify if screenshot deduplication is enabled
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return getDistance() >= 0;
+    }
+
+    /**
+     * Calculates 64-bit difference hash of the image.
+     *
+     * @param image BufferedImage
+     * @return long hash
+     */
+    public static long hash(BufferedImage image) {
+        // every hash pixel is an average of the whole source area, single interpolated step would sample few source pixels only
+        Image scaled = image.getScaledInstance(HASH_WIDTH, HASH_HEIGHT, Image.SCALE_AREA_AVERAGING);
+        BufferedImage gray = new BufferedImage(HASH_WIDTH, HASH_HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = gray.createGraphics();
+        try {
+            graphics.drawImage(scaled, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        Raster raster = gray.getRaster();
+        long hash = 0;
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH - 1; x++) {
+                hash <<= 1;
+                if (raster.getSample(x, y, 0) < raster.getSample(x + 1, y, 0)) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns hamming distance between two hashes.
+     *
+     * @param hash1 long
+     * @param hash2 long
+     * @return number of different bits
+     */
+    public static int distance(long hash1, long hash2) {
+        return Long.bitCount(hash1 ^ hash2);
+    }
+
+    /**
+     * Returns name of the previous screenshot of the current test if it is similar to the hash within configured distance.
+     *
+     * @param hash long
+     * @return previous screenshot name or null if screenshot should be captured
+     */
+    public static String getDuplicate(long hash) {
+        CapturedScreen screen = lastScreen.get();
+        if (screen == null || !screen.testDir.equals(ReportContext.getTestDir().getAbsolutePath())) {
+            return null;
+        }
+
+        int distance = distance(screen.hash, hash);
+        if (distance > getDistance()) {
+            return null;
+        }
+
+        duplicates.incrementAndGet();
+        savedBytes.addAndGet(screen.size);
+        savedEncodeTime.addAndGet(screen.encodeTime);
+        LOGGER.debug(String.format("Screenshot is similar to '%s' (distance: %d) and will be skipped.", screen.name, distance));
+        return screen.name;
+    }
+
+    /**
+     * Registers captured screenshot as the reference for the next screenshots of the current test.
+     *
+     * @param name screenshot name
+     * @param hash long
+     * @param file stored screenshot file
+     * @param encodeTime time in ms spent on screenshot resizing and encoding
+     */
+    public static void register(String name, long hash, File file, long encodeTime) {
+        ScreenshotDeduplicator.encodeTime.addAndGet(encodeTime);
+        lastScreen.set(new CapturedScreen(ReportContext.getTestDir().getAbsolutePath(), name, hash, file.length(), encodeTime));
+    }
+
+    public static long getDuplicates() {
+        return duplicates.get();
+    }
+
+    public static long getSavedBytes() {
+        return savedBytes.get();
+    }
+
+    public static long getSavedEncodeTime() {
+        return savedEncodeTime.get();
+    }
+
+    public static long getEncodeTime() {
+        return encodeTime.get();
+    }
+
+    public static void reset() {
+        duplicates.set(0);
+        savedBytes.set(0);
+        savedEncodeTime.set(0);
+        encodeTime.set(0);
+    }
+
+    public static String getStatistics() {
+        return String.format("Screenshot deduplication: skipped %d screenshot(s), saved %d bytes and %d ms of encoding (spent %d ms).",
+                getDuplicates(), getSavedBytes(), getSavedEncodeTime(), getEncodeTime());
+    }
+
+    private static int getDistance() {
+        String distance = Configuration.get(Parameter.SCREENSHOT_DEDUP_DISTANCE).trim();
+        if (distance.isEmpty()) {
+            return -1;
+        }
+
+        try {
+            return Math.min(Integer.parseInt(distance), MAX_DISTANCE);
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid screenshot_dedup_distance value: " + distance);
+            return -1;
+        }
+    }
+
+    private static class CapturedScreen {
+        private final String testDir;
+        private final String name;
+        private final long hash;
+        private final long size;
+        private final long encodeTime;
+
+        public CapturedScreen(String testDir, String name, long hash, long size, long encodeTime) {
+            this.testDir = testDir;
+            this.name = name;
+            this.hash = hash;
+            this.size = size;
+            this.encodeTime = encodeTime;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.screenshot;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.qaprosoft.carina.core.foundation.webdriver.screenshot.ImageDiffResult.TileDiff;
+
+/**
+ * Image comparison engine which splits images into tiles and compares their int[] rasters in parallel on ForkJoin pool.
+ * Pixels are different when any RGB channel differs more than color tolerance (the same as AShot's color distortion).
+ * Pixels outside of one of the images are always different.
+ *
+ * Usage: new TiledImageDiffer().withColorTolerance(10).withIgnoredRegion(header).makeDiff(expected, actual)
+ */
+public class TiledImageDiffer {
+    public static final int DEFAULT_TILE_SIZE = 256;
+    // the same as default AShot color distortion
+    public static final int DEFAULT_COLOR_TOLERANCE = 15;
+
+    private static final ForkJoinPool DEFAULT_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    // reusable raster buffers of expected and actual tiles per pool thread
+    private static final ThreadLocal<int[][]> tileBuffers = ThreadLocal.withInitial(() -> new int[][] { new int[0], new int[0] });
+
+    private int tileSize = DEFAULT_TILE_SIZE;
+    private int colorTolerance = DEFAULT_COLOR_TOLERANCE;
+    private long pixelThreshold = 0;
+    private boolean earlyExit = false;
+    private List<Rectangle> ignoredRegions = new ArrayList<>();
+    private ForkJoinPool pool = DEFAULT_POOL;
+
+    public TiledImageDiffer withTileSize(int tileSize) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("Tile size should be positive: " + tileSize);
+        }
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    public TiledImageDiffer withColorTolerance(int colorTolerance) {
+        this.colorTolerance = colorTolerance;
+        return this;
+    }
+
+    /**
+     * Number of different pixels which is still treated as no difference.
+     *
+     * @param pixelThreshold long
+     * @return TiledImageDiffer
+     */
+    public TiledImageDiffer withPixelThreshold(long pixelThreshold) {
+        this.pixelThreshold = pixelThreshold;
+        return this;
+    }
+
+    /**
+     * Stop comparison as soon as different pixels exceed the threshold. Marked image is not available in this mode.
+     *
+     * @param earlyExit boolean
+     * @return TiledImageDiffer
+     */
+    public TiledImageDiffer withEarlyExit(boolean earlyExit) {
+        this.earlyExit = earlyExit;
+        return this;
+    }
+
+    public TiledImageDiffer withIgnoredRegion(Rectangle region) {
+        this.ignoredRegions.add(new Rectangle(region));
+        return this;
+    }
+
+    public TiledImageDiffer withIgnoredRegions(Collection<Rectangle> regions) {
+        for (Rectangle region : regions) {
+            withIgnoredRegion(region);
+        }
+        return this;
+    }
+
+    public TiledImageDiffer withPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Compares two images
+     *
+     * @param expected BufferedImage
+     * @param actual BufferedImage
+     * @return ImageDiffResult
+     */
+    public ImageDiffResult makeDiff(BufferedImage expected, BufferedImage actual) {
+        Comparison comparison = new Comparison(expected, actual);
+        pool.invoke(new TileRangeTask(comparison, 0, comparison.tilesX * comparison.tilesY));
+
+        Rectangle diffBounds = null;
+        for (TileDiff tileDiff : comparison.tileDiffs) {
+            diffBounds = diffBounds == null ? tileDiff.getBounds() : diffBounds.union(tileDiff.getBounds());
+        }
+
+        return new ImageDiffResult(actual, comparison.width, comparison.height, comparison.diffPixels.get(), pixelThreshold,
+                diffBounds, comparison.sizeDifferent, !comparison.stopped, !earlyExit, new ArrayList<>(comparison.tileDiffs));
+    }
+
+    private boolean isDifferent(int expectedPixel, int actualPixel) {
+        if (expectedPixel == actualPixel) {
+            return false;
+        }
+        return Math.abs(((expectedPixel >> 16) & 0xFF) - ((actualPixel >> 16) & 0xFF)) > colorTolerance
+                || Math.abs(((expectedPixel >> 8) & 0xFF) - ((actualPixel >> 8) & 0xFF)) > colorTolerance
+                || Math.abs((expectedPixel & 0xFF) - (actualPixel & 0xFF)) > colorTolerance;
+    }
+
+    /**
+     * Reads rectangle of image pixels in default RGB color model. Int rasters are copied directly without color conversion.
+     */
+    private static void readPixels(BufferedImage image, int x, int y, int width, int height, int[] buffer) {
+        int type = image.getType();
+        if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                && image.getRaster().getDataBuffer() instanceof DataBufferInt
+                && image.getRaster().getSampleModel() instanceof SinglePixelPackedSampleModel
+                && image.getRaster().getParent() == null) {
+            int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            int stride = ((SinglePixelPackedSampleModel) image.getRaster().getSampleModel()).getScanlineStride();
+            for (int row = 0; row < height; row++) {
+                System.arraycopy(data, (y + row) * stride + x, buffer, row * width, width);
+            }
+        } else {
+            image.getRGB(x, y, width, height, buffer, 0, width);
+        }
+    }
+
+    private class Comparison {
+        private final BufferedImage expected;
+        private final BufferedImage actual;
+        private final int width;
+        private final int height;
+        private final int commonWidth;
+        private final int commonHeight;
+        private final int tilesX;
+        private final int tilesY;
+        private final boolean sizeDifferent;
+
+        private final AtomicLong diffPixels = new AtomicLong();
+        private final ConcurrentLinkedQueue<TileDiff> tileDiffs = new ConcurrentLinkedQueue<>();
+        private volatile boolean stopped = false;
+
+        Comparison(BufferedImage expected, BufferedImage actual) {
+            this.expected = expected;
+            this.actual = actual;
+            this.width = Math.max(expected.getWidth(), actual.getWidth());
+            this.height = Math.max(expected.getHeight(), actual.getHeight());
+            this.commonWidth = Math.min(expected.getWidth(), actual.getWidth());
+            this.commonHeight = Math.min(expected.getHeight(), actual.getHeight());
+            this.tilesX = (width + tileSize - 1) / tileSize;
+            this.tilesY = (height + tileSize - 1) / tileSize;
+            this.sizeDifferent = expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight();
+        }
+
+        void compareTile(int tile, int[] expectedBuffer, int[] actualBuffer) {
+            int tileX = (tile % tilesX) * tileSize;
+            int tileY = (tile / tilesX) * tileSize;
+            int tileWidth = Math.min(tileSize, width - tileX);
+            int tileHeight = Math.min(tileSize, height - tileY);
+            Rectangle tileRect = new Rectangle(tileX, tileY, tileWidth, tileHeight);
+
+            List<Rectangle> tileIgnoredRegions = new ArrayList<>();
+            for (Rectangle region : ignoredRegions) {
+                if (region.contains(tileRect)) {
+                    // whole tile is ignored
+                    return;
+                }
+                if (region.intersects(tileRect)) {
+                    tileIgnoredRegions.add(region);
+                }
+            }
+
+            // part of the tile which belongs to both images
+            int readWidth = Math.max(0, Math.min(tileWidth, commonWidth - tileX));
+            int readHeight = Math.max(0, Math.min(tileHeight, commonHeight - tileY));
+            if (readWidth > 0 && readHeight > 0) {
+                readPixels(expected, tileX, tileY, readWidth, readHeight, expectedBuffer);
+                readPixels(actual, tileX, tileY, readWidth, readHeight, actualBuffer);
+            }
+
+            BitSet mask = null;
+            long tileDiffPixels = 0;
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+            for (int y = 0; y < tileHeight; y++) {
+                if (stopped) {
+                    return;
+                }
+                for (int x = 0; x < tileWidth; x++) {
+                    boolean different;
+                    if (x < readWidth && y < readHeight) {
+                        int index = y * readWidth + x;
+                        different = isDifferent(expectedBuffer[index], actualBuffer[index]);
+                    } else {
+                        different = true;
+                    }
+
+                    if (different && !tileIgnoredRegions.isEmpty() && isIgnored(tileIgnoredRegions, tileX + x, tileY + y)) {
+                        different = false;
+                    }
+
+                    if (different) {
+                        tileDiffPixels++;
+                        if (!earlyExit) {
+                            if (mask == null) {
+                                mask = new BitSet(tileWidth * tileHeight);
+                            }
+                            mask.set(y * tileWidth + x);
+                        }
+                        minX = Math.min(minX, x);
+                        minY = Math.min(minY, y);
+                        maxX = Math.max(maxX, x);
+                        maxY = Math.max(maxY, y);
+                    }
+                }
+            }
+
+            if (tileDiffPixels > 0) {
+                long total = diffPixels.addAndGet(tileDiffPixels);
+                tileDiffs.add(new TileDiff(tileX, tileY, tileWidth, mask,
+                        new Rectangle(tileX + minX, tileY + minY, maxX - minX + 1, maxY - minY + 1)));
+                if (earlyExit && total > pixelThreshold) {
+                    stopped = true;
+                }
+            }
+        }
+
+        private boolean isIgnored(List<Rectangle> regions, int x, int y) {
+            for (Rectangle region : regions) {
+                if (region.contains(x, y)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private class TileRangeTask extends RecursiveAction {
+        private final Comparison comparison;
+        private final int from;
+        private final int to;
+
+        TileRangeTask(Comparison comparison, int from, int to) {
+            this.comparison = comparison;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (comparison.stopped || to <= from) {
+                return;
+            }
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TileRangeTask(comparison, from, middle), new TileRangeTask(comparison, middle, to));
+                return;
+            }
+
+            int bufferSize = tileSize * tileSize;
+            int[][] buffers = tileBuffers.get();
+            if (buffers[0].length < bufferSize) {
+                buffers[0] = new int[bufferSize];
+                buffers[1] = new int[bufferSize];
+            }
+            comparison.compareTile(from, buffers[0], buffers[1]);
+        }
+    }
+}
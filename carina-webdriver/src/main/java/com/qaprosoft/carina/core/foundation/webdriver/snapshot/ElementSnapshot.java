@@ -0,0 +1,314 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.snapshot;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.performance.RunStatistics;
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.ExtendedWebElement;
+
+/**
+ * Captures presence, visibility, text and attributes of several elements at once: by a single script in web contexts
+ * or by a single page source parsing in native mobile contexts (page source is reused while {@link PageSourceCache} keeps it). Elements are resolved from the whole page the same way
+ * as {@link ExtendedWebElement#isElementPresent(long)} does, i.e. the first element matching the locator is taken.
+ * Locators which can't be evaluated (chained, UIAutomator, class chain etc.), elements searched inside of other elements
+ * and case insensitive elements are reported as unresolved.
+ *
+ * Usage: new ElementSnapshot(driver).withAttributes("class").take(loginButton, errorLabel)
+ */
+public class ElementSnapshot {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final LongAdder snapshots = new LongAdder();
+    private static final LongAdder elements = new LongAdder();
+    private static final LongAdder commands = new LongAdder();
+    private static final LongAdder fallbacks = new LongAdder();
+
+    static {
+        RunStatistics.register(ElementSnapshot.class.getName(), ElementSnapshot::isEmpty, ElementSnapshot::getStatistics,
+                ElementSnapshot::reset);
+    }
+
+    // arguments[0] - list of [strategy, value] pairs, arguments[1] - names of requested attributes
+    private static final String SNAPSHOT_SCRIPT = "var locators = arguments[0], names = arguments[1], result = [];"
+            + "function byLinkText(value, partial) {"
+            + "  var links = document.getElementsByTagName('a');"
+            + "  for (var i = 0; i < links.length; i++) {"
+            + "    var text = (links[i].innerText || links[i].textContent || '').trim();"
+            + "    if (partial ? text.indexOf(value) >= 0 : text === value) { return links[i]; }"
+            + "  }"
+            + "  return null;"
+            + "}"
+            + "function find(strategy, value) {"
+            + "  switch (strategy) {"
+            + "    case 'xpath': return document.evaluate(value, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;"
+            + "    case 'css': return document.querySelector(value);"
+            + "    case 'id': return document.getElementById(value);"
+            + "    case 'name': return document.getElementsByName(value)[0] || null;"
+            + "    case 'className': return document.getElementsByClassName(value)[0] || null;"
+            + "    case 'tagName': return document.getElementsByTagName(value)[0] || null;"
+            + "    case 'linkText': return byLinkText(value, false);"
+            + "    case 'partialLinkText': return byLinkText(value, true);"
+            + "  }"
+            + "  throw new Error('Unsupported strategy: ' + strategy);"
+            + "}"
+            + "function isVisible(e) {"
+            + "  if (!e.getClientRects || e.getClientRects().length == 0) { return false; }"
+            + "  var style = window.getComputedStyle(e);"
+            + "  return style.visibility != 'hidden' && style.visibility != 'collapse' && style.opacity != '0';"
+            + "}"
+            + "for (var i = 0; i < locators.length; i++) {"
+            + "  try {"
+            + "    var e = find(locators[i][0], locators[i][1]);"
+            + "    if (!e) { result.push({present: false}); continue; }"
+            + "    var visible = isVisible(e), attributes = {};"
+            + "    for (var j = 0; j < names.length; j++) { attributes[names[j]] = e.getAttribute(names[j]); }"
+            + "    result.push({present: true, visible: visible,"
+            + "      text: visible ? (e.innerText || e.textContent || '').trim() : '', attributes: attributes});"
+            + "  } catch (err) {"
+            + "    result.push(null);"
+            + "  }"
+            + "}"
+            + "return result;";
+
+    private enum Strategy {
+        ID("By.id: ", "id"),
+        NAME("By.name: ", "name"),
+        XPATH("By.xpath: ", "xpath"),
+        CSS_SELECTOR("By.cssSelector: ", "css"),
+        LINK_TEXT("By.linkText: ", "linkText"),
+        PARTIAL_LINK_TEXT("By.partialLinkText: ", "partialLinkText"),
+        TAG_NAME("By.tagName: ", "tagName"),
+        CLASS_NAME("By.className: ", "className");
+
+        private final String prefix;
+        private final String script;
+
+        Strategy(String prefix, String script) {
+            this.prefix = prefix;
+            this.script = script;
+        }
+
+        private static Strategy find(String locator) {
+            for (Strategy strategy : values()) {
+                if (locator.startsWith(strategy.prefix)) {
+                    return strategy;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final WebDriver driver;
+    private List<String> attributes = Collections.emptyList();
+    // detected once per snapshot instance, null till the first capture
+    private Boolean nativeContext;
+
+    public ElementSnapshot(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Attributes to capture for every present element.
+     *
+     * @param names attribute names
+     * @return ElementSnapshot
+     */
+    public ElementSnapshot withAttributes(String... names) {
+        this.attributes = Arrays.asList(names);
+        return this;
+    }
+
+    /**
+     * Captures states of the elements.
+     *
+     * @param elements ExtendedWebElement...
+     * @return states in the order of elements
+     */
+    public List<ElementState> take(ExtendedWebElement... elements) {
+        By[] locators = new By[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            // children of other elements and case insensitive locators stay unresolved
+            locators[i] = elements[i].isSearchedByDriver() ? elements[i].getBy() : null;
+        }
+        return take(locators);
+    }
+
+    /**
+     * Captures states of the elements located by the locators.
+     *
+     * @param locators By...
+     * @return states in the order of locators
+     */
+    public List<ElementState> take(By... locators) {
+        List<ElementState> states = new ArrayList<>(Collections.nCopies(locators.length, ElementState.UNRESOLVED));
+
+        if (isNativeContext()) {
+            snapshots.increment();
+            elements.add(locators.length);
+            try {
+                return captureNative(Arrays.asList(locators));
+            } catch (WebDriverException e) {
+                // elements stay unresolved and are verified by regular calls
+                LOGGER.debug("Unable to capture elements snapshot: " + e.getMessage());
+                return states;
+            }
+        }
+
+        List<Integer> indexes = new ArrayList<>();
+        List<Strategy> strategies = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < locators.length; i++) {
+            String locator = locators[i] == null ? "" : locators[i].toString();
+            Strategy strategy = Strategy.find(locator);
+            if (strategy != null) {
+                indexes.add(i);
+                strategies.add(strategy);
+                values.add(locator.substring(strategy.prefix.length()));
+            }
+        }
+
+        if (indexes.isEmpty()) {
+            return states;
+        }
+
+        snapshots.increment();
+        elements.add(indexes.size());
+        commands.increment();
+        try {
+            List<ElementState> captured = captureWeb(strategies, values);
+            for (int i = 0; i < indexes.size(); i++) {
+                states.set(indexes.get(i), captured.get(i));
+            }
+        } catch (WebDriverException e) {
+            // elements stay unresolved and are verified by regular calls
+            LOGGER.debug("Unable to capture elements snapshot: " + e.getMessage());
+        }
+        return states;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ElementState> captureWeb(List<Strategy> strategies, List<String> values) {
+        List<List<String>> locators = new ArrayList<>();
+        for (int i = 0; i < strategies.size(); i++) {
+            locators.add(Arrays.asList(strategies.get(i).script, values.get(i)));
+        }
+
+        Object result = ((JavascriptExecutor) driver).executeScript(SNAPSHOT_SCRIPT, locators, attributes);
+        List<ElementState> states = new ArrayList<>();
+        if (!(result instanceof List) || ((List<Object>) result).size() != strategies.size()) {
+            LOGGER.debug("Unexpected elements snapshot result: " + result);
+            return new ArrayList<>(Collections.nCopies(strategies.size(), ElementState.UNRESOLVED));
+        }
+
+        for (Object item : (List<Object>) result) {
+            if (!(item instanceof Map)) {
+                // locator evaluation failed, e.g. invalid selector
+                states.add(ElementState.UNRESOLVED);
+                continue;
+            }
+            Map<String, Object> entry = (Map<String, Object>) item;
+            if (!Boolean.TRUE.equals(entry.get("present"))) {
+                states.add(ElementState.ABSENT);
+                continue;
+            }
+            Map<String, String> captured = new LinkedHashMap<>();
+            Object attributeValues = entry.get("attributes");
+            if (attributeValues instanceof Map) {
+                ((Map<String, Object>) attributeValues).forEach((name, value) -> captured.put(name, value == null ? null : value.toString()));
+            }
+            Object text = entry.get("text");
+            states.add(new ElementState(true, true, Boolean.TRUE.equals(entry.get("visible")), text == null ? "" : text.toString(),
+                    Collections.unmodifiableMap(captured)));
+        }
+        return states;
+    }
+
+    private List<ElementState> captureNative(List<By> locators) {
+        PageSourceDocument document = PageSourceCache.getCachedDocument(driver);
+        if (document == null) {
+            commands.increment();
+            document = PageSourceCache.refresh(driver);
+        }
+
+        List<ElementState> states = new ArrayList<>();
+        for (By locator : locators) {
+            states.add(document == null ? ElementState.UNRESOLVED : document.find(locator, attributes));
+        }
+        return states;
+    }
+
+    private boolean isNativeContext() {
+        if (nativeContext == null) {
+            nativeContext = PageSourceCache.isNativeContext(driver);
+        }
+        return nativeContext;
+    }
+
+    /**
+     * Registers element verified by regular WebDriver calls because snapshot couldn't resolve it.
+     */
+    public static void recordFallback() {
+        fallbacks.increment();
+    }
+
+    public static long getSnapshots() {
+        return snapshots.sum();
+    }
+
+    public static long getElements() {
+        return elements.sum();
+    }
+
+    public static long getCommands() {
+        return commands.sum();
+    }
+
+    public static long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    public static boolean isEmpty() {
+        return snapshots.sum() == 0 && fallbacks.sum() == 0;
+    }
+
+    public static void reset() {
+        snapshots.reset();
+        elements.reset();
+        commands.reset();
+        fallbacks.reset();
+    }
+
+    public static String getStatistics() {
+        long captured = getElements();
+        return String.format("Element snapshots: %d snapshot(s) of %d element(s), %d command(s), %.2f per element, %d fallback(s)",
+                getSnapshots(), captured, getCommands(), captured == 0 ? 0.0 : (double) getCommands() / captured, getFallbacks());
+    }
+}
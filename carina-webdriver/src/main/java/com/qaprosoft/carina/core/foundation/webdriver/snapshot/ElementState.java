@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.snapshot;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * State of a single element captured by {@link ElementSnapshot}.
+ * Unresolved state means that snapshot can't evaluate the locator and element should be verified by regular WebDriver calls.
+ */
+public final class ElementState {
+    static final ElementState UNRESOLVED = new ElementState(false, false, false, "", Collections.emptyMap());
+    static final ElementState ABSENT = new ElementState(true, false, false, "", Collections.emptyMap());
+
+    private final boolean resolved;
+    private final boolean present;
+    private final boolean visible;
+    private final String text;
+    private final Map<String, String> attributes;
+
+    ElementState(boolean resolved, boolean present, boolean visible, String text, Map<String, String> attributes) {
+        this.resolved = resolved;
+        this.present = present;
+        this.visible = visible;
+        this.text = text;
+        this.attributes = attributes;
+    }
+
+    /**
+     * Verify if the locator was evaluated by snapshot
+     *
+     * @return boolean
+     */
+    public boolean isResolved() {
+        return resolved;
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Returns visible text of the element.
+     *
+     * @return text or empty string if element is absent or invisible
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns value of the attribute requested by {@link ElementSnapshot#withAttributes(String...)}.
+     *
+     * @param name attribute name
+     * @return value or null if element has no such attribute
+     */
+    public String getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        if (!resolved) {
+            return "ElementState [unresolved]";
+        }
+        return String.format("ElementState [present=%s, visible=%s, text=%s, attributes=%s]", present, visible, text, attributes);
+    }
+}
@@ -0,0 +1,329 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.snapshot;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.ContextAware;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qaprosoft.carina.core.foundation.performance.RunStatistics;
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
+
+/**
+ * Reuses parsed page source of native mobile contexts to verify elements locally instead of a server round trip per poll.
+ * Page source is cached per session for native_page_source_ttl ms and is invalidated by any command which may change
+ * the screen (click, type, swipe etc.), see {@link #onCommand(String, String)}. Waits use cached page source for the first
+ * check only, every next poll fetches a fresh one. Elements searched inside of other elements and case insensitive
+ * elements are always verified by driver. Disabled by default, enable it declaring native_page_source_ttl in config.properties.
+ */
+public final class PageSourceCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final String NATIVE_CONTEXT = "NATIVE_APP";
+
+    // commands which don't change the screen and keep cached page source valid
+    private static final Set<String> READ_COMMANDS = new HashSet<>(Arrays.asList(
+            DriverCommand.GET_PAGE_SOURCE,
+            DriverCommand.FIND_ELEMENT,
+            DriverCommand.FIND_ELEMENTS,
+            DriverCommand.FIND_CHILD_ELEMENT,
+            DriverCommand.FIND_CHILD_ELEMENTS,
+            DriverCommand.GET_ELEMENT_TEXT,
+            DriverCommand.GET_ELEMENT_ATTRIBUTE,
+            DriverCommand.GET_ELEMENT_PROPERTY,
+            DriverCommand.GET_ELEMENT_TAG_NAME,
+            DriverCommand.GET_ELEMENT_LOCATION,
+            DriverCommand.GET_ELEMENT_SIZE,
+            DriverCommand.GET_ELEMENT_RECT,
+            DriverCommand.GET_ELEMENT_VALUE_OF_CSS_PROPERTY,
+            DriverCommand.IS_ELEMENT_DISPLAYED,
+            DriverCommand.IS_ELEMENT_ENABLED,
+            DriverCommand.IS_ELEMENT_SELECTED,
+            DriverCommand.SCREENSHOT,
+            DriverCommand.ELEMENT_SCREENSHOT,
+            DriverCommand.GET_CURRENT_URL,
+            DriverCommand.GET_TITLE,
+            DriverCommand.GET_CURRENT_WINDOW_HANDLE,
+            DriverCommand.GET_WINDOW_HANDLES,
+            DriverCommand.GET_CURRENT_CONTEXT_HANDLE,
+            DriverCommand.GET_CONTEXT_HANDLES,
+            DriverCommand.GET_SCREEN_ORIENTATION,
+            DriverCommand.GET_CAPABILITIES,
+            DriverCommand.STATUS,
+            DriverCommand.GET_LOG,
+            DriverCommand.GET_AVAILABLE_LOG_TYPES,
+            DriverCommand.GET_SESSION_LOGS));
+
+    private static final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private static final LongAdder fetches = new LongAdder();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder invalidations = new LongAdder();
+
+    static {
+        RunStatistics.register(PageSourceCache.class.getName(), PageSourceCache::isEmpty, PageSourceCache::getStatistics,
+                PageSourceCache::reset);
+    }
+
+    private PageSourceCache() {
+        // hide default constructor
+    }
+
+    /**
+     * Verify if page source caching is enabled
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return getTtl() > 0;
+    }
+
+    /**
+     * Verify if driver is in native mobile context. Context is cached per session while caching is enabled.
+     *
+     * @param driver WebDriver
+     * @return boolean
+     */
+    public static boolean isNativeContext(WebDriver driver) {
+        WebDriver drv = unwrap(driver);
+        if (!(drv instanceof ContextAware)) {
+            // no way to capture web elements without scripts, treat page as native one
+            return !(drv instanceof JavascriptExecutor);
+        }
+
+        Entry entry = isEnabled() ? getEntry(drv) : null;
+        if (entry != null && entry.nativeContext != null) {
+            return entry.nativeContext;
+        }
+
+        boolean nativeContext = false;
+        try {
+            String context = ((ContextAware) drv).getContext();
+            nativeContext = context != null && context.startsWith(NATIVE_CONTEXT);
+        } catch (WebDriverException e) {
+            LOGGER.debug("Unable to detect driver context: " + e.getMessage());
+            return false;
+        }
+        if (entry != null) {
+            entry.nativeContext = nativeContext;
+        }
+        return nativeContext;
+    }
+
+    /**
+     * Returns cached page source of the driver session.
+     *
+     * @param driver WebDriver
+     * @return PageSourceDocument or null if there is no valid one
+     */
+    public static PageSourceDocument getCachedDocument(WebDriver driver) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Entry entry = getEntry(unwrap(driver));
+        PageSourceDocument document = entry.document;
+        if (document == null || System.currentTimeMillis() > entry.expiresAt) {
+            return null;
+        }
+        hits.increment();
+        return document;
+    }
+
+    /**
+     * Fetches and parses page source, it is cached for the driver session if caching is enabled.
+     *
+     * @param driver WebDriver
+     * @return PageSourceDocument or null if page source is not a valid xml
+     */
+    public static PageSourceDocument refresh(WebDriver driver) {
+        fetches.increment();
+        PageSourceDocument document = PageSourceDocument.parse(driver.getPageSource());
+        if (document != null && isEnabled()) {
+            Entry entry = getEntry(unwrap(driver));
+            entry.expiresAt = System.currentTimeMillis() + getTtl();
+            entry.document = document;
+        }
+        return document;
+    }
+
+    /**
+     * Waits until state of the element located by the locator satisfies the condition evaluating page source locally.
+     * Cached page source is used for the first check only.
+     *
+     * @param driver WebDriver
+     * @param by By
+     * @param timeout sec
+     * @param condition Predicate&lt;ElementState&gt;
+     * @return result of the wait or null if element can't be verified locally (web context, unsupported locator etc.)
+     */
+    public static Boolean waitUntil(WebDriver driver, By by, long timeout, Predicate<ElementState> condition) {
+        if (!isNativeContext(driver)) {
+            return null;
+        }
+
+        long deadline = System.currentTimeMillis() + timeout * 1000;
+        PageSourceDocument document = getCachedDocument(driver);
+        boolean cached = document != null;
+        while (true) {
+            if (document == null) {
+                document = refresh(driver);
+                if (document == null) {
+                    return null;
+                }
+            }
+
+            ElementState state = document.find(by, Collections.emptyList());
+            if (!state.isResolved()) {
+                return null;
+            }
+            if (condition.test(state)) {
+                return true;
+            }
+
+            if (cached) {
+                // cached page source may be outdated, negative result should be confirmed by the fresh one
+                cached = false;
+            } else if (System.currentTimeMillis() >= deadline) {
+                return false;
+            } else {
+                CommonUtils.pause((double) Configuration.getLong(Parameter.RETRY_INTERVAL) / 1000);
+            }
+            document = null;
+        }
+    }
+
+    /**
+     * Invalidates cached page source of the session unless command is a read only one.
+     *
+     * @param sessionId String
+     * @param command WebDriver command name
+     */
+    public static void onCommand(String sessionId, String command) {
+        if (sessionId == null || READ_COMMANDS.contains(command)) {
+            return;
+        }
+
+        if (DriverCommand.QUIT.equals(command)) {
+            entries.remove(sessionId);
+            return;
+        }
+
+        Entry entry = entries.get(sessionId);
+        if (entry != null) {
+            if (entry.document != null) {
+                invalidations.increment();
+                entry.document = null;
+            }
+            if (DriverCommand.SWITCH_TO_CONTEXT.equals(command)) {
+                entry.nativeContext = null;
+            }
+        }
+    }
+
+    /**
+     * Invalidates cached page source and context of the driver session.
+     *
+     * @param driver WebDriver
+     */
+    public static void invalidate(WebDriver driver) {
+        entries.remove(getKey(unwrap(driver)));
+    }
+
+    public static long getFetches() {
+        return fetches.sum();
+    }
+
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    public static long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public static boolean isEmpty() {
+        return fetches.sum() == 0 && hits.sum() == 0;
+    }
+
+    public static void reset() {
+        entries.clear();
+        fetches.reset();
+        hits.reset();
+        invalidations.reset();
+    }
+
+    public static String getStatistics() {
+        return String.format("Native page source cache: %d page source(s) fetched, %d reused, %d invalidated by actions.",
+                getFetches(), getHits(), getInvalidations());
+    }
+
+    private static long getTtl() {
+        String ttl = Configuration.get(Parameter.NATIVE_PAGE_SOURCE_TTL).trim();
+        if (ttl.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            return Long.parseLong(ttl);
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid native_page_source_ttl value: " + ttl);
+            return 0;
+        }
+    }
+
+    private static Entry getEntry(WebDriver driver) {
+        return entries.computeIfAbsent(getKey(driver), k -> new Entry());
+    }
+
+    private static String getKey(WebDriver driver) {
+        if (driver instanceof RemoteWebDriver && ((RemoteWebDriver) driver).getSessionId() != null) {
+            return ((RemoteWebDriver) driver).getSessionId().toString();
+        }
+        return driver.getClass().getName() + "@" + System.identityHashCode(driver);
+    }
+
+    private static WebDriver unwrap(WebDriver driver) {
+        if (driver instanceof EventFiringWebDriver) {
+            return ((EventFiringWebDriver) driver).getWrappedDriver();
+        }
+        return driver;
+    }
+
+    private static class Entry {
+        private volatile PageSourceDocument document;
+        private volatile long expiresAt;
+        private volatile Boolean nativeContext;
+    }
+}
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.snapshot;
+
+import java.io.StringReader;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.openqa.selenium.By;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ * Parsed page source of a native mobile context which evaluates element locators locally.
+ * Id, accessibility id, class name and simple attribute xpath locators (//tag[@attr='value']) are served by indexes built
+ * on demand, any other xpath is evaluated on the parsed DOM. Like the server, the first element in document order is taken.
+ */
+public class PageSourceDocument {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    // //tag[@attribute='value'] or //*[@attribute="value"]
+    private static final Pattern SIMPLE_XPATH = Pattern.compile("^//([\\w.*-]+)\\[@([\\w:-]+)\\s*=\\s*(?:'([^']*)'|\"([^\"]*)\")\\]$");
+
+    // locators which are not supported locally, shared by all documents
+    private static final Map<String, Boolean> unsupported = new ConcurrentHashMap<>();
+
+    private final Document document;
+    private final List<Element> elements;
+    // attribute name -> attribute value -> elements in document order
+    private final Map<String, Map<String, List<Element>>> indexes = new HashMap<>();
+
+    private PageSourceDocument(Document document) {
+        this.document = document;
+        NodeList nodes = document.getElementsByTagName("*");
+        List<Element> all = new ArrayList<>(nodes.getLength());
+        for (int i = 0; i < nodes.getLength(); i++) {
+            all.add((Element) nodes.item(i));
+        }
+        this.elements = all;
+    }
+
+    /**
+     * Parses page source.
+     *
+     * @param pageSource String
+     * @return PageSourceDocument or null if page source is not a valid xml
+     */
+    public static PageSourceDocument parse(String pageSource) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return new PageSourceDocument(factory.newDocumentBuilder().parse(new InputSource(new StringReader(pageSource))));
+        } catch (Exception e) {
+            LOGGER.debug("Unable to parse page source: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * Captures state of the first element located by the locator.
+     *
+     * @param by By
+     * @param attributes names of attributes to capture
+     * @return ElementState, unresolved if locator can't be evaluated locally
+     */
+    public synchronized ElementState find(By by, List<String> attributes) {
+        String locator = by == null ? "" : by.toString();
+        if (unsupported.containsKey(locator)) {
+            return ElementState.UNRESOLVED;
+        }
+
+        Element element;
+        if (locator.startsWith("By.xpath: ")) {
+            String xpath = locator.substring("By.xpath: ".length());
+            Matcher matcher = SIMPLE_XPATH.matcher(xpath);
+            if (matcher.matches()) {
+                String value = matcher.group(3) != null ? matcher.group(3) : matcher.group(4);
+                element = first(matcher.group(1), getIndex(matcher.group(2)).get(value));
+            } else {
+                try {
+                    Object node = XPathFactory.newInstance().newXPath().evaluate(xpath, document, XPathConstants.NODE);
+                    element = node instanceof Element ? (Element) node : null;
+                } catch (XPathExpressionException e) {
+                    // xpath 2.0 functions etc.
+                    LOGGER.debug("Unable to evaluate xpath locally: " + xpath);
+                    unsupported.put(locator, Boolean.TRUE);
+                    return ElementState.UNRESOLVED;
+                }
+            }
+        } else if (locator.startsWith("By.id: ")) {
+            String id = locator.substring("By.id: ".length());
+            // android resource-id may be declared without package, iOS id is a name
+            element = firstOf(getIndex("resource-id").get(id), getIndex("resource-id").get(getShortIdKey(id)), getIndex("name").get(id));
+        } else if (locator.startsWith("By.AccessibilityId: ")) {
+            String id = locator.substring("By.AccessibilityId: ".length());
+            element = firstOf(getIndex("content-desc").get(id), getIndex("name").get(id));
+        } else if (locator.startsWith("By.className: ")) {
+            String className = locator.substring("By.className: ".length());
+            element = firstOf(getTagIndex().get(className), getIndex("class").get(className));
+        } else {
+            return ElementState.UNRESOLVED;
+        }
+
+        return element == null ? ElementState.ABSENT : toState(element, attributes);
+    }
+
+    private ElementState toState(Element element, List<String> attributes) {
+        // android exposes 'displayed', iOS - 'visible', element is visible if the platform doesn't report it
+        String visibility = element.hasAttribute("displayed") ? element.getAttribute("displayed") : element.getAttribute("visible");
+        boolean visible = !"false".equals(visibility);
+
+        String text = "";
+        for (String name : new String[] { "text", "label", "value" }) {
+            if (element.hasAttribute(name)) {
+                text = element.getAttribute(name);
+                break;
+            }
+        }
+
+        Map<String, String> captured = new LinkedHashMap<>();
+        for (String name : attributes) {
+            captured.put(name, element.hasAttribute(name) ? element.getAttribute(name) : null);
+        }
+        return new ElementState(true, true, visible, visible ? text : "", Collections.unmodifiableMap(captured));
+    }
+
+    private Element first(String tag, List<Element> candidates) {
+        if (candidates == null) {
+            return null;
+        }
+        for (Element candidate : candidates) {
+            if ("*".equals(tag) || tag.equals(candidate.getTagName())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first element in document order from several candidate lists.
+     */
+    @SafeVarargs
+    private final Element firstOf(List<Element>... candidates) {
+        Element result = null;
+        for (List<Element> list : candidates) {
+            if (list != null && !list.isEmpty()) {
+                Element element = list.get(0);
+                if (result == null || (result.compareDocumentPosition(element) & Node.DOCUMENT_POSITION_PRECEDING) != 0) {
+                    result = element;
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<String, List<Element>> getIndex(String attribute) {
+        return indexes.computeIfAbsent(attribute, name -> {
+            Map<String, List<Element>> index = new HashMap<>();
+            for (Element element : elements) {
+                if (element.hasAttribute(name)) {
+                    String value = element.getAttribute(name);
+                    index.computeIfAbsent(value, k -> new ArrayList<>()).add(element);
+                    // short android id without package
+                    if ("resource-id".equals(name) && value.contains(":id/")) {
+                        index.computeIfAbsent(getShortIdKey(value.substring(value.indexOf(":id/") + 4)), k -> new ArrayList<>()).add(element);
+                    }
+                }
+            }
+            return index;
+        });
+    }
+
+    private Map<String, List<Element>> getTagIndex() {
+        // tag name can't clash with attribute names
+        return indexes.computeIfAbsent("<tag>", name -> {
+            Map<String, List<Element>> index = new HashMap<>();
+            for (Element element : elements) {
+                index.computeIfAbsent(element.getTagName(), k -> new ArrayList<>()).add(element);
+            }
+            return index;
+        });
+    }
+
+    private static String getShortIdKey(String id) {
+        return ":id/" + id;
+    }
+}
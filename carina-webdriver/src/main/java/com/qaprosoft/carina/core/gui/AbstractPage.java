@@ -22,7 +22,6 @@ import java.lang.invoke.MethodHandles;
 
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -40,6 +39,7 @@ import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.utils.factory.ICustomTypePageFactory;
 import com.qaprosoft.carina.core.foundation.webdriver.Screenshot;
 import com.qaprosoft.carina.core.foundation.webdriver.decorator.PageOpeningStrategy;
+import com.qaprosoft.carina.core.foundation.webdriver.readiness.ReadinessProbe;
 
 /**
  * All page POJO objects should extend this abstract page to get extra logic.
@@ -53,6 +53,8 @@ public abstract class AbstractPage extends AbstractUIObject implements ICustomTy
     
 	protected String pageURL = getUrl();
 
+	private ReadinessProbe readinessProbe;
+
 	public AbstractPage(WebDriver driver) {
 		super(driver);
 	}
@@ -230,30 +232,19 @@ public abstract class AbstractPage extends AbstractUIObject implements ICustomTy
      * @param timeout Completing of JS loading will be verified within specified timeout
      */
     public void waitForJSToLoad(long timeout) {
-        // wait for jQuery to load
-        JavascriptExecutor executor = (JavascriptExecutor) driver;
-        ExpectedCondition<Boolean> jQueryLoad = new ExpectedCondition<Boolean>() {
-            @Override
-            public Boolean apply(WebDriver driver) {
-                try {
-                    return ((Long) executor.executeScript("return jQuery.active") == 0);
-                } catch (Exception e) {
-                    return true;
-                }
-            }
-        };
-        // wait for Javascript to load
-        ExpectedCondition<Boolean> jsLoad = new ExpectedCondition<Boolean>() {
-            @Override
-            public Boolean apply(WebDriver driver) {
-                return executor.executeScript("return document.readyState").toString().equals("complete");
-            }
-        };
-        String errMsg = "JS was not loaded on page during expected time";
-        if ((Boolean) executor.executeScript("return window.jQuery != undefined")) {
-            Assert.assertTrue(waitUntil(jQueryLoad, timeout) && waitUntil(jsLoad, timeout), errMsg);
-        } else {
-            Assert.assertTrue(waitUntil(jsLoad, timeout), errMsg);
+        Assert.assertTrue(getReadinessProbe().waitUntilReady((JavascriptExecutor) driver, timeout), "JS was not loaded on page during expected time");
+    }
+
+    /**
+     * Returns probe used by {@link #waitForJSToLoad(long)}. Override it to wait for extra signals (fetch/XHR requests,
+     * animations) or application specific hooks.
+     * 
+     * @return ReadinessProbe
+     */
+    protected ReadinessProbe getReadinessProbe() {
+        if (readinessProbe == null) {
+            readinessProbe = new ReadinessProbe();
         }
+        return readinessProbe;
     }
 }
@@ -67,7 +67,7 @@ public abstract class AbstractUIObject extends DriverHelper {
     public AbstractUIObject(WebDriver driver, SearchContext searchContext) {
         super(driver);
         ExtendedElementLocatorFactory factory = new ExtendedElementLocatorFactory(searchContext, (driver != searchContext) ? true : false);
-        PageFactory.initElements(new ExtendedFieldDecorator(factory, driver), this);
+        new ExtendedFieldDecorator(factory, driver).initElements(this);
     }
 
     /**
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.mobile;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.mobile.IMobileUtils.Direction;
+import com.qaprosoft.carina.core.foundation.webdriver.AbstractElementTest;
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.ExtendedWebElement;
+
+public class SwipeEngineTest extends AbstractElementTest {
+    private ExtendedWebElement element;
+
+    @BeforeClass
+    public void setUpElement() {
+        element = new ExtendedWebElement(By.id("item"), "item");
+    }
+
+    @Test
+    public void testElementFoundAfterSwipes() {
+        ListScreen screen = new ListScreen(10, 4);
+        Assert.assertTrue(screen.swipeTo(element, Direction.UP, 50), "Element should be found!");
+        Assert.assertEquals(screen.getSwipes(), 4);
+        Assert.assertEquals(screen.settleProbes, 0, "Settle probes are not expected while list is scrolled!");
+    }
+
+    @Test
+    public void testEndOfListIsDetected() {
+        ListScreen screen = new ListScreen(5, -1);
+        Assert.assertFalse(screen.swipeTo(element, Direction.UP, 50), "Element should not be found!");
+        Assert.assertEquals(screen.getSwipes(), 6, "Search should be finished right after the end of the list!");
+        Assert.assertEquals(screen.settleProbes, 1);
+    }
+
+    @Test
+    public void testCountIsNotExceeded() {
+        ListScreen screen = new ListScreen(10, -1);
+        Assert.assertFalse(screen.swipeTo(element, Direction.UP, 3));
+        Assert.assertEquals(screen.getSwipes(), 3);
+    }
+
+    @Test
+    public void testDelayedContentIsNotTreatedAsEnd() {
+        ListScreen screen = new ListScreen(10, 6);
+        screen.delayedPosition = 2;
+        Assert.assertTrue(screen.swipeTo(element, Direction.UP, 50), "Delayed content update should not stop the search!");
+        Assert.assertEquals(screen.getSwipes(), 6);
+    }
+
+    @Test
+    public void testUnknownContentIsNotTreatedAsEnd() {
+        ListScreen screen = new ListScreen(2, -1);
+        screen.contentAvailable = false;
+        Assert.assertFalse(screen.swipeTo(element, Direction.UP, 7));
+        Assert.assertEquals(screen.getSwipes(), 7);
+    }
+
+    @Test
+    public void testGeometryIsResolvedOnce() {
+        ListScreen screen = new ListScreen(20, -1);
+        screen.swipeTo(element, Direction.UP, 50);
+        screen.swipeTo(element, Direction.DOWN, 50);
+        Assert.assertEquals(screen.viewportRequests, 1, "Viewport size should be requested once!");
+
+        Assert.assertEquals(screen.getCoordinates(Direction.UP), new int[] { 540, 960, 540, 480 });
+        Assert.assertEquals(screen.getCoordinates(Direction.DOWN), new int[] { 540, 480, 540, 960 });
+        Assert.assertEquals(screen.getCoordinates(Direction.LEFT), new int[] { 540, 960, 270, 960 });
+        Assert.assertEquals(screen.getCoordinates(Direction.RIGHT), new int[] { 270, 960, 540, 960 });
+    }
+
+    @Test
+    public void testFingerprintReadsFirstItemOfContainer() {
+        WebElement first = mockItem(new Point(0, 100), "first");
+        WebElement second = mockItem(new Point(0, 200), "second");
+        WebElement third = mockItem(new Point(0, 300), "third");
+        WebElement list = mock(WebElement.class);
+        when(list.findElements(SwipeEngine.FINGERPRINT_ITEMS)).thenReturn(Arrays.asList(first, second, third));
+        ExtendedWebElement container = mock(ExtendedWebElement.class);
+        when(container.getElement()).thenReturn(list);
+
+        SwipeEngine engine = new SwipeEngine(null, container, 100);
+        Integer fingerprint = engine.getFingerprint();
+        Assert.assertNotNull(fingerprint);
+        Assert.assertEquals(engine.getFingerprint(), fingerprint, "Fingerprint of unchanged list should be the same!");
+
+        // list is scrolled
+        when(first.getLocation()).thenReturn(new Point(0, 50));
+        Assert.assertNotEquals(engine.getFingerprint(), fingerprint, "Fingerprint of scrolled list should be changed!");
+
+        // container is found once and only the first item is read
+        verify(container, times(1)).getElement();
+        verify(second, never()).getLocation();
+        verify(second, never()).getText();
+        verify(third, never()).getLocation();
+    }
+
+    @Test
+    public void testOnlyScrollableOfScreenIsFingerprinted() {
+        WebElement item = mockItem(new Point(0, 100), "first");
+        WebElement list = mock(WebElement.class);
+        when(list.findElements(SwipeEngine.FINGERPRINT_ITEMS)).thenReturn(Arrays.asList(item));
+        WebDriver driver = mock(WebDriver.class);
+        when(driver.findElements(any(By.class))).thenReturn(Arrays.asList(list));
+
+        SwipeEngine engine = new AndroidSwipeEngine(driver);
+        Assert.assertNotNull(engine.getFingerprint(), "The only scrollable area should be fingerprinted!");
+        Assert.assertNotNull(engine.getFingerprint());
+        verify(driver, times(1)).findElements(any(By.class));
+    }
+
+    @Test
+    public void testAmbiguousScrollableDisablesEndDetection() {
+        WebElement list = mock(WebElement.class);
+        WebElement pager = mock(WebElement.class);
+        WebDriver driver = mock(WebDriver.class);
+        when(driver.findElements(any(By.class))).thenReturn(Arrays.asList(pager, list));
+
+        SwipeEngine engine = new AndroidSwipeEngine(driver);
+        Assert.assertNull(engine.getFingerprint(), "Content of ambiguous scrollable area should not be compared!");
+        Assert.assertNull(engine.getFingerprint());
+        verify(driver, times(1)).findElements(any(By.class));
+        verify(pager, never()).findElements(any(By.class));
+    }
+
+    @Test
+    public void testStaleContainerIsNotTreatedAsEnd() {
+        WebElement list = mock(WebElement.class);
+        when(list.findElements(SwipeEngine.FINGERPRINT_ITEMS)).thenThrow(new StaleElementReferenceException("stale"))
+                .thenReturn(Arrays.asList(mockItem(new Point(0, 100), "first")));
+        ExtendedWebElement container = mock(ExtendedWebElement.class);
+        when(container.getElement()).thenReturn(list);
+
+        SwipeEngine engine = new SwipeEngine(null, container, 100);
+        Assert.assertNull(engine.getFingerprint(), "Unknown content should not be compared!");
+        Assert.assertNotNull(engine.getFingerprint());
+        verify(container, times(2)).getElement();
+    }
+
+    private WebElement mockItem(Point location, String text) {
+        WebElement item = mock(WebElement.class);
+        when(item.getLocation()).thenReturn(location);
+        when(item.getText()).thenReturn(text);
+        return item;
+    }
+
+    private static class AndroidSwipeEngine extends SwipeEngine {
+        AndroidSwipeEngine(WebDriver driver) {
+            super(driver, null, 100);
+        }
+
+        @Override
+        String getOs() {
+            return "Android";
+        }
+    }
+
+    /**
+     * Android screen with a vertical list of several pages. Element is located on the specified page.
+     */
+    private static class ListScreen extends SwipeEngine {
+        private final int pages;
+        private final int elementPage;
+        private int position = 0;
+        private int delayedPosition = -1;
+        private boolean contentAvailable = true;
+
+        private int viewportRequests = 0;
+        private int settleProbes = 0;
+
+        ListScreen(int pages, int elementPage) {
+            super(null, null, 100);
+            this.pages = pages;
+            this.elementPage = elementPage;
+        }
+
+        @Override
+        Dimension getViewportSize() {
+            viewportRequests++;
+            return new Dimension(1080, 1920);
+        }
+
+        @Override
+        String getOs() {
+            return "Android";
+        }
+
+        @Override
+        Integer getFingerprint() {
+            if (!contentAvailable) {
+                return null;
+            }
+            if (position == delayedPosition) {
+                // the first read returns content of the previous page
+                delayedPosition = -1;
+                return ("page" + (position - 1)).hashCode();
+            }
+            return ("page" + position).hashCode();
+        }
+
+        @Override
+        boolean isVisible(ExtendedWebElement element, long timeout) {
+            if (timeout > 0) {
+                settleProbes++;
+            }
+            return position == elementPage;
+        }
+
+        @Override
+        void performSwipe(int startx, int starty, int endx, int endy, int duration) {
+            if (starty > endy) {
+                position = Math.min(position + 1, pages);
+            } else {
+                position = Math.max(position - 1, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+/**
+ * Base class of the tests which construct elements. Element settings are applied before the test class and restored after
+ * it as explicit_timeout and retry_interval are read once by ExtendedWebElement.
+ */
+public abstract class AbstractElementTest {
+    private static final Map<String, String> ELEMENT_CONFIG = Map.of("explicit_timeout", "1", "retry_interval", "100",
+            "element_loading_strategy", "BY_PRESENCE", "locale", "en_US");
+
+    private final Map<String, String> previousConfig = new HashMap<>();
+
+    @BeforeClass(alwaysRun = true)
+    public void applyElementConfig() {
+        ELEMENT_CONFIG.forEach((key, value) -> {
+            previousConfig.put(key, R.CONFIG.get(key));
+            R.CONFIG.put(key, value);
+        });
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void restoreElementConfig() {
+        previousConfig.forEach(R.CONFIG::put);
+        previousConfig.clear();
+    }
+}
@@ -3,6 +3,8 @@ package com.qaprosoft.carina.core.foundation.webdriver;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.qaprosoft.carina.core.foundation.utils.R;
+
 /**
  * Created by Quang Le (quangltp) on 11/12/20
  */
@@ -19,4 +21,27 @@ public class ScreenshotTest {
                 "Session ID: 7ec50037-37b7-41a6-a6f2-57c56ecfc425";
         Assert.assertFalse(Screenshot.isCaptured(message));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIsNotCapturedForBuiltInSignatures() {
+        Assert.assertFalse(Screenshot.isCaptured("unexpected alert open: {Alert text : Are you sure?}"));
+        Assert.assertFalse(Screenshot.isCaptured("stale element reference: element is not attached to the page document"));
+        Assert.assertFalse(Screenshot.isCaptured("no such element: Unable to locate element: {\"method\":\"id\",\"selector\":\"login\"}"));
+        Assert.assertFalse(Screenshot.isCaptured("Unable to find elements by Selenium"));
+        Assert.assertTrue(Screenshot.isCaptured("expected [true] but found [false]"));
+    }
+
+    @Test
+    public void testIsCapturedWithCustomFailureSignatures() {
+        try {
+            R.CONFIG.put("failure_signatures", "ASSERTION=expected login page;SESSION_LOST=page crash;ASSERTION=unexpected alert open", true);
+            // custom signatures of test failures don't disable screenshots
+            Assert.assertTrue(Screenshot.isCaptured("expected login page but found home"));
+            Assert.assertFalse(Screenshot.isCaptured("session deleted because of page crash"));
+            // built-in signatures disable screenshots regardless of custom class
+            Assert.assertFalse(Screenshot.isCaptured("unexpected alert open: {Alert text : Are you sure?}"));
+        } finally {
+            R.CONFIG.clearTestProperties();
+        }
+    }
+}
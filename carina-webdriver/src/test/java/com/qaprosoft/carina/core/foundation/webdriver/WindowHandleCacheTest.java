@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriver.TargetLocator;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.webdriver.listener.DriverListener;
+
+public class WindowHandleCacheTest {
+
+    @Test
+    public void testSwitchBetweenWindowsUsesCachedHandles() {
+        Browser browser = new Browser("main", "checkout");
+        WebDriver driver = browser.getDriver();
+
+        for (int i = 0; i < 4; i++) {
+            WindowHandleCache.switchToAnotherWindow(driver);
+            Assert.assertEquals(browser.current, i % 2 == 0 ? "checkout" : "main");
+        }
+        Assert.assertEquals(browser.count("getWindowHandles"), 1, "Window handles should be queried once!");
+        Assert.assertEquals(browser.count("getWindowHandle"), 1, "Current window should be tracked by switches!");
+        Assert.assertEquals(browser.count("window"), 4);
+    }
+
+    @Test
+    public void testScriptInvalidatesHandles() {
+        Browser browser = new Browser("main");
+        WebDriver driver = browser.getDriver();
+
+        WindowHandleCache.switchToAnotherWindow(driver);
+        Assert.assertEquals(browser.current, "main", "Single window should stay current!");
+
+        ((JavascriptExecutor) driver).executeScript("window.open('/payment')");
+        WindowHandleCache.switchToAnotherWindow(driver);
+        Assert.assertEquals(browser.current, "payment");
+        Assert.assertEquals(browser.count("getWindowHandles"), 2, "Window handles should be queried after script!");
+    }
+
+    @Test
+    public void testClosedWindowIsValidatedOnFailure() {
+        Browser browser = new Browser("main", "checkout", "payment");
+        WebDriver driver = browser.getDriver();
+
+        WindowHandleCache.switchToAnotherWindow(driver);
+        WindowHandleCache.switchTo(driver, "main");
+        // window is closed by the page itself
+        browser.windows.remove("checkout");
+
+        long stale = WindowHandleCache.getStaleSwitches();
+        WindowHandleCache.switchToAnotherWindow(driver);
+        Assert.assertEquals(browser.current, "payment");
+        Assert.assertEquals(WindowHandleCache.getStaleSwitches() - stale, 1);
+        Assert.assertEquals(browser.count("getWindowHandles"), 2);
+        Assert.assertEquals(browser.count("getWindowHandle"), 1);
+    }
+
+    @Test
+    public void testSingleCachedWindowIsVerified() {
+        Browser browser = new Browser("main");
+        WebDriver driver = browser.getDriver();
+
+        WindowHandleCache.switchToAnotherWindow(driver);
+        Assert.assertEquals(browser.current, "main");
+
+        // window is opened by action which is not tracked by listeners
+        browser.windows.add("checkout");
+        WindowHandleCache.switchToAnotherWindow(driver);
+        Assert.assertEquals(browser.current, "checkout", "New window should be found on actual handles!");
+        Assert.assertEquals(browser.count("getWindowHandles"), 2);
+
+        WindowHandleCache.switchToAnotherWindow(driver);
+        Assert.assertEquals(browser.current, "main");
+        Assert.assertEquals(browser.count("getWindowHandles"), 2, "Several cached windows should not be verified!");
+    }
+
+    @Test
+    public void testClosedCurrentWindowIsDropped() {
+        Browser browser = new Browser("main", "checkout", "payment");
+        WebDriver driver = browser.getDriver();
+
+        WindowHandleCache.switchTo(driver, "checkout");
+        driver.close();
+        // page action invalidates handles, closed window is missing in the actual ones
+        WindowHandleCache.invalidate(driver);
+        Assert.assertEquals(WindowHandleCache.getWindowHandles(driver), new LinkedHashSet<>(Arrays.asList("main", "payment")));
+        Assert.assertThrows(NoSuchWindowException.class, () -> WindowHandleCache.getWindowHandle(driver));
+
+        WindowHandleCache.switchToAnotherWindow(driver);
+        Assert.assertEquals(browser.current, "main");
+        Assert.assertEquals(WindowHandleCache.getWindowHandle(driver), "main");
+    }
+
+    @Test
+    public void testPopupOpenedWithoutEvents() {
+        Browser browser = new Browser("main");
+        WebDriver driver = browser.getDriver();
+
+        WindowsHandler.saveBeforePopup(driver);
+        // popup is opened by action which is not tracked by listeners
+        browser.windows.add("popup");
+        Assert.assertTrue(WindowsHandler.switchToPopup(driver), "Popup should be found on actual handles!");
+        Assert.assertEquals(browser.current, "popup");
+
+        WindowsHandler.switchBackAfterPopup(driver);
+        Assert.assertEquals(browser.current, "main");
+        Assert.assertEquals(browser.count("getWindowHandles"), 2);
+    }
+
+    private static class Browser {
+        private final Set<String> windows = new LinkedHashSet<>();
+        private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        private String current;
+
+        Browser(String... handles) {
+            for (String handle : handles) {
+                windows.add(handle);
+            }
+            current = handles[0];
+        }
+
+        int count(String method) {
+            return calls.containsKey(method) ? calls.get(method).get() : 0;
+        }
+
+        WebDriver getDriver() {
+            TargetLocator locator = (TargetLocator) Proxy.newProxyInstance(TargetLocator.class.getClassLoader(),
+                    new Class[] { TargetLocator.class }, (proxy, method, args) -> {
+                        if (!"window".equals(method.getName())) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        record("window");
+                        if (!windows.contains(args[0])) {
+                            throw new NoSuchWindowException("no such window: " + args[0]);
+                        }
+                        current = (String) args[0];
+                        return null;
+                    });
+
+            WebDriver driver = (WebDriver) Proxy.newProxyInstance(WebDriver.class.getClassLoader(),
+                    new Class[] { WebDriver.class, JavascriptExecutor.class }, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                        case "getWindowHandles":
+                            record(method.getName());
+                            return new LinkedHashSet<>(windows);
+                        case "getWindowHandle":
+                            record(method.getName());
+                            if (!windows.contains(current)) {
+                                throw new NoSuchWindowException("no such window: " + current);
+                            }
+                            return current;
+                        case "close":
+                            // driver stays in the closed window until the next switch
+                            windows.remove(current);
+                            return null;
+                        case "switchTo":
+                            return locator;
+                        case "executeScript":
+                            windows.add(((String) args[0]).replaceAll(".*'/(\\w+)'.*", "$1"));
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+            // carina drivers are always wrapped into EventFiringWebDriver
+            return new EventFiringWebDriver(driver).register(new DriverListener());
+        }
+
+        private void record(String method) {
+            calls.computeIfAbsent(method, k -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.decorator;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.PageFactory;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.webdriver.AbstractElementTest;
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.annotations.CaseInsensitiveXPath;
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.annotations.DisableCacheLookup;
+import com.qaprosoft.carina.core.foundation.webdriver.locator.ExtendedElementLocatorFactory;
+import com.qaprosoft.carina.core.gui.AbstractUIObject;
+
+public class ExtendedFieldDecoratorTest extends AbstractElementTest {
+    // carina drivers are always wrapped into EventFiringWebDriver
+    private static final WebDriver DRIVER = new EventFiringWebDriver((WebDriver) Proxy.newProxyInstance(WebDriver.class.getClassLoader(),
+            new Class[] { WebDriver.class }, (proxy, method, args) -> {
+                if ("toString".equals(method.getName())) {
+                    return "WebDriverMock";
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }));
+
+    @Test
+    public void testPlanIsCompiledOncePerClass() {
+        FieldPlan plan = FieldPlan.get(TestPage.class);
+        Assert.assertSame(FieldPlan.get(TestPage.class), plan, "Plan should be reused for the same class and locale!");
+
+        Assert.assertEquals(plan.getEntries().size(), 5, "Only annotated decoratable fields should be planned!");
+        assertEntry(plan, "button", FieldPlan.Kind.ELEMENT, By.id("button"), true, false);
+        assertEntry(plan, "label", FieldPlan.Kind.ELEMENT, By.xpath("//label"), false, true);
+        assertEntry(plan, "items", FieldPlan.Kind.ELEMENT_LIST, By.cssSelector(".item"), true, false);
+        assertEntry(plan, "component", FieldPlan.Kind.UI_OBJECT, By.name("component"), true, false);
+        assertEntry(plan, "components", FieldPlan.Kind.UI_OBJECT_LIST, By.className("component"), true, false);
+    }
+
+    @Test
+    public void testPageInitialization() {
+        TestPage page = new TestPage(DRIVER);
+
+        Assert.assertEquals(page.button.getBy(), By.id("button"));
+        Assert.assertEquals(page.button.getName(), "button");
+        Assert.assertEquals(page.label.getBy(), By.xpath("//label"));
+        Assert.assertNotNull(page.items);
+        Assert.assertNotNull(page.components);
+        Assert.assertNull(page.notDecorated, "Not annotated field should not be initialized!");
+
+        Assert.assertEquals(page.component.getName(), "component");
+        Assert.assertEquals(page.component.getRootBy(), By.name("component"));
+        Assert.assertEquals(page.component.link.getBy(), By.linkText("link"));
+    }
+
+    @Test
+    public void testPlanReplayIsEquivalentToPageFactory() {
+        TestPage planned = new TestPage(DRIVER);
+        TestPage legacy = new TestPage(DRIVER);
+        PageFactory.initElements(new ExtendedFieldDecorator(new ExtendedElementLocatorFactory(DRIVER, false), DRIVER), legacy);
+
+        Assert.assertEquals(planned.button.getBy(), legacy.button.getBy());
+        Assert.assertEquals(planned.label.getBy(), legacy.label.getBy());
+        Assert.assertEquals(planned.component.getRootBy(), legacy.component.getRootBy());
+        Assert.assertEquals(planned.component.link.getBy(), legacy.component.link.getBy());
+    }
+
+    private void assertEntry(FieldPlan plan, String name, FieldPlan.Kind kind, By by, boolean shouldCache, boolean caseInsensitive) {
+        FieldPlan.FieldEntry entry = plan.getEntries().stream().filter(e -> e.getName().equals(name)).findFirst().orElse(null);
+        Assert.assertNotNull(entry, "Field is not planned: " + name);
+        Assert.assertEquals(entry.getKind(), kind, "Incorrect kind of " + name);
+        Assert.assertEquals(entry.getBy(), by, "Incorrect locator of " + name);
+        Assert.assertEquals(entry.isShouldCache(), shouldCache, "Incorrect cache flag of " + name);
+        Assert.assertEquals(entry.isCaseInsensitive(), caseInsensitive, "Incorrect case insensitive flag of " + name);
+    }
+
+    public static class TestComponent extends AbstractUIObject {
+        @FindBy(linkText = "link")
+        private ExtendedWebElement link;
+
+        public TestComponent(WebDriver driver, SearchContext searchContext) {
+            super(driver, searchContext);
+        }
+    }
+
+    public static class TestPage extends AbstractUIObject {
+        @FindBy(id = "button")
+        private ExtendedWebElement button;
+
+        @DisableCacheLookup
+        @CaseInsensitiveXPath
+        @FindBy(xpath = "//label")
+        private ExtendedWebElement label;
+
+        @FindBy(css = ".item")
+        private List<ExtendedWebElement> items;
+
+        @FindBy(name = "component")
+        private TestComponent component;
+
+        @FindBy(className = "component")
+        private List<TestComponent> components;
+
+        private ExtendedWebElement notDecorated;
+
+        public TestPage(WebDriver driver) {
+            super(driver);
+        }
+    }
+}
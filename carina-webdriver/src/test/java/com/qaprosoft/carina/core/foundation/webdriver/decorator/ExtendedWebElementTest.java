@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.decorator;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.AbstractWebDriverEventListener;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.R;
+import com.qaprosoft.carina.core.foundation.webdriver.AbstractElementTest;
+import com.qaprosoft.carina.core.foundation.webdriver.httpclient.ActionCommandRegistry;
+import com.qaprosoft.carina.core.foundation.webdriver.listener.DriverListener;
+
+public class ExtendedWebElementTest extends AbstractElementTest {
+    private static final By BUTTON = By.id("button");
+    private static final By SELECT = By.id("select");
+
+    private WebDriver driver;
+    private WebElement button;
+    // value of DriverListener.isExceptionCaptureSuppressed() for each exception of the driver
+    private List<Boolean> exceptions;
+
+    @BeforeMethod
+    public void initDriver() {
+        R.CONFIG.put("optimistic_actions", "true", true);
+
+        WebDriver mockDriver = mock(WebDriver.class);
+        button = mock(WebElement.class);
+        when(mockDriver.findElement(BUTTON)).thenReturn(button);
+        when(button.isDisplayed()).thenReturn(true);
+
+        exceptions = new ArrayList<>();
+        EventFiringWebDriver eventDriver = new EventFiringWebDriver(mockDriver);
+        eventDriver.register(new AbstractWebDriverEventListener() {
+            @Override
+            public void onException(Throwable throwable, WebDriver driver) {
+                exceptions.add(DriverListener.isExceptionCaptureSuppressed());
+            }
+        });
+        driver = eventDriver;
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void clear() {
+        R.CONFIG.clearTestProperties();
+        ActionCommandRegistry.reset();
+    }
+
+    @Test
+    public void testOptimisticClick() {
+        ExtendedWebElement element = new ExtendedWebElement(BUTTON, "button", driver);
+        element.setElement(driver.findElement(BUTTON));
+
+        element.click(1);
+
+        verify(button, times(1)).click();
+        verify(button, never()).isDisplayed();
+        Assert.assertEquals(ActionCommandRegistry.getActions("click"), 1);
+        Assert.assertEquals(ActionCommandRegistry.getFallbacks("click"), 0);
+        Assert.assertTrue(exceptions.isEmpty(), "No exception expected!");
+    }
+
+    @Test
+    public void testOptimisticClickFallback() {
+        doThrow(new ElementNotInteractableException("element not interactable")).doNothing().when(button).click();
+        ExtendedWebElement element = new ExtendedWebElement(BUTTON, "button", driver);
+        element.setElement(driver.findElement(BUTTON));
+
+        element.click(1);
+
+        // failed optimistic click is repeated after verification of the element state
+        verify(button, times(2)).click();
+        verify(button, times(1)).isDisplayed();
+        Assert.assertEquals(ActionCommandRegistry.getFallbacks("click"), 1);
+        Assert.assertEquals(exceptions.size(), 1, "Only optimistic click should fail!");
+        Assert.assertTrue(exceptions.get(0), "Screenshot should be suppressed for failed optimistic click!");
+        Assert.assertFalse(DriverListener.isExceptionCaptureSuppressed(), "Suppression should be restored after action!");
+    }
+
+    @Test
+    public void testClickWithoutCachedElementIsVerified() {
+        doNothing().when(button).click();
+        ExtendedWebElement element = new ExtendedWebElement(BUTTON, "button", driver);
+
+        element.click(1);
+
+        verify(button, times(1)).isDisplayed();
+        verify(button, times(1)).click();
+        Assert.assertEquals(ActionCommandRegistry.getFallbacks("click"), 0);
+    }
+
+    @Test
+    public void testSelectValuesWithMissingValue() {
+        SelectEngineTest.SelectStub options = new SelectEngineTest.SelectStub("select", true, 5);
+        WebDriver mockDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        when(mockDriver.findElement(SELECT)).thenReturn(mock(WebElement.class));
+        when(((JavascriptExecutor) mockDriver).executeScript(anyString(), anyVararg())).thenAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            return options.executeScript((String) args[0], Arrays.copyOfRange(args, 1, args.length));
+        });
+        WebDriver selectDriver = new EventFiringWebDriver(mockDriver);
+        ExtendedWebElement element = new ExtendedWebElement(SELECT, "select", selectDriver);
+        element.setElement(selectDriver.findElement(SELECT));
+
+        // missing value fails the result but doesn't prevent selection of the found ones
+        Assert.assertFalse(element.select(new String[] { "Option 1", "Option 7", "Option 3" }));
+        Assert.assertEquals(element.getSelectedValues(), Arrays.asList("Option 1", "Option 3"));
+        Assert.assertTrue(element.select(new String[] { "Option 4" }));
+    }
+}
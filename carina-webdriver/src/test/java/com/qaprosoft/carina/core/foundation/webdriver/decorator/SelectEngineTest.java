@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.decorator;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.UnexpectedTagNameException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class SelectEngineTest {
+
+    @Test
+    public void testSelectByTextUsesCachedOptions() {
+        SelectStub stub = new SelectStub("select", false, 100);
+        SelectEngine select = new SelectEngine(stub, null);
+
+        Assert.assertTrue(select.selectByVisibleText("Option 42").isEmpty());
+        Assert.assertEquals(select.getSelectedTexts(), Arrays.asList("Option 42"));
+        Assert.assertEquals(stub.scripts, 3, "Options should be loaded by a single script!");
+        Assert.assertEquals(stub.clicks, 1);
+
+        select.selectByVisibleText("Option 7");
+        select.selectByVisibleText("Option 7");
+        Assert.assertEquals(select.getSelectedTexts(), Arrays.asList("Option 7"));
+        Assert.assertEquals(stub.scripts, 6, "Cached options should be reused!");
+        Assert.assertEquals(stub.clicks, 2, "Selected option should not be clicked!");
+    }
+
+    @Test
+    public void testSelectFirstMatchingOption() {
+        SelectEngine select = new SelectEngine(new SelectStub("select", false, 30), null);
+
+        select.selectFirst(text -> text.contains("Option 2"), "partial text");
+        Assert.assertEquals(select.getSelectedTexts(), Arrays.asList("Option 2"));
+
+        select.selectByIndex(15);
+        Assert.assertEquals(select.getSelectedTexts(), Arrays.asList("Option 15"));
+
+        Assert.assertThrows(NoSuchElementException.class, () -> select.selectFirst(text -> text.isEmpty(), "empty text"));
+        Assert.assertThrows(NoSuchElementException.class, () -> select.selectByIndex(30));
+    }
+
+    @Test
+    public void testSelectFirstMatchingTextInMultipleSelect() {
+        SelectStub stub = new SelectStub("select", true, 10);
+        stub.options.add(new Option("Option 2"));
+        SelectEngine select = new SelectEngine(stub, null);
+
+        // all options with the text of the first matching one are selected as by visible text
+        select.selectFirst(text -> text.startsWith("Option 2"), "partial text");
+        Assert.assertEquals(select.getSelectedTexts(), Arrays.asList("Option 2", "Option 2"));
+        Assert.assertEquals(stub.clicks, 2);
+    }
+
+    @Test
+    public void testMultipleSelectInOneBatch() {
+        SelectStub stub = new SelectStub("select", true, 10);
+        SelectEngine select = new SelectEngine(stub, null);
+
+        select.selectByVisibleText("Option 1");
+        int before = stub.scripts;
+        Assert.assertTrue(select.selectByVisibleText("Option 1", "Option 3", "Option 5").isEmpty());
+        Assert.assertEquals(stub.scripts - before, 1, "All options should be resolved by a single script!");
+        Assert.assertEquals(stub.clicks, 3, "Already selected option should not be clicked!");
+        Assert.assertEquals(select.getSelectedTexts(), Arrays.asList("Option 1", "Option 3", "Option 5"));
+    }
+
+    @Test
+    public void testMissingValuesAreReported() {
+        SelectEngine select = new SelectEngine(new SelectStub("select", true, 10), null);
+
+        // found values are selected even if others are missing
+        Assert.assertEquals(select.selectByVisibleText("Option 2", "Option 11", "Option 4"), Arrays.asList("Option 11"));
+        Assert.assertEquals(select.getSelectedTexts(), Arrays.asList("Option 2", "Option 4"));
+    }
+
+    @Test
+    public void testChangedOptionsAreReloaded() {
+        SelectStub stub = new SelectStub("select", false, 5);
+        SelectEngine select = new SelectEngine(stub, null);
+        Assert.assertEquals(select.getOptionTexts().size(), 5);
+
+        // dependent select is refilled by the page
+        stub.options.add(0, new Option("  Please   select "));
+        Assert.assertTrue(select.selectByVisibleText("Option 3").isEmpty());
+        Assert.assertEquals(select.getSelectedTexts(), Arrays.asList("Option 3"));
+        Assert.assertEquals(select.getOptionTexts().get(0), "Please select", "Option texts should be normalized!");
+    }
+
+    @Test
+    public void testNotSelectElement() {
+        SelectEngine select = new SelectEngine(new SelectStub("div", false, 0), null);
+        Assert.assertThrows(UnexpectedTagNameException.class, () -> select.selectByVisibleText("Option 1"));
+    }
+
+    static class Option {
+        private final String text;
+        private boolean selected;
+
+        Option(String text) {
+            this.text = text;
+        }
+
+        private String getNormalizedText() {
+            return text.replaceAll("\\s+", " ").trim();
+        }
+    }
+
+    /**
+     * Executes the scripts of {@link SelectEngine} against the list of options.
+     */
+    static class SelectStub implements JavascriptExecutor {
+        final List<Option> options = new ArrayList<>();
+        private final String tag;
+        private final boolean multiple;
+        int scripts;
+        int clicks;
+
+        SelectStub(String tag, boolean multiple, int count) {
+            this.tag = tag;
+            this.multiple = multiple;
+            for (int i = 0; i < count; i++) {
+                options.add(new Option("Option " + i));
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object executeScript(String script, Object... args) {
+            scripts++;
+            if (SelectEngine.OPTIONS_SCRIPT.equals(script)) {
+                Map<String, Object> result = new LinkedHashMap<>();
+                if (!"select".equals(tag)) {
+                    result.put("tag", tag.toUpperCase());
+                    return result;
+                }
+                List<String> texts = new ArrayList<>();
+                options.forEach(option -> texts.add(option.getNormalizedText()));
+                result.put("tag", tag);
+                result.put("multiple", multiple);
+                result.put("options", texts);
+                return result;
+            }
+            if (SelectEngine.SELECTED_SCRIPT.equals(script)) {
+                List<String> texts = new ArrayList<>();
+                options.stream().filter(option -> option.selected).forEach(option -> texts.add(option.getNormalizedText()));
+                return texts;
+            }
+            if (SelectEngine.RESOLVE_SCRIPT.equals(script)) {
+                List<Integer> indexes = (List<Integer>) args[1];
+                List<String> texts = (List<String>) args[2];
+                List<Object> result = new ArrayList<>();
+                for (int i = 0; i < indexes.size(); i++) {
+                    if (indexes.get(i) >= options.size()) {
+                        return null;
+                    }
+                    Option option = options.get(indexes.get(i));
+                    if (texts.get(i) != null && !option.getNormalizedText().equals(texts.get(i))) {
+                        return null;
+                    }
+                    result.add(Arrays.asList(toElement(option), option.selected));
+                }
+                return result;
+            }
+            throw new UnsupportedOperationException(script);
+        }
+
+        @Override
+        public Object executeAsyncScript(String script, Object... args) {
+            throw new UnsupportedOperationException(script);
+        }
+
+        private WebElement toElement(Option option) {
+            return (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { WebElement.class }, (proxy, method, args) -> {
+                if (!"click".equals(method.getName())) {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+                clicks++;
+                if (!multiple) {
+                    options.forEach(o -> o.selected = false);
+                }
+                option.selected = true;
+                return null;
+            });
+        }
+    }
+}
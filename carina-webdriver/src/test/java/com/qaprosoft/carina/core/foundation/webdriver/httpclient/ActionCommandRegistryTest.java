@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.httpclient;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class ActionCommandRegistryTest {
+
+    @AfterMethod(alwaysRun = true)
+    public void clear() {
+        ActionCommandRegistry.reset();
+    }
+
+    @Test
+    public void testCommandsAreAttributedToCurrentAction() {
+        // command outside of any action
+        ActionCommandRegistry.record("get");
+
+        String previous = ActionCommandRegistry.start("check");
+        ActionCommandRegistry.record("isElementSelected");
+
+        // nested click of the check action
+        String nested = ActionCommandRegistry.start("click");
+        ActionCommandRegistry.record("clickElement");
+        ActionCommandRegistry.finish(nested);
+
+        ActionCommandRegistry.record("getElementAttribute");
+        ActionCommandRegistry.finish(previous);
+        ActionCommandRegistry.record("quit");
+
+        Assert.assertEquals(ActionCommandRegistry.getActions("check"), 1);
+        Assert.assertEquals(ActionCommandRegistry.getCommands("check"), 2);
+        Assert.assertEquals(ActionCommandRegistry.getCommands("click"), 1);
+        Assert.assertEquals(ActionCommandRegistry.getCommands("type"), 0);
+    }
+
+    @Test
+    public void testStatistics() {
+        for (int i = 0; i < 2; i++) {
+            String previous = ActionCommandRegistry.start("click");
+            ActionCommandRegistry.record("clickElement");
+            ActionCommandRegistry.finish(previous);
+        }
+        ActionCommandRegistry.recordFallback("click");
+
+        Assert.assertEquals(ActionCommandRegistry.getFallbacks("click"), 1);
+        Assert.assertTrue(ActionCommandRegistry.getStatistics().contains("click: 2 action(s), 2 command(s), 1.00 per action, 1 fallback(s)"),
+                ActionCommandRegistry.getStatistics());
+    }
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.httpclient;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CommandLatencyHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        Assert.assertEquals(CommandLatencyHistogram.getBucket(0), 0);
+        Assert.assertEquals(CommandLatencyHistogram.getBucket(1), 0);
+        Assert.assertEquals(CommandLatencyHistogram.getBucket(2), 1);
+        Assert.assertEquals(CommandLatencyHistogram.getBucket(3), 2);
+        Assert.assertEquals(CommandLatencyHistogram.getBucket(4), 2);
+        Assert.assertEquals(CommandLatencyHistogram.getBucket(1025), 11);
+        Assert.assertEquals(CommandLatencyHistogram.getBucket(Long.MAX_VALUE), CommandLatencyHistogram.BUCKETS - 1);
+    }
+
+    @Test
+    public void testPercentiles() {
+        CommandLatencyHistogram histogram = new CommandLatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(10);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(1000);
+        }
+
+        Assert.assertEquals(histogram.getCount(), 100);
+        Assert.assertEquals(histogram.getMean(), 109);
+        Assert.assertEquals(histogram.getMax(), 1000);
+        Assert.assertEquals(histogram.getPercentile(50), 16);
+        Assert.assertEquals(histogram.getPercentile(90), 16);
+        Assert.assertEquals(histogram.getPercentile(99), 1000);
+    }
+
+    @Test
+    public void testRegistry() {
+        CommandLatencyRegistry.record("node1:4444", "findElement", 5);
+        CommandLatencyRegistry.record("node1:4444", "findElement", 7);
+        CommandLatencyRegistry.record("node2:4444", "click", 100);
+
+        Assert.assertEquals(CommandLatencyRegistry.getHistogram("node1:4444", "findElement").getCount(), 2);
+        Assert.assertNull(CommandLatencyRegistry.getHistogram("node2:4444", "findElement"));
+        Assert.assertTrue(CommandLatencyRegistry.getStatistics().contains("node2:4444: 1 command(s), 100 ms total"));
+    }
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.httpclient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.remote.SessionId;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.R;
+import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
+import com.sun.net.httpserver.HttpServer;
+
+public class SessionNodeResolverTest {
+    private HttpServer server;
+    private HttpServer appium;
+    private URL hub;
+    private URL appiumHub;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger appiumRequests = new AtomicInteger();
+
+    @BeforeClass
+    public void startGrid() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/grid/api/testsession", exchange -> {
+            requests.incrementAndGet();
+            String query = exchange.getRequestURI().getQuery();
+            byte[] body = (query.endsWith("=grid-session")
+                    ? "{\"success\": true, \"proxyId\": \"http://10.0.0.7:5555\"}"
+                    : "{\"success\": false, \"msg\": \"Cannot find test slot running session\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        hub = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/wd/hub");
+
+        // server without grid session API
+        appium = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        appium.createContext("/", exchange -> {
+            appiumRequests.incrementAndGet();
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        appium.start();
+        appiumHub = new URL("http://127.0.0.1:" + appium.getAddress().getPort() + "/wd/hub");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopGrid() {
+        server.stop(0);
+        appium.stop(0);
+    }
+
+    @BeforeMethod
+    public void enableResolution() {
+        R.CONFIG.put("grid_node_resolution", "true", true);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void clear() {
+        R.CONFIG.clearTestProperties();
+    }
+
+    @Test
+    public void testGridSessionIsResolvedOnce() {
+        requests.set(0);
+        SessionId session = new SessionId("grid-session");
+        // hub is used until node is resolved in background
+        Assert.assertEquals(SessionNodeResolver.getNode(hub, session), toNode(hub));
+        Assert.assertEquals(waitForNode(hub, session), "10.0.0.7:5555");
+        Assert.assertEquals(requests.get(), 1, "Node should be resolved once per session!");
+
+        SessionNodeResolver.remove(session);
+        SessionNodeResolver.getNode(hub, session);
+        waitForNode(hub, session);
+        Assert.assertEquals(requests.get(), 2, "Node of the removed session should be resolved again!");
+        SessionNodeResolver.remove(session);
+    }
+
+    @Test
+    public void testServerIsNodeOutOfGrid() {
+        String node = toNode(hub);
+        SessionId session = new SessionId("finished-session");
+        Assert.assertEquals(SessionNodeResolver.getNode(hub, session), node);
+        CommonUtils.pause(0.3);
+        Assert.assertEquals(SessionNodeResolver.getNode(hub, session), node);
+        Assert.assertEquals(SessionNodeResolver.getNode(hub, null), node);
+        Assert.assertEquals(SessionNodeResolver.getNode(null, null), "unknown");
+        SessionNodeResolver.remove(session);
+    }
+
+    @Test
+    public void testServerWithoutGridApiIsSkipped() {
+        Assert.assertEquals(SessionNodeResolver.getNode(appiumHub, new SessionId("appium-session-1")), toNode(appiumHub));
+        for (int i = 0; i < 30 && appiumRequests.get() == 0; i++) {
+            CommonUtils.pause(0.1);
+        }
+        CommonUtils.pause(0.2);
+        Assert.assertEquals(SessionNodeResolver.getNode(appiumHub, new SessionId("appium-session-2")), toNode(appiumHub));
+        CommonUtils.pause(0.2);
+        Assert.assertEquals(appiumRequests.get(), 1, "Server without grid API should not be asked again!");
+    }
+
+    @Test
+    public void testResolutionIsDisabled() {
+        R.CONFIG.put("grid_node_resolution", "false", true);
+        requests.set(0);
+        SessionId session = new SessionId("grid-session");
+        Assert.assertEquals(SessionNodeResolver.getNode(hub, session), toNode(hub));
+        CommonUtils.pause(0.2);
+        Assert.assertEquals(requests.get(), 0, "Grid should not be asked when resolution is disabled!");
+    }
+
+    @Test
+    public void testLatencyIsRecordedPerNode() {
+        SessionId session = new SessionId("grid-session");
+        SessionNodeResolver.getNode(hub, session);
+        waitForNode(hub, session);
+        CommandLatencyRegistry.record(hub, session, "findElement", 5_000_000L);
+        Assert.assertEquals(CommandLatencyRegistry.getHistogram("10.0.0.7:5555", "findElement").getTotal(), 5);
+        SessionNodeResolver.remove(session);
+    }
+
+    private static String waitForNode(URL server, SessionId session) {
+        String node = SessionNodeResolver.getNode(server, session);
+        for (int i = 0; i < 30 && node.equals(toNode(server)); i++) {
+            CommonUtils.pause(0.1);
+            node = SessionNodeResolver.getNode(server, session);
+        }
+        return node;
+    }
+
+    private static String toNode(URL server) {
+        return server.getHost() + ":" + server.getPort();
+    }
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.listener;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.Messager;
+
+public class DriverListenerTest {
+
+    @Test
+    public void testMessagesAreRenderedOnDemand() {
+        AtomicInteger rendered = new AtomicInteger();
+        DriverListener.setMessages(() -> {
+            rendered.incrementAndGet();
+            return Messager.ELEMENT_CLICKED.getMessage("login");
+        }, null);
+        Assert.assertEquals(rendered.get(), 0, "Message is rendered before logging!");
+
+        Assert.assertEquals(DriverListener.getMessage(false), Messager.ELEMENT_CLICKED.getMessage("login"));
+        Assert.assertNull(DriverListener.getMessage(true));
+        Assert.assertEquals(rendered.get(), 1);
+
+        DriverListener.setMessages("opened", "not opened");
+        Assert.assertEquals(DriverListener.getMessage(true), "not opened");
+    }
+
+    @Test
+    public void testOnlyLoggedMessageIsRendered() {
+        AtomicInteger positive = new AtomicInteger();
+        AtomicInteger negative = new AtomicInteger();
+        DriverListener.setMessages(() -> Messager.ELEMENT_CLICKED.getMessage("login" + positive.incrementAndGet()),
+                () -> Messager.ELEMENT_NOT_CLICKED.getMessage("login" + negative.incrementAndGet()));
+
+        new DriverListener().afterClickOn(null, mock(WebDriver.class));
+        Assert.assertEquals(positive.get(), 1, "Message of the performed action should be rendered once!");
+        Assert.assertEquals(negative.get(), 0, "Failure message should not be rendered for successful action!");
+        Assert.assertNull(DriverListener.getMessage(false), "Messages should be reset after the action!");
+        Assert.assertNull(DriverListener.getMessage(true), "Messages should be reset after the action!");
+    }
+}
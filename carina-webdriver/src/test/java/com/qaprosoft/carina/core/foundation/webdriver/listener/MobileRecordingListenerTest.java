@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.listener;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.SessionId;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.report.ReportContext;
+import com.qaprosoft.carina.core.foundation.utils.common.CommonUtils;
+
+import io.appium.java_client.MobileCommand;
+import io.appium.java_client.android.AndroidStartScreenRecordingOptions;
+import io.appium.java_client.android.AndroidStopScreenRecordingOptions;
+
+public class MobileRecordingListenerTest {
+
+    @Test
+    public void testDecodeToFile() throws IOException {
+        byte[] video = new byte[1024 * 1024 + 7];
+        new Random(42).nextBytes(video);
+        File dir = Files.createTempDirectory("video").toFile();
+
+        File file = new File(dir, "session.mp4");
+        MobileRecordingListener.decodeToFile(Base64.getEncoder().encodeToString(video), file);
+
+        Assert.assertEquals(FileUtils.readFileToByteArray(file), video);
+        Assert.assertEquals(dir.list(), new String[] { "session.mp4" }, "Partial file should be renamed!");
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testStopRecordingThroughExecutor() throws IOException {
+        byte[] video = new byte[] { 0, 1, 2 };
+        List<String> commands = Collections.synchronizedList(new ArrayList<>());
+        MobileRecordingListener<AndroidStartScreenRecordingOptions, AndroidStopScreenRecordingOptions> listener = new MobileRecordingListener<>(
+                command -> {
+                    commands.add(command.getName());
+                    Response response = new Response(command.getSessionId());
+                    if (MobileCommand.STOP_RECORDING_SCREEN.equals(command.getName())) {
+                        response.setValue(Base64.getEncoder().encodeToString(video));
+                    }
+                    return response;
+                }, AndroidStartScreenRecordingOptions.startScreenRecordingOptions(),
+                AndroidStopScreenRecordingOptions.stopScreenRecordingOptions());
+
+        SessionId sessionId = new SessionId("recorded-session");
+        listener.afterEvent(new Command(sessionId, DriverCommand.GET_CURRENT_URL));
+        listener.beforeEvent(new Command(sessionId, DriverCommand.QUIT));
+        List<String> links = ReportContext.getTestVideoLinks(Collections.singletonList(sessionId.toString()));
+
+        for (int i = 0; i < 50 && MobileRecordingListener.isSaving(); i++) {
+            CommonUtils.pause(0.1);
+        }
+        File file = new File(ReportContext.getArtifactsFolder(), "recorded-session.mp4");
+        try {
+            Assert.assertEquals(commands, List.of(MobileCommand.START_RECORDING_SCREEN, MobileCommand.STOP_RECORDING_SCREEN));
+            Assert.assertEquals(FileUtils.readFileToByteArray(file), video);
+            Assert.assertEquals(links.size(), 1, "Saved video is not linked!");
+        } finally {
+            FileUtils.deleteQuietly(file);
+        }
+    }
+}
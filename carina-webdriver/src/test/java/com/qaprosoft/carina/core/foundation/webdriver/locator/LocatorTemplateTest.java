@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.locator;
+
+import java.lang.invoke.MethodHandles;
+import java.util.MissingFormatArgumentException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.By;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import io.appium.java_client.MobileBy;
+
+public class LocatorTemplateTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    @Test
+    public void testFormat() {
+        Assert.assertEquals(LocatorTemplate.of(By.xpath("//tr[%s]/td[text()='%s']")).format(false, 2, "name"),
+                By.xpath("//tr[2]/td[text()='name']"));
+        Assert.assertEquals(LocatorTemplate.of(By.id("row_%s")).format(false, 3), By.id("row_3"));
+        Assert.assertEquals(LocatorTemplate.of(By.name("field_%s")).format(false, "a"), By.name("field_a"));
+        Assert.assertEquals(LocatorTemplate.of(By.cssSelector("tr.row_%s")).format(false, 4), By.cssSelector("tr.row_4"));
+        Assert.assertEquals(LocatorTemplate.of(MobileBy.AccessibilityId("item %s")).format(false, "x"), MobileBy.AccessibilityId("item x"));
+        Assert.assertEquals(LocatorTemplate.of(MobileBy.iOSClassChain("**/Cell[`name == '%s'`]")).format(false, "x"),
+                MobileBy.iOSClassChain("**/Cell[`name == 'x'`]"));
+        Assert.assertEquals(LocatorTemplate.of(MobileBy.AndroidUIAutomator("text(\"%s\")")).format(false, "x"),
+                MobileBy.AndroidUIAutomator("text(\"x\")"));
+    }
+
+    @Test
+    public void testFormatWithSpecifiers() {
+        Assert.assertEquals(LocatorTemplate.of(By.xpath("//tr[%d]/td[contains(@style, '100%%')]")).format(false, 5),
+                By.xpath("//tr[5]/td[contains(@style, '100%')]"));
+        Assert.assertEquals(LocatorTemplate.of(By.xpath("//td[text()='%2$s %1$s']")).format(false, "a", "b"), By.xpath("//td[text()='b a']"));
+        Assert.assertEquals(LocatorTemplate.of(By.xpath("//td[text()='%s']")).format(false, (Object) null), By.xpath("//td[text()='null']"));
+        Assert.assertEquals(LocatorTemplate.of(By.xpath("//td")).format(false, "unused"), By.xpath("//td"));
+    }
+
+    @Test(expectedExceptions = MissingFormatArgumentException.class)
+    public void testFormatWithMissingArgument() {
+        LocatorTemplate.of(By.xpath("//tr[%s]/td[%s]")).format(false, 1);
+    }
+
+    @Test
+    public void testFormatCaseInsensitive() {
+        By by = LocatorTemplate.of(By.xpath("//div[text() = '%s']")).format(true, "Text text");
+        Assert.assertEquals(by, ExtendedElementLocator.toCaseInsensitive("//div[text() = 'Text text']"));
+    }
+
+    @Test
+    public void testFormattedLocatorIsReused() {
+        LocatorTemplate template = LocatorTemplate.of(By.xpath("//tr[%s]"));
+        Assert.assertSame(LocatorTemplate.of(By.xpath("//tr[%s]")), template, "Template should be shared for the same locator!");
+        Assert.assertSame(template.format(false, 1), template.format(false, 1), "Locator should be reused for the same arguments!");
+        Assert.assertNotEquals(template.format(false, 1), template.format(false, 2));
+
+        template = LocatorTemplate.of(By.xpath("//td[text() = '%s']"));
+        Assert.assertNotEquals(template.format(false, "Text"), template.format(true, "Text"), "Case sensitivity should be a part of the key!");
+    }
+
+    @Test
+    public void testUnsupportedLocator() {
+        Assert.assertNull(LocatorTemplate.of(MobileBy.iOSNsPredicateString("name == '%s'")).format(false, "x"));
+        Assert.assertNull(LocatorTemplate.of(By.partialLinkText("text")).formatForListItem(1));
+    }
+
+    @Test
+    public void testFormatForListItem() {
+        Assert.assertEquals(LocatorTemplate.of(By.xpath("//tr")).formatForListItem(2), By.xpath("//tr[2]"));
+        Assert.assertEquals(LocatorTemplate.of(By.id("row")).formatForListItem(3), By.id("row[3]"));
+        Assert.assertEquals(LocatorTemplate.of(By.cssSelector("tr")).formatForListItem(4), By.cssSelector("tr:nth-child(4)"));
+        Assert.assertEquals(LocatorTemplate.of(MobileBy.AccessibilityId("item")).formatForListItem(5), MobileBy.AccessibilityId("item[5]"));
+    }
+
+    @Test
+    public void testFormatCost() {
+        By by = By.xpath("//table[@id='%s']//tr[%s]/td[contains(text(), '%s')]");
+        int locators = 100000;
+        // warm up both paths
+        formatLocators(by, locators, true);
+        formatLocators(by, locators, false);
+
+        long legacyTime = formatLocators(by, locators, false);
+        long templateTime = formatLocators(by, locators, true);
+        LOGGER.info(String.format("Formatting of %d locators: String.format %d ms, template %d ms.", locators, legacyTime / 1000000,
+                templateTime / 1000000));
+    }
+
+    private long formatLocators(By by, int locators, boolean template) {
+        long start = System.nanoTime();
+        for (int i = 0; i < locators; i++) {
+            // 100 rows of the table are formatted repeatedly
+            Object[] args = { "results", i % 100, "value" };
+            if (template) {
+                LocatorTemplate.of(by).format(false, args);
+            } else {
+                By.xpath(String.format(StringUtils.remove(by.toString(), "By.xpath: "), args));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+}
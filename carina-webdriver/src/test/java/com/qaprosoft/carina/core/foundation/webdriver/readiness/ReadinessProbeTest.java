@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.readiness;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriverException;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.webdriver.readiness.ReadinessProbe.Signal;
+
+public class ReadinessProbeTest {
+
+    @Test
+    public void testScriptContainsConfiguredSignalsOnly() {
+        String script = new ReadinessProbe().getScript();
+        Assert.assertTrue(script.contains("document.readyState"));
+        Assert.assertTrue(script.contains("jQuery.active"));
+        Assert.assertFalse(script.contains("__carinaReadiness"), "Requests should not be tracked by default!");
+        Assert.assertFalse(script.contains("getAnimations"), "Animations should not be probed by default!");
+
+        script = new ReadinessProbe(Signal.XHR).withHook("it's ready", "window.app.ready").getScript();
+        Assert.assertFalse(script.contains("document.readyState"));
+        Assert.assertTrue(script.contains("s.xhr = t.xhr;"));
+        Assert.assertFalse(script.contains("s.fetch = t.fetch;"));
+        Assert.assertTrue(script.contains("s.hooks['it\\'s ready'] = !!(window.app.ready);"));
+    }
+
+    @Test
+    public void testScriptIsEvaluated() throws Exception {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName("nashorn");
+        if (engine == null) {
+            throw new SkipException("JavaScript engine is not available");
+        }
+
+        engine.eval("var document = {readyState: 'complete', getAnimations: function() { return []; }};"
+                + "function XMLHttpRequest() {} XMLHttpRequest.prototype.send = function() {};"
+                + "var window = {jQuery: {active: 2}, XMLHttpRequest: XMLHttpRequest, app: {ready: false}};");
+        ReadinessProbe probe = new ReadinessProbe(Signal.values()).withHook("app", "window.app.ready").withHook("broken", "window.none.ready");
+        Map<?, ?> state = (Map<?, ?>) engine.eval("(function() {" + probe.getScript() + "})()");
+
+        Assert.assertEquals(state.get("readyState"), "complete");
+        Assert.assertEquals(((Number) state.get("jQuery")).intValue(), 2);
+        Assert.assertEquals(((Number) state.get("xhr")).intValue(), 0);
+        Assert.assertEquals(((Number) state.get("animations")).intValue(), 0);
+        Map<?, ?> hooks = (Map<?, ?>) state.get("hooks");
+        Assert.assertEquals(hooks.get("app"), false);
+        Assert.assertEquals(hooks.get("broken"), false, "Failed hook should be treated as not ready!");
+    }
+
+    @Test
+    public void testWaitUntilReady() {
+        MockExecutor executor = new MockExecutor(
+                state("loading", 0, true),
+                state("interactive", 2, true),
+                state("interactive", 2, true),
+                state("complete", 1, false),
+                state("complete", 0, true));
+        ReadinessProbe probe = new ReadinessProbe().withHook("app", "window.app.ready");
+
+        Assert.assertTrue(probe.waitUntilReady(executor.get(), 10), "Page should be ready!");
+        Assert.assertEquals(executor.calls.get(), 5, "Single script should be executed per poll!");
+
+        List<ReadinessState> timeline = probe.getTimeline();
+        Assert.assertEquals(timeline.size(), 4, "Only state changes should be kept in the timeline: " + timeline);
+        Assert.assertEquals(timeline.get(0).getReadyState(), "loading");
+        Assert.assertEquals(timeline.get(1).getJQueryActive(), 2);
+        Assert.assertEquals(timeline.get(2).getHooks(), Collections.singletonMap("app", false));
+        Assert.assertTrue(timeline.get(3).isReady());
+    }
+
+    @Test
+    public void testWaitUntilReadyTimeout() {
+        MockExecutor executor = new MockExecutor(state("interactive", 0, true));
+        ReadinessProbe probe = new ReadinessProbe();
+
+        long start = System.currentTimeMillis();
+        Assert.assertFalse(probe.waitUntilReady(executor.get(), 1), "Page should not be ready!");
+        Assert.assertTrue(System.currentTimeMillis() - start >= 1000, "Probe should wait till the timeout!");
+        // 50 + 100 + 200 + 400 + 250 ms intervals instead of polling every 50 ms
+        Assert.assertTrue(executor.calls.get() <= 7, "Polling interval should grow while page is busy: " + executor.calls.get());
+        Assert.assertEquals(probe.getTimeline().size(), 1);
+    }
+
+    @Test
+    public void testFailedProbeIsNotReady() {
+        MockExecutor executor = new MockExecutor(new WebDriverException("navigation"), state("complete", 0, true));
+        ReadinessProbe probe = new ReadinessProbe();
+
+        Assert.assertTrue(probe.waitUntilReady(executor.get(), 10));
+        Assert.assertEquals(probe.getTimeline().size(), 2);
+        Assert.assertFalse(probe.getTimeline().get(0).isReady());
+        Assert.assertEquals(probe.getTimeline().get(0).getError(), "WebDriverException");
+    }
+
+    @Test
+    public void testLostSessionIsRethrown() {
+        MockExecutor executor = new MockExecutor(new WebDriverException("invalid session id"), state("complete", 0, true));
+        ReadinessProbe probe = new ReadinessProbe();
+
+        Assert.assertThrows(WebDriverException.class, () -> probe.waitUntilReady(executor.get(), 10));
+        Assert.assertEquals(executor.calls.get(), 1, "Lost session should not be polled!");
+    }
+
+    private static Map<String, Object> state(String readyState, long jQuery, boolean app) {
+        Map<String, Object> state = new HashMap<>();
+        state.put("readyState", readyState);
+        state.put("jQuery", jQuery);
+        state.put("hooks", Collections.singletonMap("app", app));
+        return state;
+    }
+
+    /**
+     * Returns prepared results one by one, the last one is returned for all next calls.
+     */
+    private static class MockExecutor {
+        private final List<Object> results;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        MockExecutor(Object... results) {
+            this.results = Arrays.asList(results);
+        }
+
+        JavascriptExecutor get() {
+            Iterator<Object> iterator = results.iterator();
+            Object[] last = new Object[1];
+            return (JavascriptExecutor) Proxy.newProxyInstance(JavascriptExecutor.class.getClassLoader(), new Class[] { JavascriptExecutor.class },
+                    (proxy, method, args) -> {
+                        calls.incrementAndGet();
+                        Object result = iterator.hasNext() ? (last[0] = iterator.next()) : last[0];
+                        if (result instanceof RuntimeException) {
+                            throw (RuntimeException) result;
+                        }
+                        return result;
+                    });
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.screenshot;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ScreenshotDeduplicatorTest {
+
+    @Test
+    public void testSimilarImagesHaveCloseHashes() {
+        BufferedImage image = createImage(Color.WHITE, 100);
+        BufferedImage similar = createImage(Color.WHITE, 102);
+        BufferedImage different = createImage(Color.BLACK, 700);
+
+        long hash = ScreenshotDeduplicator.hash(image);
+        Assert.assertEquals(ScreenshotDeduplicator.distance(hash, ScreenshotDeduplicator.hash(image)), 0);
+        Assert.assertTrue(ScreenshotDeduplicator.distance(hash, ScreenshotDeduplicator.hash(similar)) <= 4);
+        Assert.assertTrue(ScreenshotDeduplicator.distance(hash, ScreenshotDeduplicator.hash(different)) > 4);
+    }
+
+    @Test
+    public void testDistinctScreensDoNotCollide() {
+        // text lines are mostly thin details which are lost when only few source pixels are sampled
+        BufferedImage screen = createTextScreen(1, false);
+        BufferedImage withCaret = createTextScreen(1, true);
+        BufferedImage another = createTextScreen(2, false);
+
+        long hash = ScreenshotDeduplicator.hash(screen);
+        Assert.assertTrue(ScreenshotDeduplicator.distance(hash, ScreenshotDeduplicator.hash(withCaret)) <= 4,
+                "Screens with tiny difference should have close hashes!");
+        Assert.assertTrue(ScreenshotDeduplicator.distance(hash, ScreenshotDeduplicator.hash(another)) > 4,
+                "Different screens should have different hashes!");
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        Assert.assertFalse(ScreenshotDeduplicator.isEnabled());
+    }
+
+    private static BufferedImage createTextScreen(long seed, boolean caret) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(1080, 1920, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(0, 0, image.getWidth(), 160);
+        graphics.setColor(Color.DARK_GRAY);
+        for (int y = 220; y < 1900; y += 60) {
+            // words of the text line
+            for (int x = 40; x < 1000;) {
+                int width = 20 + random.nextInt(120);
+                graphics.fillRect(x, y - 24, Math.min(width, 1040 - x), 24);
+                x += width + 12;
+            }
+        }
+        if (caret) {
+            graphics.fillRect(500, 700, 3, 40);
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private static BufferedImage createImage(Color background, int offset) {
+        BufferedImage image = new BufferedImage(1080, 1920, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(background);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.setColor(Color.GRAY);
+        graphics.fillRect(offset, offset, 400, 300);
+        graphics.fillRect(200, 1200, 600, 200);
+        graphics.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.screenshot;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ru.yandex.qatools.ashot.comparison.ImageDiff;
+import ru.yandex.qatools.ashot.comparison.ImageDiffer;
+
+public class TiledImageDifferTest {
+
+    @Test
+    public void testDiffIsTheSameAsAShot() {
+        BufferedImage expected = createImage(1000, 700, 1);
+        BufferedImage actual = copy(expected);
+        // 10x10 square of different pixels and a few ones inside color tolerance
+        for (int x = 300; x < 310; x++) {
+            for (int y = 500; y < 510; y++) {
+                actual.setRGB(x, y, ~actual.getRGB(x, y));
+            }
+        }
+        actual.setRGB(5, 5, actual.getRGB(5, 5) ^ 0x07);
+
+        ImageDiff aShotDiff = new ImageDiffer().makeDiff(expected, actual);
+        ImageDiffResult diff = new TiledImageDiffer().withTileSize(64).makeDiff(expected, actual);
+
+        Assert.assertTrue(diff.hasDiff());
+        Assert.assertEquals(diff.getDiffPixels(), aShotDiff.getDiffSize());
+        Assert.assertEquals(diff.getDiffBounds(), new Rectangle(300, 500, 10, 10));
+        Assert.assertTrue(diff.isComplete());
+        Assert.assertEquals(diff.getMarkedImage().getRGB(305, 505), java.awt.Color.RED.getRGB());
+    }
+
+    @Test
+    public void testNoDiff() {
+        BufferedImage expected = createImage(300, 300, 2);
+        ImageDiffResult diff = new TiledImageDiffer().makeDiff(expected, copy(expected));
+        Assert.assertFalse(diff.hasDiff());
+        Assert.assertNull(diff.getDiffBounds());
+    }
+
+    @Test
+    public void testIgnoredRegionsAndThreshold() {
+        BufferedImage expected = createImage(500, 500, 3);
+        BufferedImage actual = copy(expected);
+        for (int x = 0; x < 100; x++) {
+            actual.setRGB(x, 0, ~actual.getRGB(x, 0));
+        }
+        actual.setRGB(400, 400, ~actual.getRGB(400, 400));
+
+        ImageDiffResult diff = new TiledImageDiffer().withIgnoredRegion(new Rectangle(0, 0, 500, 10)).makeDiff(expected, actual);
+        Assert.assertEquals(diff.getDiffPixels(), 1);
+        Assert.assertTrue(diff.hasDiff());
+
+        diff = new TiledImageDiffer().withIgnoredRegion(new Rectangle(0, 0, 500, 10)).withPixelThreshold(1).makeDiff(expected, actual);
+        Assert.assertFalse(diff.hasDiff());
+    }
+
+    @Test
+    public void testEarlyExitAndSizeDifference() {
+        BufferedImage expected = createImage(600, 600, 4);
+        BufferedImage actual = createImage(600, 650, 5);
+
+        ImageDiffResult diff = new TiledImageDiffer().withTileSize(32).withEarlyExit(true).makeDiff(expected, actual);
+        Assert.assertTrue(diff.hasDiff());
+        Assert.assertTrue(diff.isSizeDifferent());
+        Assert.assertNull(diff.getMarkedImage());
+
+        diff = new TiledImageDiffer().makeDiff(expected, actual);
+        Assert.assertTrue(diff.isComplete());
+        Assert.assertEquals(diff.getComparedPixels(), 600 * 650);
+    }
+
+    private static BufferedImage createImage(int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        copy.getGraphics().drawImage(image, 0, 0, null);
+        return copy;
+    }
+}
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.snapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import org.openqa.selenium.json.Json;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal Appium-like server which serves recorded page sources of native screens. Elements are located on the current
+ * screen on server side, click onto any element opens the next screen. Every request is delayed to emulate real device.
+ */
+class AppiumStub implements AutoCloseable {
+    private static final String SESSION_ID = "stub-session";
+    private static final String ELEMENT_KEY = "element-6066-11e4-a52e-4f735466cecf";
+
+    private final HttpServer server;
+    private final long latency;
+    private final List<String> pages = new ArrayList<>();
+    private final Map<String, Element> elements = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> commands = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int page = 0;
+
+    AppiumStub(long latency, String... pageResources) throws IOException {
+        this.latency = latency;
+        for (String resource : pageResources) {
+            try (InputStream is = getClass().getClassLoader().getResourceAsStream(resource)) {
+                pages.add(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    URL getUrl() throws IOException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/wd/hub");
+    }
+
+    int getRequests() {
+        return requests.get();
+    }
+
+    int getRequests(String command) {
+        AtomicInteger count = commands.get(command);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Opens the first screen.
+     */
+    void restart() {
+        page = 0;
+    }
+
+    void reset() {
+        restart();
+        requests.set(0);
+        commands.clear();
+    }
+
+    @Override
+    public String toString() {
+        return commands.toString();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath().replaceFirst("^/wd/hub", "");
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+        int status = 200;
+        Object value = null;
+        if ("POST".equals(method) && "/session".equals(path)) {
+            record("newSession");
+            Map<String, Object> capabilities = new HashMap<>();
+            capabilities.put("platformName", "Android");
+            capabilities.put("automationName", "UiAutomator2");
+            Map<String, Object> session = new HashMap<>();
+            session.put("sessionId", SESSION_ID);
+            session.put("capabilities", capabilities);
+            value = session;
+        } else if (path.endsWith("/source")) {
+            record("getPageSource");
+            value = pages.get(page);
+        } else if (path.endsWith("/context")) {
+            record("getContext");
+            value = "NATIVE_APP";
+        } else if (path.endsWith("/element") || path.endsWith("/elements")) {
+            record("findElement");
+            Map<?, ?> locator = new Json().toType(body, Map.class);
+            List<Element> found = find(String.valueOf(locator.get("using")), String.valueOf(locator.get("value")));
+            if (path.endsWith("/elements")) {
+                List<Object> references = new ArrayList<>();
+                for (Element element : found) {
+                    references.add(register(element));
+                }
+                value = references;
+            } else if (found.isEmpty()) {
+                status = 404;
+                Map<String, Object> error = new HashMap<>();
+                error.put("error", "no such element");
+                error.put("message", "An element could not be located on the page using the given search parameters.");
+                error.put("stacktrace", "");
+                value = error;
+            } else {
+                value = register(found.get(0));
+            }
+        } else if (path.endsWith("/displayed")) {
+            record("isElementDisplayed");
+            Element element = elements.get(path.split("/")[4]);
+            value = element != null && !"false".equals(element.getAttribute("displayed"));
+        } else if (path.endsWith("/click")) {
+            record("clickElement");
+            page = Math.min(page + 1, pages.size() - 1);
+        } else {
+            record(method + " " + path);
+        }
+
+        byte[] response = new Json().toJson(Collections.singletonMap("value", value)).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+    }
+
+    private void record(String command) {
+        commands.computeIfAbsent(command, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private Map<String, String> register(Element element) {
+        String id = String.valueOf(elements.size() + 1);
+        elements.put(id, element);
+        return Collections.singletonMap(ELEMENT_KEY, id);
+    }
+
+    private List<Element> find(String using, String value) {
+        List<Element> found = new ArrayList<>();
+        try {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                    .parse(new InputSource(new StringReader(pages.get(page))));
+            NodeList nodes;
+            if ("xpath".equals(using)) {
+                nodes = (NodeList) XPathFactory.newInstance().newXPath().evaluate(value, document, XPathConstants.NODESET);
+            } else {
+                nodes = document.getElementsByTagName("*");
+            }
+            for (int i = 0; i < nodes.getLength(); i++) {
+                Element element = (Element) nodes.item(i);
+                if ("xpath".equals(using)
+                        || "accessibility id".equals(using) && value.equals(element.getAttribute("content-desc"))
+                        || "id".equals(using) && element.getAttribute("resource-id").endsWith(":id/" + value)) {
+                    found.add(element);
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to find element by " + using + ": " + value, e);
+        }
+        return found;
+    }
+}
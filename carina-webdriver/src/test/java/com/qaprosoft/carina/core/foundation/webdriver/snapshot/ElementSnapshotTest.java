@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.snapshot;
+
+import static org.mockito.Mockito.mock;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.ContextAware;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+import org.openqa.selenium.support.pagefactory.ByChained;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.performance.RunStatistics;
+import com.qaprosoft.carina.core.foundation.utils.R;
+import com.qaprosoft.carina.core.foundation.webdriver.AbstractElementTest;
+import com.qaprosoft.carina.core.foundation.webdriver.DriverHelper;
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.ExtendedWebElement;
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.annotations.CaseInsensitiveXPath;
+import com.qaprosoft.carina.core.gui.AbstractUIObject;
+
+import io.appium.java_client.MobileBy;
+
+public class ElementSnapshotTest extends AbstractElementTest {
+
+    private static final String PAGE_SOURCE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<hierarchy rotation=\"0\">"
+            + "<android.widget.FrameLayout class=\"android.widget.FrameLayout\" displayed=\"true\">"
+            + "<android.widget.TextView class=\"android.widget.TextView\" text=\"Welcome\" resource-id=\"com.app:id/title\" displayed=\"true\"/>"
+            + "<android.widget.Button class=\"android.widget.Button\" text=\"Login\" content-desc=\"login\" enabled=\"true\" displayed=\"true\"/>"
+            + "<android.widget.TextView class=\"android.widget.TextView\" text=\"Error\" resource-id=\"com.app:id/error\" displayed=\"false\"/>"
+            + "</android.widget.FrameLayout>"
+            + "</hierarchy>";
+
+    @AfterMethod(alwaysRun = true)
+    public void clearTestProperties() {
+        R.CONFIG.clearTestProperties();
+    }
+
+    @Test
+    public void testNativeSnapshot() {
+        MockDriver mock = new MockDriver("NATIVE_APP");
+        List<ElementState> states = new ElementSnapshot(mock.driver()).withAttributes("enabled", "checked").take(
+                By.id("title"),
+                MobileBy.AccessibilityId("login"),
+                By.xpath("//*[@text='Error']"),
+                By.xpath("//*[@text='Logout']"),
+                By.className("android.widget.Button"),
+                MobileBy.AndroidUIAutomator("new UiSelector().text(\"Login\")"),
+                By.xpath("//*[@text='broken'"));
+
+        Assert.assertEquals(mock.pageSources.get(), 1, "Page source should be requested once per snapshot!");
+        Assert.assertEquals(mock.contexts.get(), 1);
+
+        Assert.assertTrue(states.get(0).isVisible());
+        Assert.assertEquals(states.get(0).getText(), "Welcome");
+
+        Assert.assertTrue(states.get(1).isVisible());
+        Assert.assertEquals(states.get(1).getText(), "Login");
+        Assert.assertEquals(states.get(1).getAttribute("enabled"), "true");
+        Assert.assertNull(states.get(1).getAttribute("checked"));
+
+        Assert.assertTrue(states.get(2).isPresent());
+        Assert.assertFalse(states.get(2).isVisible());
+        Assert.assertEquals(states.get(2).getText(), "");
+
+        Assert.assertTrue(states.get(3).isResolved());
+        Assert.assertFalse(states.get(3).isPresent());
+
+        Assert.assertEquals(states.get(4).getText(), "Login");
+
+        Assert.assertFalse(states.get(5).isResolved(), "UIAutomator locator can't be evaluated locally!");
+        Assert.assertFalse(states.get(6).isResolved(), "Invalid xpath should be verified by driver!");
+    }
+
+    @Test
+    public void testWebSnapshot() {
+        Map<String, Object> visible = new HashMap<>();
+        visible.put("present", true);
+        visible.put("visible", true);
+        visible.put("text", "Sign in");
+        visible.put("attributes", Collections.singletonMap("class", "btn"));
+
+        MockDriver mock = new MockDriver(null);
+        mock.scriptResult = Arrays.asList(visible, Collections.singletonMap("present", false), null);
+
+        List<ElementState> states = new ElementSnapshot(mock.driver()).withAttributes("class").take(
+                By.cssSelector("button.btn"),
+                By.id("error"),
+                By.xpath("//div["),
+                new ByChained(By.id("form"), By.tagName("input")));
+
+        Assert.assertEquals(mock.scripts.get(), 1, "Elements should be captured by a single script!");
+        Assert.assertEquals(mock.scriptLocators, Arrays.asList(Arrays.asList("css", "button.btn"), Arrays.asList("id", "error"),
+                Arrays.asList("xpath", "//div[")));
+
+        Assert.assertTrue(states.get(0).isVisible());
+        Assert.assertEquals(states.get(0).getText(), "Sign in");
+        Assert.assertEquals(states.get(0).getAttribute("class"), "btn");
+        Assert.assertTrue(states.get(1).isResolved());
+        Assert.assertFalse(states.get(1).isPresent());
+        Assert.assertFalse(states.get(2).isResolved(), "Failed locator should be verified by driver!");
+        Assert.assertFalse(states.get(3).isResolved(), "Chained locator can't be captured by script!");
+    }
+
+    @Test
+    public void testDriverHelperUsesSnapshots() {
+        R.CONFIG.put("element_loading_strategy", "BY_VISIBILITY", true);
+        MockDriver mock = new MockDriver("NATIVE_APP");
+        WebDriver driver = mock.driver();
+        DriverHelper helper = new DriverHelper(driver);
+
+        ExtendedWebElement logout = new ExtendedWebElement(By.xpath("//*[@text='Logout']"), "logout", driver);
+        ExtendedWebElement error = new ExtendedWebElement(By.id("error"), "error", driver);
+        ExtendedWebElement login = new ExtendedWebElement(MobileBy.AccessibilityId("login"), "login", driver);
+        ExtendedWebElement title = new ExtendedWebElement(By.id("title"), "title", driver);
+
+        long commands = ElementSnapshot.getCommands();
+        Assert.assertSame(helper.returnAnyPresentElement(1, logout, error, login, title), login);
+        Assert.assertEquals(mock.pageSources.get(), 1, "Elements should be verified by a single page source!");
+        Assert.assertEquals(ElementSnapshot.getCommands() - commands, 1, "Single page source command is expected!");
+
+        Assert.assertTrue(helper.isAnyElementPresent(1, error, title));
+        Assert.assertTrue(helper.allElementsPresent(1, login, title));
+        Assert.assertEquals(mock.pageSources.get(), 3);
+
+        Assert.assertFalse(helper.allElementsPresent(1, login, logout));
+        Assert.assertTrue(mock.pageSources.get() > 4, "Missing element should be polled till timeout!");
+    }
+
+    @Test
+    public void testDriverHelperUsesLoadingStrategy() {
+        MockDriver mock = new MockDriver("NATIVE_APP");
+        WebDriver driver = mock.driver();
+        DriverHelper helper = new DriverHelper(driver);
+
+        // invisible element is loaded by presence
+        ExtendedWebElement error = new ExtendedWebElement(By.id("error"), "error", driver);
+        Assert.assertTrue(helper.allElementsPresent(1, error));
+        Assert.assertEquals(mock.pageSources.get(), 1);
+
+        R.CONFIG.put("element_loading_strategy", "BY_VISIBILITY", true);
+        ExtendedWebElement visibleError = new ExtendedWebElement(By.id("error"), "error", driver);
+        Assert.assertFalse(helper.allElementsPresent(1, visibleError));
+    }
+
+    @Test
+    public void testElementMissingInSnapshotIsConfirmedByDriver() {
+        MockDriver mock = new MockDriver("NATIVE_APP");
+        // element is not a part of the page source, i.e. it is rendered in a web view
+        mock.liveElements.put(By.id("banner"), mock(WebElement.class));
+        WebDriver driver = mock.driver();
+        DriverHelper helper = new DriverHelper(driver);
+
+        ExtendedWebElement banner = new ExtendedWebElement(By.id("banner"), "banner", driver);
+        long fallbacks = ElementSnapshot.getFallbacks();
+        Assert.assertTrue(helper.allElementsPresent(1, banner), "Element absent in snapshot should be verified by driver!");
+        Assert.assertEquals(ElementSnapshot.getFallbacks() - fallbacks, 1, "Driver should be used for the last poll only!");
+        Assert.assertTrue(mock.pageSources.get() > 1, "Element should be polled by snapshots till timeout!");
+    }
+
+    @Test
+    public void testScopedElementsAreUnresolved() {
+        MockDriver mock = new MockDriver("NATIVE_APP");
+        WebDriver driver = mock.driver();
+
+        // child of another element
+        ExtendedWebElement child = new ExtendedWebElement(By.id("title"), "title", driver);
+        child.setSearchContext(mock(WebElement.class));
+        TestPage page = new TestPage(driver);
+        Assert.assertTrue(page.title.isCaseInsensitive());
+
+        List<ElementState> states = new ElementSnapshot(driver).take(child, page.title,
+                new ExtendedWebElement(By.id("title"), "title", driver));
+        Assert.assertFalse(states.get(0).isResolved(), "Child element can't be verified on the whole page!");
+        Assert.assertFalse(states.get(1).isResolved(), "Case insensitive element can't be verified on the page source!");
+        Assert.assertTrue(states.get(2).isVisible());
+    }
+
+    @Test
+    public void testStatisticsAreReportedByRunStatistics() {
+        MockDriver mock = new MockDriver("NATIVE_APP");
+        new ElementSnapshot(mock.driver()).take(By.id("title"));
+        Assert.assertTrue(RunStatistics.getStatistics().contains(ElementSnapshot.getStatistics()));
+
+        RunStatistics.reset();
+        Assert.assertTrue(ElementSnapshot.isEmpty());
+    }
+
+    public static class TestPage extends AbstractUIObject {
+        @CaseInsensitiveXPath
+        @FindBy(xpath = "//*[@text='Welcome']")
+        private ExtendedWebElement title;
+
+        public TestPage(WebDriver driver) {
+            super(driver);
+        }
+    }
+
+    private static class MockDriver {
+        private final String context;
+        private final AtomicInteger pageSources = new AtomicInteger();
+        private final AtomicInteger contexts = new AtomicInteger();
+        private final AtomicInteger scripts = new AtomicInteger();
+        private Object scriptResult;
+        private Object scriptLocators;
+        // elements found by driver calls
+        private final Map<By, WebElement> liveElements = new HashMap<>();
+
+        MockDriver(String context) {
+            this.context = context;
+        }
+
+        WebDriver driver() {
+            Class<?>[] interfaces = context == null ? new Class[] { WebDriver.class, JavascriptExecutor.class }
+                    : new Class[] { WebDriver.class, ContextAware.class };
+            // carina drivers are always wrapped into EventFiringWebDriver
+            return new EventFiringWebDriver((WebDriver) Proxy.newProxyInstance(WebDriver.class.getClassLoader(), interfaces,
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                        case "getContext":
+                            contexts.incrementAndGet();
+                            return context;
+                        case "getPageSource":
+                            pageSources.incrementAndGet();
+                            return PAGE_SOURCE;
+                        case "executeScript":
+                            scripts.incrementAndGet();
+                            scriptLocators = ((Object[]) args[1])[0];
+                            return scriptResult;
+                        case "findElement":
+                            if (!liveElements.containsKey(args[0])) {
+                                throw new NoSuchElementException("Unable to locate element: " + args[0]);
+                            }
+                            return liveElements.get(args[0]);
+                        case "findElements":
+                            return liveElements.containsKey(args[0]) ? Arrays.asList(liveElements.get(args[0])) : Collections.emptyList();
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "MockDriver";
+                        default:
+                            return null;
+                        }
+                    }));
+        }
+    }
+}
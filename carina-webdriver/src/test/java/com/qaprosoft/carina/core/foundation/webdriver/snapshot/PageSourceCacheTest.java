@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright 2013-2020 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.snapshot;
+
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.performance.RunStatistics;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.utils.R;
+import com.qaprosoft.carina.core.foundation.webdriver.AbstractElementTest;
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.ExtendedWebElement;
+import com.qaprosoft.carina.core.foundation.webdriver.listener.EventFiringAppiumCommandExecutor;
+import com.qaprosoft.carina.core.foundation.webdriver.listener.PageSourceCacheListener;
+
+import io.appium.java_client.MobileBy;
+import io.appium.java_client.MobileCommand;
+import io.appium.java_client.android.AndroidDriver;
+import io.appium.java_client.android.AndroidElement;
+
+public class PageSourceCacheTest extends AbstractElementTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final String LOGIN_PAGE = "page_source/login.xml";
+    private static final String CATALOG_PAGE = "page_source/catalog.xml";
+
+    @AfterMethod(alwaysRun = true)
+    public void disableCache() {
+        R.CONFIG.clearTestProperties();
+        PageSourceCache.reset();
+    }
+
+    @Test
+    public void testDocumentLocators() throws Exception {
+        PageSourceDocument document;
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(LOGIN_PAGE)) {
+            document = PageSourceDocument.parse(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        Assert.assertNotNull(document);
+
+        Assert.assertEquals(document.find(By.id("title"), Collections.emptyList()).getText(), "Welcome back");
+        Assert.assertEquals(document.find(By.id("com.example.shop:id/email"), Collections.emptyList()).getText(), "Email");
+        Assert.assertEquals(document.find(MobileBy.AccessibilityId("sign_in"), Collections.singletonList("clickable"))
+                .getAttribute("clickable"), "true");
+        Assert.assertEquals(document.find(By.xpath("//*[@text='Sign in']"), Collections.emptyList()).getText(), "Sign in");
+        Assert.assertEquals(document.find(By.xpath("//android.widget.Button[@content-desc=\"sign_in\"]"), Collections.emptyList()).getText(),
+                "Sign in");
+        Assert.assertFalse(document.find(By.xpath("//android.widget.TextView[@content-desc='sign_in']"), Collections.emptyList()).isPresent());
+        Assert.assertEquals(document.find(By.xpath("//*[contains(@text, 'Forgot')]"), Collections.emptyList()).getText(), "Forgot password?");
+        Assert.assertEquals(document.find(By.className("android.widget.EditText"), Collections.emptyList()).getText(), "Email");
+
+        ElementState error = document.find(By.id("error"), Collections.emptyList());
+        Assert.assertTrue(error.isPresent());
+        Assert.assertFalse(error.isVisible());
+
+        Assert.assertFalse(document.find(By.xpath("//*[matches(@text, 'Sign.*')]"), Collections.emptyList()).isResolved(),
+                "XPath 2.0 should be evaluated by server!");
+        Assert.assertFalse(document.find(MobileBy.AndroidUIAutomator("new UiSelector().text(\"Sign in\")"), Collections.emptyList()).isResolved());
+    }
+
+    @Test
+    public void testCacheIsInvalidatedByActions() throws Exception {
+        R.CONFIG.put(Parameter.NATIVE_PAGE_SOURCE_TTL.getKey(), "60000", true);
+        try (AppiumStub stub = new AppiumStub(0, LOGIN_PAGE, CATALOG_PAGE)) {
+            WebDriver driver = createDriver(stub);
+            try {
+                Assert.assertTrue(new ExtendedWebElement(By.id("title"), "title", driver).isElementPresent(1));
+                Assert.assertTrue(new ExtendedWebElement(By.id("email"), "email", driver).isElementPresent(1));
+                Assert.assertTrue(new ExtendedWebElement(MobileBy.AccessibilityId("sign_in"), "sign in", driver).isPresent(1));
+                Assert.assertEquals(stub.getRequests("getPageSource"), 1, "Page source should be reused till the next action!");
+                Assert.assertEquals(stub.getRequests("findElement"), 0);
+
+                driver.findElement(MobileBy.AccessibilityId("sign_in")).click();
+
+                Assert.assertTrue(new ExtendedWebElement(MobileBy.AccessibilityId("cart"), "cart", driver).isElementPresent(1));
+                Assert.assertEquals(stub.getRequests("getPageSource"), 2, "Page source should be fetched after the action!");
+
+                // negative result of the cached page source is confirmed by a fresh one
+                Assert.assertFalse(new ExtendedWebElement(By.id("email"), "email", driver).isElementPresent(0));
+                Assert.assertEquals(stub.getRequests("getPageSource"), 3);
+                Assert.assertEquals(stub.getRequests("getContext"), 1, "Context should be detected once per session!");
+            } finally {
+                driver.quit();
+            }
+        }
+        Assert.assertTrue(PageSourceCache.getInvalidations() > 0);
+    }
+
+    @Test
+    public void testScopedElementsAreVerifiedByDriver() throws Exception {
+        R.CONFIG.put(Parameter.NATIVE_PAGE_SOURCE_TTL.getKey(), "60000", true);
+        try (AppiumStub stub = new AppiumStub(0, LOGIN_PAGE, CATALOG_PAGE)) {
+            WebDriver driver = createDriver(stub);
+            try {
+                // the whole page contains title but the form doesn't
+                ExtendedWebElement title = new ExtendedWebElement(By.id("title"), "title", driver);
+                title.setSearchContext(driver.findElement(By.id("email")));
+                stub.reset();
+
+                title.isElementPresent(0);
+                title.isPresent(0);
+                Assert.assertEquals(stub.getRequests("getPageSource"), 0, "Child element should not be verified on the whole page source!");
+                Assert.assertTrue(stub.getRequests("findElement") > 0);
+            } finally {
+                driver.quit();
+            }
+        }
+    }
+
+    @Test
+    public void testStatisticsAreReportedByRunStatistics() throws Exception {
+        R.CONFIG.put(Parameter.NATIVE_PAGE_SOURCE_TTL.getKey(), "60000", true);
+        try (AppiumStub stub = new AppiumStub(0, LOGIN_PAGE, CATALOG_PAGE)) {
+            WebDriver driver = createDriver(stub);
+            try {
+                Assert.assertTrue(new ExtendedWebElement(By.id("title"), "title", driver).isElementPresent(1));
+            } finally {
+                driver.quit();
+            }
+        }
+        Assert.assertTrue(RunStatistics.getStatistics().contains(PageSourceCache.getStatistics()));
+        RunStatistics.reset();
+        Assert.assertTrue(PageSourceCache.isEmpty());
+    }
+
+    /**
+     * Executes the same login and catalog steps verifying elements by server round trips and by cached page source.
+     */
+    @Test
+    public void testBenchmark() throws Exception {
+        int iterations = 3;
+        try (AppiumStub stub = new AppiumStub(10, LOGIN_PAGE, CATALOG_PAGE)) {
+            R.CONFIG.put(Parameter.NATIVE_PAGE_SOURCE_TTL.getKey(), "0", true);
+            long start = System.currentTimeMillis();
+            int remoteRequests = runSteps(stub, iterations);
+            long remoteTime = System.currentTimeMillis() - start;
+
+            R.CONFIG.put(Parameter.NATIVE_PAGE_SOURCE_TTL.getKey(), "60000", true);
+            start = System.currentTimeMillis();
+            int cachedRequests = runSteps(stub, iterations);
+            long cachedTime = System.currentTimeMillis() - start;
+
+            LOGGER.info(String.format("%d login and catalog steps: %d requests in %d ms by server round trips, %d requests in %d ms by cached page source",
+                    iterations, remoteRequests, remoteTime, cachedRequests, cachedTime));
+            LOGGER.info(PageSourceCache.getStatistics());
+            Assert.assertTrue(cachedRequests * 2 < remoteRequests, "Cached page source should save at least half of requests!");
+        }
+    }
+
+    private int runSteps(AppiumStub stub, int iterations) throws Exception {
+        WebDriver driver = createDriver(stub);
+        try {
+            stub.reset();
+            for (int i = 0; i < iterations; i++) {
+                stub.restart();
+                for (By by : new By[] { By.id("title"), By.id("email"), By.id("password"), MobileBy.AccessibilityId("sign_in") }) {
+                    Assert.assertTrue(new ExtendedWebElement(by, by.toString(), driver).isElementPresent(1), by + " is not present!");
+                }
+                driver.findElement(MobileBy.AccessibilityId("sign_in")).click();
+
+                for (By by : new By[] { By.id("title"), MobileBy.AccessibilityId("cart"), MobileBy.AccessibilityId("sign_out"),
+                        By.xpath("//*[@text='Product 3']") }) {
+                    Assert.assertTrue(new ExtendedWebElement(by, by.toString(), driver).isElementPresent(1), by + " is not present!");
+                }
+                driver.findElement(MobileBy.AccessibilityId("cart")).click();
+            }
+            LOGGER.info("Appium stub requests: " + stub);
+            return stub.getRequests();
+        } finally {
+            driver.quit();
+        }
+    }
+
+    private WebDriver createDriver(AppiumStub stub) throws Exception {
+        EventFiringAppiumCommandExecutor ce = new EventFiringAppiumCommandExecutor(MobileCommand.commandRepository, stub.getUrl(),
+                HttpClient.Factory.createDefault());
+        ce.getListeners().add(new PageSourceCacheListener());
+        DesiredCapabilities capabilities = new DesiredCapabilities();
+        capabilities.setCapability("platformName", "Android");
+        return new AndroidDriver<AndroidElement>(ce, capabilities);
+    }
+}